@@ -0,0 +1,29 @@
+package com.arbmonitor.api.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Default executor of @Async methods, sized by app.async.*. Kept on platform threads for CPU-bound
+     * work such as OCR; blocking I/O stages use the executors of {@link IoExecutorRegistry} instead.
+     */
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(@Value("${app.async.core-pool-size:5}") int corePoolSize,
+                                                          @Value("${app.async.max-pool-size:10}") int maxPoolSize,
+                                                          @Value("${app.async.queue-capacity:100}") int queueCapacity,
+                                                          @Value("${app.async.thread-name-prefix:AsyncExecutor-}") String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(Math.max(corePoolSize, maxPoolSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
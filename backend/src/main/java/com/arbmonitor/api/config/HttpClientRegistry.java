@@ -0,0 +1,304 @@
+package com.arbmonitor.api.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pooled Apache HttpClient 5 instances for all outbound HTTP, one per named profile (Apify, OpenAI,
+ * landing pages, media CDN). Each profile has its own connection pool with keep-alive, a per-route
+ * limit and connect / read / pool-wait / total timeouts, configured under app.http.{profile}.
+ */
+@Component
+public class HttpClientRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientRegistry.class);
+
+    public static final String APIFY = "apify";
+    public static final String OPENAI = "openai";
+    public static final String LANDING = "landing";
+    public static final String MEDIA = "media";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, ClientProfile> profiles = new LinkedHashMap<>();
+
+    // Cancels requests that outlive their profile's total timeout
+    private final ScheduledExecutorService deadlineScheduler = createDeadlineScheduler();
+
+    // Deadline of the request the current thread is executing through a RestTemplate
+    private final ThreadLocal<ScheduledFuture<?>> pendingDeadline = new ThreadLocal<>();
+
+    /**
+     * Settings and pooled client of one profile
+     */
+    public static class ClientProfile {
+        private final String name;
+        private final int maxTotal;
+        private final int maxPerRoute;
+        private final long connectTimeoutMs;
+        private final long readTimeoutMs;
+        private final long totalTimeoutMs;
+        private PoolingHttpClientConnectionManager connectionManager;
+        private CloseableHttpClient httpClient;
+
+        ClientProfile(String name, int maxTotal, int maxPerRoute, long connectTimeoutMs,
+                      long readTimeoutMs, long totalTimeoutMs) {
+            this.name = name;
+            this.maxTotal = maxTotal;
+            this.maxPerRoute = maxPerRoute;
+            this.connectTimeoutMs = connectTimeoutMs;
+            this.readTimeoutMs = readTimeoutMs;
+            this.totalTimeoutMs = totalTimeoutMs;
+        }
+
+        public String getName() { return name; }
+        public int getMaxTotal() { return maxTotal; }
+        public int getMaxPerRoute() { return maxPerRoute; }
+        public long getConnectTimeoutMs() { return connectTimeoutMs; }
+        public long getReadTimeoutMs() { return readTimeoutMs; }
+        public long getTotalTimeoutMs() { return totalTimeoutMs; }
+        public CloseableHttpClient getHttpClient() { return httpClient; }
+    }
+
+    @PostConstruct
+    public void initProfiles() {
+        // name, max connections, per host, connect, read, total (ms)
+        register(profile(APIFY, 20, 10, 10_000, 60_000, 120_000));
+        register(profile(OPENAI, 20, 20, 10_000, 120_000, 180_000));
+        register(profile(LANDING, 50, 4, 10_000, 30_000, 45_000));
+        register(profile(MEDIA, 32, 8, 10_000, 60_000, 300_000));
+    }
+
+    @PreDestroy
+    public void closeProfiles() {
+        deadlineScheduler.shutdownNow();
+        for (ClientProfile profile : profiles.values()) {
+            profile.httpClient.close(CloseMode.GRACEFUL);
+        }
+    }
+
+    /**
+     * A RestTemplate backed by the pooled client of a profile. Each call returns a new template, so
+     * callers may add converters or interceptors; the connection pool is shared.
+     */
+    public RestTemplate restTemplate(String profileName) {
+        ClientProfile profile = getProfile(profileName);
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(profile.httpClient) {
+            @Override
+            protected void postProcessHttpRequest(ClassicHttpRequest request) {
+                if (request instanceof HttpUriRequestBase cancellable) {
+                    pendingDeadline.set(scheduleDeadline(cancellable, profile));
+                }
+            }
+        };
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        // The deadline covers reading the body too, so it is only disarmed when the response is closed
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                return new DeadlineResponse(response, pendingDeadline.get());
+            } catch (IOException | RuntimeException e) {
+                ScheduledFuture<?> deadline = pendingDeadline.get();
+                if (deadline != null) {
+                    deadline.cancel(false);
+                }
+                throw e;
+            } finally {
+                pendingDeadline.remove();
+            }
+        });
+        return restTemplate;
+    }
+
+    /**
+     * Pooled client of a profile, for callers that stream responses themselves
+     */
+    public CloseableHttpClient httpClient(String profileName) {
+        return getProfile(profileName).httpClient;
+    }
+
+    public ClientProfile getProfile(String profileName) {
+        ClientProfile profile = profiles.get(profileName);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown HTTP client profile: " + profileName);
+        }
+        return profile;
+    }
+
+    /**
+     * Abort the request if it is still running when the profile's total timeout elapses; the returned
+     * future can be cancelled once the exchange has finished
+     */
+    public ScheduledFuture<?> scheduleDeadline(HttpUriRequestBase request, ClientProfile profile) {
+        return deadlineScheduler.schedule(() -> {
+            if (!request.isCancelled() && request.cancel()) {
+                logger.warn("Cancelled {} request to {} after total timeout of {} ms",
+                           profile.name, request.getRequestUri(), profile.totalTimeoutMs);
+            }
+        }, profile.totalTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Connection pool usage per profile
+     */
+    public Map<String, Object> getPoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (ClientProfile profile : profiles.values()) {
+            PoolStats pool = profile.connectionManager.getTotalStats();
+            Map<String, Object> profileStats = new LinkedHashMap<>();
+            profileStats.put("leased", pool.getLeased());
+            profileStats.put("available", pool.getAvailable());
+            profileStats.put("pending", pool.getPending());
+            profileStats.put("max", pool.getMax());
+            profileStats.put("maxPerRoute", profile.maxPerRoute);
+            profileStats.put("routes", profile.connectionManager.getRoutes().size());
+            stats.put(profile.name, profileStats);
+        }
+        return stats;
+    }
+
+    private ClientProfile profile(String name, int maxTotal, int maxPerRoute, long connectTimeoutMs,
+                                  long readTimeoutMs, long totalTimeoutMs) {
+        String prefix = "app.http." + name + ".";
+        return new ClientProfile(name,
+            environment.getProperty(prefix + "max-total", Integer.class, maxTotal),
+            environment.getProperty(prefix + "max-per-route", Integer.class, maxPerRoute),
+            environment.getProperty(prefix + "connect-timeout-ms", Long.class, connectTimeoutMs),
+            environment.getProperty(prefix + "read-timeout-ms", Long.class, readTimeoutMs),
+            environment.getProperty(prefix + "total-timeout-ms", Long.class, totalTimeoutMs));
+    }
+
+    private void register(ClientProfile profile) {
+        long keepAliveSeconds = environment.getProperty("app.http.keep-alive-seconds", Long.class, 30L);
+        long poolWaitMs = environment.getProperty("app.http.pool-wait-ms", Long.class, 30_000L);
+
+        profile.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(Math.max(1, profile.maxTotal))
+            .setMaxConnPerRoute(Math.max(1, profile.maxPerRoute))
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(profile.connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(profile.readTimeoutMs))
+                .setTimeToLive(TimeValue.ofMinutes(5))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build())
+            .build();
+
+        profile.httpClient = HttpClients.custom()
+            .setConnectionManager(profile.connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolWaitMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(profile.readTimeoutMs))
+                .build())
+            // Reuse connections for at most keep-alive-seconds unless the server asks for less
+            .setKeepAliveStrategy((response, context) -> {
+                TimeValue requested = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                long cappedMs = Math.min(requested.toMilliseconds(), TimeUnit.SECONDS.toMillis(keepAliveSeconds));
+                return TimeValue.ofMilliseconds(cappedMs);
+            })
+            .evictIdleConnections(TimeValue.ofSeconds(keepAliveSeconds))
+            .evictExpiredConnections()
+            .build();
+
+        if (meterRegistry != null) {
+            new PoolingHttpClientConnectionManagerMetricsBinder(profile.connectionManager, profile.name,
+                Tags.of("profile", profile.name)).bindTo(meterRegistry);
+        }
+
+        profiles.put(profile.name, profile);
+        logger.info("HTTP client profile '{}' ready (max {} connections, {} per host, timeouts {}/{}/{} ms)",
+                   profile.name, profile.maxTotal, profile.maxPerRoute,
+                   profile.connectTimeoutMs, profile.readTimeoutMs, profile.totalTimeoutMs);
+    }
+
+    /**
+     * Response that disarms the request deadline once it has been read and closed
+     */
+    private static class DeadlineResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final ScheduledFuture<?> deadline;
+
+        DeadlineResponse(ClientHttpResponse delegate, ScheduledFuture<?> deadline) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            delegate.close();
+        }
+    }
+
+    private static ScheduledExecutorService createDeadlineScheduler() {
+        ScheduledThreadPoolExecutor scheduler = (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(1, runnable -> {
+            Thread thread = new Thread(runnable, "HttpDeadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
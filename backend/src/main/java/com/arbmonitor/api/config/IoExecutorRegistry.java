@@ -0,0 +1,268 @@
+package com.arbmonitor.api.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executors for the blocking I/O stages (Apify, OpenAI, landing pages, media downloads), one per named
+ * profile like {@link HttpClientRegistry}. On Java 21+ each task gets a virtual thread, so tasks parked
+ * on network or JDBC calls hold no platform thread; on older runtimes a platform pool sized to the limit
+ * is used. Either way a profile runs at most max-concurrent tasks and rejects beyond queue-capacity
+ * waiting ones, configured under app.executors.{profile}.
+ */
+@Component
+public class IoExecutorRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(IoExecutorRegistry.class);
+
+    public static final String APIFY = HttpClientRegistry.APIFY;
+    public static final String OPENAI = HttpClientRegistry.OPENAI;
+    public static final String LANDING = HttpClientRegistry.LANDING;
+    public static final String MEDIA = HttpClientRegistry.MEDIA;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, IoExecutor> executors = new LinkedHashMap<>();
+
+    /**
+     * Concurrency-limited executor of one profile, with queue and activity counters
+     */
+    public static class IoExecutor implements Executor {
+        private final String name;
+        private final int maxConcurrent;
+        private final int queueCapacity;
+        private final boolean virtualThreads;
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger peakActive = new AtomicInteger();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        IoExecutor(String name, int maxConcurrent, int queueCapacity, ThreadFactory virtualThreadFactory) {
+            this.name = name;
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+            this.queueCapacity = Math.max(0, queueCapacity);
+            this.virtualThreads = virtualThreadFactory != null;
+            this.permits = new Semaphore(this.maxConcurrent);
+            this.delegate = virtualThreads
+                ? newThreadPerTaskExecutor(virtualThreadFactory)
+                : newPlatformPool(name, this.maxConcurrent);
+        }
+
+        /**
+         * Run the task once one of the profile's slots is free; rejects it when max-concurrent tasks
+         * are running and queue-capacity more are already waiting
+         */
+        @Override
+        public void execute(Runnable task) {
+            if (queued.incrementAndGet() + active.get() > maxConcurrent + queueCapacity) {
+                queued.decrementAndGet();
+                rejected.incrementAndGet();
+                throw new RejectedExecutionException(String.format(
+                    "%s executor saturated (%d running, %d queued)", name, active.get(), queued.get()));
+            }
+
+            try {
+                delegate.execute(() -> runWithPermit(task));
+            } catch (RejectedExecutionException e) {
+                queued.decrementAndGet();
+                rejected.incrementAndGet();
+                throw e;
+            }
+        }
+
+        private void runWithPermit(Runnable task) {
+            try {
+                // Waiting here parks a virtual thread; platform pools never wait as they have one thread per permit
+                permits.acquire();
+            } catch (InterruptedException e) {
+                queued.decrementAndGet();
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            queued.decrementAndGet();
+            peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                task.run();
+                completed.incrementAndGet();
+            } catch (RuntimeException | Error e) {
+                failed.incrementAndGet();
+                throw e;
+            } finally {
+                active.decrementAndGet();
+                permits.release();
+            }
+        }
+
+        public String getName() { return name; }
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public boolean isVirtualThreads() { return virtualThreads; }
+        public int getQueued() { return queued.get(); }
+        public int getActive() { return active.get(); }
+
+        Map<String, Object> getStats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("virtualThreads", virtualThreads);
+            stats.put("maxConcurrent", maxConcurrent);
+            stats.put("queueCapacity", queueCapacity);
+            stats.put("active", active.get());
+            stats.put("queued", queued.get());
+            stats.put("peakActive", peakActive.get());
+            stats.put("completed", completed.get());
+            stats.put("failed", failed.get());
+            stats.put("rejected", rejected.get());
+            return stats;
+        }
+
+        void shutdown() {
+            delegate.shutdown();
+        }
+
+        void awaitTermination(long deadlineNanos) {
+            try {
+                if (!delegate.awaitTermination(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    delegate.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                delegate.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void initExecutors() {
+        boolean preferVirtual = environment.getProperty("app.executors.virtual-threads", Boolean.class, true);
+
+        // name, max concurrent tasks, max waiting tasks
+        register(profile(APIFY, 4, 100, preferVirtual));
+        register(profile(OPENAI, 8, 10_000, preferVirtual));
+        register(profile(LANDING, 16, 10_000, preferVirtual));
+        register(profile(MEDIA, 8, 50_000, preferVirtual));
+    }
+
+    /**
+     * Let running tasks finish for up to 30 seconds in total, then interrupt the rest
+     */
+    @PreDestroy
+    public void shutdownExecutors() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (IoExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+        for (IoExecutor executor : executors.values()) {
+            executor.awaitTermination(deadline);
+        }
+    }
+
+    public IoExecutor executor(String profileName) {
+        IoExecutor executor = executors.get(profileName);
+        if (executor == null) {
+            throw new IllegalArgumentException("Unknown executor profile: " + profileName);
+        }
+        return executor;
+    }
+
+    /**
+     * Running and waiting tasks per profile
+     */
+    public Map<String, Object> getExecutorStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (IoExecutor executor : executors.values()) {
+            stats.put(executor.name, executor.getStats());
+        }
+        return stats;
+    }
+
+    private IoExecutor profile(String name, int maxConcurrent, int queueCapacity, boolean preferVirtual) {
+        String prefix = "app.executors." + name + ".";
+        ThreadFactory virtualThreadFactory = preferVirtual ? virtualThreadFactory("io-" + name + "-") : null;
+        return new IoExecutor(name,
+            environment.getProperty(prefix + "max-concurrent", Integer.class, maxConcurrent),
+            environment.getProperty(prefix + "queue-capacity", Integer.class, queueCapacity),
+            virtualThreadFactory);
+    }
+
+    private void register(IoExecutor executor) {
+        if (meterRegistry != null) {
+            Gauge.builder("app.executor.active", executor, IoExecutor::getActive)
+                .tag("profile", executor.name).register(meterRegistry);
+            Gauge.builder("app.executor.queued", executor, IoExecutor::getQueued)
+                .tag("profile", executor.name).register(meterRegistry);
+        }
+
+        executors.put(executor.name, executor);
+        logger.info("Executor profile '{}' ready ({} threads, max {} running, {} queued)",
+                   executor.name, executor.virtualThreads ? "virtual" : "platform",
+                   executor.maxConcurrent, executor.queueCapacity);
+    }
+
+    /**
+     * Factory of named virtual threads, or null on runtimes before Java 21. Looked up reflectively so
+     * the application still builds and runs on Java 17.
+     */
+    private static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newThreadPerTaskExecutor(ThreadFactory threadFactory) {
+        try {
+            Method factoryMethod = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) factoryMethod.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads available but no thread-per-task executor", e);
+        }
+    }
+
+    private static ExecutorService newPlatformPool(String name, int threads) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        // Admission is bounded by IoExecutor itself, so the pool's own queue is unbounded
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "io-" + name + "-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -7,9 +7,11 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class RestTemplateConfig {
     
+    /**
+     * Shared template for Apify API calls, backed by the pooled "apify" HTTP client profile
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(HttpClientRegistry httpClientRegistry) {
+        return httpClientRegistry.restTemplate(HttpClientRegistry.APIFY);
     }
 }
-
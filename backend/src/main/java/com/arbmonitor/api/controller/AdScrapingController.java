@@ -1,11 +1,18 @@
 package com.arbmonitor.api.controller;
 
+import com.arbmonitor.api.config.HttpClientRegistry;
+import com.arbmonitor.api.config.IoExecutorRegistry;
 import com.arbmonitor.api.dto.ScrapedAdWithAnalysisDTO;
 import com.arbmonitor.api.model.AdAnalysis;
 import com.arbmonitor.api.model.ScrapedAd;
+import com.arbmonitor.api.model.WorkJob;
 import com.arbmonitor.api.repository.AdAnalysisRepository;
 import com.arbmonitor.api.repository.ScrapedAdRepository;
+import com.arbmonitor.api.service.ApifyRunTracker;
 import com.arbmonitor.api.service.ApifyScrapingService;
+import com.arbmonitor.api.service.IngestionBenchmarkService;
+import com.arbmonitor.api.service.ProcessGovernor;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +45,21 @@ public class AdScrapingController {
     @Autowired
     private AdAnalysisRepository adAnalysisRepository;
     
+    @Autowired
+    private IngestionBenchmarkService ingestionBenchmarkService;
+    
+    @Autowired
+    private HttpClientRegistry httpClientRegistry;
+    
+    @Autowired
+    private IoExecutorRegistry ioExecutorRegistry;
+    
+    @Autowired
+    private ProcessGovernor processGovernor;
+    
+    @Autowired
+    private ApifyRunTracker apifyRunTracker;
+    
     /**
      * Get detailed ad information with compliance analysis
      */
@@ -172,14 +194,15 @@ public class AdScrapingController {
         try {
             logger.info("Triggering professional ad scraping for domain: {} using Apify", domainName);
             
-            // Start async scraping using Apify
-            apifyScrapingService.scrapeAdsUsingApify(domainName);
+            // Queue the scrape; a worker runs it and queues the compliance analysis afterwards
+            WorkJob job = apifyScrapingService.enqueueScrape(domainName);
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", String.format("Professional ad scraping started for domain: %s using Apify", domainName));
             response.put("status", "in_progress");
             response.put("method", "apify");
             response.put("domain", domainName);
+            response.put("jobId", job.getId());
             
             return ResponseEntity.accepted().body(response);
             
@@ -198,13 +221,14 @@ public class AdScrapingController {
         try {
             logger.info("Force refreshing ads for domain: {}", domainName);
             
-            // Start async refresh using Apify
-            apifyScrapingService.scrapeAdsUsingApify(domainName);
+            // Queue the scrape; a worker runs it and queues the compliance analysis afterwards
+            WorkJob job = apifyScrapingService.enqueueScrape(domainName);
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Ad refresh started for domain: " + domainName);
             response.put("status", "refreshing");
             response.put("domain", domainName);
+            response.put("jobId", job.getId());
             
             return ResponseEntity.accepted().body(response);
             
@@ -223,11 +247,12 @@ public class AdScrapingController {
         try {
             logger.info("Re-processing RAC extraction for domain: {}", domainName);
             
-            // Start async RAC re-processing
-            apifyScrapingService.reprocessRacForDomain(domainName);
+            // Queue one RAC job per ad without a RAC value
+            int queued = apifyScrapingService.reprocessRacForDomain(domainName).join();
             
             Map<String, Object> response = new HashMap<>();
             response.put("domain", domainName);
+            response.put("queuedAds", queued);
             response.put("message", "RAC re-processing started for domain: " + domainName);
             response.put("status", "processing");
             
@@ -342,6 +367,97 @@ public class AdScrapingController {
         }
     }
 
+    /**
+     * Compare rows/sec of the per-ad save loop and the batched upsert on synthetic ads
+     */
+    @PostMapping("/benchmark/ingestion")
+    public ResponseEntity<Map<String, Object>> benchmarkIngestion(@RequestParam(defaultValue = "500") int rows) {
+        try {
+            int boundedRows = Math.max(1, Math.min(rows, 10000));
+            logger.info("Running ingestion benchmark with {} rows", boundedRows);
+            return ResponseEntity.ok(ingestionBenchmarkService.run(boundedRows));
+        } catch (Exception e) {
+            logger.error("Error running ingestion benchmark: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to run ingestion benchmark: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Connection pool usage of the outbound HTTP client profiles (Apify, OpenAI, landing pages, media)
+     */
+    @GetMapping("/http-clients/stats")
+    public ResponseEntity<Map<String, Object>> getHttpClientStats() {
+        try {
+            return ResponseEntity.ok(httpClientRegistry.getPoolStats());
+        } catch (Exception e) {
+            logger.error("Error getting HTTP client stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get HTTP client stats: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Running and queued tasks of the blocking I/O executors (Apify, OpenAI, landing pages, media)
+     */
+    @GetMapping("/executors/stats")
+    public ResponseEntity<Map<String, Object>> getExecutorStats() {
+        try {
+            return ResponseEntity.ok(ioExecutorRegistry.getExecutorStats());
+        } catch (Exception e) {
+            logger.error("Error getting executor stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get executor stats: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Slot usage, queue depth and run times of the tesseract / ffmpeg processes
+     */
+    @GetMapping("/processes/stats")
+    public ResponseEntity<Map<String, Object>> getProcessStats() {
+        try {
+            return ResponseEntity.ok(processGovernor.getStats());
+        } catch (Exception e) {
+            logger.error("Error getting process stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get process stats: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Apify webhook callback for finished actor runs; the secret is the one added to the webhook URL
+     */
+    @PostMapping("/apify/webhook")
+    public ResponseEntity<Map<String, Object>> handleApifyWebhook(@RequestParam(required = false) String secret,
+                                                                  @RequestBody JsonNode payload) {
+        try {
+            if (!apifyRunTracker.onWebhook(payload, secret)) {
+                logger.warn("Rejected Apify webhook with invalid secret");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid webhook secret"));
+            }
+            return ResponseEntity.ok(Map.of("received", true));
+        } catch (Exception e) {
+            logger.error("Error handling Apify webhook: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to handle Apify webhook: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * In-flight Apify runs and how completed runs were detected (webhook or poll)
+     */
+    @GetMapping("/apify/runs/stats")
+    public ResponseEntity<Map<String, Object>> getApifyRunStats() {
+        try {
+            return ResponseEntity.ok(apifyRunTracker.getTrackerStats());
+        } catch (Exception e) {
+            logger.error("Error getting Apify run stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get Apify run stats: " + e.getMessage()));
+        }
+    }
+
     /**
      * Health check endpoint
      */
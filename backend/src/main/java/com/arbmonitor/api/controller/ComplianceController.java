@@ -1,6 +1,7 @@
 package com.arbmonitor.api.controller;
 
 import com.arbmonitor.api.model.AdAnalysis;
+import com.arbmonitor.api.model.ComplianceBatch;
 import com.arbmonitor.api.model.ComplianceRule;
 import com.arbmonitor.api.model.Domain;
 import com.arbmonitor.api.model.ScrapedAd;
@@ -11,9 +12,14 @@ import com.arbmonitor.api.repository.DomainRepository;
 import com.arbmonitor.api.repository.ScrapedAdRepository;
 import com.arbmonitor.api.repository.ViolationRepository;
 import com.arbmonitor.api.service.ComplianceAnalysisService;
+import com.arbmonitor.api.service.ComplianceBatchService;
+import com.arbmonitor.api.service.ComplianceCascadeEvaluationService;
+import com.arbmonitor.api.service.ComplianceRuleEngine;
+import com.arbmonitor.api.service.ComplianceTriageService;
 import com.arbmonitor.api.service.ComplianceRuleService;
 import com.arbmonitor.api.service.VideoAnalysisService;
 import com.arbmonitor.api.service.ImageAnalysisService;
+import com.arbmonitor.api.service.OpenAIAnalysisService;
 import com.arbmonitor.api.service.RacExtractionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,12 +50,27 @@ public class ComplianceController {
     @Autowired
     private ComplianceAnalysisService complianceAnalysisService;
     
+    @Autowired
+    private ComplianceBatchService complianceBatchService;
+    
     @Autowired
     private RacExtractionService racExtractionService;
 
     @Autowired
     private ComplianceRuleService complianceRuleService;
 
+    @Autowired
+    private ComplianceRuleEngine complianceRuleEngine;
+
+    @Autowired
+    private ComplianceTriageService complianceTriageService;
+
+    @Autowired
+    private ComplianceCascadeEvaluationService cascadeEvaluationService;
+
+    @Autowired
+    private OpenAIAnalysisService openAIAnalysisService;
+
     @Autowired
     private AdAnalysisRepository adAnalysisRepository;
 
@@ -207,12 +228,17 @@ public class ComplianceController {
     }
 
     @PostMapping("/reanalyze/{domainName}")
-    public ResponseEntity<Map<String, Object>> reanalyzeDomain(@PathVariable String domainName) {
+    public ResponseEntity<Map<String, Object>> reanalyzeDomain(@PathVariable String domainName,
+                                                               @RequestParam(defaultValue = "false") boolean batch) {
         try {
             Domain domain = domainRepository.findByDomainName(domainName);
             if (domain == null) {
                 return ResponseEntity.notFound().build();
             }
+            
+            if (batch) {
+                return submitBatch(domain, false);
+            }
 
             // Trigger compliance analysis
             complianceAnalysisService.analyzeDomainAds(domain);
@@ -231,6 +257,74 @@ public class ComplianceController {
         }
     }
 
+    /**
+     * Submit all (or only unanalyzed) ads of a domain as one OpenAI batch; verdicts arrive asynchronously
+     */
+    @PostMapping("/batches/domain/{domainName}")
+    public ResponseEntity<Map<String, Object>> submitDomainBatch(@PathVariable String domainName,
+                                                                 @RequestParam(defaultValue = "false") boolean onlyUnanalyzed) {
+        try {
+            Domain domain = domainRepository.findByDomainName(domainName);
+            if (domain == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return submitBatch(domain, onlyUnanalyzed);
+
+        } catch (Exception e) {
+            logger.error("Error submitting compliance batch for domain: {}", domainName, e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to submit compliance batch: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Get the compliance batches of a domain, newest first
+     */
+    @GetMapping("/batches/domain/{domainName}")
+    public ResponseEntity<?> getDomainBatches(@PathVariable String domainName) {
+        try {
+            return ResponseEntity.ok(complianceBatchService.getBatches(domainName));
+        } catch (Exception e) {
+            logger.error("Error getting compliance batches for domain: {}", domainName, e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get compliance batches: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Cancel a compliance batch; answers OpenAI already produced are still applied
+     */
+    @PostMapping("/batches/{batchId}/cancel")
+    public ResponseEntity<?> cancelBatch(@PathVariable Long batchId) {
+        try {
+            return ResponseEntity.ok(complianceBatchService.cancelBatch(batchId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error cancelling compliance batch {}", batchId, e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to cancel compliance batch: " + e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> submitBatch(Domain domain, boolean onlyUnanalyzed) {
+        try {
+            ComplianceBatch batch = complianceBatchService.submitDomain(domain, onlyUnanalyzed);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Batch compliance analysis submitted for domain: " + domain.getDomainName());
+            response.put("domain", domain.getDomainName());
+            response.put("batchId", batch.getId());
+            response.put("status", batch.getStatus());
+            return ResponseEntity.accepted().body(response);
+
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Get all active compliance rules
      */
@@ -253,6 +347,85 @@ public class ComplianceController {
         }
     }
 
+    /**
+     * Rule pattern evaluations, rules skipped for exceeding the step budget and invalid patterns
+     */
+    @GetMapping("/rules/engine-stats")
+    public ResponseEntity<Map<String, Object>> getRuleEngineStats() {
+        try {
+            return ResponseEntity.ok(complianceRuleEngine.getStats());
+        } catch (Exception e) {
+            logger.error("Error getting rule engine stats", e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get rule engine stats: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Triage outcomes, escalation rate and estimated savings since startup
+     */
+    @GetMapping("/triage")
+    public ResponseEntity<Map<String, Object>> getTriageStats() {
+        try {
+            return ResponseEntity.ok(complianceTriageService.getStats());
+        } catch (Exception e) {
+            logger.error("Error getting triage stats", e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get triage stats: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Escalation rate and cost/latency saved by triage for the recent analysis runs of a domain
+     */
+    @GetMapping("/triage/domain/{domainName}")
+    public ResponseEntity<Map<String, Object>> getDomainTriageReport(@PathVariable String domainName) {
+        try {
+            return ResponseEntity.ok(complianceTriageService.getDomainReport(domainName));
+        } catch (Exception e) {
+            logger.error("Error getting triage report for domain: {}", domainName, e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get triage report: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Cascade settings and how often the small model's verdict was kept since startup
+     */
+    @GetMapping("/cascade")
+    public ResponseEntity<Map<String, Object>> getCascadeStats() {
+        try {
+            return ResponseEntity.ok(openAIAnalysisService.getCascadeStats());
+        } catch (Exception e) {
+            logger.error("Error getting cascade stats", e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get cascade stats: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Replay recent stored analyses through both cascade tiers and report agreement, latency and cost
+     * per tier and per confidence threshold. Every sample is one paid call per tier.
+     */
+    @PostMapping("/cascade/evaluate")
+    public ResponseEntity<Map<String, Object>> evaluateCascade(
+            @RequestParam(required = false) String domainName,
+            @RequestParam(defaultValue = "50") int samples,
+            @RequestParam(required = false) List<Double> thresholds) {
+        try {
+            int boundedSamples = Math.max(1, Math.min(samples, 500));
+            List<Double> candidateThresholds = thresholds != null && !thresholds.isEmpty()
+                ? thresholds : ComplianceCascadeEvaluationService.DEFAULT_THRESHOLDS;
+            logger.info("Running compliance cascade evaluation on {} samples{}", boundedSamples,
+                domainName != null ? " of " + domainName : "");
+            return ResponseEntity.ok(cascadeEvaluationService.run(domainName, boundedSamples, candidateThresholds));
+        } catch (Exception e) {
+            logger.error("Error running cascade evaluation", e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to run cascade evaluation: " + e.getMessage()));
+        }
+    }
+
     /**
      * Get compliance rules by category
      */
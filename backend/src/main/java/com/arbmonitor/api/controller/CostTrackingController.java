@@ -3,7 +3,10 @@ package com.arbmonitor.api.controller;
 import com.arbmonitor.api.model.ApifyUsage;
 import com.arbmonitor.api.model.OpenAIUsage;
 import com.arbmonitor.api.service.ApifyCostTrackingService;
+import com.arbmonitor.api.service.ComplianceVerdictCacheService;
 import com.arbmonitor.api.service.OpenAICostTrackingService;
+import com.arbmonitor.api.service.OpenAIRateLimiter;
+import com.arbmonitor.api.service.PromptTemplateRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +14,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +35,15 @@ public class CostTrackingController {
     @Autowired
     private ApifyCostTrackingService apifyCostTrackingService;
     
+    @Autowired
+    private ComplianceVerdictCacheService verdictCacheService;
+    
+    @Autowired
+    private OpenAIRateLimiter openAIRateLimiter;
+    
+    @Autowired
+    private PromptTemplateRegistry promptTemplateRegistry;
+    
     /**
      * Get unified cost summary for a user (OpenAI + Apify)
      */
@@ -146,6 +159,7 @@ public class CostTrackingController {
             dashboard.put("totalCost", totalCost);
             dashboard.put("openaiCost", totalOpenAICost);
             dashboard.put("apifyCost", totalApifyCost);
+            dashboard.put("verdictCache", verdictCacheService.getCacheStats());
             
             return ResponseEntity.ok(dashboard);
             
@@ -155,4 +169,50 @@ public class CostTrackingController {
                 .body(Map.of("error", "Failed to get dashboard data: " + e.getMessage()));
         }
     }
+    
+    /**
+     * Get OpenAI compliance verdict cache statistics (hits, misses, saved cost)
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getVerdictCacheStats() {
+        try {
+            return ResponseEntity.ok(verdictCacheService.getCacheStats());
+        } catch (Exception e) {
+            logger.error("Error getting verdict cache stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get cache stats: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Get OpenAI rate limit state per model (budgets, concurrency limit, retries)
+     */
+    @GetMapping("/openai/rate-limit")
+    public ResponseEntity<Map<String, Object>> getOpenAIRateLimitStats() {
+        try {
+            return ResponseEntity.ok(openAIRateLimiter.getStats());
+        } catch (Exception e) {
+            logger.error("Error getting OpenAI rate limit stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get rate limit stats: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Prompt template versions and prefix sizes, and how much of the prompt tokens the provider served
+     * from its prompt cache over the last days
+     */
+    @GetMapping("/openai/prompt-cache")
+    public ResponseEntity<Map<String, Object>> getPromptCacheStats(@RequestParam(defaultValue = "7") int days) {
+        try {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("templates", promptTemplateRegistry.getStats());
+            stats.put("usage", openAICostTrackingService.getPromptCacheStats(LocalDateTime.now().minusDays(Math.max(1, days))));
+            return ResponseEntity.ok(stats);
+        } catch (Exception e) {
+            logger.error("Error getting prompt cache stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get prompt cache stats: " + e.getMessage()));
+        }
+    }
 }
@@ -280,7 +280,7 @@ public class DomainController {
             
             // Automatically start ad scraping for the new domain
             logger.info("Auto-starting ad scraping for domain: {}", domain.getDomainName());
-            apifyScrapingService.scrapeAdsUsingApify(domain.getDomainName());
+            apifyScrapingService.enqueueScrape(domain.getDomainName());
             
             return ResponseEntity.ok(new DomainResponse(domain));
             
@@ -0,0 +1,104 @@
+package com.arbmonitor.api.controller;
+
+import com.arbmonitor.api.model.WorkJob;
+import com.arbmonitor.api.service.ApifyScrapingService;
+import com.arbmonitor.api.service.JobQueueService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+public class JobQueueController {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobQueueController.class);
+
+    private static final List<WorkJob.JobType> PER_AD_JOB_TYPES = List.of(
+        WorkJob.JobType.MEDIA, WorkJob.JobType.OCR, WorkJob.JobType.RAC, WorkJob.JobType.SCREENSHOT);
+
+    @Autowired
+    private JobQueueService jobQueueService;
+
+    @Autowired
+    private ApifyScrapingService apifyScrapingService;
+
+    /**
+     * Job counts by type and status, and worker counters
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getQueueStats() {
+        try {
+            return ResponseEntity.ok(jobQueueService.getQueueStats());
+        } catch (Exception e) {
+            logger.error("Error getting job queue stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get job queue stats: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Most recent dead-lettered jobs
+     */
+    @GetMapping("/dead")
+    public ResponseEntity<?> getDeadJobs(@RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(jobQueueService.getDeadJobs(limit));
+        } catch (Exception e) {
+            logger.error("Error getting dead-lettered jobs: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get dead-lettered jobs: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Re-queue a dead-lettered job with a fresh set of attempts
+     */
+    @PostMapping("/{jobId}/retry")
+    public ResponseEntity<Map<String, Object>> retryDeadJob(@PathVariable Long jobId) {
+        try {
+            if (!jobQueueService.requeueDeadJob(jobId)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Job is not dead-lettered: " + jobId));
+            }
+            return ResponseEntity.ok(Map.of("success", true, "jobId", jobId));
+        } catch (Exception e) {
+            logger.error("Error re-queueing job {}: {}", jobId, e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to re-queue job: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Queue a per-ad job (MEDIA, OCR, RAC or SCREENSHOT) for every ad of a domain
+     */
+    @PostMapping("/domain/{domainName}/{jobType}")
+    public ResponseEntity<Map<String, Object>> enqueueAdJobs(@PathVariable String domainName,
+                                                             @PathVariable String jobType) {
+        try {
+            WorkJob.JobType type = WorkJob.JobType.valueOf(jobType.toUpperCase());
+            if (!PER_AD_JOB_TYPES.contains(type)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Not a per-ad job type: " + jobType));
+            }
+
+            int queued = apifyScrapingService.enqueueAdJobs(domainName, type);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("domain", domainName);
+            response.put("jobType", type);
+            response.put("queuedAds", queued);
+            return ResponseEntity.accepted().body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown job type: " + jobType));
+        } catch (Exception e) {
+            logger.error("Error queueing {} jobs for domain {}: {}", jobType, domainName, e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to queue jobs: " + e.getMessage()));
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.arbmonitor.api.controller;
 
+import com.arbmonitor.api.service.BrowserSessionPool;
+import com.arbmonitor.api.service.LandingPageCaptureService;
+import com.arbmonitor.api.service.MediaStorageService;
+import com.arbmonitor.api.service.MediaTextCacheService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
@@ -12,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
 
 /**
  * Controller for serving media files (images, videos)
@@ -23,6 +29,74 @@ public class MediaController {
     
     private static final Logger logger = LoggerFactory.getLogger(MediaController.class);
     
+    @Autowired
+    private MediaStorageService mediaStorageService;
+    
+    @Autowired
+    private MediaTextCacheService textCacheService;
+    
+    @Autowired
+    private BrowserSessionPool browserSessionPool;
+    
+    @Autowired
+    private LandingPageCaptureService landingPageCaptureService;
+    
+    /**
+     * Deduplication and disk usage statistics of the content-addressed media store
+     */
+    @GetMapping("/store/stats")
+    public ResponseEntity<Map<String, Object>> getStoreStats() {
+        try {
+            return ResponseEntity.ok(mediaStorageService.getStoreStats());
+        } catch (Exception e) {
+            logger.error("Error getting media store stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get media store stats: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Hit rate and size of the OCR / video transcript cache
+     */
+    @GetMapping("/text-cache/stats")
+    public ResponseEntity<Map<String, Object>> getTextCacheStats() {
+        try {
+            return ResponseEntity.ok(textCacheService.getCacheStats());
+        } catch (Exception e) {
+            logger.error("Error getting media text cache stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get media text cache stats: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Size, lease wait and recycling counters of the headless browser pool used for screenshots
+     */
+    @GetMapping("/browser-pool/stats")
+    public ResponseEntity<Map<String, Object>> getBrowserPoolStats() {
+        try {
+            return ResponseEntity.ok(browserSessionPool.getPoolStats());
+        } catch (Exception e) {
+            logger.error("Error getting browser pool stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get browser pool stats: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Landing page captures by method (browser / HTTP) and captures shared between consumers
+     */
+    @GetMapping("/landing-capture/stats")
+    public ResponseEntity<Map<String, Object>> getLandingCaptureStats() {
+        try {
+            return ResponseEntity.ok(landingPageCaptureService.getCaptureStats());
+        } catch (Exception e) {
+            logger.error("Error getting landing capture stats: {}", e.getMessage());
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to get landing capture stats: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Serve media files (images and videos)
      */
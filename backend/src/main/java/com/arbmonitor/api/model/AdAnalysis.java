@@ -96,6 +96,14 @@ public class AdAnalysis {
     @Column(name = "analysis_notes", columnDefinition = "TEXT")
     private String analysisNotes;
     
+    // Whether the verdict came from deterministic triage or the model
+    @Enumerated(EnumType.STRING)
+    @Column(name = "triage_outcome", length = 20)
+    private TriageOutcome triageOutcome;
+    
+    @Column(name = "triage_confidence")
+    private Double triageConfidence;
+    
     @OneToMany(mappedBy = "analysis", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private Set<Violation> violations = new HashSet<>();
@@ -309,6 +317,22 @@ public class AdAnalysis {
         this.overallCompliant = overallCompliant;
     }
     
+    public TriageOutcome getTriageOutcome() {
+        return triageOutcome;
+    }
+    
+    public void setTriageOutcome(TriageOutcome triageOutcome) {
+        this.triageOutcome = triageOutcome;
+    }
+    
+    public Double getTriageConfidence() {
+        return triageConfidence;
+    }
+    
+    public void setTriageConfidence(Double triageConfidence) {
+        this.triageConfidence = triageConfidence;
+    }
+    
     public Set<Violation> getViolations() {
         return violations;
     }
@@ -340,4 +364,10 @@ public class AdAnalysis {
         POOR,       // 40-59
         CRITICAL    // 0-39
     }
+    
+    public enum TriageOutcome {
+        AUTO_COMPLIANT,      // Resolved from earlier verdicts of similar copy
+        AUTO_NON_COMPLIANT,  // Resolved from rule hits and/or earlier verdicts of similar copy
+        ESCALATED            // Sent to the model
+    }
 }
@@ -0,0 +1,81 @@
+package com.arbmonitor.api.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marks a single ad as done within a domain analysis job
+ */
+@Entity
+@Table(name = "analysis_checkpoints", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_checkpoint_job_ad", columnNames = {"job_id", "meta_ad_id"})
+})
+public class AnalysisCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "meta_ad_id", nullable = false)
+    private String metaAdId;
+
+    @Column(name = "success", nullable = false)
+    private Boolean success;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    // Constructors
+    public AnalysisCheckpoint() {}
+
+    public AnalysisCheckpoint(Long jobId, String metaAdId, boolean success) {
+        this.jobId = jobId;
+        this.metaAdId = metaAdId;
+        this.success = success;
+        this.processedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getMetaAdId() {
+        return metaAdId;
+    }
+
+    public void setMetaAdId(String metaAdId) {
+        this.metaAdId = metaAdId;
+    }
+
+    public Boolean getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(Boolean success) {
+        this.success = success;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
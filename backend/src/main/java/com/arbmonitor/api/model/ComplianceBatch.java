@@ -0,0 +1,261 @@
+package com.arbmonitor.api.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Bulk compliance analysis of a domain's ads submitted to the OpenAI Batch API. Ads are prepared
+ * (landing page captured, placeholder analysis saved), their prompts uploaded as one input file, and
+ * the batch is polled until its output can be fanned back into the ads' analyses.
+ */
+@Entity
+@Table(name = "compliance_batches", indexes = {
+    @Index(name = "idx_compliance_batches_status", columnList = "status"),
+    @Index(name = "idx_compliance_batches_domain", columnList = "domain_name, status")
+})
+public class ComplianceBatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "domain_name", nullable = false)
+    private String domainName;
+
+    @Column(name = "model_name", nullable = false, length = 50)
+    private String modelName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BatchStatus status = BatchStatus.PREPARING;
+
+    @Column(name = "provider_batch_id", length = 100)
+    private String providerBatchId;
+
+    // Status reported by OpenAI (validating, in_progress, finalizing, completed, expired, ...)
+    @Column(name = "provider_status", length = 30)
+    private String providerStatus;
+
+    @Column(name = "input_file_id", length = 100)
+    private String inputFileId;
+
+    @Column(name = "output_file_id", length = 100)
+    private String outputFileId;
+
+    @Column(name = "error_file_id", length = 100)
+    private String errorFileId;
+
+    // Requests in the uploaded input file
+    @Column(name = "request_count", nullable = false)
+    private Integer requestCount = 0;
+
+    // Ads answered from the verdict cache while preparing, never sent
+    @Column(name = "cached_count", nullable = false)
+    private Integer cachedCount = 0;
+
+    // Ads resolved by the triage stage while preparing, never sent
+    @Column(name = "triaged_count", nullable = false)
+    private Integer triagedCount = 0;
+
+    @Column(name = "succeeded_count", nullable = false)
+    private Integer succeededCount = 0;
+
+    @Column(name = "failed_count", nullable = false)
+    private Integer failedCount = 0;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "submitted_at")
+    private LocalDateTime submittedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // Constructors
+    public ComplianceBatch() {}
+
+    public ComplianceBatch(String domainName, String modelName) {
+        this.domainName = domainName;
+        this.modelName = modelName;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public boolean isFinished() {
+        return status == BatchStatus.COMPLETED || status == BatchStatus.FAILED || status == BatchStatus.CANCELLED;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDomainName() {
+        return domainName;
+    }
+
+    public void setDomainName(String domainName) {
+        this.domainName = domainName;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public void setModelName(String modelName) {
+        this.modelName = modelName;
+    }
+
+    public BatchStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(BatchStatus status) {
+        this.status = status;
+    }
+
+    public String getProviderBatchId() {
+        return providerBatchId;
+    }
+
+    public void setProviderBatchId(String providerBatchId) {
+        this.providerBatchId = providerBatchId;
+    }
+
+    public String getProviderStatus() {
+        return providerStatus;
+    }
+
+    public void setProviderStatus(String providerStatus) {
+        this.providerStatus = providerStatus;
+    }
+
+    public String getInputFileId() {
+        return inputFileId;
+    }
+
+    public void setInputFileId(String inputFileId) {
+        this.inputFileId = inputFileId;
+    }
+
+    public String getOutputFileId() {
+        return outputFileId;
+    }
+
+    public void setOutputFileId(String outputFileId) {
+        this.outputFileId = outputFileId;
+    }
+
+    public String getErrorFileId() {
+        return errorFileId;
+    }
+
+    public void setErrorFileId(String errorFileId) {
+        this.errorFileId = errorFileId;
+    }
+
+    public Integer getRequestCount() {
+        return requestCount;
+    }
+
+    public void setRequestCount(Integer requestCount) {
+        this.requestCount = requestCount;
+    }
+
+    public Integer getCachedCount() {
+        return cachedCount;
+    }
+
+    public void setCachedCount(Integer cachedCount) {
+        this.cachedCount = cachedCount;
+    }
+
+    public Integer getTriagedCount() {
+        return triagedCount;
+    }
+
+    public void setTriagedCount(Integer triagedCount) {
+        this.triagedCount = triagedCount;
+    }
+
+    public Integer getSucceededCount() {
+        return succeededCount;
+    }
+
+    public void setSucceededCount(Integer succeededCount) {
+        this.succeededCount = succeededCount;
+    }
+
+    public Integer getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(Integer failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public enum BatchStatus {
+        PREPARING,   // Ads being prepared and written to the input file
+        SUBMITTED,   // Accepted by OpenAI, polled until it ends
+        PROCESSING,  // Output being applied to the ads' analyses
+        COMPLETED,   // Every request answered or failed individually
+        FAILED,      // Could not be prepared or submitted, or rejected by OpenAI
+        CANCELLED    // Cancelled on request
+    }
+}
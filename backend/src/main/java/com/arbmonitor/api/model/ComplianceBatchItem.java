@@ -0,0 +1,128 @@
+package com.arbmonitor.api.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One ad's compliance request within a {@link ComplianceBatch}; its id is the request's custom_id
+ */
+@Entity
+@Table(name = "compliance_batch_items", indexes = {
+    @Index(name = "idx_compliance_batch_items_batch", columnList = "batch_id, status")
+})
+public class ComplianceBatchItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "batch_id", nullable = false)
+    private Long batchId;
+
+    // Placeholder analysis saved while preparing, filled in when the batch output arrives
+    @Column(name = "ad_analysis_id", nullable = false)
+    private Long adAnalysisId;
+
+    @Column(name = "meta_ad_id", nullable = false)
+    private String metaAdId;
+
+    // Verdict cache key of the prompt, so batch answers are cached like synchronous ones
+    @Column(name = "cache_key", nullable = false, length = 64)
+    private String cacheKey;
+
+    @Column(name = "rac_enabled", nullable = false)
+    private Boolean racEnabled = false;
+
+    // Similarity key the triage stage records the model's verdict under
+    @Column(name = "triage_key", length = 64)
+    private String triageKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ItemStatus status = ItemStatus.PENDING;
+
+    // Constructors
+    public ComplianceBatchItem() {}
+
+    public ComplianceBatchItem(Long batchId, Long adAnalysisId, String metaAdId, String cacheKey, boolean racEnabled) {
+        this.batchId = batchId;
+        this.adAnalysisId = adAnalysisId;
+        this.metaAdId = metaAdId;
+        this.cacheKey = cacheKey;
+        this.racEnabled = racEnabled;
+    }
+
+    public String getCustomId() {
+        return "item-" + id;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(Long batchId) {
+        this.batchId = batchId;
+    }
+
+    public Long getAdAnalysisId() {
+        return adAnalysisId;
+    }
+
+    public void setAdAnalysisId(Long adAnalysisId) {
+        this.adAnalysisId = adAnalysisId;
+    }
+
+    public String getMetaAdId() {
+        return metaAdId;
+    }
+
+    public void setMetaAdId(String metaAdId) {
+        this.metaAdId = metaAdId;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public String getTriageKey() {
+        return triageKey;
+    }
+
+    public void setTriageKey(String triageKey) {
+        this.triageKey = triageKey;
+    }
+
+    public Boolean getRacEnabled() {
+        return racEnabled;
+    }
+
+    public void setRacEnabled(Boolean racEnabled) {
+        this.racEnabled = racEnabled;
+    }
+
+    public ItemStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ItemStatus status) {
+        this.status = status;
+    }
+
+    public enum ItemStatus {
+        PENDING,
+        SUCCEEDED,
+        FAILED
+    }
+}
@@ -0,0 +1,115 @@
+package com.arbmonitor.api.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Model verdicts recorded for one normalized creative (ad copy, landing page and RAC). The triage
+ * stage reuses the majority verdict once enough independent answers agree.
+ */
+@Entity
+@Table(name = "compliance_triage_verdicts", indexes = {
+    @Index(name = "idx_triage_verdicts_updated_at", columnList = "updated_at")
+})
+public class ComplianceTriageVerdict {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "similarity_key", nullable = false, unique = true, length = 64)
+    private String similarityKey;
+
+    @Column(name = "compliant_count", nullable = false)
+    private Integer compliantCount = 0;
+
+    @Column(name = "non_compliant_count", nullable = false)
+    private Integer nonCompliantCount = 0;
+
+    // Latest compliant and non-compliant verdict, as JSON
+    @Column(name = "compliant_response", columnDefinition = "TEXT")
+    private String compliantResponse;
+
+    @Column(name = "non_compliant_response", columnDefinition = "TEXT")
+    private String nonCompliantResponse;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public ComplianceTriageVerdict() {}
+
+    public ComplianceTriageVerdict(String similarityKey) {
+        this.similarityKey = similarityKey;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSimilarityKey() {
+        return similarityKey;
+    }
+
+    public void setSimilarityKey(String similarityKey) {
+        this.similarityKey = similarityKey;
+    }
+
+    public Integer getCompliantCount() {
+        return compliantCount;
+    }
+
+    public void setCompliantCount(Integer compliantCount) {
+        this.compliantCount = compliantCount;
+    }
+
+    public Integer getNonCompliantCount() {
+        return nonCompliantCount;
+    }
+
+    public void setNonCompliantCount(Integer nonCompliantCount) {
+        this.nonCompliantCount = nonCompliantCount;
+    }
+
+    public String getCompliantResponse() {
+        return compliantResponse;
+    }
+
+    public void setCompliantResponse(String compliantResponse) {
+        this.compliantResponse = compliantResponse;
+    }
+
+    public String getNonCompliantResponse() {
+        return nonCompliantResponse;
+    }
+
+    public void setNonCompliantResponse(String nonCompliantResponse) {
+        this.nonCompliantResponse = nonCompliantResponse;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,147 @@
+package com.arbmonitor.api.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Cached OpenAI compliance verdict, keyed by a hash of the normalized prompt, model and prompt version
+ */
+@Entity
+@Table(name = "compliance_verdict_cache", indexes = {
+    @Index(name = "idx_verdict_cache_expires_at", columnList = "expires_at"),
+    @Index(name = "idx_verdict_cache_last_accessed", columnList = "last_accessed_at")
+})
+public class ComplianceVerdictCacheEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "cache_key", nullable = false, unique = true, length = 64)
+    private String cacheKey;
+    
+    @Column(name = "model_name", nullable = false)
+    private String modelName;
+    
+    @Column(name = "prompt_version", nullable = false)
+    private String promptVersion;
+    
+    @Column(name = "response_text", columnDefinition = "TEXT", nullable = false)
+    private String responseText;
+    
+    @Column(name = "estimated_cost", precision = 10, scale = 6)
+    private BigDecimal estimatedCost; // Cost of the original request, saved again on every hit
+    
+    @Column(name = "hit_count", nullable = false)
+    private Long hitCount = 0L;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "last_accessed_at", nullable = false)
+    private LocalDateTime lastAccessedAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    // Constructors
+    public ComplianceVerdictCacheEntry() {}
+    
+    public ComplianceVerdictCacheEntry(String cacheKey, String modelName, String promptVersion,
+                                       String responseText, BigDecimal estimatedCost, LocalDateTime expiresAt) {
+        this.cacheKey = cacheKey;
+        this.modelName = modelName;
+        this.promptVersion = promptVersion;
+        this.responseText = responseText;
+        this.estimatedCost = estimatedCost;
+        this.createdAt = LocalDateTime.now();
+        this.lastAccessedAt = this.createdAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getCacheKey() {
+        return cacheKey;
+    }
+    
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+    
+    public String getModelName() {
+        return modelName;
+    }
+    
+    public void setModelName(String modelName) {
+        this.modelName = modelName;
+    }
+    
+    public String getPromptVersion() {
+        return promptVersion;
+    }
+    
+    public void setPromptVersion(String promptVersion) {
+        this.promptVersion = promptVersion;
+    }
+    
+    public String getResponseText() {
+        return responseText;
+    }
+    
+    public void setResponseText(String responseText) {
+        this.responseText = responseText;
+    }
+    
+    public BigDecimal getEstimatedCost() {
+        return estimatedCost;
+    }
+    
+    public void setEstimatedCost(BigDecimal estimatedCost) {
+        this.estimatedCost = estimatedCost;
+    }
+    
+    public Long getHitCount() {
+        return hitCount;
+    }
+    
+    public void setHitCount(Long hitCount) {
+        this.hitCount = hitCount;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+    
+    public void setLastAccessedAt(LocalDateTime lastAccessedAt) {
+        this.lastAccessedAt = lastAccessedAt;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+    
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.isBefore(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,235 @@
+package com.arbmonitor.api.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a compliance analysis run over all ads of a domain
+ */
+@Entity
+@Table(name = "domain_analysis_jobs", indexes = {
+    @Index(name = "idx_analysis_job_domain_status", columnList = "domain_name, status")
+})
+public class DomainAnalysisJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "domain_name", nullable = false)
+    private String domainName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status = JobStatus.RUNNING;
+
+    @Column(name = "total_ads")
+    private Long totalAds = 0L;
+
+    @Column(name = "processed_ads")
+    private Long processedAds = 0L;
+
+    @Column(name = "success_count")
+    private Long successCount = 0L;
+
+    @Column(name = "error_count")
+    private Long errorCount = 0L;
+
+    // Only visit ads that have no analysis yet (incremental re-scrapes)
+    @Column(name = "only_unanalyzed")
+    private Boolean onlyUnanalyzed = false;
+
+    // Ads resolved by triage without a model call, and ads sent to the model
+    @Column(name = "triage_auto_resolved")
+    private Long triageAutoResolved = 0L;
+
+    @Column(name = "triage_escalated")
+    private Long triageEscalated = 0L;
+
+    // Estimated cost and model latency avoided by the auto-resolved ads
+    @Column(name = "triage_saved_cost", precision = 10, scale = 6)
+    private BigDecimal triageSavedCost = BigDecimal.ZERO;
+
+    @Column(name = "triage_saved_ms")
+    private Long triageSavedMs = 0L;
+
+    // Highest ScrapedAd id of the last fully processed page (keyset cursor)
+    @Column(name = "last_ad_id")
+    private Long lastAdId = 0L;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    // Constructors
+    public DomainAnalysisJob() {}
+
+    public DomainAnalysisJob(String domainName) {
+        this.domainName = domainName;
+        this.startedAt = LocalDateTime.now();
+        this.updatedAt = this.startedAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDomainName() {
+        return domainName;
+    }
+
+    public void setDomainName(String domainName) {
+        this.domainName = domainName;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public Long getTotalAds() {
+        return totalAds;
+    }
+
+    public void setTotalAds(Long totalAds) {
+        this.totalAds = totalAds;
+    }
+
+    public Long getProcessedAds() {
+        return processedAds;
+    }
+
+    public void setProcessedAds(Long processedAds) {
+        this.processedAds = processedAds;
+    }
+
+    public Long getSuccessCount() {
+        return successCount;
+    }
+
+    public void setSuccessCount(Long successCount) {
+        this.successCount = successCount;
+    }
+
+    public Long getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(Long errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public Boolean getOnlyUnanalyzed() {
+        return onlyUnanalyzed;
+    }
+
+    public void setOnlyUnanalyzed(Boolean onlyUnanalyzed) {
+        this.onlyUnanalyzed = onlyUnanalyzed;
+    }
+
+    public Long getTriageAutoResolved() {
+        return triageAutoResolved;
+    }
+
+    public void setTriageAutoResolved(Long triageAutoResolved) {
+        this.triageAutoResolved = triageAutoResolved;
+    }
+
+    public Long getTriageEscalated() {
+        return triageEscalated;
+    }
+
+    public void setTriageEscalated(Long triageEscalated) {
+        this.triageEscalated = triageEscalated;
+    }
+
+    public BigDecimal getTriageSavedCost() {
+        return triageSavedCost;
+    }
+
+    public void setTriageSavedCost(BigDecimal triageSavedCost) {
+        this.triageSavedCost = triageSavedCost;
+    }
+
+    public Long getTriageSavedMs() {
+        return triageSavedMs;
+    }
+
+    public void setTriageSavedMs(Long triageSavedMs) {
+        this.triageSavedMs = triageSavedMs;
+    }
+
+    public Long getLastAdId() {
+        return lastAdId;
+    }
+
+    public void setLastAdId(Long lastAdId) {
+        this.lastAdId = lastAdId;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public boolean isFinished() {
+        return status == JobStatus.COMPLETED || status == JobStatus.CANCELLED || status == JobStatus.FAILED;
+    }
+
+    public enum JobStatus {
+        RUNNING,    // Being processed (or interrupted by a restart)
+        PAUSED,     // Paused by user, resumable
+        COMPLETED,  // Every ad was visited
+        CANCELLED,  // Superseded or cancelled, never resumed
+        FAILED      // Aborted by an unexpected error
+    }
+}
@@ -0,0 +1,194 @@
+package com.arbmonitor.api.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Last capture of a landing page, keyed by a hash of its normalized URL. The fingerprint of the text
+ * decides whether a re-fetched page changed, and with it whether its analysis has to run again
+ */
+@Entity
+@Table(name = "landing_page_cache", indexes = {
+    @Index(name = "idx_landing_page_cache_checked_at", columnList = "checked_at")
+})
+public class LandingPageCacheEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "url_hash", nullable = false, unique = true, length = 64)
+    private String urlHash;
+    
+    @Column(name = "normalized_url", columnDefinition = "TEXT", nullable = false)
+    private String normalizedUrl;
+    
+    @Column(name = "final_url", columnDefinition = "TEXT")
+    private String finalUrl;
+    
+    @Column(name = "text_content", columnDefinition = "TEXT")
+    private String textContent;
+    
+    @Column(name = "afs_config", columnDefinition = "TEXT")
+    private String afsConfig;
+    
+    @Column(name = "rac_keyword", length = 1000)
+    private String racKeyword;
+    
+    @Column(name = "screenshot_path", length = 512)
+    private String screenshotPath;
+    
+    @Column(name = "capture_method", length = 20)
+    private String captureMethod;
+    
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    private String fingerprint;
+    
+    // Captures served from this entry without fetching
+    @Column(name = "hit_count", nullable = false)
+    private Long hitCount = 0L;
+    
+    // Re-fetches whose fingerprint differed from the stored one
+    @Column(name = "change_count", nullable = false)
+    private Long changeCount = 0L;
+    
+    @Column(name = "fetched_at", nullable = false)
+    private LocalDateTime fetchedAt;
+    
+    // Last time the page was fetched, changed or not
+    @Column(name = "checked_at", nullable = false)
+    private LocalDateTime checkedAt;
+    
+    // Last time the fingerprint changed
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+    
+    // Constructors
+    public LandingPageCacheEntry() {}
+    
+    public LandingPageCacheEntry(String urlHash, String normalizedUrl) {
+        this.urlHash = urlHash;
+        this.normalizedUrl = normalizedUrl;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getUrlHash() {
+        return urlHash;
+    }
+    
+    public void setUrlHash(String urlHash) {
+        this.urlHash = urlHash;
+    }
+    
+    public String getNormalizedUrl() {
+        return normalizedUrl;
+    }
+    
+    public void setNormalizedUrl(String normalizedUrl) {
+        this.normalizedUrl = normalizedUrl;
+    }
+    
+    public String getFinalUrl() {
+        return finalUrl;
+    }
+    
+    public void setFinalUrl(String finalUrl) {
+        this.finalUrl = finalUrl;
+    }
+    
+    public String getTextContent() {
+        return textContent;
+    }
+    
+    public void setTextContent(String textContent) {
+        this.textContent = textContent;
+    }
+    
+    public String getAfsConfig() {
+        return afsConfig;
+    }
+    
+    public void setAfsConfig(String afsConfig) {
+        this.afsConfig = afsConfig;
+    }
+    
+    public String getRacKeyword() {
+        return racKeyword;
+    }
+    
+    public void setRacKeyword(String racKeyword) {
+        this.racKeyword = racKeyword;
+    }
+    
+    public String getScreenshotPath() {
+        return screenshotPath;
+    }
+    
+    public void setScreenshotPath(String screenshotPath) {
+        this.screenshotPath = screenshotPath;
+    }
+    
+    public String getCaptureMethod() {
+        return captureMethod;
+    }
+    
+    public void setCaptureMethod(String captureMethod) {
+        this.captureMethod = captureMethod;
+    }
+    
+    public String getFingerprint() {
+        return fingerprint;
+    }
+    
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+    
+    public Long getHitCount() {
+        return hitCount;
+    }
+    
+    public void setHitCount(Long hitCount) {
+        this.hitCount = hitCount;
+    }
+    
+    public Long getChangeCount() {
+        return changeCount;
+    }
+    
+    public void setChangeCount(Long changeCount) {
+        this.changeCount = changeCount;
+    }
+    
+    public LocalDateTime getFetchedAt() {
+        return fetchedAt;
+    }
+    
+    public void setFetchedAt(LocalDateTime fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+    
+    public LocalDateTime getCheckedAt() {
+        return checkedAt;
+    }
+    
+    public void setCheckedAt(LocalDateTime checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+    
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+    
+    public void setChangedAt(LocalDateTime changedAt) {
+        this.changedAt = changedAt;
+    }
+}
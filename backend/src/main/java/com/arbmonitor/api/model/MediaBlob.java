@@ -0,0 +1,135 @@
+package com.arbmonitor.api.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A downloaded media file stored once under the SHA-256 of its bytes and shared by every ad that uses it
+ */
+@Entity
+@Table(name = "media_blobs", indexes = {
+    @Index(name = "idx_media_blobs_etag", columnList = "etag"),
+    @Index(name = "idx_media_blobs_local_path", columnList = "local_path")
+})
+public class MediaBlob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "sha256", nullable = false, unique = true, length = 64)
+    private String sha256;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "media_kind", nullable = false)
+    private MediaKind mediaKind;
+    
+    @Column(name = "local_path", nullable = false, length = 512)
+    private String localPath;
+    
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+    
+    @Column(name = "etag")
+    private String etag; // ETag of the response the blob was first downloaded from
+    
+    @Column(name = "ref_count", nullable = false)
+    private Long refCount = 0L; // Ads referencing local_path, recomputed by the media cleanup
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "last_referenced_at", nullable = false)
+    private LocalDateTime lastReferencedAt;
+    
+    // Constructors
+    public MediaBlob() {}
+    
+    public MediaBlob(String sha256, MediaKind mediaKind, String localPath, Long sizeBytes, String etag) {
+        this.sha256 = sha256;
+        this.mediaKind = mediaKind;
+        this.localPath = localPath;
+        this.sizeBytes = sizeBytes;
+        this.etag = etag;
+        this.createdAt = LocalDateTime.now();
+        this.lastReferencedAt = this.createdAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getSha256() {
+        return sha256;
+    }
+    
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+    
+    public MediaKind getMediaKind() {
+        return mediaKind;
+    }
+    
+    public void setMediaKind(MediaKind mediaKind) {
+        this.mediaKind = mediaKind;
+    }
+    
+    public String getLocalPath() {
+        return localPath;
+    }
+    
+    public void setLocalPath(String localPath) {
+        this.localPath = localPath;
+    }
+    
+    public Long getSizeBytes() {
+        return sizeBytes;
+    }
+    
+    public void setSizeBytes(Long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+    
+    public String getEtag() {
+        return etag;
+    }
+    
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+    
+    public Long getRefCount() {
+        return refCount;
+    }
+    
+    public void setRefCount(Long refCount) {
+        this.refCount = refCount;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getLastReferencedAt() {
+        return lastReferencedAt;
+    }
+    
+    public void setLastReferencedAt(LocalDateTime lastReferencedAt) {
+        this.lastReferencedAt = lastReferencedAt;
+    }
+    
+    public enum MediaKind {
+        IMAGE,
+        VIDEO
+    }
+}
@@ -0,0 +1,93 @@
+package com.arbmonitor.api.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Remembers which media blob a (query-stripped) source URL resolved to, so repeat URLs skip the download
+ */
+@Entity
+@Table(name = "media_url_index", indexes = {
+    @Index(name = "idx_media_url_index_sha256", columnList = "sha256")
+})
+public class MediaUrlMapping {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "url_hash", nullable = false, unique = true, length = 64)
+    private String urlHash; // SHA-256 of the normalized URL, since URLs can exceed index key limits
+    
+    @Column(name = "url", columnDefinition = "TEXT", nullable = false)
+    private String url;
+    
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "last_seen_at", nullable = false)
+    private LocalDateTime lastSeenAt;
+    
+    // Constructors
+    public MediaUrlMapping() {}
+    
+    public MediaUrlMapping(String urlHash, String url, String sha256) {
+        this.urlHash = urlHash;
+        this.url = url;
+        this.sha256 = sha256;
+        this.createdAt = LocalDateTime.now();
+        this.lastSeenAt = this.createdAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getUrlHash() {
+        return urlHash;
+    }
+    
+    public void setUrlHash(String urlHash) {
+        this.urlHash = urlHash;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public void setUrl(String url) {
+        this.url = url;
+    }
+    
+    public String getSha256() {
+        return sha256;
+    }
+    
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getLastSeenAt() {
+        return lastSeenAt;
+    }
+    
+    public void setLastSeenAt(LocalDateTime lastSeenAt) {
+        this.lastSeenAt = lastSeenAt;
+    }
+}
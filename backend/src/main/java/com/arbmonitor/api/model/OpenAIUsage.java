@@ -33,6 +33,9 @@ public class OpenAIUsage {
     @Column(name = "total_tokens")
     private Integer totalTokens;
     
+    @Column(name = "cached_tokens")
+    private Integer cachedTokens; // Prompt tokens served from the provider's prompt cache
+    
     @Column(name = "estimated_cost", precision = 10, scale = 6)
     private BigDecimal estimatedCost; // Cost in USD
     
@@ -125,6 +128,14 @@ public class OpenAIUsage {
         this.totalTokens = totalTokens;
     }
     
+    public Integer getCachedTokens() {
+        return cachedTokens;
+    }
+    
+    public void setCachedTokens(Integer cachedTokens) {
+        this.cachedTokens = cachedTokens;
+    }
+    
     public BigDecimal getEstimatedCost() {
         return estimatedCost;
     }
@@ -5,7 +5,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "scraped_ads")
+@Table(name = "scraped_ads", indexes = {
+    @Index(name = "idx_scraped_ads_domain_id", columnList = "domain_name, id")
+})
 public class ScrapedAd {
     
     @Id
@@ -121,6 +123,9 @@ public class ScrapedAd {
     @Column(name = "raw_data", columnDefinition = "TEXT")
     private String rawData; // JSON string of raw scraped data
     
+    @Column(name = "content_fingerprint", length = 64)
+    private String contentFingerprint; // SHA-256 of the creative content, used to detect changed ads on re-scrape
+    
     // Constructors
     public ScrapedAd() {
         this.scrapedAt = LocalDateTime.now();
@@ -406,6 +411,14 @@ public class ScrapedAd {
         this.rawData = rawData;
     }
     
+    public String getContentFingerprint() {
+        return contentFingerprint;
+    }
+    
+    public void setContentFingerprint(String contentFingerprint) {
+        this.contentFingerprint = contentFingerprint;
+    }
+    
     @PreUpdate
     public void preUpdate() {
         this.lastUpdated = LocalDateTime.now();
@@ -0,0 +1,250 @@
+package com.arbmonitor.api.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Unit of background work (scrape, media, OCR, RAC, analysis, screenshot) in the durable job queue.
+ * Workers lease a job, extend the lease with heartbeats while running it, and either finish it,
+ * schedule a retry with backoff, or move it to the dead-letter state after its last attempt.
+ */
+@Entity
+@Table(name = "work_jobs", indexes = {
+    @Index(name = "idx_work_jobs_ready", columnList = "status, available_at"),
+    @Index(name = "idx_work_jobs_domain_status", columnList = "domain_name, status")
+})
+public class WorkJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", nullable = false, length = 20)
+    private JobType jobType;
+
+    @Column(name = "domain_name")
+    private String domainName;
+
+    // What the job works on: a ScrapedAd id for per-ad jobs, empty for domain-wide jobs
+    @Column(name = "target_id", length = 100)
+    private String targetId;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private JobStatus status = JobStatus.QUEUED;
+
+    // Higher runs first
+    @Column(nullable = false)
+    private Integer priority = 0;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "max_attempts", nullable = false)
+    private Integer maxAttempts = 3;
+
+    // Not leased before this time (retry backoff)
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // Constructors
+    public WorkJob() {}
+
+    public WorkJob(JobType jobType, String domainName, String targetId) {
+        this.jobType = jobType;
+        this.domainName = domainName;
+        this.targetId = targetId;
+        this.priority = jobType.getDefaultPriority();
+        this.createdAt = LocalDateTime.now();
+        this.availableAt = this.createdAt;
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public JobType getJobType() {
+        return jobType;
+    }
+
+    public void setJobType(JobType jobType) {
+        this.jobType = jobType;
+    }
+
+    public String getDomainName() {
+        return domainName;
+    }
+
+    public void setDomainName(String domainName) {
+        this.domainName = domainName;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(String targetId) {
+        this.targetId = targetId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public Integer getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Integer priority) {
+        this.priority = priority;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public Integer getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(Integer maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public LocalDateTime getAvailableAt() {
+        return availableAt;
+    }
+
+    public void setAvailableAt(LocalDateTime availableAt) {
+        this.availableAt = availableAt;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public boolean isFinished() {
+        return status == JobStatus.SUCCEEDED || status == JobStatus.CANCELLED || status == JobStatus.DEAD;
+    }
+
+    public enum JobType {
+        SCRAPE(10),      // Apify actor run and ingestion of its dataset
+        ANALYSIS(5),     // Compliance analysis of a domain's ads
+        MEDIA(3),        // Download of an ad's images and videos
+        OCR(2),          // Text extraction from an ad's downloaded media
+        RAC(1),          // RAC keyword extraction from an ad's landing page
+        SCREENSHOT(0);   // Landing page screenshot of an ad
+
+        private final int defaultPriority;
+
+        JobType(int defaultPriority) {
+            this.defaultPriority = defaultPriority;
+        }
+
+        public int getDefaultPriority() {
+            return defaultPriority;
+        }
+    }
+
+    public enum JobStatus {
+        QUEUED,     // Waiting for a worker (possibly until available_at)
+        RUNNING,    // Leased by a worker
+        PAUSED,     // Paused by user, re-queued on resume
+        SUCCEEDED,  // Handler finished
+        CANCELLED,  // Cancelled by user, never run again
+        DEAD        // Failed on every attempt (dead letter)
+    }
+}
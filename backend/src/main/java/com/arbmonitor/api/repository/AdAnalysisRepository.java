@@ -7,10 +7,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -72,6 +74,15 @@ public interface AdAnalysisRepository extends JpaRepository<AdAnalysis, Long> {
     @Query("SELECT a FROM AdAnalysis a WHERE a.updatedAt < :olderThan ORDER BY a.updatedAt ASC")
     List<AdAnalysis> findAnalysesNeedingUpdate(LocalDateTime olderThan);
     
+    /**
+     * Analyses whose landing page was captured, newest first, as replay inputs for the cascade evaluation
+     */
+    @Query("SELECT a FROM AdAnalysis a JOIN FETCH a.domain WHERE a.landingPageContent IS NOT NULL ORDER BY a.updatedAt DESC")
+    List<AdAnalysis> findEvaluationSamples(Pageable pageable);
+    
+    @Query("SELECT a FROM AdAnalysis a JOIN FETCH a.domain d WHERE d.domainName = :domainName AND a.landingPageContent IS NOT NULL ORDER BY a.updatedAt DESC")
+    List<AdAnalysis> findEvaluationSamplesByDomain(@Param("domainName") String domainName, Pageable pageable);
+    
     /**
      * Delete analyses by domain
      */
@@ -79,6 +90,13 @@ public interface AdAnalysisRepository extends JpaRepository<AdAnalysis, Long> {
     @Transactional
     void deleteByDomain(Domain domain);
     
+    /**
+     * Delete the analyses of the given ads of a domain
+     */
+    @Modifying
+    @Transactional
+    void deleteByDomainAndMetaAdIdIn(Domain domain, Collection<String> metaAdIds);
+    
     /**
      * Count all analyses for a domain
      */
@@ -0,0 +1,26 @@
+package com.arbmonitor.api.repository;
+
+import com.arbmonitor.api.model.AnalysisCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AnalysisCheckpointRepository extends JpaRepository<AnalysisCheckpoint, Long> {
+
+    /**
+     * Checkpoints of the given ads that are already done for a job
+     */
+    List<AnalysisCheckpoint> findByJobIdAndMetaAdIdIn(Long jobId, Collection<String> metaAdIds);
+
+    /**
+     * Remove checkpoints of a finished job
+     */
+    @Modifying
+    @Transactional
+    void deleteByJobId(Long jobId);
+}
@@ -0,0 +1,28 @@
+package com.arbmonitor.api.repository;
+
+import com.arbmonitor.api.model.ComplianceBatchItem;
+import com.arbmonitor.api.model.ComplianceBatchItem.ItemStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ComplianceBatchItemRepository extends JpaRepository<ComplianceBatchItem, Long> {
+
+    List<ComplianceBatchItem> findByBatchIdAndStatus(Long batchId, ItemStatus status);
+
+    long countByBatchIdAndStatus(Long batchId, ItemStatus status);
+
+    /**
+     * Settle a pending item; returns 0 if another poller already did
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ComplianceBatchItem i SET i.status = :status WHERE i.id = :id AND i.status = 'PENDING'")
+    int settle(@Param("id") Long id, @Param("status") ItemStatus status);
+}
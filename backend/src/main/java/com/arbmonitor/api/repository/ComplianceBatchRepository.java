@@ -0,0 +1,44 @@
+package com.arbmonitor.api.repository;
+
+import com.arbmonitor.api.model.ComplianceBatch;
+import com.arbmonitor.api.model.ComplianceBatch.BatchStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ComplianceBatchRepository extends JpaRepository<ComplianceBatch, Long> {
+
+    List<ComplianceBatch> findByStatus(BatchStatus status);
+
+    List<ComplianceBatch> findByDomainNameOrderByCreatedAtDesc(String domainName);
+
+    long countByDomainNameAndStatusIn(String domainName, Collection<BatchStatus> statuses);
+
+    /**
+     * Move a batch between states only if it is still in one of the expected ones, so two pollers
+     * never apply the same output
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ComplianceBatch b SET b.status = :status, b.updatedAt = :now " +
+           "WHERE b.id = :id AND b.status IN :expected")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("expected") Collection<BatchStatus> expected,
+                         @Param("status") BatchStatus status,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ComplianceBatch b SET b.providerStatus = :providerStatus, b.updatedAt = :now WHERE b.id = :id")
+    int updateProviderStatus(@Param("id") Long id,
+                             @Param("providerStatus") String providerStatus,
+                             @Param("now") LocalDateTime now);
+}
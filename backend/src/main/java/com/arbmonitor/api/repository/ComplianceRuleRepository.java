@@ -44,4 +44,10 @@ public interface ComplianceRuleRepository extends JpaRepository<ComplianceRule,
      */
     @Query("SELECT COUNT(r) FROM ComplianceRule r WHERE r.active = true AND r.category = :category")
     long countActiveByCategoryAndActiveTrue(ComplianceRule.RuleCategory category);
-}
\ No newline at end of file
+    
+    /**
+     * Count, highest id and latest modification of the active rules; changes whenever the rule set does
+     */
+    @Query("SELECT COUNT(r), MAX(r.id), MAX(r.updatedAt) FROM ComplianceRule r WHERE r.active = true")
+    List<Object[]> getActiveRuleSetFingerprint();
+}
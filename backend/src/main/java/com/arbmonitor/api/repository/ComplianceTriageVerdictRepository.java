@@ -0,0 +1,42 @@
+package com.arbmonitor.api.repository;
+
+import com.arbmonitor.api.model.ComplianceTriageVerdict;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ComplianceTriageVerdictRepository extends JpaRepository<ComplianceTriageVerdict, Long> {
+
+    Optional<ComplianceTriageVerdict> findBySimilarityKey(String similarityKey);
+
+    /**
+     * Count a compliant verdict in place, so concurrent analyses of similar ads are all recorded
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ComplianceTriageVerdict v SET v.compliantCount = v.compliantCount + 1, " +
+           "v.compliantResponse = :response, v.updatedAt = :now WHERE v.similarityKey = :key")
+    int recordCompliant(@Param("key") String similarityKey,
+                        @Param("response") String response,
+                        @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ComplianceTriageVerdict v SET v.nonCompliantCount = v.nonCompliantCount + 1, " +
+           "v.nonCompliantResponse = :response, v.updatedAt = :now WHERE v.similarityKey = :key")
+    int recordNonCompliant(@Param("key") String similarityKey,
+                           @Param("response") String response,
+                           @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ComplianceTriageVerdict v WHERE v.updatedAt < :before")
+    int deleteNotUpdatedSince(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,53 @@
+package com.arbmonitor.api.repository;
+
+import com.arbmonitor.api.model.ComplianceVerdictCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ComplianceVerdictCacheRepository extends JpaRepository<ComplianceVerdictCacheEntry, Long> {
+    
+    Optional<ComplianceVerdictCacheEntry> findByCacheKey(String cacheKey);
+    
+    /**
+     * Count a cache hit without loading and re-saving the entry
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ComplianceVerdictCacheEntry c SET c.hitCount = c.hitCount + 1, c.lastAccessedAt = :now WHERE c.id = :id")
+    int recordHit(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ComplianceVerdictCacheEntry c WHERE c.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    void deleteByCacheKey(String cacheKey);
+    
+    /**
+     * Least recently used entries first, for size-bounded eviction
+     */
+    @Query("SELECT c.id FROM ComplianceVerdictCacheEntry c ORDER BY c.lastAccessedAt ASC")
+    List<Long> findLeastRecentlyUsedIds(Pageable pageable);
+    
+    /**
+     * Total cost avoided by all hits recorded in the cache
+     */
+    @Query("SELECT COALESCE(SUM(c.estimatedCost * c.hitCount), 0) FROM ComplianceVerdictCacheEntry c")
+    BigDecimal getTotalSavedCost();
+    
+    @Query("SELECT COALESCE(SUM(c.hitCount), 0) FROM ComplianceVerdictCacheEntry c")
+    Long getTotalHits();
+}
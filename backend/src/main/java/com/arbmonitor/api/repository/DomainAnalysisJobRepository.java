@@ -0,0 +1,99 @@
+package com.arbmonitor.api.repository;
+
+import com.arbmonitor.api.model.DomainAnalysisJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DomainAnalysisJobRepository extends JpaRepository<DomainAnalysisJob, Long> {
+
+    /**
+     * Most recent job of a domain in one of the given states
+     */
+    Optional<DomainAnalysisJob> findFirstByDomainNameAndStatusInOrderByStartedAtDesc(String domainName,
+                                                                                    Collection<DomainAnalysisJob.JobStatus> statuses);
+
+    /**
+     * Most recent job of a domain started at or after the given time
+     */
+    Optional<DomainAnalysisJob> findFirstByDomainNameAndStartedAtGreaterThanEqualOrderByStartedAtDesc(String domainName,
+                                                                                                   LocalDateTime startedAt);
+
+    /**
+     * All jobs of a domain in one of the given states
+     */
+    List<DomainAnalysisJob> findByDomainNameAndStatusIn(String domainName, Collection<DomainAnalysisJob.JobStatus> statuses);
+
+    /**
+     * All jobs in a given state
+     */
+    List<DomainAnalysisJob> findByStatus(DomainAnalysisJob.JobStatus status);
+
+    /**
+     * Record progress without touching the status, which may be changed concurrently by pause/cancel
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DomainAnalysisJob j SET j.processedAds = :processed, j.successCount = :success, " +
+           "j.errorCount = :errors, j.lastAdId = :lastAdId, j.updatedAt = :now WHERE j.id = :id")
+    int updateProgress(@Param("id") Long id,
+                       @Param("processed") Long processed,
+                       @Param("success") Long success,
+                       @Param("errors") Long errors,
+                       @Param("lastAdId") Long lastAdId,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * Add a page's triage outcomes to the job's totals
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DomainAnalysisJob j SET j.triageAutoResolved = COALESCE(j.triageAutoResolved, 0) + :autoResolved, " +
+           "j.triageEscalated = COALESCE(j.triageEscalated, 0) + :escalated, " +
+           "j.triageSavedCost = COALESCE(j.triageSavedCost, 0) + :savedCost, " +
+           "j.triageSavedMs = COALESCE(j.triageSavedMs, 0) + :savedMs WHERE j.id = :id")
+    int addTriageTotals(@Param("id") Long id,
+                        @Param("autoResolved") long autoResolved,
+                        @Param("escalated") long escalated,
+                        @Param("savedCost") BigDecimal savedCost,
+                        @Param("savedMs") long savedMs);
+
+    /**
+     * Most recent jobs of a domain
+     */
+    List<DomainAnalysisJob> findTop10ByDomainNameOrderByStartedAtDesc(String domainName);
+
+    /**
+     * Move a job to a new status if it is currently in one of the expected states
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DomainAnalysisJob j SET j.status = :status, j.updatedAt = :now WHERE j.id = :id AND j.status IN :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") Collection<DomainAnalysisJob.JobStatus> from,
+                         @Param("status") DomainAnalysisJob.JobStatus status,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Move a job to a terminal status if it is currently in one of the expected states
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DomainAnalysisJob j SET j.status = :status, j.errorMessage = :errorMessage, " +
+           "j.completedAt = :now, j.updatedAt = :now WHERE j.id = :id AND j.status IN :from")
+    int finishJob(@Param("id") Long id,
+                  @Param("from") Collection<DomainAnalysisJob.JobStatus> from,
+                  @Param("status") DomainAnalysisJob.JobStatus status,
+                  @Param("errorMessage") String errorMessage,
+                  @Param("now") LocalDateTime now);
+}
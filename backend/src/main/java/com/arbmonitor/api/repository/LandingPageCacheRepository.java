@@ -0,0 +1,37 @@
+package com.arbmonitor.api.repository;
+
+import com.arbmonitor.api.model.LandingPageCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface LandingPageCacheRepository extends JpaRepository<LandingPageCacheEntry, Long> {
+    
+    Optional<LandingPageCacheEntry> findByUrlHash(String urlHash);
+    
+    /**
+     * Count a capture served from the stored entry
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE LandingPageCacheEntry e SET e.hitCount = e.hitCount + 1 WHERE e.id = :id")
+    int recordHit(@Param("id") Long id);
+    
+    /**
+     * Entries not re-checked since the cutoff
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM LandingPageCacheEntry e WHERE e.checkedAt < :cutoff")
+    int deleteCheckedBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    @Query("SELECT COALESCE(SUM(e.hitCount), 0) FROM LandingPageCacheEntry e")
+    Long getTotalHits();
+}
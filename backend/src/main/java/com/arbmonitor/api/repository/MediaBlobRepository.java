@@ -0,0 +1,43 @@
+package com.arbmonitor.api.repository;
+
+import com.arbmonitor.api.model.MediaBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, Long> {
+    
+    Optional<MediaBlob> findBySha256(String sha256);
+    
+    Optional<MediaBlob> findFirstByEtag(String etag);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaBlob b SET b.lastReferencedAt = :now WHERE b.id = :id")
+    int touch(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaBlob b SET b.refCount = :refCount WHERE b.id = :id")
+    int updateRefCount(@Param("id") Long id, @Param("refCount") Long refCount);
+    
+    /**
+     * Blobs no ad points to any more and that have not been handed out since the cutoff
+     */
+    @Query("SELECT b FROM MediaBlob b WHERE b.refCount = 0 AND b.lastReferencedAt < :cutoff")
+    List<MediaBlob> findUnreferencedBefore(@Param("cutoff") LocalDateTime cutoff);
+    
+    @Query("SELECT COALESCE(SUM(b.sizeBytes), 0) FROM MediaBlob b")
+    Long getTotalSizeBytes();
+    
+    @Query("SELECT COALESCE(SUM(b.refCount), 0) FROM MediaBlob b")
+    Long getTotalReferences();
+}
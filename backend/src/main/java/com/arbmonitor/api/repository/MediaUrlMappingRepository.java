@@ -0,0 +1,27 @@
+package com.arbmonitor.api.repository;
+
+import com.arbmonitor.api.model.MediaUrlMapping;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface MediaUrlMappingRepository extends JpaRepository<MediaUrlMapping, Long> {
+    
+    Optional<MediaUrlMapping> findByUrlHash(String urlHash);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaUrlMapping m SET m.lastSeenAt = :now WHERE m.id = :id")
+    int touch(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    void deleteBySha256(String sha256);
+}
@@ -77,4 +77,18 @@ public interface OpenAIUsageRepository extends JpaRepository<OpenAIUsage, Long>
      */
     @Query("SELECT COALESCE(SUM(u.totalTokens), 0) FROM OpenAIUsage u WHERE u.userId = :userId")
     Long getTotalTokensByUserId(@Param("userId") Long userId);
+    
+    /**
+     * Average cost and duration of successful requests of one type since a given time
+     */
+    @Query("SELECT AVG(u.estimatedCost), AVG(u.requestDurationMs) FROM OpenAIUsage u " +
+           "WHERE u.requestType = :requestType AND u.success = true AND u.requestTimestamp >= :since")
+    List<Object[]> getAverageCostAndDuration(@Param("requestType") String requestType, @Param("since") LocalDateTime since);
+    
+    /**
+     * Requests, prompt tokens and cached prompt tokens of successful requests per request type and model
+     */
+    @Query("SELECT u.requestType, u.modelName, COUNT(u), COALESCE(SUM(u.promptTokens), 0), COALESCE(SUM(u.cachedTokens), 0) " +
+           "FROM OpenAIUsage u WHERE u.success = true AND u.requestTimestamp >= :since GROUP BY u.requestType, u.modelName")
+    List<Object[]> getPromptCacheUsage(@Param("since") LocalDateTime since);
 }
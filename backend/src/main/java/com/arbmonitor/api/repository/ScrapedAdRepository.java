@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +27,36 @@ public interface ScrapedAdRepository extends JpaRepository<ScrapedAd, Long> {
     // Find active ads by domain name
     Page<ScrapedAd> findByDomainNameAndIsActiveTrueOrderByScrapedAtDesc(String domainName, Pageable pageable);
     
+    // Keyset page of a domain's ads after the given id (used by resumable analysis jobs)
+    List<ScrapedAd> findByDomainNameAndIdGreaterThanOrderByIdAsc(String domainName, Long id, Pageable pageable);
+    
+    // Keyset page of a domain's ads that have no compliance analysis yet
+    @Query("SELECT sa FROM ScrapedAd sa WHERE sa.domainName = :domainName AND sa.id > :id AND NOT EXISTS " +
+           "(SELECT a.id FROM AdAnalysis a WHERE a.metaAdId = sa.metaAdId AND a.domain.domainName = :domainName) " +
+           "ORDER BY sa.id ASC")
+    List<ScrapedAd> findUnanalyzedByDomainNameAfterId(@Param("domainName") String domainName,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
+    
+    // Count a domain's ads that have no compliance analysis yet
+    @Query("SELECT COUNT(sa) FROM ScrapedAd sa WHERE sa.domainName = :domainName AND NOT EXISTS " +
+           "(SELECT a.id FROM AdAnalysis a WHERE a.metaAdId = sa.metaAdId AND a.domain.domainName = :domainName)")
+    long countUnanalyzedByDomainName(@Param("domainName") String domainName);
+    
+    // Meta Ad ID and content fingerprint of every ad of a domain, for incremental re-scrapes
+    @Query("SELECT sa.metaAdId, sa.contentFingerprint FROM ScrapedAd sa WHERE sa.domainName = :domainName")
+    List<Object[]> findFingerprintsByDomainName(@Param("domainName") String domainName);
+    
+    // Refresh activity of unchanged ads without loading them
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScrapedAd sa SET sa.isActive = :active, sa.lastUpdated = :now " +
+           "WHERE sa.domainName = :domainName AND sa.metaAdId IN :metaAdIds")
+    int updateActivity(@Param("domainName") String domainName,
+                       @Param("metaAdIds") Collection<String> metaAdIds,
+                       @Param("active") Boolean active,
+                       @Param("now") LocalDateTime now);
+    
     // Find by Meta Ad ID
     Optional<ScrapedAd> findByMetaAdId(String metaAdId);
     
@@ -84,5 +115,17 @@ public interface ScrapedAdRepository extends JpaRepository<ScrapedAd, Long> {
     
     // Find ads without RAC values for re-processing (paginated)
     Page<ScrapedAd> findByDomainNameAndReferrerAdCreativeIsNull(String domainName, Pageable pageable);
+    
+    // Ids of all ads of a domain, for queueing per-ad jobs
+    @Query("SELECT sa.id FROM ScrapedAd sa WHERE sa.domainName = :domainName ORDER BY sa.id")
+    List<Long> findIdsByDomainName(@Param("domainName") String domainName);
+    
+    /**
+     * How many ads reference each stored local image / video path
+     */
+    @Query("SELECT p, COUNT(a) FROM ScrapedAd a JOIN a.localImagePaths p GROUP BY p")
+    List<Object[]> countLocalImagePathReferences();
+    
+    @Query("SELECT p, COUNT(a) FROM ScrapedAd a JOIN a.localVideoPaths p GROUP BY p")
+    List<Object[]> countLocalVideoPathReferences();
 }
-
@@ -0,0 +1,165 @@
+package com.arbmonitor.api.repository;
+
+import com.arbmonitor.api.model.WorkJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WorkJobRepository extends JpaRepository<WorkJob, Long> {
+
+    /**
+     * Queued jobs that may run now, highest priority first, then oldest
+     */
+    @Query("SELECT j FROM WorkJob j WHERE j.status = 'QUEUED' AND j.availableAt <= :now AND j.jobType IN :types " +
+           "ORDER BY j.priority DESC, j.availableAt ASC, j.id ASC")
+    List<WorkJob> findReady(@Param("now") LocalDateTime now,
+                            @Param("types") Collection<WorkJob.JobType> types,
+                            Pageable pageable);
+
+    /**
+     * Unfinished job for the same work, used to avoid queueing duplicates
+     */
+    Optional<WorkJob> findFirstByJobTypeAndDomainNameAndTargetIdAndStatusIn(WorkJob.JobType jobType,
+                                                                          String domainName,
+                                                                          String targetId,
+                                                                          Collection<WorkJob.JobStatus> statuses);
+
+    List<WorkJob> findByStatusOrderByUpdatedAtDesc(WorkJob.JobStatus status, Pageable pageable);
+
+    long countByDomainNameAndStatusIn(String domainName, Collection<WorkJob.JobStatus> statuses);
+
+    long countByJobTypeAndDomainNameAndStatusIn(WorkJob.JobType jobType, String domainName,
+                                                Collection<WorkJob.JobStatus> statuses);
+
+    /**
+     * Job counts per type and status
+     */
+    @Query("SELECT j.jobType, j.status, COUNT(j) FROM WorkJob j GROUP BY j.jobType, j.status")
+    List<Object[]> countByTypeAndStatus();
+
+    /**
+     * Take a queued job; returns 0 when another worker got it first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkJob j SET j.status = 'RUNNING', j.leaseOwner = :owner, j.leaseExpiresAt = :leaseUntil, " +
+           "j.attempts = j.attempts + 1, j.updatedAt = :now WHERE j.id = :id AND j.status = 'QUEUED'")
+    int claim(@Param("id") Long id,
+              @Param("owner") String owner,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("now") LocalDateTime now);
+
+    /**
+     * Extend the leases of jobs this worker is still running
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkJob j SET j.leaseExpiresAt = :leaseUntil WHERE j.id IN :ids " +
+           "AND j.leaseOwner = :owner AND j.status = 'RUNNING'")
+    int heartbeat(@Param("ids") Collection<Long> ids,
+                  @Param("owner") String owner,
+                  @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Finish a leased job; returns 0 if it was paused or cancelled while running
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkJob j SET j.status = :status, j.lastError = :error, j.leaseOwner = NULL, " +
+           "j.leaseExpiresAt = NULL, j.finishedAt = :now, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = 'RUNNING'")
+    int finish(@Param("id") Long id,
+               @Param("owner") String owner,
+               @Param("status") WorkJob.JobStatus status,
+               @Param("error") String error,
+               @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkJob j SET j.payload = :payload, j.updatedAt = :now WHERE j.id = :id")
+    int updatePayload(@Param("id") Long id, @Param("payload") String payload, @Param("now") LocalDateTime now);
+
+    /**
+     * Put a failed leased job back in the queue, not to be taken before availableAt
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkJob j SET j.status = 'QUEUED', j.lastError = :error, j.leaseOwner = NULL, " +
+           "j.leaseExpiresAt = NULL, j.availableAt = :availableAt, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.leaseOwner = :owner AND j.status = 'RUNNING'")
+    int retry(@Param("id") Long id,
+              @Param("owner") String owner,
+              @Param("error") String error,
+              @Param("availableAt") LocalDateTime availableAt,
+              @Param("now") LocalDateTime now);
+
+    /**
+     * Re-queue jobs whose worker stopped sending heartbeats (crash or restart) and have attempts left
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkJob j SET j.status = 'QUEUED', j.lastError = 'Lease expired', j.leaseOwner = NULL, " +
+           "j.leaseExpiresAt = NULL, j.availableAt = :now, j.updatedAt = :now " +
+           "WHERE j.status = 'RUNNING' AND j.leaseExpiresAt < :now AND j.attempts < j.maxAttempts")
+    int requeueExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Dead-letter jobs whose lease expired on their last attempt
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkJob j SET j.status = 'DEAD', j.lastError = 'Lease expired on last attempt', " +
+           "j.leaseOwner = NULL, j.leaseExpiresAt = NULL, j.finishedAt = :now, j.updatedAt = :now " +
+           "WHERE j.status = 'RUNNING' AND j.leaseExpiresAt < :now AND j.attempts >= j.maxAttempts")
+    int deadLetterExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Move every job of a domain in one of the given states to a new state (pause/resume)
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkJob j SET j.status = :status, j.leaseOwner = NULL, j.leaseExpiresAt = NULL, " +
+           "j.updatedAt = :now WHERE j.domainName = :domainName AND j.status IN :from")
+    int transitionDomainJobs(@Param("domainName") String domainName,
+                             @Param("from") Collection<WorkJob.JobStatus> from,
+                             @Param("status") WorkJob.JobStatus status,
+                             @Param("now") LocalDateTime now);
+
+    /**
+     * Cancel every job of a domain in one of the given states; finishedAt is set so the job is purged later
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkJob j SET j.status = 'CANCELLED', j.leaseOwner = NULL, j.leaseExpiresAt = NULL, " +
+           "j.finishedAt = :now, j.updatedAt = :now WHERE j.domainName = :domainName AND j.status IN :from")
+    int cancelDomainJobs(@Param("domainName") String domainName,
+                         @Param("from") Collection<WorkJob.JobStatus> from,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Give a dead-lettered job a fresh set of attempts
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WorkJob j SET j.status = 'QUEUED', j.attempts = 0, j.availableAt = :now, j.finishedAt = NULL, " +
+           "j.updatedAt = :now WHERE j.id = :id AND j.status = 'DEAD'")
+    int requeueDead(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Remove finished jobs older than the cutoff
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM WorkJob j WHERE j.status IN ('SUCCEEDED', 'CANCELLED') AND j.finishedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
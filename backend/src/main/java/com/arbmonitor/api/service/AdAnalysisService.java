@@ -20,7 +20,6 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 /**
  * Service for analyzing ads and checking compliance
@@ -35,16 +34,19 @@ public class AdAnalysisService {
     private final ComplianceRuleRepository complianceRuleRepository;
     private final ViolationRepository violationRepository;
     private final MetaApiService metaApiService;
+    private final ComplianceRuleEngine complianceRuleEngine;
     
     public AdAnalysisService(
             AdAnalysisRepository adAnalysisRepository,
             ComplianceRuleRepository complianceRuleRepository,
             ViolationRepository violationRepository,
-            MetaApiService metaApiService) {
+            MetaApiService metaApiService,
+            ComplianceRuleEngine complianceRuleEngine) {
         this.adAnalysisRepository = adAnalysisRepository;
         this.complianceRuleRepository = complianceRuleRepository;
         this.violationRepository = violationRepository;
         this.metaApiService = metaApiService;
+        this.complianceRuleEngine = complianceRuleEngine;
     }
     
     /**
@@ -194,26 +196,19 @@ public class AdAnalysisService {
             return violations;
         }
         
-        try {
-            Pattern pattern = Pattern.compile(rulePattern, Pattern.CASE_INSENSITIVE);
-            
-            // Check headline
-            if (analysis.getHeadline() != null && pattern.matcher(analysis.getHeadline()).find()) {
-                violations.add(analysis.getHeadline());
-            }
-            
-            // Check primary text
-            if (analysis.getPrimaryText() != null && pattern.matcher(analysis.getPrimaryText()).find()) {
-                violations.add(analysis.getPrimaryText());
-            }
-            
-            // Check image text if available
-            if (analysis.getImageText() != null && pattern.matcher(analysis.getImageText()).find()) {
-                violations.add(analysis.getImageText());
-            }
-            
-        } catch (Exception e) {
-            logger.warn("Error checking rule pattern '{}': {}", rulePattern, e.getMessage());
+        // Check headline
+        if (complianceRuleEngine.matchesRulePattern(rule, analysis.getHeadline())) {
+            violations.add(analysis.getHeadline());
+        }
+        
+        // Check primary text
+        if (complianceRuleEngine.matchesRulePattern(rule, analysis.getPrimaryText())) {
+            violations.add(analysis.getPrimaryText());
+        }
+        
+        // Check image text if available
+        if (complianceRuleEngine.matchesRulePattern(rule, analysis.getImageText())) {
+            violations.add(analysis.getImageText());
         }
         
         return violations;
@@ -0,0 +1,94 @@
+package com.arbmonitor.api.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Reads an Apify dataset page by page (offset/limit) and parses each page with the Jackson
+ * streaming API, so only one item is held as a tree at a time regardless of dataset size.
+ */
+@Service
+public class ApifyDatasetStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApifyDatasetStreamService.class);
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.apify.base-url:https://api.apify.com/v2}")
+    private String apiBase;
+
+    @Value("${app.apify.token:}")
+    private String apifyToken;
+
+    @Value("${app.apify.dataset-page-size:250}")
+    private int pageSize;
+
+    /**
+     * Hand every item of the dataset to the consumer in dataset order and return the number of items read.
+     * A failing consumer only skips its own item.
+     */
+    public long readItems(String datasetId, Consumer<JsonNode> consumer) {
+        int limit = Math.max(1, pageSize);
+        long offset = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            String url = String.format("%s/datasets/%s/items?token=%s&format=json&offset=%d&limit=%d",
+                                     apiBase, datasetId, apifyToken, offset, limit);
+            Integer read = restTemplate.execute(url, HttpMethod.GET, null,
+                response -> readPage(response.getBody(), consumer));
+            int count = read != null ? read : 0;
+
+            offset += count;
+            logger.debug("Read {} items from Apify dataset {} (total {})", count, datasetId, offset);
+            if (count < limit) {
+                break;
+            }
+        }
+
+        logger.info("Streamed {} items from Apify dataset {}", offset, datasetId);
+        return offset;
+    }
+
+    private int readPage(InputStream body, Consumer<JsonNode> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of dataset items");
+            }
+
+            int count = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                count++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                JsonNode item = parser.readValueAsTree();
+                try {
+                    consumer.accept(item);
+                } catch (Exception e) {
+                    logger.warn("Failed to process Apify dataset item: {}", e.getMessage());
+                }
+            }
+            return count;
+        }
+    }
+}
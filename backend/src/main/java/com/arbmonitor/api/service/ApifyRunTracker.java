@@ -0,0 +1,328 @@
+package com.arbmonitor.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks in-flight Apify actor runs without parking a thread per run. Runs finish through Apify
+ * webhook callbacks when a callback URL is configured; a single shared poller checks every run
+ * with adaptive backoff as a fallback, and as a safety net for webhooks that never arrive.
+ */
+@Service
+public class ApifyRunTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApifyRunTracker.class);
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("SUCCEEDED", "FAILED", "ABORTED", "TIMED-OUT");
+
+    private static final List<String> WEBHOOK_EVENT_TYPES = List.of(
+        "ACTOR.RUN.SUCCEEDED", "ACTOR.RUN.FAILED", "ACTOR.RUN.ABORTED", "ACTOR.RUN.TIMED_OUT");
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.apify.base-url:https://api.apify.com/v2}")
+    private String apiBase;
+
+    @Value("${app.apify.token:}")
+    private String apifyToken;
+
+    @Value("${app.apify.webhook.callback-url:}")
+    private String callbackUrl;
+
+    @Value("${app.apify.webhook.secret:}")
+    private String webhookSecret;
+
+    @Value("${app.apify.poll.initial-delay-ms:5000}")
+    private long initialDelayMs;
+
+    @Value("${app.apify.poll.max-delay-ms:60000}")
+    private long maxDelayMs;
+
+    @Value("${app.apify.poll.backoff-multiplier:1.5}")
+    private double backoffMultiplier;
+
+    @Value("${app.apify.poll.webhook-fallback-delay-ms:120000}")
+    private long webhookFallbackDelayMs;
+
+    @Value("${app.apify.run-timeout-seconds:1800}")
+    private long runTimeoutSeconds;
+
+    private final Map<String, TrackedRun> runs = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ApifyRunPoller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Counters since application start
+    private final AtomicLong runsTracked = new AtomicLong();
+    private final AtomicLong completedByWebhook = new AtomicLong();
+    private final AtomicLong completedByPoll = new AtomicLong();
+    private final AtomicLong statusPolls = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong rejectedWebhooks = new AtomicLong();
+
+    /**
+     * Final state of an actor run
+     */
+    public static class RunOutcome {
+        private final String runId;
+        private final String status;
+        private final String datasetId;
+        private final boolean viaWebhook;
+
+        public RunOutcome(String runId, String status, String datasetId, boolean viaWebhook) {
+            this.runId = runId;
+            this.status = status;
+            this.datasetId = datasetId;
+            this.viaWebhook = viaWebhook;
+        }
+
+        public String getRunId() { return runId; }
+        public String getStatus() { return status; }
+        public String getDatasetId() { return datasetId; }
+        public boolean isViaWebhook() { return viaWebhook; }
+        public boolean isSucceeded() { return "SUCCEEDED".equals(status); }
+    }
+
+    private static class TrackedRun {
+        private final String runId;
+        private final String domainName;
+        private final CompletableFuture<RunOutcome> outcome = new CompletableFuture<>();
+        private final long registeredAt = System.currentTimeMillis();
+        private volatile long nextPollAt;
+        private long delayMs;
+        private String lastStatus = "READY";
+        private int polls = 0;
+
+        private TrackedRun(String runId, String domainName) {
+            this.runId = runId;
+            this.domainName = domainName;
+        }
+    }
+
+    @PostConstruct
+    public void startPoller() {
+        if (isWebhookEnabled() && (webhookSecret == null || webhookSecret.isBlank())) {
+            webhookSecret = UUID.randomUUID().toString();
+        }
+        poller.scheduleWithFixedDelay(this::pollDueRuns, 1000, 1000, TimeUnit.MILLISECONDS);
+        logger.info("Apify run tracker started (webhooks: {}, poll delay {}-{} ms)",
+                   isWebhookEnabled() ? "enabled" : "disabled", initialDelayMs, maxDelayMs);
+    }
+
+    @PreDestroy
+    public void stopPoller() {
+        poller.shutdownNow();
+    }
+
+    public boolean isWebhookEnabled() {
+        return callbackUrl != null && !callbackUrl.isBlank();
+    }
+
+    /**
+     * Value of the run-start "webhooks" query parameter that makes Apify call back when the run
+     * ends, or null when no callback URL is configured
+     */
+    public String buildWebhooksParameter() {
+        if (!isWebhookEnabled()) {
+            return null;
+        }
+        try {
+            String separator = callbackUrl.contains("?") ? "&" : "?";
+            Map<String, Object> webhook = new HashMap<>();
+            webhook.put("eventTypes", WEBHOOK_EVENT_TYPES);
+            webhook.put("requestUrl", callbackUrl + separator + "secret=" + webhookSecret);
+            byte[] json = objectMapper.writeValueAsBytes(List.of(webhook));
+            return Base64.getEncoder().encodeToString(json);
+        } catch (Exception e) {
+            logger.warn("Could not build Apify webhook definition, falling back to polling: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Start tracking a run; the future completes once the run reaches a terminal status, and fails
+     * when it exceeds the run timeout or is cancelled
+     */
+    public CompletableFuture<RunOutcome> track(String runId, String domainName) {
+        TrackedRun run = new TrackedRun(runId, domainName);
+        // With webhooks, polling only guards against a lost callback
+        run.delayMs = isWebhookEnabled() ? webhookFallbackDelayMs : initialDelayMs;
+        run.nextPollAt = run.registeredAt + run.delayMs;
+        runs.put(runId, run);
+        runsTracked.incrementAndGet();
+        logger.info("Tracking Apify run {} for domain {}", runId, domainName);
+        return run.outcome;
+    }
+
+    /**
+     * Stop tracking a run; its future fails with a CancellationException
+     */
+    public void cancel(String runId) {
+        TrackedRun run = runId != null ? runs.remove(runId) : null;
+        if (run != null) {
+            run.outcome.completeExceptionally(new CancellationException("Apify run " + runId + " no longer tracked"));
+            logger.info("Stopped tracking Apify run {} for domain {}", runId, run.domainName);
+        }
+    }
+
+    /**
+     * Handle an Apify webhook call. Returns false when the secret does not match; a callback for an
+     * unknown run is accepted and ignored.
+     */
+    public boolean onWebhook(JsonNode payload, String secret) {
+        if (!isWebhookEnabled() || secret == null
+                || !MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), webhookSecret.getBytes(StandardCharsets.UTF_8))) {
+            rejectedWebhooks.incrementAndGet();
+            return false;
+        }
+
+        JsonNode resource = payload.path("resource");
+        String runId = payload.path("eventData").path("actorRunId").asText(resource.path("id").asText(""));
+        TrackedRun run = runs.get(runId);
+        if (run == null) {
+            logger.debug("Ignoring Apify webhook for untracked run {}", runId);
+            return true;
+        }
+
+        String status = resource.path("status").asText("");
+        if (TERMINAL_STATUSES.contains(status)) {
+            completedByWebhook.incrementAndGet();
+            complete(run, new RunOutcome(runId, status, resource.path("defaultDatasetId").asText(null), true));
+        } else {
+            // Payload without the run resource: let the poller fetch the status right away
+            run.nextPollAt = System.currentTimeMillis();
+        }
+        return true;
+    }
+
+    /**
+     * Tracked runs and how they completed
+     */
+    public Map<String, Object> getTrackerStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("webhooksEnabled", isWebhookEnabled());
+        stats.put("inFlightRuns", runs.size());
+        stats.put("runsTracked", runsTracked.get());
+        stats.put("completedByWebhook", completedByWebhook.get());
+        stats.put("completedByPoll", completedByPoll.get());
+        stats.put("statusPolls", statusPolls.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("rejectedWebhooks", rejectedWebhooks.get());
+
+        List<Map<String, Object>> inFlight = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (TrackedRun run : runs.values()) {
+            Map<String, Object> runStats = new HashMap<>();
+            runStats.put("runId", run.runId);
+            runStats.put("domain", run.domainName);
+            runStats.put("status", run.lastStatus);
+            runStats.put("polls", run.polls);
+            runStats.put("elapsedSeconds", (now - run.registeredAt) / 1000);
+            inFlight.add(runStats);
+        }
+        stats.put("runs", inFlight);
+        return stats;
+    }
+
+    private void pollDueRuns() {
+        long now = System.currentTimeMillis();
+        for (TrackedRun run : runs.values()) {
+            if (run.outcome.isDone()) {
+                runs.remove(run.runId, run);
+                continue;
+            }
+            if (now - run.registeredAt > TimeUnit.SECONDS.toMillis(runTimeoutSeconds)) {
+                timedOut.incrementAndGet();
+                runs.remove(run.runId, run);
+                logger.warn("Apify run {} for domain {} timed out after {} seconds", run.runId, run.domainName, runTimeoutSeconds);
+                run.outcome.completeExceptionally(
+                    new RuntimeException("Apify scraping timed out after " + runTimeoutSeconds + " seconds"));
+                continue;
+            }
+            if (run.nextPollAt <= now) {
+                try {
+                    pollRun(run);
+                } catch (Exception e) {
+                    logger.error("Error polling Apify run {}: {}", run.runId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void pollRun(TrackedRun run) throws Exception {
+        statusPolls.incrementAndGet();
+        run.polls++;
+
+        JsonNode data = null;
+        try {
+            String url = String.format("%s/actor-runs/%s?token=%s", apiBase, run.runId, apifyToken);
+            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+            if (response.getStatusCode().is2xxSuccessful()) {
+                data = objectMapper.readTree(response.getBody()).path("data");
+            }
+        } finally {
+            scheduleNextPoll(run, data != null ? data.path("status").asText("UNKNOWN") : "UNKNOWN");
+        }
+
+        if (data != null && TERMINAL_STATUSES.contains(run.lastStatus)) {
+            completedByPoll.incrementAndGet();
+            complete(run, new RunOutcome(run.runId, run.lastStatus, data.path("defaultDatasetId").asText(null), false));
+        }
+    }
+
+    /**
+     * Back off while the run sits in the same state; a state change means progress, so check sooner
+     */
+    private void scheduleNextPoll(TrackedRun run, String status) {
+        if (!status.equals(run.lastStatus)) {
+            logger.info("Apify run {} status: {} (after {} polls)", run.runId, status, run.polls);
+            run.lastStatus = status;
+            run.delayMs = isWebhookEnabled() ? webhookFallbackDelayMs : initialDelayMs;
+        } else if (!isWebhookEnabled()) {
+            run.delayMs = Math.min(maxDelayMs, (long) (run.delayMs * Math.max(1.0, backoffMultiplier)));
+        }
+        run.nextPollAt = System.currentTimeMillis() + run.delayMs;
+    }
+
+    private void complete(TrackedRun run, RunOutcome outcome) {
+        runs.remove(run.runId, run);
+        if (run.outcome.complete(outcome)) {
+            logger.info("Apify run {} for domain {} finished with status {} ({}, {} s)", run.runId, run.domainName,
+                       outcome.getStatus(), outcome.isViaWebhook() ? "webhook" : "poll",
+                       (System.currentTimeMillis() - run.registeredAt) / 1000);
+        }
+    }
+}
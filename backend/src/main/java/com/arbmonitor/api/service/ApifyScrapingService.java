@@ -1,7 +1,10 @@
 package com.arbmonitor.api.service;
 
+import com.arbmonitor.api.config.IoExecutorRegistry;
 import com.arbmonitor.api.model.ScrapedAd;
 import com.arbmonitor.api.model.Domain;
+import com.arbmonitor.api.model.DomainAnalysisJob;
+import com.arbmonitor.api.model.WorkJob;
 import com.arbmonitor.api.repository.ScrapedAdRepository;
 import com.arbmonitor.api.repository.DomainRepository;
 import com.arbmonitor.api.repository.AdAnalysisRepository;
@@ -10,6 +13,8 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,18 +26,31 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Service
 public class ApifyScrapingService {
@@ -66,15 +84,60 @@ public class ApifyScrapingService {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private DomainAnalysisJobService domainAnalysisJobService;
+    
+    @Autowired
+    private ScrapedAdIngestionService scrapedAdIngestionService;
+    
+    @Autowired
+    private ApifyDatasetStreamService apifyDatasetStreamService;
+    
+    @Autowired
+    private MediaDownloadService mediaDownloadService;
+    
+    @Autowired
+    private LandingPageCaptureService landingPageCaptureService;
+    
+    @Autowired
+    private IoExecutorRegistry ioExecutorRegistry;
+    
+    @Autowired
+    private ApifyRunTracker apifyRunTracker;
+    
+    @Autowired
+    private JobQueueService jobQueueService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.apify.base-url:https://api.apify.com/v2}")
+    private String apifyApiBase;
+    
     @Value("${app.apify.token:}")
     private String apifyToken;
     
     @Value("${app.apify.results-limit:0}")
     private int resultsLimit;
     
-    private static final String APIFY_API_BASE = "https://api.apify.com/v2";
+    @Value("${app.apify.incremental:true}")
+    private boolean incrementalScrapeEnabled;
+    
+    @Value("${app.ingestion.batch-size:200}")
+    private int ingestionBatchSize;
+    
+    @Value("${app.media.download.max-in-flight-per-scrape:64}")
+    private int maxInFlightDownloadsPerScrape;
+    
     private static final String FACEBOOK_ADS_SCRAPER_ID = "apify~facebook-ads-scraper";
     
+    // Payload of analysis jobs: every ad, or only those without an analysis (incremental re-scrapes)
+    private static final String ANALYZE_ALL_ADS = "all";
+    private static final String ANALYZE_NEW_ADS = "unanalyzed";
+    
+    // Payload of scrape jobs once their actor run is started: "apify-run:<runId>:<incremental>"
+    private static final String APIFY_RUN_PAYLOAD_PREFIX = "apify-run:";
+    
     /**
      * Update domain processing status
      */
@@ -95,10 +158,16 @@ public class ApifyScrapingService {
     // Track active scraping tasks
     private final Map<String, CompletableFuture<String>> activeScrapingTasks = new ConcurrentHashMap<>();
     
+    // Apify run of each domain whose scrape is waiting for the actor to finish
+    private final Map<String, String> activeRunIds = new ConcurrentHashMap<>();
+    
     /**
      * Stop scraping for a domain
      */
     public void stopScrapingForDomain(String domainName) {
+        jobQueueService.cancelDomain(domainName);
+        domainAnalysisJobService.cancelJobs(domainName);
+        apifyRunTracker.cancel(activeRunIds.remove(domainName));
         CompletableFuture<String> task = activeScrapingTasks.get(domainName);
         if (task != null && !task.isDone()) {
             task.cancel(true);
@@ -115,145 +184,390 @@ public class ApifyScrapingService {
         logger.info("Attempting to pause domain: {}, task exists: {}, task done: {}", 
                    domainName, task != null, task != null ? task.isDone() : "N/A");
         
+        // Queued and running jobs are held until the domain is resumed
+        boolean queuedJobsPaused = jobQueueService.pauseDomain(domainName) > 0;
+        
+        // A running compliance analysis stops after its current page and can be resumed later
+        if (domainAnalysisJobService.pauseJob(domainName)) {
+            updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.PAUSED, "Compliance analysis paused by user");
+            return true;
+        }
+        
         if (task != null && !task.isDone()) {
+            apifyRunTracker.cancel(activeRunIds.remove(domainName));
             boolean cancelled = task.cancel(true);
             activeScrapingTasks.remove(domainName);
             updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.PAUSED, "Scraping paused by user");
             logger.info("Paused Apify scraping for domain: {}, cancellation success: {}", domainName, cancelled);
             return true;
         }
+        if (queuedJobsPaused) {
+            updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.PAUSED, "Queued work paused by user");
+            return true;
+        }
         logger.info("No active task to pause for domain: {}", domainName);
         return false;
     }
     
     /**
-     * Resume scraping for a domain
+     * Resume scraping for a domain: paused queue jobs are re-queued; otherwise a paused analysis
+     * continues, or the domain is scraped again
      */
     public CompletableFuture<String> resumeScrapingForDomain(String domainName) {
         // Check if domain is in paused state
         Domain domain = domainRepository.findByDomainName(domainName);
         if (domain != null && domain.getProcessingStatus() == Domain.ProcessingStatus.PAUSED) {
-            logger.info("Resuming Apify scraping for domain: {}", domainName);
-            return scrapeAdsUsingApify(domainName);
+            if (jobQueueService.resumeDomain(domainName) == 0) {
+                WorkJob.JobType jobType = domainAnalysisJobService.hasPausedJob(domainName)
+                    ? WorkJob.JobType.ANALYSIS : WorkJob.JobType.SCRAPE;
+                jobQueueService.enqueue(jobType, domainName, null, ANALYZE_ALL_ADS);
+            }
+            updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.SCANNING_COMPLIANCE, "Resuming...");
+            logger.info("Resumed queued work for domain: {}", domainName);
+            return CompletableFuture.completedFuture("Resumed domain: " + domainName);
         }
         return CompletableFuture.completedFuture("Domain not in paused state");
     }
     
     /**
-     * Scrape ads using Apify's Facebook Ads Scraper
+     * Queue a scrape of a domain; the analysis of its ads is queued when the scrape finishes
+     */
+    public WorkJob enqueueScrape(String domainName) {
+        return jobQueueService.enqueue(WorkJob.JobType.SCRAPE, domainName, null, null);
+    }
+    
+    /**
+     * Queue one per-ad job (media, OCR, RAC or screenshot) for every ad of a domain
+     */
+    public int enqueueAdJobs(String domainName, WorkJob.JobType jobType) {
+        List<Long> adIds = jobType == WorkJob.JobType.RAC
+            ? scrapedAdRepository.findByDomainNameAndReferrerAdCreativeIsNull(domainName).stream().map(ScrapedAd::getId).toList()
+            : scrapedAdRepository.findIdsByDomainName(domainName);
+        for (Long adId : adIds) {
+            jobQueueService.enqueue(jobType, domainName, String.valueOf(adId), null);
+        }
+        logger.info("Queued {} {} jobs for domain: {}", adIds.size(), jobType, domainName);
+        return adIds.size();
+    }
+    
+    @PostConstruct
+    public void registerJobHandlers() {
+        jobQueueService.registerHandler(WorkJob.JobType.SCRAPE, this::runScrapeJob);
+        jobQueueService.registerHandler(WorkJob.JobType.ANALYSIS, this::runAnalysisJob);
+        jobQueueService.registerHandler(WorkJob.JobType.MEDIA, job -> downloadMediaInBackground(loadAd(job)));
+        jobQueueService.registerHandler(WorkJob.JobType.OCR, job -> processMediaForAd(loadAd(job)));
+        // Landing page work waits on the browser pool and the network, off the job worker threads
+        jobQueueService.registerHandler(WorkJob.JobType.RAC, job -> CompletableFuture.supplyAsync(() -> {
+            ScrapedAd ad = loadAd(job);
+            processLandingPageForAd(ad);
+            scrapedAdRepository.save(ad);
+            return ad.getReferrerAdCreative();
+        }, ioExecutorRegistry.executor(IoExecutorRegistry.LANDING)));
+        jobQueueService.registerHandler(WorkJob.JobType.SCREENSHOT, job -> CompletableFuture.supplyAsync(() -> {
+            ScrapedAd ad = loadAd(job);
+            LandingPageCaptureService.LandingPageCapture capture =
+                landingPageCaptureService.capture(ad.getLandingPageUrl(), ad.getMetaAdId());
+            if (capture.getScreenshotPath() == null) {
+                throw new IllegalStateException("No screenshot captured for " + ad.getLandingPageUrl());
+            }
+            return capture.getScreenshotPath();
+        }, ioExecutorRegistry.executor(IoExecutorRegistry.LANDING)));
+    }
+    
+    /**
+     * Scrape job: completes when the ads are ingested; the run itself is awaited without a thread
+     */
+    private CompletableFuture<String> runScrapeJob(WorkJob job) {
+        if (apifyToken == null || apifyToken.isEmpty()) {
+            updateDomainProcessingStatus(job.getDomainName(), Domain.ProcessingStatus.FAILED, "Apify token not configured");
+            throw new JobQueueService.PermanentJobFailure("Apify token not configured");
+        }
+        
+        // An attempt cut short by a restart left its actor run behind; wait for that run instead of starting another
+        StartedScrape previousRun = parseScrapePayload(job.getPayload());
+        if (previousRun != null) {
+            logger.info("Re-attaching to Apify run {} for domain: {}", previousRun.runId, job.getDomainName());
+        }
+        
+        return scrape(job.getDomainName(), previousRun, started ->
+            jobQueueService.updatePayload(job.getId(), APIFY_RUN_PAYLOAD_PREFIX + started.runId + ":" + started.incremental)
+        ).handle((result, error) -> {
+            if (error != null || result == null || result.startsWith("Error")) {
+                // Failed, paused or cancelled in this process: the next attempt starts a fresh run
+                jobQueueService.updatePayload(job.getId(), null);
+                throw error instanceof CompletionException completion ? completion
+                    : error != null ? new CompletionException(error)
+                    : new IllegalStateException(result != null ? result : "Scrape finished without a result");
+            }
+            return result;
+        });
+    }
+    
+    /**
+     * Analysis job: continues the analysis it started on an earlier attempt, or starts one
+     */
+    private CompletableFuture<String> runAnalysisJob(WorkJob work) {
+        String domainName = work.getDomainName();
+        Domain domain = domainRepository.findByDomainName(domainName);
+        if (domain == null) {
+            throw new JobQueueService.PermanentJobFailure("Domain no longer exists: " + domainName);
+        }
+        
+        Optional<DomainAnalysisJob> previous = domainAnalysisJobService.findJobStartedSince(domainName, work.getCreatedAt());
+        if (previous.isPresent() && previous.get().isFinished()) {
+            return CompletableFuture.completedFuture("Analysis already finished with status " + previous.get().getStatus());
+        }
+        
+        DomainAnalysisJob job;
+        if (previous.isPresent() || domainAnalysisJobService.hasPausedJob(domainName)) {
+            updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.SCANNING_COMPLIANCE, "Resuming compliance analysis...");
+            job = complianceAnalysisService.resumeDomainAnalysis(domain);
+        } else {
+            job = ANALYZE_NEW_ADS.equals(work.getPayload())
+                ? complianceAnalysisService.analyzeUnanalyzedAds(domain)
+                : complianceAnalysisService.analyzeDomainAds(domain);
+        }
+        completeAfterAnalysis(domainName, job);
+        return CompletableFuture.completedFuture(
+            String.format("Compliance analysis for domain %s finished with status %s", domainName, job.getStatus()));
+    }
+    
+    private StartedScrape parseScrapePayload(String payload) {
+        if (payload == null || !payload.startsWith(APIFY_RUN_PAYLOAD_PREFIX)) {
+            return null;
+        }
+        String[] parts = payload.substring(APIFY_RUN_PAYLOAD_PREFIX.length()).split(":");
+        return new StartedScrape(parts[0], parts.length > 1 && Boolean.parseBoolean(parts[1]), null);
+    }
+    
+    /**
+     * Load a job's ad with its media collections, since job handlers run without an open session
+     */
+    private ScrapedAd loadAd(WorkJob job) {
+        ScrapedAd ad = new TransactionTemplate(transactionManager).execute(status ->
+            scrapedAdRepository.findById(Long.valueOf(job.getTargetId()))
+                .map(found -> {
+                    Hibernate.initialize(found.getImageUrls());
+                    Hibernate.initialize(found.getVideoUrls());
+                    Hibernate.initialize(found.getLocalImagePaths());
+                    Hibernate.initialize(found.getLocalVideoPaths());
+                    return found;
+                })
+                .orElse(null));
+        if (ad == null) {
+            throw new JobQueueService.PermanentJobFailure("Ad " + job.getTargetId() + " no longer exists");
+        }
+        return ad;
+    }
+    
+    /**
+     * Set the final domain status unless the analysis was paused or cancelled in the meantime
+     */
+    private void completeAfterAnalysis(String domainName, DomainAnalysisJob job) {
+        if (job.getStatus() == DomainAnalysisJob.JobStatus.COMPLETED) {
+            updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.COMPLETED,
+                String.format("Found %d ads - compliance analysis completed", job.getTotalAds()));
+        } else if (job.getStatus() == DomainAnalysisJob.JobStatus.FAILED) {
+            updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.FAILED,
+                "Compliance analysis failed: " + job.getErrorMessage());
+        }
+    }
+    
+    /**
+     * Scrape ads using Apify's Facebook Ads Scraper. No thread waits for the actor run: the run is
+     * registered with the run tracker and the results are processed when it reports completion.
+     * Starting the run and ingesting its dataset run on the "apify" I/O executor.
      */
-    @Async
-    @Transactional
     public CompletableFuture<String> scrapeAdsUsingApify(String domainName) {
-        CompletableFuture<String> task = CompletableFuture.supplyAsync(() -> {
-            try {
-                logger.info("Starting Apify scraping for domain: {}", domainName);
-                
-                if (apifyToken == null || apifyToken.isEmpty()) {
-                    updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.FAILED, "Apify token not configured");
-                    logger.warn("Apify token not configured. Cannot use Apify service.");
-                    return "Error: Apify token not configured";
+        return scrape(domainName, null, started -> {});
+    }
+    
+    /**
+     * Start a scrape, or continue waiting for the run of an earlier attempt when one is given.
+     * The started run is reported so the caller can record it before waiting on it.
+     */
+    private CompletableFuture<String> scrape(String domainName, StartedScrape previousRun,
+                                             Consumer<StartedScrape> onRunStarted) {
+        CompletableFuture<String> task = new CompletableFuture<>();
+        activeScrapingTasks.put(domainName, task);
+        Executor apifyExecutor = ioExecutorRegistry.executor(IoExecutorRegistry.APIFY);
+        
+        // Chained off a completed future so a saturated executor fails the task instead of throwing here
+        CompletableFuture.completedFuture(previousRun)
+            .thenApplyAsync(previous -> previous != null ? previous : startScrape(domainName), apifyExecutor)
+            .thenCompose(started -> {
+                if (started.runId == null || task.isDone()) {
+                    return CompletableFuture.completedFuture(started.message != null ? started.message
+                        : "Apify scraping stopped for domain: " + domainName);
                 }
-                
-                // Delete existing ads and analyses for this domain (within same transaction)
-                try {
-                    // First clear ad analyses
-                    Domain domain = domainRepository.findByDomainName(domainName);
-                    if (domain != null) {
-                        adAnalysisRepository.deleteByDomain(domain);
-                        logger.info("Cleared existing ad analyses for domain: {}", domainName);
-                    }
-                    
-                    // Then clear scraped ads
-                    scrapedAdRepository.deleteByDomainName(domainName);
-                    logger.info("Cleared existing ads for domain: {}", domainName);
-                } catch (Exception e) {
-                    logger.warn("Could not clear existing data for domain {}: {}", domainName, e.getMessage());
+                onRunStarted.accept(started);
+                activeRunIds.put(domainName, started.runId);
+                return apifyRunTracker.track(started.runId, domainName)
+                    .thenApplyAsync(outcome -> processCompletedRun(domainName, started.incremental, outcome, task),
+                                    apifyExecutor);
+            })
+            .whenComplete((result, error) -> {
+                activeRunIds.remove(domainName);
+                activeScrapingTasks.remove(domainName, task);
+                if (error == null) {
+                    task.complete(result);
+                    return;
                 }
                 
-                // Start Apify actor run
-                updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.FETCHING_ADS, "Starting ad scraper...");
-                String runId = startApifyRun(domainName);
-                if (runId == null) {
-                    updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.FAILED, "Failed to start ad scraper");
-                    return "Error: Failed to start Apify run";
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof CancellationException) {
+                    logger.info("Apify scraping task was cancelled for domain: {}", domainName);
+                    task.cancel(false);
+                    return;
+                }
+                logger.error("Error in Apify scraping for domain: {}", domainName, cause);
+                updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.FAILED, 
+                    "Error occurred during scraping: " + cause.getMessage());
+                task.complete("Error occurred while scraping domain via Apify: " + domainName);
+            });
+        
+        return task;
+    }
+    
+    /**
+     * Result of preparing a scrape: the started run, or the message to finish with if none was started
+     */
+    private static class StartedScrape {
+        private final String runId;
+        private final boolean incremental;
+        private final String message;
+        
+        private StartedScrape(String runId, boolean incremental, String message) {
+            this.runId = runId;
+            this.incremental = incremental;
+            this.message = message;
+        }
+    }
+    
+    private StartedScrape startScrape(String domainName) {
+        logger.info("Starting Apify scraping for domain: {}", domainName);
+        
+        if (apifyToken == null || apifyToken.isEmpty()) {
+            updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.FAILED, "Apify token not configured");
+            logger.warn("Apify token not configured. Cannot use Apify service.");
+            return new StartedScrape(null, false, "Error: Apify token not configured");
+        }
+        
+        // Incremental mode keeps stored ads and only processes what changed
+        boolean incremental = incrementalScrapeEnabled
+            && scrapedAdRepository.countByDomainName(domainName) > 0;
+        
+        // Delete existing ads and analyses for this domain
+        if (!incremental) {
+            try {
+                // First clear ad analyses
+                domainAnalysisJobService.cancelJobs(domainName);
+                Domain domain = domainRepository.findByDomainName(domainName);
+                if (domain != null) {
+                    adAnalysisRepository.deleteByDomain(domain);
+                    logger.info("Cleared existing ad analyses for domain: {}", domainName);
                 }
                 
-                // Wait for completion and get results
-                updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.FETCHING_ADS, "Scraping ads from Facebook...");
-                List<ScrapedAd> ads = waitForResultsAndProcess(runId, domainName);
-                
-                // Save to database with duplicate handling
-                if (!ads.isEmpty()) {
-                    updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.SCANNING_COMPLIANCE, 
-                        String.format("Analyzing %d ads for compliance...", ads.size()));
-                    
-                    // Save ads one by one to handle duplicates gracefully
-                    int savedCount = 0;
-                    for (ScrapedAd ad : ads) {
-                        try {
-                            // Check if ad already exists
-                            Optional<ScrapedAd> existingAd = scrapedAdRepository.findByMetaAdId(ad.getMetaAdId());
-                            if (existingAd.isPresent()) {
-                                // Update existing ad
-                                ScrapedAd existing = existingAd.get();
-                                existing.setHeadline(ad.getHeadline());
-                                existing.setPrimaryText(ad.getPrimaryText());
-                                existing.setDescription(ad.getDescription());
-                                existing.setLandingPageUrl(ad.getLandingPageUrl());
-                                existing.setLastUpdated(ad.getLastUpdated());
-                                existing.setIsActive(ad.getIsActive());
-                                scrapedAdRepository.save(existing);
-                                savedCount++;
-                            } else {
-                                // Save new ad
-                                scrapedAdRepository.save(ad);
-                                savedCount++;
-                            }
-                        } catch (Exception e) {
-                            logger.warn("Failed to save ad {}: {}", ad.getMetaAdId(), e.getMessage());
-                        }
-                    }
-                    logger.info("Successfully processed {} ads from Apify for domain: {}", savedCount, domainName);
-                    
-            // Perform compliance analysis on all ads
+                // Then clear scraped ads
+                scrapedAdRepository.deleteByDomainName(domainName);
+                logger.info("Cleared existing ads for domain: {}", domainName);
+            } catch (Exception e) {
+                logger.warn("Could not clear existing data for domain {}: {}", domainName, e.getMessage());
+            }
+        }
+        
+        // Start Apify actor run
+        updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.FETCHING_ADS, "Starting ad scraper...");
+        String runId = startApifyRun(domainName);
+        if (runId == null) {
+            updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.FAILED, "Failed to start ad scraper");
+            return new StartedScrape(null, incremental, "Error: Failed to start Apify run");
+        }
+        
+        updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.FETCHING_ADS, "Scraping ads from Facebook...");
+        return new StartedScrape(runId, incremental, null);
+    }
+    
+    /**
+     * Stream the results of a finished run into the database, then start compliance analysis
+     */
+    private String processCompletedRun(String domainName, boolean incremental, ApifyRunTracker.RunOutcome outcome,
+                                       CompletableFuture<String> task) {
+        activeRunIds.remove(domainName);
+        if (!outcome.isSucceeded()) {
+            throw new RuntimeException("Apify scraping failed - run status: " + outcome.getStatus());
+        }
+        
+        long adCount;
+        MediaDownloadWindow mediaDownloads = new MediaDownloadWindow(Math.max(1, maxInFlightDownloadsPerScrape));
+        
+        if (incremental) {
+            IncrementalScrapeSession session = startIncrementalScrape(domainName);
+            // A partial read throws before this point, so stored ads are only deactivated after a complete read
+            adCount = streamDatasetResults(outcome, domainName, ad -> applyIncrementalAd(session, ad, mediaDownloads));
+            flushIncrementalAds(session, mediaDownloads);
+            
+            if (adCount > 0) {
+                IncrementalScrapeResult diff = finishIncrementalScrape(session);
+                logger.info("Incremental scrape for domain {}: {}", domainName, diff);
+            }
+        } else {
+            List<ScrapedAd> batch = new ArrayList<>();
+            long[] savedCount = {0};
+            adCount = streamDatasetResults(outcome, domainName, ad -> {
+                batch.add(ad);
+                if (batch.size() >= ingestionBatchSize) {
+                    savedCount[0] += saveBatchAndDownloadMedia(batch, mediaDownloads);
+                    batch.clear();
+                }
+            });
+            if (!batch.isEmpty()) {
+                savedCount[0] += saveBatchAndDownloadMedia(batch, mediaDownloads);
+            }
+            if (adCount > 0) {
+                logger.info("Successfully processed {} ads from Apify for domain: {}", savedCount[0], domainName);
+            }
+        }
+        
+        // Analysis reads the downloaded creatives, so let the download stage drain first
+        awaitMediaDownloads(domainName, mediaDownloads);
+        
+        if (task.isCancelled()) {
+            logger.info("Apify scraping task was cancelled for domain: {}", domainName);
+            return String.format("Apify scraping cancelled for domain: %s after %d ads.", domainName, adCount);
+        }
+        
+        if (adCount > 0) {
+            updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.SCANNING_COMPLIANCE, 
+                String.format("Analyzing %d ads for compliance...", adCount));
+            
             Domain domain = domainRepository.findByDomainName(domainName);
             if (domain != null) {
-                complianceAnalysisService.analyzeDomainAds(domain);
-                updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.COMPLETED,
-                    String.format("Found %d ads - compliance analysis completed", ads.size()));
+                jobQueueService.enqueue(WorkJob.JobType.ANALYSIS, domainName, null,
+                                        incremental ? ANALYZE_NEW_ADS : ANALYZE_ALL_ADS);
             } else {
                 updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.COMPLETED,
-                    String.format("Found %d ads - ready for monitoring", ads.size()));
+                    String.format("Found %d ads - ready for monitoring", adCount));
             }
-                } else {
-                    logger.info("No ads found via Apify for domain: {}", domainName);
-                    updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.COMPLETED, "No ads found - monitoring ready");
-                }
-                
-                return String.format("Apify scraping completed for domain: %s. Found %d ads.", 
-                                   domainName, ads.size());
-                
-            } catch (Exception e) {
-                logger.error("Error in Apify scraping for domain: {}", domainName, e);
-                updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.FAILED, 
-                    "Error occurred during scraping: " + e.getMessage());
-                return "Error occurred while scraping domain via Apify: " + domainName;
-            } finally {
-                // Remove task from tracking when done
-                activeScrapingTasks.remove(domainName);
-            }
-        });
+        } else {
+            logger.info("No ads found via Apify for domain: {}", domainName);
+            updateDomainProcessingStatus(domainName, Domain.ProcessingStatus.COMPLETED, "No ads found - monitoring ready");
+        }
         
-        // Track the task
-        activeScrapingTasks.put(domainName, task);
-        return task;
+        return String.format("Apify scraping completed for domain: %s. Found %d ads.", 
+                           domainName, adCount);
     }
     
     private String startApifyRun(String domainName) {
         try {
             String url = String.format("%s/acts/%s/runs?token=%s", 
-                                     APIFY_API_BASE, FACEBOOK_ADS_SCRAPER_ID, apifyToken);
+                                     apifyApiBase, FACEBOOK_ADS_SCRAPER_ID, apifyToken);
+            
+            // Ask Apify to call back when the run ends instead of relying on polling alone
+            String webhooks = apifyRunTracker.buildWebhooksParameter();
+            if (webhooks != null) {
+                url += "&webhooks=" + URLEncoder.encode(webhooks, StandardCharsets.UTF_8);
+            }
             
             // Prepare input for Apify actor
             Map<String, Object> input = new HashMap<>();
@@ -299,115 +613,52 @@ public class ApifyScrapingService {
         return null;
     }
     
-    private List<ScrapedAd> waitForResultsAndProcess(String runId, String domainName) {
-        List<ScrapedAd> ads = new ArrayList<>();
+    /**
+     * Hand every parsed ad of a finished run to the sink; returns the number of ads parsed. Throws when
+     * the dataset could not be read to the end, so a partial read is never taken for the full set of ads.
+     */
+    private long streamDatasetResults(ApifyRunTracker.RunOutcome outcome, String domainName, Consumer<ScrapedAd> sink) {
+        long[] adCount = {0};
+        String runId = outcome.getRunId();
         
         try {
-            // Wait for run to complete (with timeout)
-            int maxWaitSeconds = 300; // 5 minutes
-            int waitedSeconds = 0;
-            String status = "RUNNING";
-            
-            while (!"SUCCEEDED".equals(status) && waitedSeconds < maxWaitSeconds) {
-                // Check if task was cancelled
-                if (Thread.currentThread().isInterrupted()) {
-                    logger.info("Apify scraping task was cancelled for domain: {}", domainName);
-                    throw new InterruptedException("Task was cancelled");
-                }
-                
-                Thread.sleep(5000); // Wait 5 seconds
-                waitedSeconds += 5;
+            String datasetId = outcome.getDatasetId();
+            if (datasetId == null || datasetId.isEmpty()) {
+                // Get dataset ID from run
+                String runUrl = String.format("%s/actor-runs/%s?token=%s", apifyApiBase, runId, apifyToken);
+                ResponseEntity<String> runResponse = restTemplate.getForEntity(runUrl, String.class);
                 
-                status = checkRunStatus(runId);
-                logger.info("Apify run {} status: {} (waited {}s)", runId, status, waitedSeconds);
-                
-                if ("FAILED".equals(status)) {
-                    logger.error("Apify run failed: {}", runId);
-                    throw new RuntimeException("Apify scraping failed - run status: FAILED");
+                if (!runResponse.getStatusCode().is2xxSuccessful()) {
+                    throw new IllegalStateException("Could not load Apify run " + runId + ": " + runResponse.getStatusCode());
                 }
+                
+                JsonNode runData = objectMapper.readTree(runResponse.getBody());
+                datasetId = runData.path("data").path("defaultDatasetId").asText();
             }
             
-            if ("SUCCEEDED".equals(status)) {
-                // Get dataset results
-                ads = getDatasetResults(runId, domainName);
-            } else if (waitedSeconds >= maxWaitSeconds) {
-                logger.warn("Apify run timed out after {} seconds: {}", waitedSeconds, runId);
-                throw new RuntimeException("Apify scraping timed out after " + waitedSeconds + " seconds");
-            } else {
-                logger.warn("Apify run didn't complete with status: {} after {} seconds", status, waitedSeconds);
-                throw new RuntimeException("Apify scraping failed with status: " + status);
-            }
-            
-        } catch (InterruptedException e) {
-            logger.info("Apify scraping was interrupted for domain: {}", domainName);
-            Thread.currentThread().interrupt(); // Restore interrupted status
-            return ads; // Return empty list when interrupted
-        } catch (Exception e) {
-            logger.error("Error waiting for Apify results: {}", e.getMessage());
-        }
-        
-        return ads;
-    }
-    
-    private String checkRunStatus(String runId) {
-        try {
-            String url = String.format("%s/actor-runs/%s?token=%s", APIFY_API_BASE, runId, apifyToken);
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-            
-            if (response.getStatusCode().is2xxSuccessful()) {
-                JsonNode responseJson = objectMapper.readTree(response.getBody());
-                return responseJson.path("data").path("status").asText();
-            }
-        } catch (Exception e) {
-            logger.error("Error checking run status: {}", e.getMessage());
-        }
-        
-        return "UNKNOWN";
-    }
-    
-    private List<ScrapedAd> getDatasetResults(String runId, String domainName) {
-        List<ScrapedAd> ads = new ArrayList<>();
-        
-        try {
-            // Get dataset ID from run
-            String runUrl = String.format("%s/actor-runs/%s?token=%s", APIFY_API_BASE, runId, apifyToken);
-            ResponseEntity<String> runResponse = restTemplate.getForEntity(runUrl, String.class);
-            
-            if (!runResponse.getStatusCode().is2xxSuccessful()) {
-                return ads;
-            }
-            
-            JsonNode runData = objectMapper.readTree(runResponse.getBody());
-            String datasetId = runData.path("data").path("defaultDatasetId").asText();
-            
             if (datasetId.isEmpty()) {
-                logger.warn("No dataset ID found for run: {}", runId);
-                return ads;
+                throw new IllegalStateException("No dataset ID found for run: " + runId);
             }
             
-            // Get dataset items
-            String datasetUrl = String.format("%s/datasets/%s/items?token=%s&format=json", 
-                                            APIFY_API_BASE, datasetId, apifyToken);
-            ResponseEntity<String> datasetResponse = restTemplate.getForEntity(datasetUrl, String.class);
-            
-            if (datasetResponse.getStatusCode().is2xxSuccessful()) {
-                JsonNode items = objectMapper.readTree(datasetResponse.getBody());
-                
-                if (items.isArray()) {
-                    for (JsonNode item : items) {
-                        ScrapedAd ad = parseApifyAdData(item, domainName);
-                        if (ad != null) {
-                            ads.add(ad);
-                        }
-                    }
+            // Page through dataset items, parsing and handing off one ad at a time
+            apifyDatasetStreamService.readItems(datasetId, item -> {
+                ScrapedAd ad = parseApifyAdData(item, domainName);
+                if (ad != null) {
+                    sink.accept(ad);
+                    adCount[0]++;
                 }
+            });
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Interrupted while reading dataset " + datasetId);
             }
             
+        } catch (IllegalStateException e) {
+            throw e;
         } catch (Exception e) {
-            logger.error("Error getting dataset results: {}", e.getMessage());
+            throw new IllegalStateException("Error getting dataset results after " + adCount[0] + " ads: " + e.getMessage(), e);
         }
         
-        return ads;
+        return adCount[0];
     }
     
     private ScrapedAd parseApifyAdData(JsonNode adData, String domainName) {
@@ -449,11 +700,10 @@ public class ApifyScrapingService {
             ad.setDisplayUrl(domainName);
             ad.setFundingEntity(""); // Not available in this format
             
-            // Parse and download images
+            // Parse images
             JsonNode snapshotImages = adData.path("snapshot").path("images");
             if (snapshotImages.isArray() && snapshotImages.size() > 0) {
                 List<String> imageUrls = new ArrayList<>();
-                List<String> localImagePaths = new ArrayList<>();
                 
                 for (JsonNode imageNode : snapshotImages) {
                     // Prefer original image URL, fallback to resized
@@ -464,45 +714,30 @@ public class ApifyScrapingService {
                     
                     if (!imageUrl.isEmpty()) {
                         imageUrls.add(imageUrl);
-                        
-                        // Download and store locally
-                        String localPath = mediaStorageService.downloadAndStoreImage(imageUrl, domainName, ad.getMetaAdId());
-                        if (localPath != null) {
-                            localImagePaths.add(localPath);
-                        }
                     }
                 }
                 
                 if (!imageUrls.isEmpty()) {
                     ad.setImageUrls(imageUrls);
-                    ad.setLocalImagePaths(localImagePaths);
                     ad.setAdFormat("SINGLE_IMAGE");
                 }
             }
             
-            // Parse and download videos
+            // Parse videos
             JsonNode snapshotVideos = adData.path("snapshot").path("videos");
             if (snapshotVideos.isArray() && snapshotVideos.size() > 0) {
                 List<String> videoUrls = new ArrayList<>();
-                List<String> localVideoPaths = new ArrayList<>();
                 
                 for (JsonNode videoNode : snapshotVideos) {
                     String videoUrl = videoNode.asText(); // Videos might be stored as strings in array
                     
                     if (!videoUrl.isEmpty()) {
                         videoUrls.add(videoUrl);
-                        
-                        // Download and store locally
-                        String localPath = mediaStorageService.downloadAndStoreVideo(videoUrl, domainName, ad.getMetaAdId());
-                        if (localPath != null) {
-                            localVideoPaths.add(localPath);
-                        }
                     }
                 }
                 
                 if (!videoUrls.isEmpty()) {
                     ad.setVideoUrls(videoUrls);
-                    ad.setLocalVideoPaths(localVideoPaths);
                     ad.setAdFormat("VIDEO");
                 }
             }
@@ -523,8 +758,7 @@ public class ApifyScrapingService {
                 ad.setImpressionsRangeUpper(impressionsUpper.asLong(0L));
             }
             
-            // Process media files and extract text content (OCR + transcription)
-            processMediaForAd(ad);
+            // Media is downloaded by the download stage once the ad has been persisted
             
             // RAC extraction will be done separately via RacExtractionService
             // processLandingPageForAd(ad);
@@ -564,6 +798,7 @@ public class ApifyScrapingService {
             ad.setIsActive(isActive);
             ad.setScrapedAt(LocalDateTime.now());
             ad.setLastUpdated(LocalDateTime.now());
+            ad.setContentFingerprint(computeContentFingerprint(ad));
             
             return ad;
             
@@ -573,6 +808,292 @@ public class ApifyScrapingService {
         }
     }
     
+    /**
+     * Persist a batch of parsed ads and queue media downloads for every ad that was saved
+     */
+    private long saveBatchAndDownloadMedia(List<ScrapedAd> batch, MediaDownloadWindow mediaDownloads) {
+        ScrapedAdIngestionService.BulkWriteResult result = scrapedAdIngestionService.upsertAds(batch);
+        for (ScrapedAd ad : batch) {
+            if (ad.getId() != null) {
+                startMediaDownload(mediaDownloads, ad);
+            }
+        }
+        return result.getSavedCount();
+    }
+    
+    /**
+     * Download the media of a persisted ad off the parse thread, then store its local paths and
+     * start text extraction (OCR + transcription). The future fails when the downloads could not run,
+     * so a MEDIA job is retried.
+     */
+    private CompletableFuture<Void> downloadMediaInBackground(ScrapedAd ad) {
+        boolean hasMedia = (ad.getImageUrls() != null && !ad.getImageUrls().isEmpty())
+            || (ad.getVideoUrls() != null && !ad.getVideoUrls().isEmpty());
+        if (!hasMedia) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        return mediaDownloadService.downloadMediaForAd(ad)
+            .thenAccept(downloaded -> {
+                scrapedAdIngestionService.updateLocalMediaPaths(downloaded);
+                // Text extraction is not awaited; a failure is logged and can be retried with an OCR job
+                processMediaForAd(downloaded).exceptionally(throwable -> {
+                    logger.error("Error in media processing for ad {}: {}", downloaded.getMetaAdId(), throwable.getMessage());
+                    return null;
+                });
+            })
+            .whenComplete((ignored, throwable) -> {
+                if (throwable != null) {
+                    logger.error("Error downloading media for ad {}: {}", ad.getMetaAdId(), throwable.getMessage());
+                }
+            });
+    }
+    
+    /**
+     * Start the media download of a saved ad once fewer than max-in-flight-per-scrape ads of the scrape are
+     * downloading. Waiting here holds back the dataset stream, and a finished download keeps no reference
+     * to its ad, so memory stays bounded however large the dataset is.
+     */
+    private void startMediaDownload(MediaDownloadWindow mediaDownloads, ScrapedAd ad) {
+        try {
+            mediaDownloads.inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for media downloads", e);
+        }
+        mediaDownloads.started.incrementAndGet();
+        
+        CompletableFuture<Void> download;
+        try {
+            download = downloadMediaInBackground(ad);
+        } catch (RuntimeException e) {
+            mediaDownloads.inFlight.release();
+            throw e;
+        }
+        download.whenComplete((ignored, error) -> {
+            if (error != null) {
+                mediaDownloads.failed.incrementAndGet();
+            }
+            mediaDownloads.inFlight.release();
+        });
+    }
+    
+    private void awaitMediaDownloads(String domainName, MediaDownloadWindow mediaDownloads) {
+        if (mediaDownloads.started.get() == 0) {
+            return;
+        }
+        
+        logger.info("Waiting for media downloads of {} ads for domain: {}", mediaDownloads.started.get(), domainName);
+        try {
+            // Every permit is back once the last download finished
+            mediaDownloads.inFlight.acquire(mediaDownloads.capacity);
+            mediaDownloads.inFlight.release(mediaDownloads.capacity);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (mediaDownloads.failed.get() > 0) {
+            logger.warn("Media downloads for domain {} failed for {} of {} ads",
+                       domainName, mediaDownloads.failed.get(), mediaDownloads.started.get());
+        }
+    }
+    
+    /**
+     * Fingerprint of the creative content that drives compliance analysis.
+     * Media URLs are compared without their query string because the CDN signs them per request.
+     */
+    private String computeContentFingerprint(ScrapedAd ad) {
+        StringBuilder content = new StringBuilder();
+        content.append(nullToEmpty(ad.getHeadline())).append('\u0001');
+        content.append(nullToEmpty(ad.getPrimaryText())).append('\u0001');
+        content.append(nullToEmpty(ad.getDescription())).append('\u0001');
+        content.append(nullToEmpty(ad.getCallToAction())).append('\u0001');
+        content.append(nullToEmpty(ad.getLandingPageUrl())).append('\u0001');
+        appendMediaUrls(content, ad.getImageUrls());
+        content.append('\u0001');
+        appendMediaUrls(content, ad.getVideoUrls());
+        
+        try {
+            java.security.MessageDigest digest = java.security.MessageDigest.getInstance("SHA-256");
+            return java.util.HexFormat.of().formatHex(
+                digest.digest(content.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private void appendMediaUrls(StringBuilder content, List<String> urls) {
+        if (urls == null) {
+            return;
+        }
+        for (String url : urls) {
+            int queryStart = url.indexOf('?');
+            content.append(queryStart >= 0 ? url.substring(0, queryStart) : url).append('\n');
+        }
+    }
+    
+    private String nullToEmpty(String value) {
+        return value != null ? value.trim() : "";
+    }
+    
+    /**
+     * Load the stored fingerprints of a domain so scraped ads can be diffed one at a time as they stream in
+     */
+    private IncrementalScrapeSession startIncrementalScrape(String domainName) {
+        IncrementalScrapeSession session = new IncrementalScrapeSession(domainName);
+        for (Object[] row : scrapedAdRepository.findFingerprintsByDomainName(domainName)) {
+            session.storedFingerprints.put((String) row[0], (String) row[1]);
+        }
+        session.domain = domainRepository.findByDomainName(domainName);
+        return session;
+    }
+    
+    /**
+     * Diff one scraped ad against the stored ads: new and changed ads are collected for the next bulk
+     * upsert, unchanged ads are only collected for the activity refresh.
+     */
+    private void applyIncrementalAd(IncrementalScrapeSession session, ScrapedAd ad,
+                                    MediaDownloadWindow mediaDownloads) {
+        if (!session.seenAdIds.add(ad.getMetaAdId())) {
+            return;
+        }
+        
+        boolean stored = session.storedFingerprints.containsKey(ad.getMetaAdId());
+        if (stored && Objects.equals(session.storedFingerprints.get(ad.getMetaAdId()), ad.getContentFingerprint())) {
+            (Boolean.FALSE.equals(ad.getIsActive()) ? session.unchangedInactive : session.unchangedActive)
+                .add(ad.getMetaAdId());
+            session.result.unchangedAds++;
+            return;
+        }
+        
+        session.pendingAds.add(ad);
+        if (session.pendingAds.size() >= ingestionBatchSize) {
+            flushIncrementalAds(session, mediaDownloads);
+        }
+    }
+    
+    /**
+     * Write the collected new and changed ads with one bulk upsert. A changed ad loses its extracted text
+     * (the upsert keeps it otherwise) and its stale verdict, so the next analysis run picks it up; every
+     * written ad gets fresh media.
+     */
+    private void flushIncrementalAds(IncrementalScrapeSession session, MediaDownloadWindow mediaDownloads) {
+        if (session.pendingAds.isEmpty()) {
+            return;
+        }
+        IncrementalScrapeResult result = session.result;
+        
+        ScrapedAdIngestionService.BulkWriteResult written = scrapedAdIngestionService.upsertAds(session.pendingAds);
+        List<Long> changedIds = new ArrayList<>();
+        List<String> changedMetaAdIds = new ArrayList<>();
+        for (ScrapedAd ad : session.pendingAds) {
+            if (ad.getId() != null && session.storedFingerprints.containsKey(ad.getMetaAdId())) {
+                changedIds.add(ad.getId());
+                changedMetaAdIds.add(ad.getMetaAdId());
+            }
+        }
+        result.changedAds += changedIds.size();
+        result.newAds += (int) written.getSavedCount() - changedIds.size();
+        result.failedAds += (int) written.getFailedCount();
+        
+        try {
+            scrapedAdIngestionService.clearExtractedText(changedIds);
+            if (session.domain != null && !changedMetaAdIds.isEmpty()) {
+                adAnalysisRepository.deleteByDomainAndMetaAdIdIn(session.domain, changedMetaAdIds);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to reset {} changed ads of domain {}: {}", changedIds.size(), session.domainName, e.getMessage());
+        }
+        
+        for (ScrapedAd ad : session.pendingAds) {
+            if (ad.getId() != null) {
+                startMediaDownload(mediaDownloads, ad);
+            }
+        }
+        session.pendingAds.clear();
+    }
+    
+    /**
+     * Refresh activity of unchanged ads and mark stored ads missing from the scrape inactive
+     */
+    private IncrementalScrapeResult finishIncrementalScrape(IncrementalScrapeSession session) {
+        LocalDateTime now = LocalDateTime.now();
+        updateActivityInChunks(session.domainName, session.unchangedActive, true, now);
+        updateActivityInChunks(session.domainName, session.unchangedInactive, false, now);
+        
+        List<String> missingAdIds = session.storedFingerprints.keySet().stream()
+            .filter(metaAdId -> !session.seenAdIds.contains(metaAdId))
+            .toList();
+        session.result.deactivatedAds = updateActivityInChunks(session.domainName, missingAdIds, false, now);
+        
+        return session.result;
+    }
+    
+    private int updateActivityInChunks(String domainName, List<String> metaAdIds, boolean active, LocalDateTime now) {
+        int updated = 0;
+        for (int i = 0; i < metaAdIds.size(); i += 500) {
+            updated += scrapedAdRepository.updateActivity(
+                domainName, metaAdIds.subList(i, Math.min(i + 500, metaAdIds.size())), active, now);
+        }
+        return updated;
+    }
+    
+    /**
+     * Media downloads of one scrape: permits for the ads downloading at once, and counts for the log
+     */
+    private static class MediaDownloadWindow {
+        private final int capacity;
+        private final Semaphore inFlight;
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        
+        private MediaDownloadWindow(int capacity) {
+            this.capacity = capacity;
+            this.inFlight = new Semaphore(capacity);
+        }
+    }
+    
+    /**
+     * State of an incremental re-scrape while its dataset is being streamed
+     */
+    private static class IncrementalScrapeSession {
+        private final String domainName;
+        private final Map<String, String> storedFingerprints = new HashMap<>();
+        private final Set<String> seenAdIds = new HashSet<>();
+        private final List<String> unchangedActive = new ArrayList<>();
+        private final List<String> unchangedInactive = new ArrayList<>();
+        private final List<ScrapedAd> pendingAds = new ArrayList<>();
+        private final IncrementalScrapeResult result = new IncrementalScrapeResult();
+        private Domain domain;
+        
+        private IncrementalScrapeSession(String domainName) {
+            this.domainName = domainName;
+        }
+    }
+    
+    /**
+     * Outcome of an incremental re-scrape
+     */
+    public static class IncrementalScrapeResult {
+        private int newAds;
+        private int changedAds;
+        private int unchangedAds;
+        private int deactivatedAds;
+        private int failedAds;
+        
+        public int getNewAds() { return newAds; }
+        public int getChangedAds() { return changedAds; }
+        public int getUnchangedAds() { return unchangedAds; }
+        public int getDeactivatedAds() { return deactivatedAds; }
+        public int getFailedAds() { return failedAds; }
+        
+        @Override
+        public String toString() {
+            return String.format("%d new, %d changed, %d unchanged, %d deactivated, %d failed",
+                                 newAds, changedAds, unchangedAds, deactivatedAds, failedAds);
+        }
+    }
+    
     /**
      * Get pricing estimate for scraping
      */
@@ -733,43 +1254,36 @@ public class ApifyScrapingService {
     }
     
     /**
-     * Process media files for an ad and extract text content
+     * Process media files for an ad and extract text content. The future fails when processing fails,
+     * so an OCR job is retried.
      */
-    private void processMediaForAd(ScrapedAd ad) {
-        try {
-            // Process media asynchronously and update the ad with extracted text
-            mediaProcessingService.processAdMedia(
-                ad.getLocalImagePaths(), 
-                ad.getLocalVideoPaths(), 
-                ad.getMetaAdId()
-            ).thenAccept(result -> {
-                if (result.isSuccess()) {
-                    // Update the ad with extracted text
-                    if (result.hasImageText()) {
-                        ad.setExtractedImageText(result.getExtractedImageText());
-                        logger.info("Set extracted image text for ad {}: {} characters", 
-                                   ad.getMetaAdId(), result.getExtractedImageText().length());
-                    }
-                    if (result.hasVideoText()) {
-                        ad.setExtractedVideoText(result.getExtractedVideoText());
-                        logger.info("Set extracted video text for ad {}: {} characters", 
-                                   ad.getMetaAdId(), result.getExtractedVideoText().length());
-                    }
-                    
-                    // Save updated ad with extracted text
-                    scrapedAdRepository.save(ad);
-                    logger.info("Updated ad {} with extracted media text", ad.getMetaAdId());
-                } else {
-                    logger.warn("Media processing failed for ad {}: {}", ad.getMetaAdId(), result.getError());
-                }
-            }).exceptionally(throwable -> {
-                logger.error("Error in media processing for ad {}: {}", ad.getMetaAdId(), throwable.getMessage());
-                return null;
-            });
+    private CompletableFuture<Void> processMediaForAd(ScrapedAd ad) {
+        // Process media asynchronously and update the ad with extracted text
+        return mediaProcessingService.processAdMedia(
+            ad.getLocalImagePaths(), 
+            ad.getLocalVideoPaths(), 
+            ad.getMetaAdId()
+        ).thenAccept(result -> {
+            if (!result.isSuccess()) {
+                throw new IllegalStateException("Media processing failed for ad " + ad.getMetaAdId() + ": " + result.getError());
+            }
             
-        } catch (Exception e) {
-            logger.error("Failed to initiate media processing for ad {}: {}", ad.getMetaAdId(), e.getMessage());
-        }
+            // Update the ad with extracted text
+            if (result.hasImageText()) {
+                ad.setExtractedImageText(result.getExtractedImageText());
+                logger.info("Set extracted image text for ad {}: {} characters", 
+                           ad.getMetaAdId(), result.getExtractedImageText().length());
+            }
+            if (result.hasVideoText()) {
+                ad.setExtractedVideoText(result.getExtractedVideoText());
+                logger.info("Set extracted video text for ad {}: {} characters", 
+                           ad.getMetaAdId(), result.getExtractedVideoText().length());
+            }
+            
+            // Save updated ad with extracted text
+            scrapedAdRepository.save(ad);
+            logger.info("Updated ad {} with extracted media text", ad.getMetaAdId());
+        });
     }
     
     /**
@@ -785,13 +1299,13 @@ public class ApifyScrapingService {
         try {
             logger.info("🔍 Extracting RAC from landing page for ad {}: {}", ad.getMetaAdId(), landingPageUrl);
             
-            // Fetch the landing page content
-            String pageContent = fetchLandingPageContent(landingPageUrl);
+            // Read the AFS iframe config from the shared landing page capture (one navigation per URL)
+            LandingPageCaptureService.LandingPageCapture capture =
+                landingPageCaptureService.capture(landingPageUrl, ad.getMetaAdId());
             
-            if (pageContent != null && !pageContent.trim().isEmpty() && !pageContent.contains("301 Moved Permanently")) {
-                // Try direct iframe extraction first (most reliable)
-                String iframeRac = extractRacFromIframe(pageContent);
-                if (iframeRac != null && !iframeRac.trim().isEmpty()) {
+            if (capture.isSuccess()) {
+                String iframeRac = capture.getRacKeyword();
+                if (iframeRac != null && !iframeRac.trim().isEmpty() && isLikelyAdCreative(iframeRac)) {
                     ad.setReferrerAdCreative(iframeRac);
                     logger.info("✅ Direct iframe extraction successful for ad {}: '{}'", ad.getMetaAdId(), iframeRac);
                     return; // Success, skip other methods
@@ -799,7 +1313,7 @@ public class ApifyScrapingService {
                     logger.debug("❌ No iframe found for direct RAC extraction for ad {}", ad.getMetaAdId());
                 }
             } else {
-                logger.warn("❌ Landing page not accessible or redirected for ad {}: {} - trying URL parameter extraction", ad.getMetaAdId(), landingPageUrl);
+                logger.warn("❌ Landing page not accessible for ad {}: {} - trying URL parameter extraction", ad.getMetaAdId(), landingPageUrl);
             }
             
         } catch (Exception e) {
@@ -822,63 +1336,6 @@ public class ApifyScrapingService {
         }
     }
     
-    /**
-     * Fetch landing page content with redirect handling
-     */
-    private String fetchLandingPageContent(String url) {
-        try {
-            // Add comprehensive headers to avoid blocking and handle redirects
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.set("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
-            headers.set("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8");
-            headers.set("Accept-Language", "en-US,en;q=0.5");
-            headers.set("Accept-Encoding", "gzip, deflate, br");
-            headers.set("DNT", "1");
-            headers.set("Connection", "keep-alive");
-            headers.set("Upgrade-Insecure-Requests", "1");
-            
-            org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>(headers);
-            
-            // Configure RestTemplate to follow redirects
-            org.springframework.web.client.RestTemplate redirectTemplate = new org.springframework.web.client.RestTemplate();
-            redirectTemplate.getInterceptors().add((request, body, execution) -> {
-                logger.debug("Fetching: {} with headers: {}", request.getURI(), request.getHeaders());
-                return execution.execute(request, body);
-            });
-            
-            org.springframework.http.ResponseEntity<String> response = redirectTemplate.exchange(
-                url, 
-                org.springframework.http.HttpMethod.GET, 
-                entity, 
-                String.class
-            );
-            
-            if (response.getStatusCode().is3xxRedirection()) {
-                String location = response.getHeaders().getFirst("Location");
-                if (location != null) {
-                    logger.info("Following redirect from {} to {}", url, location);
-                    return fetchLandingPageContent(location); // Recursive call for redirect
-                }
-            }
-            
-            String content = response.getBody();
-            if (content != null && content.contains("301 Moved Permanently")) {
-                logger.warn("Received 301 redirect page for {}, content might be dynamically loaded", url);
-                // For now, we'll extract RAC from URL parameters since page content is not accessible
-                return null;
-            }
-            
-            return content;
-            
-        } catch (org.springframework.web.client.HttpClientErrorException e) {
-            logger.warn("HTTP error fetching landing page from {}: {} - {}", url, e.getStatusCode(), e.getMessage());
-            return null;
-        } catch (Exception e) {
-            logger.warn("Failed to fetch landing page content from {}: {}", url, e.getMessage());
-            return null;
-        }
-    }
-    
     /**
      * Intelligently extract the referrer ad creative from landing page content and URL
      * This method analyzes both URL parameters and page content to find the most likely RAC value
@@ -1091,78 +1548,6 @@ public class ApifyScrapingService {
         return null;
     }
     
-    /**
-     * Extract RAC directly from Google iframe using the name attribute
-     * Based on: JSON.parse(document.querySelector("#master-1").name)["master-1"].kw
-     */
-    private String extractRacFromIframe(String pageContent) {
-        try {
-            // Parse the HTML content
-            org.jsoup.nodes.Document doc = org.jsoup.Jsoup.parse(pageContent);
-            
-            // Look for iframe with id="master-1" or similar Google AdSense iframes
-            org.jsoup.select.Elements iframes = doc.select("iframe[id*='master'], iframe[id*='google'], iframe[id*='ads']");
-            
-            for (org.jsoup.nodes.Element iframe : iframes) {
-                String iframeName = iframe.attr("name");
-                if (iframeName != null && !iframeName.trim().isEmpty()) {
-                    try {
-                        // Parse the JSON from the name attribute
-                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        com.fasterxml.jackson.databind.JsonNode jsonNode = mapper.readTree(iframeName);
-                        
-                        // Try to extract the kw parameter from the JSON structure
-                        // The structure might be: {"master-1": {"kw": "value"}} or similar
-                        for (com.fasterxml.jackson.databind.JsonNode child : jsonNode) {
-                            if (child.has("kw")) {
-                                String kwValue = child.get("kw").asText();
-                                if (kwValue != null && !kwValue.trim().isEmpty() && isLikelyAdCreative(kwValue)) {
-                                    logger.debug("🎯 Found RAC in iframe JSON: '{}'", kwValue);
-                                    return kwValue;
-                                }
-                            }
-                        }
-                        
-                        // Alternative: try to find kw at the root level
-                        if (jsonNode.has("kw")) {
-                            String kwValue = jsonNode.get("kw").asText();
-                            if (kwValue != null && !kwValue.trim().isEmpty() && isLikelyAdCreative(kwValue)) {
-                                logger.debug("🎯 Found RAC in iframe JSON root: '{}'", kwValue);
-                                return kwValue;
-                            }
-                        }
-                        
-                    } catch (Exception jsonError) {
-                        logger.debug("Could not parse iframe name as JSON: {}", iframeName);
-                    }
-                }
-            }
-            
-            // If no iframe found, try to extract from script tags that might contain the iframe data
-            org.jsoup.select.Elements scripts = doc.select("script");
-            for (org.jsoup.nodes.Element script : scripts) {
-                String scriptContent = script.html();
-                if (scriptContent.contains("master-1") && scriptContent.contains("kw")) {
-                    // Try to extract kw value using regex
-                    java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("\"kw\"\\s*:\\s*\"([^\"]+)\"");
-                    java.util.regex.Matcher matcher = pattern.matcher(scriptContent);
-                    if (matcher.find()) {
-                        String kwValue = matcher.group(1);
-                        if (kwValue != null && !kwValue.trim().isEmpty() && isLikelyAdCreative(kwValue)) {
-                            logger.debug("🎯 Found RAC in script content: '{}'", kwValue);
-                            return kwValue;
-                        }
-                    }
-                }
-            }
-            
-        } catch (Exception e) {
-            logger.debug("Error extracting RAC from iframe: {}", e.getMessage());
-        }
-        
-        return null;
-    }
-    
     /**
      * Analyze domain RAC pattern using GPT-4 to identify how RAC is stored
      */
@@ -1183,18 +1568,12 @@ public class ApifyScrapingService {
                 return CompletableFuture.completedFuture(result);
             }
             
-            // Extract URLs and fetch landing page content
+            // The pattern is identified from the URLs alone, so no landing page is fetched here
             List<String> sampleUrls = new ArrayList<>();
-            List<String> samplePageContents = new ArrayList<>();
-            
             for (ScrapedAd ad : sampleAds) {
                 String url = ad.getLandingPageUrl();
                 if (url != null && !url.trim().isEmpty()) {
                     sampleUrls.add(url);
-                    
-                    // Fetch landing page content
-                    String pageContent = fetchLandingPageContent(url);
-                    samplePageContents.add(pageContent != null ? pageContent : "");
                 }
             }
             
@@ -1235,42 +1614,12 @@ public class ApifyScrapingService {
     }
     
     /**
-     * Re-process existing ads for a domain to extract RAC values using GPT-4
+     * Queue RAC extraction for every ad of a domain that has no RAC value yet
      */
-    @Async
     public CompletableFuture<Integer> reprocessRacForDomain(String domainName) {
         try {
             logger.info("🔄 Starting RAC re-processing for domain: {}", domainName);
-            
-            // Find all ads for this domain that don't have RAC values
-            List<ScrapedAd> adsToProcess = scrapedAdRepository.findByDomainNameAndReferrerAdCreativeIsNull(domainName);
-            
-            logger.info("Found {} ads without RAC values for domain: {}", adsToProcess.size(), domainName);
-            
-            int processedCount = 0;
-            
-            for (ScrapedAd ad : adsToProcess) {
-                try {
-                    logger.info("🔍 Processing RAC for ad: {} (URL: {})", ad.getMetaAdId(), ad.getLandingPageUrl());
-                    
-                    // Process the landing page for this ad
-                    processLandingPageForAd(ad);
-                    
-                    // Save the updated ad
-                    scrapedAdRepository.save(ad);
-                    processedCount++;
-                    
-                    // Small delay to avoid overwhelming OpenAI API
-                    Thread.sleep(1000);
-                    
-                } catch (Exception e) {
-                    logger.error("Failed to process RAC for ad {}: {}", ad.getMetaAdId(), e.getMessage());
-                }
-            }
-            
-            logger.info("✅ RAC re-processing completed for domain: {}. Processed {} ads", domainName, processedCount);
-            return CompletableFuture.completedFuture(processedCount);
-            
+            return CompletableFuture.completedFuture(enqueueAdJobs(domainName, WorkJob.JobType.RAC));
         } catch (Exception e) {
             logger.error("Error during RAC re-processing for domain {}: {}", domainName, e.getMessage());
             return CompletableFuture.completedFuture(0);
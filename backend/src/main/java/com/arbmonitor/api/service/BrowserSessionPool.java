@@ -0,0 +1,292 @@
+package com.arbmonitor.api.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of warm headless Chrome sessions shared by the screenshot and RAC extraction stages.
+ * Sessions are leased for one page, reset and returned; they are recycled after a number of pages,
+ * after sitting idle too long, or as soon as they fail a health check.
+ */
+@Service
+public class BrowserSessionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrowserSessionPool.class);
+
+    @Value("${app.browser.pool.max-sessions:2}")
+    private int maxSessions;
+
+    @Value("${app.browser.pool.max-pages-per-session:50}")
+    private int maxPagesPerSession;
+
+    @Value("${app.browser.pool.max-idle-ms:300000}")
+    private long maxIdleMs;
+
+    @Value("${app.browser.pool.lease-timeout-ms:60000}")
+    private long leaseTimeoutMs;
+
+    @Value("${app.browser.page-load-timeout-seconds:30}")
+    private int pageLoadTimeoutSeconds;
+
+    @Value("${app.browser.chrome-binary:/Applications/Google Chrome.app/Contents/MacOS/Google Chrome}")
+    private String chromeBinary;
+
+    @Value("${app.browser.user-agent:Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36}")
+    private String userAgent;
+
+    // Sessions not leased right now; most recently returned first so cold ones age out
+    private final BlockingDeque<BrowserSession> idleSessions = new LinkedBlockingDeque<>();
+
+    private Semaphore leasePermits;
+
+    private volatile boolean shuttingDown = false;
+
+    // Counters since application start
+    private final AtomicLong sessionsCreated = new AtomicLong();
+    private final AtomicLong sessionsRecycled = new AtomicLong();
+    private final AtomicLong sessionsCrashed = new AtomicLong();
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+    private final AtomicLong totalLeaseWaitMs = new AtomicLong();
+    private final AtomicLong totalStartupMs = new AtomicLong();
+
+    /**
+     * Work done with a leased browser
+     */
+    @FunctionalInterface
+    public interface BrowserTask<T> {
+        T run(WebDriver driver) throws Exception;
+    }
+
+    @PostConstruct
+    public void initPool() {
+        leasePermits = new Semaphore(Math.max(1, maxSessions), true);
+        logger.info("Browser session pool ready (max sessions: {}, pages per session: {})",
+                   maxSessions, maxPagesPerSession);
+    }
+
+    @PreDestroy
+    public void shutdownPool() {
+        shuttingDown = true;
+        BrowserSession session;
+        while ((session = idleSessions.pollFirst()) != null) {
+            quit(session);
+        }
+    }
+
+    /**
+     * Run a task on a pooled browser session. Blocks until a session is free (up to the lease timeout);
+     * a session that crashed during the task is discarded instead of being returned to the pool.
+     */
+    public <T> T execute(BrowserTask<T> task) throws Exception {
+        long waitStart = System.currentTimeMillis();
+        if (!leasePermits.tryAcquire(leaseTimeoutMs, TimeUnit.MILLISECONDS)) {
+            leaseTimeouts.incrementAndGet();
+            throw new IllegalStateException("No browser session available after " + leaseTimeoutMs + " ms");
+        }
+        totalLeaseWaitMs.addAndGet(System.currentTimeMillis() - waitStart);
+        leases.incrementAndGet();
+
+        BrowserSession session = null;
+        try {
+            session = leaseSession();
+            session.pagesServed++;
+            return task.run(session.driver);
+        } catch (WebDriverException e) {
+            if (session != null && !isHealthy(session)) {
+                sessionsCrashed.incrementAndGet();
+                logger.warn("Browser session crashed after {} pages, discarding: {}", session.pagesServed, e.getMessage());
+                quit(session);
+                session = null;
+            }
+            throw e;
+        } finally {
+            if (session != null) {
+                returnSession(session);
+            }
+            leasePermits.release();
+        }
+    }
+
+    /**
+     * Wait until the document has finished loading, then give images and web fonts a bounded
+     * amount of extra time to settle; replaces fixed sleeps after navigation
+     */
+    public void waitForPageReady(WebDriver driver, Duration timeout) {
+        new WebDriverWait(driver, timeout).until(d ->
+            "complete".equals(((JavascriptExecutor) d).executeScript("return document.readyState")));
+
+        try {
+            new WebDriverWait(driver, Duration.ofSeconds(Math.min(5, timeout.getSeconds()))).until(d ->
+                Boolean.TRUE.equals(((JavascriptExecutor) d).executeScript(
+                    "return Array.from(document.images).every(function(img) { return img.complete; })" +
+                    " && (!document.fonts || document.fonts.status === 'loaded');")));
+        } catch (Exception e) {
+            logger.debug("Page assets still loading, continuing: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Close sessions that have been idle longer than the configured limit
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleSessions() {
+        long cutoff = System.currentTimeMillis() - maxIdleMs;
+        List<BrowserSession> expired = new ArrayList<>();
+        idleSessions.removeIf(session -> {
+            if (session.lastUsedAt < cutoff) {
+                expired.add(session);
+                return true;
+            }
+            return false;
+        });
+        for (BrowserSession session : expired) {
+            sessionsRecycled.incrementAndGet();
+            quit(session);
+        }
+        if (!expired.isEmpty()) {
+            logger.debug("Closed {} idle browser sessions", expired.size());
+        }
+    }
+
+    /**
+     * Pool size, lease and recycling counters
+     */
+    public Map<String, Object> getPoolStats() {
+        long created = sessionsCreated.get();
+        long leaseCount = leases.get();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxSessions", maxSessions);
+        stats.put("idleSessions", idleSessions.size());
+        stats.put("leasedSessions", Math.max(1, maxSessions) - leasePermits.availablePermits());
+        stats.put("waitingForSession", leasePermits.getQueueLength());
+        stats.put("sessionsCreated", created);
+        stats.put("sessionsRecycled", sessionsRecycled.get());
+        stats.put("sessionsCrashed", sessionsCrashed.get());
+        stats.put("leases", leaseCount);
+        stats.put("leaseTimeouts", leaseTimeouts.get());
+        stats.put("avgLeaseWaitMs", leaseCount > 0 ? totalLeaseWaitMs.get() / leaseCount : 0);
+        stats.put("avgStartupMs", created > 0 ? totalStartupMs.get() / created : 0);
+        stats.put("pagesPerSessionStart", created > 0 ? Math.round((double) leaseCount / created * 100.0) / 100.0 : 0.0);
+        return stats;
+    }
+
+    private BrowserSession leaseSession() {
+        BrowserSession session;
+        while ((session = idleSessions.pollFirst()) != null) {
+            if (isHealthy(session)) {
+                return session;
+            }
+            sessionsCrashed.incrementAndGet();
+            logger.warn("Discarding unresponsive browser session");
+            quit(session);
+        }
+        return startSession();
+    }
+
+    private void returnSession(BrowserSession session) {
+        if (shuttingDown) {
+            quit(session);
+            return;
+        }
+        if (session.pagesServed >= Math.max(1, maxPagesPerSession)) {
+            sessionsRecycled.incrementAndGet();
+            logger.debug("Recycling browser session after {} pages", session.pagesServed);
+            quit(session);
+            return;
+        }
+
+        try {
+            // Leave nothing behind for the next lease
+            session.driver.manage().deleteAllCookies();
+            session.driver.get("about:blank");
+        } catch (Exception e) {
+            sessionsCrashed.incrementAndGet();
+            logger.warn("Could not reset browser session, discarding: {}", e.getMessage());
+            quit(session);
+            return;
+        }
+
+        session.lastUsedAt = System.currentTimeMillis();
+        idleSessions.offerFirst(session);
+    }
+
+    private BrowserSession startSession() {
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless");
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        options.addArguments("--disable-gpu");
+        options.addArguments("--window-size=1920,1080");
+        options.addArguments("--user-agent=" + userAgent);
+        options.addArguments("--disable-blink-features=AutomationControlled");
+        options.addArguments("--disable-extensions");
+
+        // Use the configured Chrome binary when it exists, otherwise let Selenium find one
+        if (chromeBinary != null && !chromeBinary.isBlank() && Files.isExecutable(Paths.get(chromeBinary))) {
+            options.setBinary(chromeBinary);
+        }
+
+        long start = System.currentTimeMillis();
+        WebDriver driver = new ChromeDriver(options);
+        driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(pageLoadTimeoutSeconds));
+        long startupMs = System.currentTimeMillis() - start;
+
+        sessionsCreated.incrementAndGet();
+        totalStartupMs.addAndGet(startupMs);
+        logger.info("Started browser session in {} ms", startupMs);
+        return new BrowserSession(driver);
+    }
+
+    private boolean isHealthy(BrowserSession session) {
+        try {
+            session.driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void quit(BrowserSession session) {
+        try {
+            session.driver.quit();
+        } catch (Exception e) {
+            logger.debug("Error closing browser session: {}", e.getMessage());
+        }
+    }
+
+    private static class BrowserSession {
+        private final WebDriver driver;
+        private int pagesServed = 0;
+        private long lastUsedAt = System.currentTimeMillis();
+
+        private BrowserSession(WebDriver driver) {
+            this.driver = driver;
+        }
+    }
+}
@@ -6,13 +6,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
 /**
  * Core compliance analysis service based on Google AFS & RSOC rules
@@ -50,6 +50,12 @@ public class ComplianceAnalysisService {
     
     @Autowired
     private IndividualAdAnalysisService individualAdAnalysisService;
+    
+    @Autowired
+    private DomainAnalysisJobService domainAnalysisJobService;
+    
+    @Autowired
+    private ComplianceRuleEngine complianceRuleEngine;
 
     /**
      * Analyze a single scraped ad for compliance violations
@@ -239,11 +245,13 @@ public class ComplianceAnalysisService {
     private List<Violation> performComplianceChecks(AdAnalysis analysis, ScrapedAd scrapedAd) {
         List<Violation> violations = new ArrayList<>();
         
-        // Get all active compliance rules
-        List<ComplianceRule> activeRules = complianceRuleRepository.findByActiveTrue();
+        // One pass over the combined text finds the hits of every active rule
+        String headline = analysis.getHeadline() != null ? analysis.getHeadline() : "";
+        String primaryText = analysis.getPrimaryText() != null ? analysis.getPrimaryText() : "";
+        ComplianceRuleEngine.RuleScan scan = complianceRuleEngine.scan(headline + " " + primaryText);
         
-        for (ComplianceRule rule : activeRules) {
-            Violation violation = checkRule(rule, analysis, scrapedAd);
+        for (ComplianceRule rule : scan.getRules()) {
+            Violation violation = checkRule(rule, analysis, scrapedAd, scan);
             if (violation != null) {
                 violations.add(violation);
             }
@@ -253,260 +261,67 @@ public class ComplianceAnalysisService {
     }
 
     /**
-     * Check a specific compliance rule against the ad
+     * Turn the first hit of a rule into a violation
      */
-    private Violation checkRule(ComplianceRule rule, AdAnalysis analysis, ScrapedAd scrapedAd) {
-        String headline = analysis.getHeadline() != null ? analysis.getHeadline().toLowerCase() : "";
-        String primaryText = analysis.getPrimaryText() != null ? analysis.getPrimaryText().toLowerCase() : "";
-        String combinedText = headline + " " + primaryText;
+    private Violation checkRule(ComplianceRule rule, AdAnalysis analysis, ScrapedAd scrapedAd,
+                                ComplianceRuleEngine.RuleScan scan) {
+        ComplianceRuleEngine.RuleHit hit = scan.firstHit(rule);
+        if (hit == null) {
+            return null;
+        }
 
         switch (rule.getRuleName()) {
             case "No Inducement to Click":
-                return checkClickInducementRule(rule, analysis, combinedText);
+                return createViolation(rule, analysis, 
+                    "Contains click inducement phrase: '" + hit.getTerm() + "'",
+                    "Found forbidden phrase that encourages clicking/searching");
             
             case "No False Promises":
-                return checkFalsePromisesRule(rule, analysis, combinedText);
+                return createViolation(rule, analysis,
+                    "Contains potentially false promise: '" + hit.getTerm() + "'",
+                    "Avoid claiming anything as free unless completely verifiable");
             
             case "No Implied Functionality":
-                return checkImpliedFunctionalityRule(rule, analysis, combinedText);
+                return createViolation(rule, analysis,
+                    "Implies functionality that may not exist: '" + hit.getTerm() + "'",
+                    "Ensure promised functionality is available on landing page");
             
             case "No Misleading Claims":
-                return checkMisleadingClaimsRule(rule, analysis, combinedText);
+                return createViolation(rule, analysis,
+                    "Contains misleading claim pattern: '" + hit.getTerm() + "'",
+                    "Avoid sensational or misleading advertising language");
             
             case "Automotive AI Image Compliance":
-                return checkAutomotiveImageRule(rule, analysis, scrapedAd);
+                // Model names only count in automotive ads with images; this would require image analysis
+                // to detect AI-generated content with badges, so specific model mentions are flagged
+                if (!scan.hasContextHit(rule) || scrapedAd.getImageUrls().isEmpty()) {
+                    return null;
+                }
+                return createViolation(rule, analysis,
+                    "Specific car model mentioned with image - verify AI image compliance",
+                    "Ensure AI-generated car images closely resemble actual vehicles without misleading badges");
             
             case "No Unverifiable Claims":
-                return checkUnverifiableClaimsRule(rule, analysis, combinedText);
+                return createViolation(rule, analysis,
+                    "Contains unverifiable claim: '" + hit.getTerm() + "'",
+                    "Ensure claims are backed by verifiable sources on landing page");
             
             case "No Fake Scarcity":
-                return checkFakeScarcityRule(rule, analysis, combinedText);
+                return createViolation(rule, analysis,
+                    "Contains fake scarcity indicator: matches pattern '" + hit.getTerm() + "'",
+                    "Avoid creating false urgency unless scarcity is genuine");
             
             case "No Extreme Pricing Claims":
-                return checkExtremePricingRule(rule, analysis, combinedText);
+                return createViolation(rule, analysis,
+                    "Contains unrealistic pricing claim",
+                    "Avoid extremely low prices for expensive items unless genuinely available");
                 
             default:
-                // For custom rules with patterns
-                if (rule.getRulePattern() != null && !rule.getRulePattern().isEmpty()) {
-                    return checkPatternRule(rule, analysis, combinedText);
-                }
-        }
-        
-        return null;
-    }
-
-    /**
-     * Rule: No Inducement to Click or Search
-     * Based on: "Ads must not contain language encouraging users to click, search, or interact"
-     */
-    private Violation checkClickInducementRule(ComplianceRule rule, AdAnalysis analysis, String text) {
-        String[] forbiddenPhrases = {
-            "click here", "click now", "search now", "tap here", "tap now",
-            "support us", "visit these links", "check out these", "explore this",
-            "see below", "click below", "search below", "tap below",
-            "select your", "choose your", "pick your", "tap on your"
-        };
-        
-        for (String phrase : forbiddenPhrases) {
-            if (text.contains(phrase)) {
-                return createViolation(rule, analysis, 
-                    "Contains click inducement phrase: '" + phrase + "'",
-                    "Found forbidden phrase that encourages clicking/searching");
-            }
-        }
-        
-        return null;
-    }
-
-    /**
-     * Rule: No False Promises or Unverifiable Claims
-     * Based on: "Claims like 'free phones' or exaggerated discounts must be realistic"
-     */
-    private Violation checkFalsePromisesRule(ComplianceRule rule, AdAnalysis analysis, String text) {
-        String[] suspiciousPromises = {
-            "free phone", "free iphone", "free samsung", "free laptop",
-            "free car", "free truck", "free suv", "100% free",
-            "completely free", "totally free", "absolutely free",
-            "no cost", "zero cost", "$0 cost"
-        };
-        
-        for (String promise : suspiciousPromises) {
-            if (text.contains(promise)) {
-                return createViolation(rule, analysis,
-                    "Contains potentially false promise: '" + promise + "'",
-                    "Avoid claiming anything as free unless completely verifiable");
-            }
-        }
-        
-        return null;
-    }
-
-    /**
-     * Rule: No Implied Functionality
-     * Based on: "Ads must not imply functionality if it's not available on landing page"
-     */
-    private Violation checkImpliedFunctionalityRule(ComplianceRule rule, AdAnalysis analysis, String text) {
-        String[] functionalityPhrases = {
-            "see prices", "check prices", "get quotes", "compare prices",
-            "check rates", "see rates", "get rates", "apply now",
-            "sign up now", "register now", "book now", "order now",
-            "buy now", "purchase now", "shop now"
-        };
-        
-        for (String phrase : functionalityPhrases) {
-            if (text.contains(phrase)) {
-                return createViolation(rule, analysis,
-                    "Implies functionality that may not exist: '" + phrase + "'",
-                    "Ensure promised functionality is available on landing page");
-            }
-        }
-        
-        return null;
-    }
-
-    /**
-     * Rule: No Misleading Claims
-     * Based on: "Misleading or outlandish claims must be avoided"
-     */
-    private Violation checkMisleadingClaimsRule(ComplianceRule rule, AdAnalysis analysis, String text) {
-        String[] misleadingPhrases = {
-            "doctors hate", "one weird trick", "secret that", "hidden truth",
-            "they don't want you to know", "miracle cure", "instant results",
-            "guaranteed results", "lose weight fast", "get rich quick",
-            "make money fast", "work from home scam"
-        };
-        
-        for (String phrase : misleadingPhrases) {
-            if (text.contains(phrase)) {
-                return createViolation(rule, analysis,
-                    "Contains misleading claim pattern: '" + phrase + "'",
-                    "Avoid sensational or misleading advertising language");
-            }
-        }
-        
-        return null;
-    }
-
-    /**
-     * Rule: Automotive AI Image Compliance
-     * Based on: "Avoid using badges or logos on AI-generated images for cars"
-     */
-    private Violation checkAutomotiveImageRule(ComplianceRule rule, AdAnalysis analysis, ScrapedAd scrapedAd) {
-        String text = (analysis.getHeadline() + " " + analysis.getPrimaryText()).toLowerCase();
-        
-        // Check if this is automotive content
-        String[] autoKeywords = {
-            "car", "truck", "suv", "vehicle", "auto", "ford", "chevrolet", "toyota",
-            "honda", "nissan", "dodge", "jeep", "bmw", "mercedes", "audi"
-        };
-        
-        boolean isAutomotive = false;
-        for (String keyword : autoKeywords) {
-            if (text.contains(keyword)) {
-                isAutomotive = true;
-                break;
-            }
-        }
-        
-        if (isAutomotive && !scrapedAd.getImageUrls().isEmpty()) {
-            // This would require image analysis to detect AI-generated content with badges
-            // For now, we'll flag specific model mentions that might use AI images
-            String[] specificModels = {
-                "durango 1500", "f-150", "camaro", "mustang", "corvette",
-                "accord", "civic", "altima", "sentra", "wrangler"
-            };
-            
-            for (String model : specificModels) {
-                if (text.contains(model)) {
-                    return createViolation(rule, analysis,
-                        "Specific car model mentioned with image - verify AI image compliance",
-                        "Ensure AI-generated car images closely resemble actual vehicles without misleading badges");
-                }
-            }
-        }
-        
-        return null;
-    }
-
-    /**
-     * Rule: No Unverifiable Claims
-     * Based on: "Make sure your claim is verifiable in the article"
-     */
-    private Violation checkUnverifiableClaimsRule(ComplianceRule rule, AdAnalysis analysis, String text) {
-        String[] unverifiableClaims = {
-            "top rated", "best rated", "highest rated", "#1 rated",
-            "research shows", "studies show", "experts say", "proven by science",
-            "clinically proven", "doctor recommended", "award winning"
-        };
-        
-        for (String claim : unverifiableClaims) {
-            if (text.contains(claim)) {
-                return createViolation(rule, analysis,
-                    "Contains unverifiable claim: '" + claim + "'",
-                    "Ensure claims are backed by verifiable sources on landing page");
-            }
-        }
-        
-        return null;
-    }
-
-    /**
-     * Rule: No Fake Scarcity
-     * Based on: "Ads that imply time-limited offer when scarcity isn't real"
-     */
-    private Violation checkFakeScarcityRule(ComplianceRule rule, AdAnalysis analysis, String text) {
-        String[] scarcityPhrases = {
-            "only \\d+ left", "limited time", "expires today", "expires soon",
-            "hurry", "act fast", "don't wait", "while supplies last",
-            "limited quantity", "few remaining", "almost gone"
-        };
-        
-        for (String pattern : scarcityPhrases) {
-            if (Pattern.compile(pattern).matcher(text).find()) {
-                return createViolation(rule, analysis,
-                    "Contains fake scarcity indicator: matches pattern '" + pattern + "'",
-                    "Avoid creating false urgency unless scarcity is genuine");
-            }
-        }
-        
-        return null;
-    }
-
-    /**
-     * Rule: No Extreme Pricing Claims
-     * Based on: "Avoid unrealistic claims like 'Jeep for $1500'"
-     */
-    private Violation checkExtremePricingRule(ComplianceRule rule, AdAnalysis analysis, String text) {
-        // Pattern to match extremely low prices for expensive items
-        Pattern extremePricePattern = Pattern.compile(
-            "(car|truck|suv|jeep|ford|toyota|honda|bmw|mercedes).{0,20}\\$([1-9]\\d{0,2}|1[0-4]\\d{2}|1500)"
-        );
-        
-        if (extremePricePattern.matcher(text).find()) {
-            return createViolation(rule, analysis,
-                "Contains unrealistic pricing claim",
-                "Avoid extremely low prices for expensive items unless genuinely available");
-        }
-        
-        return null;
-    }
-
-    /**
-     * Check custom pattern-based rules
-     */
-    private Violation checkPatternRule(ComplianceRule rule, AdAnalysis analysis, String text) {
-        try {
-            Pattern pattern = Pattern.compile(rule.getRulePattern(), Pattern.CASE_INSENSITIVE);
-            if (pattern.matcher(text).find()) {
+                // Custom rules with patterns
                 return createViolation(rule, analysis,
                     "Matches rule pattern: " + rule.getRulePattern(),
                     rule.getDescription());
-            }
-        } catch (Exception e) {
-            logger.warn("Invalid regex pattern in rule {}: {}", rule.getRuleName(), rule.getRulePattern());
         }
-        
-        return null;
     }
 
     /**
@@ -608,38 +423,54 @@ public class ComplianceAnalysisService {
     /**
      * Analyze all ads for a domain
      */
-    public void analyzeDomainAds(Domain domain) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DomainAnalysisJob analyzeDomainAds(Domain domain) {
         logger.info("Starting compliance analysis for all ads in domain: {}", domain.getDomainName());
         
-        List<ScrapedAd> domainAds = scrapedAdRepository.findByDomainNameOrderByScrapedAtDesc(domain.getDomainName());
-        logger.info("Found {} ads for domain: {}", domainAds.size(), domain.getDomainName());
+        DomainAnalysisJob job = domainAnalysisJobService.startJob(domain.getDomainName());
+        logger.info("Found {} ads for domain: {}", job.getTotalAds(), domain.getDomainName());
         
-        // Process first 20 ads for analysis
-        List<ScrapedAd> adsToProcess = domainAds.stream().limit(20).toList();
-        logger.info("Processing {} ads for compliance analysis", adsToProcess.size());
-        
-        int successCount = 0;
-        int errorCount = 0;
+        return runAnalysisJob(job, domain);
+    }
+    
+    /**
+     * Analyze only the ads of a domain that have no analysis yet (new or changed since the last scrape)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DomainAnalysisJob analyzeUnanalyzedAds(Domain domain) {
+        DomainAnalysisJob job = domainAnalysisJobService.startJob(domain.getDomainName(), true);
+        logger.info("Found {} new or changed ads to analyze for domain: {}", job.getTotalAds(), domain.getDomainName());
         
-        // Process each ad individually with its own transaction
-        for (ScrapedAd ad : adsToProcess) {
-            try {
-                individualAdAnalysisService.analyzeAdWithNewTransaction(ad, domain);
-                successCount++;
-                logger.info("Successfully analyzed ad {}/{}: {}", 
-                    successCount + errorCount, adsToProcess.size(), ad.getMetaAdId());
-            } catch (Exception e) {
-                errorCount++;
-                logger.error("Error analyzing ad {}/{} ({}): {}", 
-                    successCount + errorCount, adsToProcess.size(), ad.getMetaAdId(), e.getMessage());
-            }
+        return runAnalysisJob(job, domain);
+    }
+    
+    /**
+     * Continue a paused or interrupted analysis of a domain, or start a new one if there is none
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DomainAnalysisJob resumeDomainAnalysis(Domain domain) {
+        Optional<DomainAnalysisJob> job = domainAnalysisJobService.findResumableJob(domain.getDomainName());
+        if (job.isEmpty()) {
+            return analyzeDomainAds(domain);
         }
         
+        logger.info("Resuming compliance analysis for domain: {}", domain.getDomainName());
+        return runAnalysisJob(job.get(), domain);
+    }
+    
+    private DomainAnalysisJob runAnalysisJob(DomainAnalysisJob job, Domain domain) {
+        // Ads are streamed page by page and each one is analyzed in its own transaction
+        DomainAnalysisJob result = domainAnalysisJobService.runJob(job, domain);
+        
         // Update domain compliance score after all individual analyses
         updateDomainComplianceScore(domain);
         
-        logger.info("Completed compliance analysis for domain: {} - {} successful, {} errors", 
-                   domain.getDomainName(), successCount, errorCount);
+        logger.info("Completed compliance analysis for domain: {} - {} successful, {} errors ({}); " +
+                   "triage resolved {} and escalated {} ads, saving ~${} and ~{} ms of model time",
+                   domain.getDomainName(), result.getSuccessCount(), result.getErrorCount(), result.getStatus(),
+                   result.getTriageAutoResolved(), result.getTriageEscalated(),
+                   result.getTriageSavedCost(), result.getTriageSavedMs());
+        return result;
     }
     
     /**
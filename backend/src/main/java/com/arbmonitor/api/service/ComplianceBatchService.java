@@ -0,0 +1,630 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.config.HttpClientRegistry;
+import com.arbmonitor.api.config.IoExecutorRegistry;
+import com.arbmonitor.api.model.ComplianceBatch;
+import com.arbmonitor.api.model.ComplianceBatch.BatchStatus;
+import com.arbmonitor.api.model.ComplianceBatchItem;
+import com.arbmonitor.api.model.ComplianceBatchItem.ItemStatus;
+import com.arbmonitor.api.model.Domain;
+import com.arbmonitor.api.model.ScrapedAd;
+import com.arbmonitor.api.repository.AdAnalysisRepository;
+import com.arbmonitor.api.repository.ComplianceBatchItemRepository;
+import com.arbmonitor.api.repository.ComplianceBatchRepository;
+import com.arbmonitor.api.repository.DomainRepository;
+import com.arbmonitor.api.repository.ScrapedAdRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bulk compliance analysis through the OpenAI Batch API. Ads are prepared page by page like a
+ * synchronous domain analysis, but their prompts are written to a JSONL input file and submitted as
+ * one batch instead of one chat call each; a scheduled poller applies the output to the ads' analyses
+ * once OpenAI has finished. Single-ad analysis stays on the synchronous path.
+ */
+@Service
+public class ComplianceBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComplianceBatchService.class);
+
+    private static final List<BatchStatus> ACTIVE_STATUSES =
+        List.of(BatchStatus.PREPARING, BatchStatus.SUBMITTED, BatchStatus.PROCESSING);
+
+    // Provider states after which the output and error files no longer change
+    private static final Set<String> TERMINAL_PROVIDER_STATUSES = Set.of("completed", "expired", "cancelled", "failed");
+
+    private static final String CHAT_COMPLETIONS_ENDPOINT = "/v1/chat/completions";
+
+    @Value("${app.openai.api-key}")
+    private String openaiApiKey;
+
+    @Value("${app.openai.base-url:https://api.openai.com/v1}")
+    private String openaiBaseUrl;
+
+    @Value("${app.openai.batch.max-requests:50000}")
+    private int maxRequestsPerBatch;
+
+    @Value("${app.openai.batch.completion-window:24h}")
+    private String completionWindow;
+
+    @Value("${app.analysis.page-size:50}")
+    private int pageSize;
+
+    @Autowired
+    private ComplianceBatchRepository batchRepository;
+
+    @Autowired
+    private ComplianceBatchItemRepository itemRepository;
+
+    @Autowired
+    private ScrapedAdRepository scrapedAdRepository;
+
+    @Autowired
+    private DomainRepository domainRepository;
+
+    @Autowired
+    private AdAnalysisRepository adAnalysisRepository;
+
+    @Autowired
+    private IndividualAdAnalysisService individualAdAnalysisService;
+
+    @Autowired
+    private OpenAIAnalysisService openAIAnalysisService;
+
+    @Autowired
+    private ComplianceTriageService complianceTriageService;
+
+    @Autowired
+    private IoExecutorRegistry ioExecutorRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ComplianceBatchService(HttpClientRegistry httpClientRegistry) {
+        this.restTemplate = httpClientRegistry.restTemplate(HttpClientRegistry.OPENAI);
+    }
+
+    /**
+     * Prepare and submit the ads of a domain (optionally only those without an analysis) as batch
+     * compliance analysis. Returns once the batch is recorded; preparation continues in the background.
+     */
+    public ComplianceBatch submitDomain(Domain domain, boolean onlyUnanalyzed) {
+        String domainName = domain.getDomainName();
+        if (batchRepository.countByDomainNameAndStatusIn(domainName, ACTIVE_STATUSES) > 0) {
+            throw new IllegalStateException("A compliance batch is already running for domain: " + domainName);
+        }
+
+        ComplianceBatch batch = batchRepository.save(new ComplianceBatch(domainName, openAIAnalysisService.getComplianceModel()));
+        updateDomainStatus(domainName, Domain.ProcessingStatus.SCANNING_COMPLIANCE, "Preparing batch compliance analysis...");
+        logger.info("Preparing compliance batch {} for domain: {}", batch.getId(), domainName);
+
+        // Preparation captures every landing page, so it runs on the task executor rather than the caller
+        CompletableFuture.runAsync(() -> prepareAndSubmit(batch, domain, onlyUnanalyzed), taskExecutor);
+        return batch;
+    }
+
+    public List<ComplianceBatch> getBatches(String domainName) {
+        return batchRepository.findByDomainNameOrderByCreatedAtDesc(domainName);
+    }
+
+    /**
+     * Cancel a batch: one still preparing stops after its current page; a submitted one is cancelled
+     * at OpenAI and whatever it answered before is still applied
+     */
+    public ComplianceBatch cancelBatch(Long batchId) {
+        ComplianceBatch batch = batchRepository.findById(batchId)
+            .orElseThrow(() -> new IllegalArgumentException("Compliance batch not found: " + batchId));
+
+        if (batch.getStatus() == BatchStatus.PREPARING) {
+            batchRepository.transitionStatus(batchId, List.of(BatchStatus.PREPARING), BatchStatus.CANCELLED, LocalDateTime.now());
+        } else if (batch.getStatus() == BatchStatus.SUBMITTED && batch.getProviderBatchId() != null) {
+            restTemplate.postForEntity(openaiBaseUrl + "/batches/" + batch.getProviderBatchId() + "/cancel",
+                                       new HttpEntity<>(jsonHeaders()), String.class);
+        } else {
+            throw new IllegalStateException("Compliance batch " + batchId + " can no longer be cancelled (" + batch.getStatus() + ")");
+        }
+
+        logger.info("Cancelling compliance batch {} for domain: {}", batchId, batch.getDomainName());
+        return batchRepository.findById(batchId).orElse(batch);
+    }
+
+    /**
+     * Apply the output of every submitted batch that OpenAI has finished
+     */
+    @Scheduled(fixedDelayString = "${app.openai.batch.poll-interval-ms:60000}",
+               initialDelayString = "${app.openai.batch.poll-interval-ms:60000}")
+    public void pollBatches() {
+        for (ComplianceBatch batch : batchRepository.findByStatus(BatchStatus.SUBMITTED)) {
+            if (batch.getProviderBatchId() == null) {
+                continue;
+            }
+            try {
+                pollBatch(batch);
+            } catch (Exception e) {
+                logger.warn("Could not poll compliance batch {} ({}): {}", batch.getId(), batch.getProviderBatchId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Batches interrupted by a restart: those still preparing lost their input file and fail, those
+     * being applied go back to the poller, which only applies items that are still pending
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterruptedBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        for (ComplianceBatch batch : batchRepository.findByStatus(BatchStatus.PROCESSING)) {
+            batchRepository.transitionStatus(batch.getId(), List.of(BatchStatus.PROCESSING), BatchStatus.SUBMITTED, now);
+        }
+        for (ComplianceBatch batch : batchRepository.findByStatus(BatchStatus.PREPARING)) {
+            if (batchRepository.transitionStatus(batch.getId(), List.of(BatchStatus.PREPARING), BatchStatus.FAILED, now) > 0) {
+                batch.setStatus(BatchStatus.FAILED);
+                batch.setErrorMessage("Interrupted while preparing");
+                batch.setFinishedAt(now);
+                failPendingItems(batch, "Analysis failed: batch preparation was interrupted");
+                batchRepository.save(batch);
+                finishDomainIfIdle(batch.getDomainName());
+            }
+        }
+    }
+
+    private void prepareAndSubmit(ComplianceBatch firstBatch, Domain domain, boolean onlyUnanalyzed) {
+        ComplianceBatch batch = firstBatch;
+        InputFile inputFile = null;
+        try {
+            inputFile = new InputFile();
+            TransactionTemplate pageTransaction = new TransactionTemplate(transactionManager);
+            pageTransaction.setReadOnly(true);
+            long cursor = 0;
+
+            while (true) {
+                if (!isPreparing(batch)) {
+                    logger.info("Compliance batch {} for domain {} was cancelled while preparing", batch.getId(), domain.getDomainName());
+                    finishCancelled(batch);
+                    return;
+                }
+
+                List<ScrapedAd> page = loadPage(pageTransaction, domain.getDomainName(), cursor, onlyUnanalyzed);
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                List<IndividualAdAnalysisService.PreparedAnalysis> prepared = prepareAds(page, domain);
+                for (int i = 0; i < page.size(); i++) {
+                    if (prepared.get(i) == null) {
+                        batch.setFailedCount(batch.getFailedCount() + 1);
+                        continue;
+                    }
+                    addRequest(batch, inputFile, page.get(i), prepared.get(i));
+
+                    if (inputFile.count >= maxRequestsPerBatch) {
+                        // The Batch API caps requests per input file; the rest of the domain goes into another batch
+                        if (!submit(batch, inputFile)) {
+                            return;
+                        }
+                        inputFile.delete();
+                        inputFile = new InputFile();
+                        batch = batchRepository.save(new ComplianceBatch(domain.getDomainName(), batch.getModelName()));
+                    }
+                }
+                cursor = page.get(page.size() - 1).getId();
+            }
+
+            if (inputFile.count > 0) {
+                submit(batch, inputFile);
+            } else if (batchRepository.transitionStatus(batch.getId(), List.of(BatchStatus.PREPARING),
+                                                        BatchStatus.COMPLETED, LocalDateTime.now()) > 0) {
+                // Every ad was resolved by triage or the verdict cache (or there was nothing to analyze)
+                batch.setStatus(BatchStatus.COMPLETED);
+                batch.setFinishedAt(LocalDateTime.now());
+                batchRepository.save(batch);
+                finishDomainIfIdle(domain.getDomainName());
+            }
+
+        } catch (Exception e) {
+            logger.error("Compliance batch {} for domain {} failed: {}", batch.getId(), domain.getDomainName(), e.getMessage(), e);
+            batch.setStatus(BatchStatus.FAILED);
+            batch.setErrorMessage(e.getMessage());
+            batch.setFinishedAt(LocalDateTime.now());
+            failPendingItems(batch, "Analysis failed: " + e.getMessage());
+            batchRepository.save(batch);
+            finishDomainIfIdle(domain.getDomainName());
+        } finally {
+            if (inputFile != null) {
+                inputFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Prepare a page of ads in parallel on the landing page executor; failed ads are null
+     */
+    private List<IndividualAdAnalysisService.PreparedAnalysis> prepareAds(List<ScrapedAd> page, Domain domain) {
+        Executor landingExecutor = ioExecutorRegistry.executor(IoExecutorRegistry.LANDING);
+        List<CompletableFuture<IndividualAdAnalysisService.PreparedAnalysis>> futures = new ArrayList<>(page.size());
+        for (ScrapedAd ad : page) {
+            CompletableFuture<IndividualAdAnalysisService.PreparedAnalysis> future;
+            try {
+                future = CompletableFuture.supplyAsync(
+                    () -> individualAdAnalysisService.prepareAnalysisWithNewTransaction(ad, domain), landingExecutor);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.add(future.exceptionally(error -> {
+                logger.error("Could not prepare ad {} for batch analysis: {}", ad.getMetaAdId(), error.getMessage());
+                return null;
+            }));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private void addRequest(ComplianceBatch batch, InputFile inputFile, ScrapedAd ad,
+                            IndividualAdAnalysisService.PreparedAnalysis prepared) throws IOException {
+        Long analysisId = prepared.getAnalysis().getId();
+        // Resolved by triage while preparing; the analysis already carries its verdict
+        if (prepared.getTriage().isResolved()) {
+            batch.setTriagedCount(batch.getTriagedCount() + 1);
+            return;
+        }
+        
+        OpenAIAnalysisService.BatchComplianceRequest request = openAIAnalysisService.prepareBatchComplianceRequest(
+            prepared.getAdText(), prepared.getLandingPageContent(), prepared.getRacValue(), prepared.isRacEnabled());
+
+        if (request.getCachedResult() != null) {
+            individualAdAnalysisService.completeAnalysisWithNewTransaction(analysisId, request.getCachedResult());
+            batch.setCachedCount(batch.getCachedCount() + 1);
+            return;
+        }
+
+        ComplianceBatchItem item = new ComplianceBatchItem(
+            batch.getId(), analysisId, ad.getMetaAdId(), request.getCacheKey(), prepared.isRacEnabled());
+        item.setTriageKey(prepared.getTriage().getSimilarityKey());
+        item = itemRepository.save(item);
+        inputFile.write(item, request.getBody());
+    }
+
+    /**
+     * Upload the input file and create the batch at OpenAI; false if the batch was cancelled meanwhile
+     */
+    private boolean submit(ComplianceBatch batch, InputFile inputFile) throws IOException {
+        inputFile.close();
+        if (batchRepository.transitionStatus(batch.getId(), List.of(BatchStatus.PREPARING),
+                                             BatchStatus.SUBMITTED, LocalDateTime.now()) == 0) {
+            logger.info("Compliance batch {} was cancelled before it was submitted", batch.getId());
+            finishCancelled(batch);
+            return false;
+        }
+        batch.setStatus(BatchStatus.SUBMITTED);
+        batch.setRequestCount(inputFile.count);
+
+        HttpHeaders uploadHeaders = new HttpHeaders();
+        uploadHeaders.setBearerAuth(openaiApiKey);
+        uploadHeaders.setContentType(MediaType.MULTIPART_FORM_DATA);
+        MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+        form.add("purpose", "batch");
+        form.add("file", new FileSystemResource(inputFile.path));
+        JsonNode file = objectMapper.readTree(restTemplate.postForEntity(
+            openaiBaseUrl + "/files", new HttpEntity<>(form, uploadHeaders), String.class).getBody());
+        batch.setInputFileId(file.path("id").asText());
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("input_file_id", batch.getInputFileId());
+        request.put("endpoint", CHAT_COMPLETIONS_ENDPOINT);
+        request.put("completion_window", completionWindow);
+        request.put("metadata", Map.of("domain", batch.getDomainName(), "complianceBatchId", String.valueOf(batch.getId())));
+        JsonNode created = objectMapper.readTree(restTemplate.postForEntity(
+            openaiBaseUrl + "/batches", new HttpEntity<>(request, jsonHeaders()), String.class).getBody());
+
+        batch.setProviderBatchId(created.path("id").asText());
+        batch.setProviderStatus(created.path("status").asText(null));
+        batch.setSubmittedAt(LocalDateTime.now());
+        batchRepository.save(batch);
+
+        updateDomainStatus(batch.getDomainName(), Domain.ProcessingStatus.SCANNING_COMPLIANCE,
+                           String.format("Waiting for OpenAI batch analysis of %d ads", inputFile.count));
+        logger.info("Submitted compliance batch {} for domain {} as {} ({} requests, {} answered from cache, {} resolved by triage)",
+                   batch.getId(), batch.getDomainName(), batch.getProviderBatchId(), inputFile.count,
+                   batch.getCachedCount(), batch.getTriagedCount());
+        return true;
+    }
+
+    private void pollBatch(ComplianceBatch batch) throws IOException {
+        JsonNode remote = objectMapper.readTree(restTemplate.exchange(
+            openaiBaseUrl + "/batches/" + batch.getProviderBatchId(), HttpMethod.GET,
+            new HttpEntity<>(jsonHeaders()), String.class).getBody());
+        String providerStatus = remote.path("status").asText();
+
+        if (!TERMINAL_PROVIDER_STATUSES.contains(providerStatus)) {
+            if (!providerStatus.equals(batch.getProviderStatus())) {
+                batchRepository.updateProviderStatus(batch.getId(), providerStatus, LocalDateTime.now());
+            }
+            return;
+        }
+
+        // Only one poller applies the output
+        if (batchRepository.transitionStatus(batch.getId(), List.of(BatchStatus.SUBMITTED),
+                                             BatchStatus.PROCESSING, LocalDateTime.now()) == 0) {
+            return;
+        }
+        batch.setStatus(BatchStatus.PROCESSING);
+        batch.setProviderStatus(providerStatus);
+        batch.setOutputFileId(textOrNull(remote, "output_file_id"));
+        batch.setErrorFileId(textOrNull(remote, "error_file_id"));
+
+        try {
+            applyOutputFile(batch, batch.getOutputFileId());
+            applyOutputFile(batch, batch.getErrorFileId());
+        } catch (Exception e) {
+            // The files stay at OpenAI; the next poll applies whatever is still pending
+            logger.error("Could not apply output of compliance batch {}: {}", batch.getId(), e.getMessage());
+            batchRepository.transitionStatus(batch.getId(), List.of(BatchStatus.PROCESSING), BatchStatus.SUBMITTED, LocalDateTime.now());
+            return;
+        }
+
+        // Requests an expired or cancelled batch never ran fail like any other unanswered request
+        failPendingItems(batch, "Analysis failed: OpenAI batch " + providerStatus + " before this ad was analyzed");
+
+        switch (providerStatus) {
+            case "completed", "expired" -> batch.setStatus(BatchStatus.COMPLETED);
+            case "cancelled" -> batch.setStatus(BatchStatus.CANCELLED);
+            default -> {
+                batch.setStatus(BatchStatus.FAILED);
+                batch.setErrorMessage(remote.path("errors").path("data").path(0).path("message").asText("Batch failed"));
+            }
+        }
+        batch.setSucceededCount((int) itemRepository.countByBatchIdAndStatus(batch.getId(), ItemStatus.SUCCEEDED));
+        batch.setFailedCount(batch.getFailedCount() + (int) itemRepository.countByBatchIdAndStatus(batch.getId(), ItemStatus.FAILED));
+        batch.setFinishedAt(LocalDateTime.now());
+        batchRepository.save(batch);
+
+        logger.info("Compliance batch {} for domain {} finished ({}): {} succeeded, {} failed, {} from cache",
+                   batch.getId(), batch.getDomainName(), providerStatus,
+                   batch.getSucceededCount(), batch.getFailedCount(), batch.getCachedCount());
+        finishDomainIfIdle(batch.getDomainName());
+    }
+
+    /**
+     * Stream a batch output (or error) file and apply each line to its item's analysis
+     */
+    private void applyOutputFile(ComplianceBatch batch, String fileId) {
+        if (fileId == null) {
+            return;
+        }
+        restTemplate.execute(openaiBaseUrl + "/files/" + fileId + "/content", HttpMethod.GET,
+            request -> request.getHeaders().setBearerAuth(openaiApiKey),
+            response -> {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isBlank()) {
+                            applyOutputLine(batch, line);
+                        }
+                    }
+                }
+                return null;
+            });
+    }
+
+    private void applyOutputLine(ComplianceBatch batch, String line) {
+        ComplianceBatchItem item = null;
+        try {
+            JsonNode output = objectMapper.readTree(line);
+            item = findPendingItem(batch, output.path("custom_id").asText());
+            if (item == null) {
+                return;
+            }
+
+            JsonNode response = output.path("response");
+            boolean success = response.path("status_code").asInt() == 200;
+            // Settle first so a second pass never charges or applies the same answer twice
+            if (itemRepository.settle(item.getId(), success ? ItemStatus.SUCCEEDED : ItemStatus.FAILED) == 0) {
+                return;
+            }
+
+            if (success) {
+                OpenAIAnalysisService.ComplianceAnalysisResult result = openAIAnalysisService.completeBatchComplianceRequest(
+                    response.path("body"), item.getCacheKey(), Boolean.TRUE.equals(item.getRacEnabled()),
+                    batch.getDomainName(), item.getMetaAdId());
+                individualAdAnalysisService.completeAnalysisWithNewTransaction(item.getAdAnalysisId(), result);
+                complianceTriageService.recordVerdict(item.getTriageKey(), result);
+            } else {
+                String error = output.path("error").path("message").asText(
+                    response.path("body").path("error").path("message").asText("status " + response.path("status_code").asInt()));
+                individualAdAnalysisService.failAnalysisWithNewTransaction(
+                    item.getAdAnalysisId(), "Analysis failed: " + error, Boolean.TRUE.equals(item.getRacEnabled()));
+            }
+        } catch (Exception e) {
+            logger.warn("Could not apply batch output for ad {} in compliance batch {}: {}",
+                       item != null ? item.getMetaAdId() : "?", batch.getId(), e.getMessage());
+        }
+    }
+
+    private ComplianceBatchItem findPendingItem(ComplianceBatch batch, String customId) {
+        if (!customId.startsWith("item-")) {
+            return null;
+        }
+        try {
+            return itemRepository.findById(Long.parseLong(customId.substring("item-".length())))
+                .filter(item -> batch.getId().equals(item.getBatchId()) && item.getStatus() == ItemStatus.PENDING)
+                .orElse(null);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void failPendingItems(ComplianceBatch batch, String reason) {
+        for (ComplianceBatchItem item : itemRepository.findByBatchIdAndStatus(batch.getId(), ItemStatus.PENDING)) {
+            if (itemRepository.settle(item.getId(), ItemStatus.FAILED) > 0) {
+                try {
+                    individualAdAnalysisService.failAnalysisWithNewTransaction(
+                        item.getAdAnalysisId(), reason, Boolean.TRUE.equals(item.getRacEnabled()));
+                } catch (Exception e) {
+                    logger.warn("Could not mark analysis of ad {} as failed: {}", item.getMetaAdId(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void finishCancelled(ComplianceBatch batch) {
+        failPendingItems(batch, "Analysis failed: batch cancelled");
+        batch.setStatus(BatchStatus.CANCELLED);
+        batch.setFinishedAt(LocalDateTime.now());
+        batchRepository.save(batch);
+        finishDomainIfIdle(batch.getDomainName());
+    }
+
+    private boolean isPreparing(ComplianceBatch batch) {
+        return batchRepository.findById(batch.getId())
+            .map(current -> current.getStatus() == BatchStatus.PREPARING)
+            .orElse(false);
+    }
+
+    /**
+     * Mark the domain completed once none of its batches is still running
+     */
+    private void finishDomainIfIdle(String domainName) {
+        if (batchRepository.countByDomainNameAndStatusIn(domainName, ACTIVE_STATUSES) > 0) {
+            return;
+        }
+        try {
+            Domain domain = domainRepository.findByDomainName(domainName);
+            if (domain != null) {
+                Double avgScore = adAnalysisRepository.getAverageComplianceScoreByDomain(domain);
+                if (avgScore != null) {
+                    domain.setComplianceScore(avgScore);
+                }
+                domain.setProcessingStatus(Domain.ProcessingStatus.COMPLETED);
+                domain.setProcessingMessage("Batch compliance analysis completed");
+                domainRepository.save(domain);
+            }
+        } catch (Exception e) {
+            logger.error("Error updating domain {} after batch analysis: {}", domainName, e.getMessage());
+        }
+    }
+
+    private void updateDomainStatus(String domainName, Domain.ProcessingStatus status, String message) {
+        try {
+            Domain domain = domainRepository.findByDomainName(domainName);
+            if (domain != null) {
+                domain.setProcessingStatus(status);
+                domain.setProcessingMessage(message);
+                domainRepository.save(domain);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not update status of domain {}: {}", domainName, e.getMessage());
+        }
+    }
+
+    private List<ScrapedAd> loadPage(TransactionTemplate pageTransaction, String domainName, long cursor,
+                                     boolean onlyUnanalyzed) {
+        List<ScrapedAd> page = pageTransaction.execute(status -> {
+            List<ScrapedAd> ads = onlyUnanalyzed
+                ? scrapedAdRepository.findUnanalyzedByDomainNameAfterId(domainName, cursor, PageRequest.of(0, pageSize))
+                : scrapedAdRepository.findByDomainNameAndIdGreaterThanOrderByIdAsc(
+                    domainName, cursor, PageRequest.of(0, pageSize));
+            // Initialize lazy collections while the session is still open
+            for (ScrapedAd ad : ads) {
+                Hibernate.initialize(ad.getImageUrls());
+                Hibernate.initialize(ad.getLocalImagePaths());
+            }
+            return ads;
+        });
+        return page != null ? page : Collections.emptyList();
+    }
+
+    private HttpHeaders jsonHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(openaiApiKey);
+        return headers;
+    }
+
+    private static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.path(field);
+        return value.isTextual() && !value.asText().isEmpty() ? value.asText() : null;
+    }
+
+    /**
+     * JSONL input file of one batch, written to a temporary file as ads are prepared
+     */
+    private class InputFile {
+        private final Path path;
+        private final BufferedWriter writer;
+        private int count = 0;
+
+        InputFile() throws IOException {
+            this.path = Files.createTempFile("compliance-batch-", ".jsonl");
+            this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        }
+
+        void write(ComplianceBatchItem item, Map<String, Object> body) throws IOException {
+            Map<String, Object> line = new HashMap<>();
+            line.put("custom_id", item.getCustomId());
+            line.put("method", "POST");
+            line.put("url", CHAT_COMPLETIONS_ENDPOINT);
+            line.put("body", body);
+            writer.write(objectMapper.writeValueAsString(line));
+            writer.newLine();
+            count++;
+        }
+
+        void close() throws IOException {
+            writer.close();
+        }
+
+        void delete() {
+            try {
+                writer.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.debug("Could not delete batch input file {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
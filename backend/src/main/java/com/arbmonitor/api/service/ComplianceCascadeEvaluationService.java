@@ -0,0 +1,253 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.AdAnalysis;
+import com.arbmonitor.api.model.ScrapedAd;
+import com.arbmonitor.api.repository.AdAnalysisRepository;
+import com.arbmonitor.api.repository.ScrapedAdRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays stored ad analyses through both tiers of the compliance cascade to tune its thresholds.
+ * The large model's verdict is the reference: each tier is scored on agreement, latency and cost, and
+ * the cascade is simulated at every candidate confidence threshold from the same answers.
+ */
+@Service
+public class ComplianceCascadeEvaluationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComplianceCascadeEvaluationService.class);
+
+    public static final List<Double> DEFAULT_THRESHOLDS = List.of(0.5, 0.6, 0.7, 0.8, 0.85, 0.9, 0.95);
+
+    @Autowired
+    private AdAnalysisRepository adAnalysisRepository;
+
+    @Autowired
+    private ScrapedAdRepository scrapedAdRepository;
+
+    @Autowired
+    private OpenAIAnalysisService openAIAnalysisService;
+
+    /**
+     * Evaluate the most recent analyses (of one domain, or of all when domainName is null). Every sample
+     * costs one call per tier, bypassing the verdict cache.
+     */
+    public Map<String, Object> run(String domainName, int sampleSize, List<Double> thresholds) {
+        PageRequest page = PageRequest.of(0, sampleSize);
+        List<AdAnalysis> analyses = domainName != null
+            ? adAnalysisRepository.findEvaluationSamplesByDomain(domainName, page)
+            : adAnalysisRepository.findEvaluationSamples(page);
+
+        List<Sample> samples = new ArrayList<>();
+        for (AdAnalysis analysis : analyses) {
+            samples.add(replay(analysis));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("domainName", domainName);
+        result.put("samples", samples.size());
+        result.put("cascade", openAIAnalysisService.getCascadeStats());
+        result.put("smallTier", tierReport(samples, true));
+        result.put("largeTier", tierReport(samples, false));
+
+        List<Map<String, Object>> simulations = new ArrayList<>();
+        for (Double threshold : thresholds) {
+            simulations.add(simulate(samples, threshold, openAIAnalysisService.isCascadeRecheckNonCompliant()));
+        }
+        result.put("thresholds", simulations);
+        logger.info("Compliance cascade evaluation on {} samples: {}", samples.size(), result);
+        return result;
+    }
+
+    /**
+     * Rebuild the prompt inputs of a stored analysis the way the live analysis built them and ask both tiers
+     */
+    private Sample replay(AdAnalysis analysis) {
+        ScrapedAd scrapedAd = scrapedAdRepository.findByMetaAdId(analysis.getMetaAdId()).orElse(null);
+        ScrapedAd source = scrapedAd;
+        if (source == null) {
+            source = new ScrapedAd();
+            source.setHeadline(analysis.getHeadline());
+        }
+        String adText = IndividualAdAnalysisService.buildAdText(source,
+            analysis.getPrimaryText() != null ? analysis.getPrimaryText() : "");
+
+        String racParameter = analysis.getDomain().getRacParameter();
+        boolean racEnabled = racParameter != null && !racParameter.trim().isEmpty();
+        String racValue = racEnabled && scrapedAd != null ? scrapedAd.getReferrerAdCreative() : null;
+
+        OpenAIAnalysisService.TierEvaluation small = openAIAnalysisService.evaluateComplianceTier(
+            true, adText, analysis.getLandingPageContent(), racValue, racEnabled);
+        OpenAIAnalysisService.TierEvaluation large = openAIAnalysisService.evaluateComplianceTier(
+            false, adText, analysis.getLandingPageContent(), racValue, racEnabled);
+        return new Sample(analysis.getOverallCompliant(), small, large);
+    }
+
+    private Map<String, Object> tierReport(List<Sample> samples, boolean small) {
+        int calls = 0;
+        int failures = 0;
+        int nonCompliant = 0;
+        long totalLatency = 0;
+        long maxLatency = 0;
+        BigDecimal totalCost = BigDecimal.ZERO;
+        int comparedWithLarge = 0;
+        int agreeWithLarge = 0;
+        int missedNonCompliant = 0;
+        int extraNonCompliant = 0;
+        int comparedWithStored = 0;
+        int agreeWithStored = 0;
+        double confidenceWhenAgreeing = 0;
+        int confidentAgreeing = 0;
+        double confidenceWhenDisagreeing = 0;
+        int confidentDisagreeing = 0;
+
+        for (Sample sample : samples) {
+            OpenAIAnalysisService.TierEvaluation tier = small ? sample.small : sample.large;
+            calls++;
+            totalLatency += tier.getLatencyMs();
+            maxLatency = Math.max(maxLatency, tier.getLatencyMs());
+            totalCost = totalCost.add(tier.getCost());
+            if (!tier.isSuccess()) {
+                failures++;
+                continue;
+            }
+            boolean compliant = tier.getResult().isOverallCompliant();
+            if (!compliant) {
+                nonCompliant++;
+            }
+            if (sample.stored != null) {
+                comparedWithStored++;
+                if (sample.stored == compliant) {
+                    agreeWithStored++;
+                }
+            }
+            if (small && sample.large.isSuccess()) {
+                boolean reference = sample.large.getResult().isOverallCompliant();
+                comparedWithLarge++;
+                Double confidence = tier.getResult().getConfidence();
+                if (compliant == reference) {
+                    agreeWithLarge++;
+                    if (confidence != null) {
+                        confidenceWhenAgreeing += confidence;
+                        confidentAgreeing++;
+                    }
+                } else {
+                    if (compliant) {
+                        missedNonCompliant++;
+                    } else {
+                        extraNonCompliant++;
+                    }
+                    if (confidence != null) {
+                        confidenceWhenDisagreeing += confidence;
+                        confidentDisagreeing++;
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("model", samples.isEmpty() ? null : (small ? samples.get(0).small : samples.get(0).large).getModel());
+        report.put("calls", calls);
+        report.put("failures", failures);
+        report.put("nonCompliantRate", ratio(nonCompliant, calls - failures));
+        report.put("avgLatencyMs", calls > 0 ? totalLatency / calls : 0);
+        report.put("maxLatencyMs", maxLatency);
+        report.put("totalCost", totalCost);
+        report.put("avgCost", average(totalCost, calls));
+        report.put("agreementWithStored", ratio(agreeWithStored, comparedWithStored));
+        if (small) {
+            report.put("agreementWithLarge", ratio(agreeWithLarge, comparedWithLarge));
+            report.put("missedNonCompliant", missedNonCompliant);
+            report.put("extraNonCompliant", extraNonCompliant);
+            report.put("avgConfidenceWhenAgreeing", confidentAgreeing > 0 ? confidenceWhenAgreeing / confidentAgreeing : null);
+            report.put("avgConfidenceWhenDisagreeing", confidentDisagreeing > 0 ? confidenceWhenDisagreeing / confidentDisagreeing : null);
+        }
+        return report;
+    }
+
+    /**
+     * What the cascade would have returned at one threshold, over the samples the large model answered
+     */
+    private Map<String, Object> simulate(List<Sample> samples, double threshold, boolean recheckNonCompliant) {
+        int evaluated = 0;
+        int accepted = 0;
+        int agree = 0;
+        int missedNonCompliant = 0;
+        long totalLatency = 0;
+        BigDecimal cascadeCost = BigDecimal.ZERO;
+        BigDecimal largeOnlyCost = BigDecimal.ZERO;
+
+        for (Sample sample : samples) {
+            if (!sample.large.isSuccess()) {
+                continue;
+            }
+            evaluated++;
+            boolean reference = sample.large.getResult().isOverallCompliant();
+            largeOnlyCost = largeOnlyCost.add(sample.large.getCost());
+            cascadeCost = cascadeCost.add(sample.small.getCost());
+            totalLatency += sample.small.getLatencyMs();
+
+            OpenAIAnalysisService.ComplianceAnalysisResult draft = sample.small.getResult();
+            boolean keepDraft = draft != null && draft.getConfidence() != null && draft.getConfidence() >= threshold
+                && (draft.isOverallCompliant() || !recheckNonCompliant);
+            if (keepDraft) {
+                accepted++;
+                if (draft.isOverallCompliant() == reference) {
+                    agree++;
+                } else if (draft.isOverallCompliant()) {
+                    missedNonCompliant++;
+                }
+            } else {
+                agree++;
+                cascadeCost = cascadeCost.add(sample.large.getCost());
+                totalLatency += sample.large.getLatencyMs();
+            }
+        }
+
+        Map<String, Object> simulation = new LinkedHashMap<>();
+        simulation.put("minConfidence", threshold);
+        simulation.put("evaluated", evaluated);
+        simulation.put("answeredBySmall", accepted);
+        simulation.put("escalationRate", ratio(evaluated - accepted, evaluated));
+        simulation.put("agreementWithLarge", ratio(agree, evaluated));
+        simulation.put("missedNonCompliant", missedNonCompliant);
+        simulation.put("avgLatencyMs", evaluated > 0 ? totalLatency / evaluated : 0);
+        simulation.put("avgCost", average(cascadeCost, evaluated));
+        simulation.put("costVsLargeOnly", largeOnlyCost.signum() > 0
+            ? cascadeCost.divide(largeOnlyCost, 4, RoundingMode.HALF_UP) : null);
+        return simulation;
+    }
+
+    private static Double ratio(int part, int total) {
+        return total > 0 ? (double) part / total : null;
+    }
+
+    private static BigDecimal average(BigDecimal total, int count) {
+        return count > 0 ? total.divide(BigDecimal.valueOf(count), 6, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+    }
+
+    /**
+     * Answers of both tiers for one stored analysis, with the verdict it was stored with
+     */
+    private static class Sample {
+        private final Boolean stored;
+        private final OpenAIAnalysisService.TierEvaluation small;
+        private final OpenAIAnalysisService.TierEvaluation large;
+
+        Sample(Boolean stored, OpenAIAnalysisService.TierEvaluation small, OpenAIAnalysisService.TierEvaluation large) {
+            this.stored = stored;
+            this.small = small;
+            this.large = large;
+        }
+    }
+}
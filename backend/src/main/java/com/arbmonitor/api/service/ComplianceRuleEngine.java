@@ -0,0 +1,686 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.ComplianceRule;
+import com.arbmonitor.api.repository.ComplianceRuleRepository;
+import com.google.re2j.Matcher;
+import com.google.re2j.Pattern;
+import com.google.re2j.PatternSyntaxException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic compliance checks compiled once per rule-set version. The phrases of every active
+ * built-in rule go into one Aho-Corasick automaton and regex rules into cached patterns, so an ad's
+ * combined text is scanned in a single pass however many rules are active. Every hit is reported with
+ * its offsets in the scanned text; matching is case-insensitive.
+ *
+ * Patterns run on RE2/J, whose matching time is linear in the input, and every evaluation has a
+ * budget of characters read and wall-clock time. A rule that exceeds it is reported and skipped for
+ * that text, so whatever users type into a rule pattern cannot pin a worker thread.
+ */
+@Service
+public class ComplianceRuleEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComplianceRuleEngine.class);
+
+    // Regex hits recorded per pattern and scan; enough to report, bounded for patterns that match everywhere
+    private static final int MAX_HITS_PER_PATTERN = 100;
+
+    // Characters read between two deadline checks of a pattern evaluation
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private static final Map<String, BuiltInRule> BUILT_IN_RULES = new LinkedHashMap<>();
+
+    static {
+        // Based on: "Ads must not contain language encouraging users to click, search, or interact"
+        builtIn("No Inducement to Click", List.of(
+            "click here", "click now", "search now", "tap here", "tap now",
+            "support us", "visit these links", "check out these", "explore this",
+            "see below", "click below", "search below", "tap below",
+            "select your", "choose your", "pick your", "tap on your"), List.of(), List.of());
+
+        // Based on: "Claims like 'free phones' or exaggerated discounts must be realistic"
+        builtIn("No False Promises", List.of(
+            "free phone", "free iphone", "free samsung", "free laptop",
+            "free car", "free truck", "free suv", "100% free",
+            "completely free", "totally free", "absolutely free",
+            "no cost", "zero cost", "$0 cost"), List.of(), List.of());
+
+        // Based on: "Ads must not imply functionality if it's not available on landing page"
+        builtIn("No Implied Functionality", List.of(
+            "see prices", "check prices", "get quotes", "compare prices",
+            "check rates", "see rates", "get rates", "apply now",
+            "sign up now", "register now", "book now", "order now",
+            "buy now", "purchase now", "shop now"), List.of(), List.of());
+
+        // Based on: "Misleading or outlandish claims must be avoided"
+        builtIn("No Misleading Claims", List.of(
+            "doctors hate", "one weird trick", "secret that", "hidden truth",
+            "they don't want you to know", "miracle cure", "instant results",
+            "guaranteed results", "lose weight fast", "get rich quick",
+            "make money fast", "work from home scam"), List.of(), List.of());
+
+        // Based on: "Avoid using badges or logos on AI-generated images for cars"; the keywords only
+        // establish that the ad is automotive, the model names are the hits
+        builtIn("Automotive AI Image Compliance", List.of(
+            "durango 1500", "f-150", "camaro", "mustang", "corvette",
+            "accord", "civic", "altima", "sentra", "wrangler"), List.of(), List.of(
+            "car", "truck", "suv", "vehicle", "auto", "ford", "chevrolet", "toyota",
+            "honda", "nissan", "dodge", "jeep", "bmw", "mercedes", "audi"));
+
+        // Based on: "Make sure your claim is verifiable in the article"
+        builtIn("No Unverifiable Claims", List.of(
+            "top rated", "best rated", "highest rated", "#1 rated",
+            "research shows", "studies show", "experts say", "proven by science",
+            "clinically proven", "doctor recommended", "award winning"), List.of(), List.of());
+
+        // Based on: "Ads that imply time-limited offer when scarcity isn't real"
+        builtIn("No Fake Scarcity", List.of(
+            "limited time", "expires today", "expires soon",
+            "hurry", "act fast", "don't wait", "while supplies last",
+            "limited quantity", "few remaining", "almost gone"), List.of(
+            "only \\d+ left"), List.of());
+
+        // Based on: "Avoid unrealistic claims like 'Jeep for $1500'"
+        builtIn("No Extreme Pricing Claims", List.of(), List.of(
+            "(car|truck|suv|jeep|ford|toyota|honda|bmw|mercedes).{0,20}\\$([1-9]\\d{0,2}|1[0-4]\\d{2}|1500)"), List.of());
+    }
+
+    @Autowired
+    private ComplianceRuleRepository complianceRuleRepository;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.compliance.rule-pattern.max-steps:1000000}")
+    private long maxPatternSteps;
+
+    @Value("${app.compliance.rule-pattern.max-millis:50}")
+    private long maxPatternMillis;
+
+    @Value("${app.compliance.rule-set.refresh-millis:5000}")
+    private long ruleSetRefreshMillis;
+
+    private volatile CompiledRuleSet compiled;
+
+    // System.nanoTime() until which the compiled rule set is used without checking the rule-set version
+    private volatile long versionValidUntil;
+
+    private Timer scanTimer;
+
+    // Custom patterns compiled once each, shared by every rule set that still uses them
+    private final Map<String, CustomPattern> patternCache = new ConcurrentHashMap<>();
+
+    private final AtomicLong patternEvaluations = new AtomicLong();
+    private final AtomicLong budgetExceeded = new AtomicLong();
+    private final Map<String, AtomicLong> budgetExceededByRule = new ConcurrentHashMap<>();
+
+    /**
+     * A custom pattern as compiled, or the reason it does not compile
+     */
+    private static class CustomPattern {
+        private final Pattern pattern;
+        private final String error;
+
+        CustomPattern(Pattern pattern, String error) {
+            this.pattern = pattern;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Thrown from inside the matcher once an evaluation has used up its budget
+     */
+    private static class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceededException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * The scanned text as seen by the matcher. Every character read counts against the evaluation's
+     * step budget and the deadline is checked periodically, so no evaluation outlives its budget.
+     */
+    private static class BudgetedText implements CharSequence {
+        private final String text;
+        private final long maxSteps;
+        private final long maxMillis;
+        private final long deadline;
+        private long steps;
+
+        BudgetedText(String text, long maxSteps, long maxMillis) {
+            this.text = text;
+            this.maxSteps = maxSteps;
+            this.maxMillis = maxMillis;
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxMillis);
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++steps > maxSteps) {
+                throw new BudgetExceededException("more than " + maxSteps + " steps");
+            }
+            if (steps % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                throw new BudgetExceededException("more than " + maxMillis + " ms");
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        // Used for group extraction only, which reads no more than the match itself
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * Phrases and patterns of a rule whose checks are built into the application
+     */
+    private static class BuiltInRule {
+        private final List<String> phrases;
+        private final List<Pattern> patterns;
+        private final List<String> contextPhrases;
+
+        BuiltInRule(List<String> phrases, List<Pattern> patterns, List<String> contextPhrases) {
+            this.phrases = phrases;
+            this.patterns = patterns;
+            this.contextPhrases = contextPhrases;
+        }
+    }
+
+    /**
+     * One match of a rule's phrase or pattern
+     */
+    public static class RuleHit {
+        private final ComplianceRule rule;
+        private final String term;
+        private final String matchedText;
+        private final int start;
+        private final int end;
+        private final boolean context;
+
+        public RuleHit(ComplianceRule rule, String term, String matchedText, int start, int end, boolean context) {
+            this.rule = rule;
+            this.term = term;
+            this.matchedText = matchedText;
+            this.start = start;
+            this.end = end;
+            this.context = context;
+        }
+
+        public ComplianceRule getRule() { return rule; }
+        public String getTerm() { return term; }
+        public String getMatchedText() { return matchedText; }
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+        /** Context hits (e.g. automotive keywords) qualify other hits of the rule but are no violation on their own */
+        public boolean isContext() { return context; }
+    }
+
+    /**
+     * Every hit of one scan, in text order, grouped by rule
+     */
+    public static class RuleScan {
+        private final List<ComplianceRule> rules;
+        private final List<RuleHit> hits;
+        private final Map<Long, List<RuleHit>> hitsByRule = new HashMap<>();
+
+        RuleScan(List<ComplianceRule> rules, List<RuleHit> hits) {
+            this.rules = rules;
+            this.hits = hits;
+            for (RuleHit hit : hits) {
+                hitsByRule.computeIfAbsent(hit.getRule().getId(), id -> new ArrayList<>()).add(hit);
+            }
+        }
+
+        /** Active rules of the rule set the text was scanned with */
+        public List<ComplianceRule> getRules() { return rules; }
+        public List<RuleHit> getHits() { return hits; }
+
+        public List<RuleHit> hitsFor(ComplianceRule rule) {
+            return hitsByRule.getOrDefault(rule.getId(), Collections.emptyList());
+        }
+
+        /** Earliest non-context hit of a rule, or null */
+        public RuleHit firstHit(ComplianceRule rule) {
+            for (RuleHit hit : hitsFor(rule)) {
+                if (!hit.isContext()) {
+                    return hit;
+                }
+            }
+            return null;
+        }
+
+        public boolean hasContextHit(ComplianceRule rule) {
+            return hitsFor(rule).stream().anyMatch(RuleHit::isContext);
+        }
+    }
+
+    @PostConstruct
+    public void initMetrics() {
+        if (meterRegistry != null) {
+            scanTimer = Timer.builder("app.compliance.rule-scan").register(meterRegistry);
+        }
+    }
+
+    /**
+     * Scan a text against every active rule in one pass
+     */
+    public RuleScan scan(String text) {
+        CompiledRuleSet ruleSet = currentRuleSet();
+        long startTime = System.nanoTime();
+
+        List<RuleHit> hits = new ArrayList<>();
+        if (text != null && !text.isEmpty()) {
+            ruleSet.automaton.scan(text, hits);
+            for (CompiledPattern pattern : ruleSet.patterns) {
+                scanPattern(pattern, text, hits);
+            }
+            hits.sort(Comparator.comparingInt(RuleHit::getStart).thenComparingInt(RuleHit::getEnd));
+        }
+
+        if (scanTimer != null) {
+            scanTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+        return new RuleScan(ruleSet.rules, hits);
+    }
+
+    /**
+     * Check that a rule pattern compiles on the linear-time engine. Backreferences and lookaround
+     * are not supported there and are rejected like any other syntax error.
+     */
+    public void validatePattern(String rulePattern) {
+        if (rulePattern == null || rulePattern.isEmpty()) {
+            return;
+        }
+        CustomPattern compiledPattern = patternCache.computeIfAbsent(rulePattern, this::compileCustomPattern);
+        if (compiledPattern.error != null) {
+            throw new IllegalArgumentException("Invalid rule pattern '" + rulePattern + "': " + compiledPattern.error);
+        }
+    }
+
+    /**
+     * Whether a rule's pattern matches anywhere in a text (case-insensitive). Invalid patterns and
+     * evaluations that exceed the budget count as no match; the latter are reported per rule.
+     */
+    public boolean matchesRulePattern(ComplianceRule rule, String text) {
+        if (text == null || text.isEmpty()) {
+            return false;
+        }
+        Pattern pattern = compiledPattern(rule.getRulePattern());
+        if (pattern == null) {
+            return false;
+        }
+        patternEvaluations.incrementAndGet();
+        try {
+            return pattern.matcher(budgeted(text)).find();
+        } catch (BudgetExceededException e) {
+            reportBudgetExceeded(rule, pattern, text, e);
+            return false;
+        }
+    }
+
+    /**
+     * Pattern evaluations and the rules skipped for exceeding the budget
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxPatternSteps", maxPatternSteps);
+        stats.put("maxPatternMillis", maxPatternMillis);
+        stats.put("ruleSetRefreshMillis", ruleSetRefreshMillis);
+        stats.put("patternEvaluations", patternEvaluations.get());
+        stats.put("budgetExceeded", budgetExceeded.get());
+        Map<String, Long> byRule = new TreeMap<>();
+        budgetExceededByRule.forEach((ruleName, count) -> byRule.put(ruleName, count.get()));
+        stats.put("budgetExceededByRule", byRule);
+
+        Map<String, String> invalid = new TreeMap<>();
+        patternCache.forEach((pattern, compiledPattern) -> {
+            if (compiledPattern.error != null) {
+                invalid.put(pattern, compiledPattern.error);
+            }
+        });
+        stats.put("invalidPatterns", invalid);
+        return stats;
+    }
+
+    private Pattern compiledPattern(String rulePattern) {
+        if (rulePattern == null || rulePattern.isEmpty()) {
+            return null;
+        }
+        return patternCache.computeIfAbsent(rulePattern, this::compileCustomPattern).pattern;
+    }
+
+    private CustomPattern compileCustomPattern(String rulePattern) {
+        try {
+            return new CustomPattern(Pattern.compile(rulePattern, Pattern.CASE_INSENSITIVE), null);
+        } catch (PatternSyntaxException e) {
+            logger.warn("Invalid regex pattern in compliance rule: {} ({})", rulePattern, e.getDescription());
+            return new CustomPattern(null, e.getDescription());
+        }
+    }
+
+    private BudgetedText budgeted(String text) {
+        return new BudgetedText(text, maxPatternSteps, maxPatternMillis);
+    }
+
+    private void reportBudgetExceeded(ComplianceRule rule, Pattern pattern, String text, BudgetExceededException e) {
+        budgetExceeded.incrementAndGet();
+        budgetExceededByRule.computeIfAbsent(rule.getRuleName(), name -> new AtomicLong()).incrementAndGet();
+        logger.warn("Skipped compliance rule '{}': pattern '{}' used {} on {} chars of text",
+                   rule.getRuleName(), pattern.pattern(), e.getMessage(), text.length());
+    }
+
+    /**
+     * Recheck the rule-set version on the next scan instead of when the refresh interval runs out.
+     * Called after rules are saved; inside a transaction it takes effect on commit, so a scan running
+     * in between cannot pin the old version for another interval.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versionValidUntil = System.nanoTime();
+                }
+            });
+        } else {
+            versionValidUntil = System.nanoTime();
+        }
+    }
+
+    /**
+     * The compiled rule set of the current rule-set version. The version is a fingerprint of the
+     * active rules (count, highest id, latest modification), so edits made through any path are seen;
+     * it is read at most once per app.compliance.rule-set.refresh-millis rather than on every scan.
+     */
+    private CompiledRuleSet currentRuleSet() {
+        CompiledRuleSet current = compiled;
+        if (current != null && System.nanoTime() - versionValidUntil < 0) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = compiled;
+            if (current != null && System.nanoTime() - versionValidUntil < 0) {
+                return current;
+            }
+            String version = ruleSetVersion();
+            if (current == null || !current.version.equals(version)) {
+                current = compile(version, complianceRuleRepository.findByActiveTrue());
+                compiled = current;
+            }
+            versionValidUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ruleSetRefreshMillis);
+            return current;
+        }
+    }
+
+    private String ruleSetVersion() {
+        List<Object[]> rows = complianceRuleRepository.getActiveRuleSetFingerprint();
+        Object[] row = rows.isEmpty() ? new Object[0] : rows.get(0);
+        return Arrays.toString(row);
+    }
+
+    private CompiledRuleSet compile(String version, List<ComplianceRule> rules) {
+        AhoCorasick.Builder automaton = new AhoCorasick.Builder();
+        List<CompiledPattern> patterns = new ArrayList<>();
+
+        for (ComplianceRule rule : rules) {
+            BuiltInRule builtIn = BUILT_IN_RULES.get(rule.getRuleName());
+            if (builtIn != null) {
+                builtIn.phrases.forEach(phrase -> automaton.add(phrase, rule, false));
+                builtIn.contextPhrases.forEach(phrase -> automaton.add(phrase, rule, true));
+                builtIn.patterns.forEach(pattern -> patterns.add(new CompiledPattern(rule, pattern)));
+            } else {
+                Pattern pattern = compiledPattern(rule.getRulePattern());
+                if (pattern != null) {
+                    patterns.add(new CompiledPattern(rule, pattern));
+                }
+            }
+        }
+
+        // Patterns of rules that no longer exist would otherwise stay cached forever
+        patternCache.keySet().retainAll(rules.stream().map(ComplianceRule::getRulePattern).filter(Objects::nonNull).toList());
+
+        CompiledRuleSet ruleSet = new CompiledRuleSet(version, List.copyOf(rules), automaton.build(), patterns);
+        logger.info("Compiled {} active compliance rules ({} phrases, {} patterns)",
+                   rules.size(), ruleSet.automaton.size(), patterns.size());
+        return ruleSet;
+    }
+
+    /**
+     * Add a pattern's hits, or none if it exceeds the budget before finishing the text
+     */
+    private void scanPattern(CompiledPattern pattern, String text, List<RuleHit> hits) {
+        int hitsBefore = hits.size();
+        patternEvaluations.incrementAndGet();
+        try {
+            pattern.scan(budgeted(text), hits);
+        } catch (BudgetExceededException e) {
+            hits.subList(hitsBefore, hits.size()).clear();
+            reportBudgetExceeded(pattern.rule, pattern.pattern, text, e);
+        }
+    }
+
+    private static void builtIn(String ruleName, List<String> phrases, List<String> patterns, List<String> contextPhrases) {
+        BUILT_IN_RULES.put(ruleName, new BuiltInRule(phrases,
+            patterns.stream().map(pattern -> Pattern.compile(pattern, Pattern.CASE_INSENSITIVE)).toList(),
+            contextPhrases));
+    }
+
+    private static class CompiledRuleSet {
+        private final String version;
+        private final List<ComplianceRule> rules;
+        private final AhoCorasick automaton;
+        private final List<CompiledPattern> patterns;
+
+        CompiledRuleSet(String version, List<ComplianceRule> rules, AhoCorasick automaton, List<CompiledPattern> patterns) {
+            this.version = version;
+            this.rules = rules;
+            this.automaton = automaton;
+            this.patterns = patterns;
+        }
+    }
+
+    private static class CompiledPattern {
+        private final ComplianceRule rule;
+        private final Pattern pattern;
+
+        CompiledPattern(ComplianceRule rule, Pattern pattern) {
+            this.rule = rule;
+            this.pattern = pattern;
+        }
+
+        void scan(BudgetedText input, List<RuleHit> hits) {
+            Matcher matcher = pattern.matcher(input);
+            int found = 0;
+            while (found < MAX_HITS_PER_PATTERN && matcher.find()) {
+                hits.add(new RuleHit(rule, pattern.pattern(), matcher.group(), matcher.start(), matcher.end(), false));
+                found++;
+            }
+        }
+    }
+
+    /**
+     * Aho-Corasick automaton over lower-cased phrases. Input characters are lower-cased one at a time,
+     * so offsets refer to the original text.
+     */
+    static class AhoCorasick {
+        private final char[][] keys;       // Sorted transition characters per state
+        private final int[][] targets;     // Target state per transition character
+        private final int[] fail;
+        private final int[] outputLink;    // Nearest state on the fail chain that ends a phrase, or -1
+        private final int[][] outputs;     // Phrase indices ending at each state
+        private final Entry[] entries;
+
+        private static class Entry {
+            private final String phrase;
+            private final ComplianceRule rule;
+            private final boolean context;
+
+            Entry(String phrase, ComplianceRule rule, boolean context) {
+                this.phrase = phrase;
+                this.rule = rule;
+                this.context = context;
+            }
+        }
+
+        static class Builder {
+            private final List<TreeMap<Character, Integer>> transitions = new ArrayList<>();
+            private final List<List<Integer>> outputs = new ArrayList<>();
+            private final List<Entry> entries = new ArrayList<>();
+
+            Builder() {
+                newState();
+            }
+
+            void add(String phrase, ComplianceRule rule, boolean context) {
+                String folded = fold(phrase);
+                if (folded.isEmpty()) {
+                    return;
+                }
+                int state = 0;
+                for (int i = 0; i < folded.length(); i++) {
+                    Integer next = transitions.get(state).get(folded.charAt(i));
+                    if (next == null) {
+                        next = newState();
+                        transitions.get(state).put(folded.charAt(i), next);
+                    }
+                    state = next;
+                }
+                outputs.get(state).add(entries.size());
+                entries.add(new Entry(folded, rule, context));
+            }
+
+            AhoCorasick build() {
+                return new AhoCorasick(this);
+            }
+
+            private int newState() {
+                transitions.add(new TreeMap<>());
+                outputs.add(new ArrayList<>());
+                return transitions.size() - 1;
+            }
+        }
+
+        private AhoCorasick(Builder builder) {
+            int states = builder.transitions.size();
+            keys = new char[states][];
+            targets = new int[states][];
+            fail = new int[states];
+            outputLink = new int[states];
+            outputs = new int[states][];
+            entries = builder.entries.toArray(new Entry[0]);
+
+            for (int state = 0; state < states; state++) {
+                TreeMap<Character, Integer> transitions = builder.transitions.get(state);
+                keys[state] = new char[transitions.size()];
+                targets[state] = new int[transitions.size()];
+                int i = 0;
+                for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                    keys[state][i] = transition.getKey();
+                    targets[state][i] = transition.getValue();
+                    i++;
+                }
+                outputs[state] = builder.outputs.get(state).stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            // Breadth-first, so every fail target is finished before the states that point to it
+            Queue<Integer> queue = new ArrayDeque<>();
+            outputLink[0] = -1;
+            for (int child : targets[0]) {
+                fail[child] = 0;
+                outputLink[child] = -1;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (int i = 0; i < keys[state].length; i++) {
+                    char c = keys[state][i];
+                    int child = targets[state][i];
+                    int fallback = fail[state];
+                    while (fallback != 0 && next(fallback, c) < 0) {
+                        fallback = fail[fallback];
+                    }
+                    int failTarget = next(fallback, c);
+                    fail[child] = failTarget >= 0 && failTarget != child ? failTarget : 0;
+                    outputLink[child] = outputs[fail[child]].length > 0 ? fail[child] : outputLink[fail[child]];
+                    queue.add(child);
+                }
+            }
+        }
+
+        int size() {
+            return entries.length;
+        }
+
+        void scan(String text, List<RuleHit> hits) {
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = Character.toLowerCase(text.charAt(i));
+                int target;
+                while ((target = next(state, c)) < 0 && state != 0) {
+                    state = fail[state];
+                }
+                state = Math.max(target, 0);
+
+                for (int out = state; out >= 0; out = outputLink[out]) {
+                    for (int index : outputs[out]) {
+                        Entry entry = entries[index];
+                        int start = i + 1 - entry.phrase.length();
+                        hits.add(new RuleHit(entry.rule, entry.phrase, text.substring(start, i + 1), start, i + 1, entry.context));
+                    }
+                }
+            }
+        }
+
+        private int next(int state, char c) {
+            int index = Arrays.binarySearch(keys[state], c);
+            return index >= 0 ? targets[state][index] : -1;
+        }
+
+        private static String fold(String phrase) {
+            char[] chars = phrase.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = Character.toLowerCase(chars[i]);
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -25,6 +25,9 @@ public class ComplianceRuleService {
     @Autowired
     private ComplianceRuleRepository complianceRuleRepository;
 
+    @Autowired
+    private ComplianceRuleEngine complianceRuleEngine;
+
     /**
      * Initialize compliance rules based on Best Options guidelines
      */
@@ -168,6 +171,7 @@ public class ComplianceRuleService {
 
         // Save all rules
         complianceRuleRepository.saveAll(rules);
+        complianceRuleEngine.invalidate();
     }
 
     /**
@@ -233,15 +237,19 @@ public class ComplianceRuleService {
     }
 
     /**
-     * Create a new custom compliance rule
+     * Create a new custom compliance rule. The pattern must compile on the rule engine's
+     * linear-time regex syntax, otherwise IllegalArgumentException is thrown.
      */
     public ComplianceRule createRule(String ruleName, String description, 
                                    ComplianceRule.RuleCategory category, 
                                    ComplianceRule.RuleSeverity severity,
                                    String rulePattern) {
+        complianceRuleEngine.validatePattern(rulePattern);
         ComplianceRule rule = new ComplianceRule(ruleName, description, category, severity);
         rule.setRulePattern(rulePattern);
-        return complianceRuleRepository.save(rule);
+        ComplianceRule saved = complianceRuleRepository.save(rule);
+        complianceRuleEngine.invalidate();
+        return saved;
     }
 
     /**
@@ -251,11 +259,15 @@ public class ComplianceRuleService {
         ComplianceRule rule = complianceRuleRepository.findById(ruleId)
             .orElseThrow(() -> new RuntimeException("Rule not found: " + ruleId));
         
+        if (rulePattern != null) complianceRuleEngine.validatePattern(rulePattern);
+        
         if (description != null) rule.setDescription(description);
         if (rulePattern != null) rule.setRulePattern(rulePattern);
         if (active != null) rule.setActive(active);
         
-        return complianceRuleRepository.save(rule);
+        ComplianceRule saved = complianceRuleRepository.save(rule);
+        complianceRuleEngine.invalidate();
+        return saved;
     }
 
     /**
@@ -266,6 +278,7 @@ public class ComplianceRuleService {
             .orElseThrow(() -> new RuntimeException("Rule not found: " + ruleId));
         rule.setActive(false);
         complianceRuleRepository.save(rule);
+        complianceRuleEngine.invalidate();
     }
 
     /**
@@ -0,0 +1,440 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.AdAnalysis;
+import com.arbmonitor.api.model.AdAnalysis.TriageOutcome;
+import com.arbmonitor.api.model.ComplianceBatch;
+import com.arbmonitor.api.model.ComplianceRule;
+import com.arbmonitor.api.model.ComplianceTriageVerdict;
+import com.arbmonitor.api.model.DomainAnalysisJob;
+import com.arbmonitor.api.repository.ComplianceBatchRepository;
+import com.arbmonitor.api.repository.ComplianceTriageVerdictRepository;
+import com.arbmonitor.api.repository.DomainAnalysisJobRepository;
+import com.arbmonitor.api.repository.OpenAIUsageRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic triage in front of the compliance model. Rule-engine hits and the verdicts the model
+ * gave earlier for similar copy are combined into a confidence score: ads that are clearly
+ * non-compliant, or match a creative the model has repeatedly found compliant, are resolved without a
+ * model call, and everything else is escalated.
+ */
+@Service
+public class ComplianceTriageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComplianceTriageService.class);
+
+    // Chance that a hit of a rule of this severity means the ad is non-compliant; hits of different
+    // rules count as independent evidence
+    private static final Map<ComplianceRule.RuleSeverity, Double> SEVERITY_WEIGHTS = Map.of(
+        ComplianceRule.RuleSeverity.CRITICAL, 0.7,
+        ComplianceRule.RuleSeverity.MAJOR, 0.4,
+        ComplianceRule.RuleSeverity.MINOR, 0.15);
+
+    // Bump whenever the normalization below changes so verdicts recorded under the old keys are not reused
+    private static final String TRIAGE_KEY_VERSION = "triage-v1";
+
+    private static final String NOT_ASSESSED = "Not assessed (resolved by deterministic triage)";
+
+    // Escalated calls the saved cost and latency are estimated from
+    private static final String ESCALATION_REQUEST_TYPE = "compliance_analysis";
+    private static final int ESCALATION_COST_WINDOW_DAYS = 7;
+    private static final long ESCALATION_COST_REFRESH_MS = TimeUnit.MINUTES.toMillis(5);
+
+    @Autowired
+    private ComplianceRuleEngine complianceRuleEngine;
+
+    @Autowired
+    private ComplianceTriageVerdictRepository verdictRepository;
+
+    @Autowired
+    private ComplianceVerdictCacheService verdictCacheService;
+
+    @Autowired
+    private OpenAIAnalysisService openAIAnalysisService;
+
+    @Autowired
+    private OpenAIUsageRepository usageRepository;
+
+    @Autowired
+    private DomainAnalysisJobRepository jobRepository;
+
+    @Autowired
+    private ComplianceBatchRepository batchRepository;
+
+    @Value("${app.compliance.triage.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.compliance.triage.auto-resolve-confidence:0.9}")
+    private double autoResolveConfidence;
+
+    @Value("${app.compliance.triage.ttl-days:30}")
+    private int ttlDays;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Counters since application start
+    private final AtomicLong autoCompliant = new AtomicLong();
+    private final AtomicLong autoNonCompliant = new AtomicLong();
+    private final AtomicLong escalated = new AtomicLong();
+
+    private volatile EscalationCost escalationCost;
+    private volatile long escalationCostLoadedAt;
+
+    /**
+     * Decide whether an analysis needs the model. Any failure inside triage escalates.
+     */
+    public TriageDecision triage(AdAnalysis analysis, String adText, String racValue, boolean racEnabled) {
+        String similarityKey = similarityKey(analysis.getLandingPageUrl(), adText, racValue, racEnabled);
+
+        TriageDecision decision;
+        if (!enabled) {
+            decision = new TriageDecision(TriageOutcome.ESCALATED, 0.0, similarityKey, null);
+        } else {
+            try {
+                decision = decide(analysis, similarityKey, racEnabled);
+            } catch (Exception e) {
+                logger.warn("Compliance triage failed for ad {}, escalating: {}", analysis.getMetaAdId(), e.getMessage());
+                decision = new TriageDecision(TriageOutcome.ESCALATED, 0.0, similarityKey, null);
+            }
+        }
+
+        switch (decision.getOutcome()) {
+            case AUTO_COMPLIANT -> autoCompliant.incrementAndGet();
+            case AUTO_NON_COMPLIANT -> autoNonCompliant.incrementAndGet();
+            case ESCALATED -> escalated.incrementAndGet();
+        }
+        logger.debug("Triage of ad {}: {} (confidence {})", analysis.getMetaAdId(),
+                    decision.getOutcome(), String.format("%.3f", decision.getConfidence()));
+        return decision;
+    }
+
+    /**
+     * Record a verdict of the model for an escalated ad. Cached verdicts and analysis errors are not
+     * independent answers and are ignored.
+     */
+    public void recordVerdict(String similarityKey, OpenAIAnalysisService.ComplianceAnalysisResult result) {
+        if (!enabled || similarityKey == null || result == null || !result.isFreshVerdict()) {
+            return;
+        }
+
+        try {
+            String response = objectMapper.writeValueAsString(result);
+            if (recordCount(similarityKey, result.isOverallCompliant(), response) == 0) {
+                try {
+                    verdictRepository.save(new ComplianceTriageVerdict(similarityKey));
+                } catch (DataIntegrityViolationException e) {
+                    logger.debug("Triage verdict created concurrently: {}", similarityKey);
+                }
+                recordCount(similarityKey, result.isOverallCompliant(), response);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not record triage verdict: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Average cost and latency of an escalated compliance call over the last days, refreshed every few minutes
+     */
+    public EscalationCost getEscalationCost() {
+        EscalationCost current = escalationCost;
+        if (current != null && System.currentTimeMillis() - escalationCostLoadedAt < ESCALATION_COST_REFRESH_MS) {
+            return current;
+        }
+
+        try {
+            List<Object[]> rows = usageRepository.getAverageCostAndDuration(ESCALATION_REQUEST_TYPE,
+                LocalDateTime.now().minusDays(ESCALATION_COST_WINDOW_DAYS));
+            Object[] row = rows.isEmpty() ? new Object[2] : rows.get(0);
+            current = new EscalationCost(
+                row[0] instanceof Number cost ? BigDecimal.valueOf(cost.doubleValue()) : BigDecimal.ZERO,
+                row[1] instanceof Number duration ? duration.longValue() : 0L);
+        } catch (Exception e) {
+            logger.warn("Could not load escalation cost: {}", e.getMessage());
+            current = current != null ? current : new EscalationCost(BigDecimal.ZERO, 0L);
+        }
+        escalationCost = current;
+        escalationCostLoadedAt = System.currentTimeMillis();
+        return current;
+    }
+
+    /**
+     * Outcome counters, escalation rate and estimated savings since startup
+     */
+    public Map<String, Object> getStats() {
+        long resolved = autoCompliant.get() + autoNonCompliant.get();
+        EscalationCost cost = getEscalationCost();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("autoResolveConfidence", autoResolveConfidence);
+        stats.put("autoCompliant", autoCompliant.get());
+        stats.put("autoNonCompliant", autoNonCompliant.get());
+        stats.put("escalated", escalated.get());
+        stats.put("escalationRate", rate(escalated.get(), resolved + escalated.get()));
+        stats.put("averageEscalationCost", cost.getAverageCost());
+        stats.put("averageEscalationMs", cost.getAverageMs());
+        stats.put("estimatedSavedCost", cost.savedCost(resolved));
+        stats.put("estimatedSavedMs", cost.savedMs(resolved));
+        stats.put("recordedCreatives", verdictRepository.count());
+        return stats;
+    }
+
+    /**
+     * Escalation rate and savings of the recent analysis runs and batches of a domain
+     */
+    public Map<String, Object> getDomainReport(String domainName) {
+        List<Map<String, Object>> runs = new ArrayList<>();
+        for (DomainAnalysisJob job : jobRepository.findTop10ByDomainNameOrderByStartedAtDesc(domainName)) {
+            long resolved = job.getTriageAutoResolved() != null ? job.getTriageAutoResolved() : 0L;
+            long sent = job.getTriageEscalated() != null ? job.getTriageEscalated() : 0L;
+
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("jobId", job.getId());
+            run.put("status", job.getStatus());
+            run.put("startedAt", job.getStartedAt());
+            run.put("processedAds", job.getProcessedAds());
+            run.put("autoResolved", resolved);
+            run.put("escalated", sent);
+            run.put("escalationRate", rate(sent, resolved + sent));
+            run.put("savedCost", job.getTriageSavedCost());
+            run.put("savedMs", job.getTriageSavedMs());
+            runs.add(run);
+        }
+
+        List<Map<String, Object>> batches = new ArrayList<>();
+        for (ComplianceBatch batch : batchRepository.findByDomainNameOrderByCreatedAtDesc(domainName)) {
+            long resolved = batch.getTriagedCount() != null ? batch.getTriagedCount() : 0L;
+            long sent = batch.getRequestCount() + batch.getCachedCount();
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("batchId", batch.getId());
+            entry.put("status", batch.getStatus());
+            entry.put("createdAt", batch.getCreatedAt());
+            entry.put("autoResolved", resolved);
+            entry.put("escalated", sent);
+            entry.put("escalationRate", rate(sent, resolved + sent));
+            batches.add(entry);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("domainName", domainName);
+        report.put("runs", runs);
+        report.put("batches", batches);
+        return report;
+    }
+
+    /**
+     * Drop verdicts of creatives that have not been seen for the TTL
+     */
+    @Scheduled(fixedDelayString = "${app.compliance.triage.eviction-interval-ms:3600000}")
+    public void evictStaleVerdicts() {
+        try {
+            int deleted = verdictRepository.deleteNotUpdatedSince(LocalDateTime.now().minusDays(ttlDays));
+            if (deleted > 0) {
+                logger.info("Removed {} stale triage verdicts", deleted);
+            }
+        } catch (Exception e) {
+            logger.error("Error evicting triage verdicts: {}", e.getMessage());
+        }
+    }
+
+    private TriageDecision decide(AdAnalysis analysis, String similarityKey, boolean racEnabled) {
+        String headline = analysis.getHeadline() != null ? analysis.getHeadline() : "";
+        String primaryText = analysis.getPrimaryText() != null ? analysis.getPrimaryText() : "";
+        ComplianceRuleEngine.RuleScan scan = complianceRuleEngine.scan(headline + " " + primaryText);
+
+        List<String> findings = new ArrayList<>();
+        double clean = 1.0;
+        for (ComplianceRule rule : scan.getRules()) {
+            ComplianceRuleEngine.RuleHit hit = scan.firstHit(rule);
+            if (hit != null) {
+                clean *= 1.0 - SEVERITY_WEIGHTS.getOrDefault(rule.getSeverity(), 0.0);
+                findings.add(rule.getRuleName() + " ('" + hit.getMatchedText() + "')");
+            }
+        }
+        double ruleConfidence = 1.0 - clean;
+
+        // Share of the majority among earlier verdicts, counting one undecided pseudo-verdict so a
+        // single answer is never conclusive on its own
+        Optional<ComplianceTriageVerdict> similar = verdictRepository.findBySimilarityKey(similarityKey)
+            .filter(verdict -> verdict.getUpdatedAt().isAfter(LocalDateTime.now().minusDays(ttlDays)));
+        double similarCompliant = 0.0;
+        double similarNonCompliant = 0.0;
+        if (similar.isPresent()) {
+            int compliant = similar.get().getCompliantCount();
+            int nonCompliant = similar.get().getNonCompliantCount();
+            double total = compliant + nonCompliant + 1.0;
+            if (compliant > nonCompliant) {
+                similarCompliant = (compliant + 0.5) / total;
+            } else if (nonCompliant > compliant) {
+                similarNonCompliant = (nonCompliant + 0.5) / total;
+            }
+        }
+
+        double nonCompliantConfidence = 1.0 - (1.0 - ruleConfidence) * (1.0 - similarNonCompliant);
+        double compliantConfidence = similarCompliant * (1.0 - ruleConfidence);
+
+        if (nonCompliantConfidence >= autoResolveConfidence) {
+            OpenAIAnalysisService.ComplianceAnalysisResult result = similarNonCompliant > 0
+                ? readVerdict(similar.get().getNonCompliantResponse(), racEnabled) : null;
+            if (result == null) {
+                result = ruleVerdict(findings, racEnabled);
+            }
+            return new TriageDecision(TriageOutcome.AUTO_NON_COMPLIANT, nonCompliantConfidence, similarityKey, result);
+        }
+
+        if (compliantConfidence >= autoResolveConfidence) {
+            OpenAIAnalysisService.ComplianceAnalysisResult result = readVerdict(similar.get().getCompliantResponse(), racEnabled);
+            if (result != null) {
+                return new TriageDecision(TriageOutcome.AUTO_COMPLIANT, compliantConfidence, similarityKey, result);
+            }
+        }
+
+        return new TriageDecision(TriageOutcome.ESCALATED, Math.max(nonCompliantConfidence, compliantConfidence),
+                                  similarityKey, null);
+    }
+
+    /**
+     * Verdict for an ad whose rule hits alone are conclusive; only the creative was assessed
+     */
+    private OpenAIAnalysisService.ComplianceAnalysisResult ruleVerdict(List<String> findings, boolean racEnabled) {
+        return new OpenAIAnalysisService.ComplianceAnalysisResult(
+            false, "Rule violations: " + String.join("; ", findings),
+            true, NOT_ASSESSED,
+            true, racEnabled ? NOT_ASSESSED : "RAC analysis turned off",
+            false);
+    }
+
+    private OpenAIAnalysisService.ComplianceAnalysisResult readVerdict(String response, boolean racEnabled) {
+        if (response == null) {
+            return null;
+        }
+        try {
+            JsonNode json = objectMapper.readTree(response);
+            return new OpenAIAnalysisService.ComplianceAnalysisResult(
+                json.path("adCreativeCompliant").asBoolean(true),
+                json.path("adCreativeReason").asText("Compliant"),
+                json.path("landingPageRelevant").asBoolean(true),
+                json.path("landingPageReason").asText("Relevant"),
+                racEnabled ? json.path("racRelevant").asBoolean(true) : true,
+                racEnabled ? json.path("racReason").asText("Matches ad content") : "RAC analysis turned off",
+                json.path("overallCompliant").asBoolean(true));
+        } catch (Exception e) {
+            logger.warn("Discarding unreadable triage verdict: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private int recordCount(String similarityKey, boolean compliant, String response) {
+        LocalDateTime now = LocalDateTime.now();
+        return compliant
+            ? verdictRepository.recordCompliant(similarityKey, response, now)
+            : verdictRepository.recordNonCompliant(similarityKey, response, now);
+    }
+
+    /**
+     * Key of the creative an ad shares with similar ads: its copy without case, punctuation and
+     * whitespace differences, its landing page without query string, and its RAC. Digits and price
+     * symbols are kept, since they can decide a verdict.
+     */
+    private String similarityKey(String landingPageUrl, String adText, String racValue, boolean racEnabled) {
+        String creative = normalizeText(adText) + "\n" + normalizeUrl(landingPageUrl) + "\n" +
+                          (racEnabled ? normalizeText(racValue) : "-");
+        return verdictCacheService.buildKey(openAIAnalysisService.getComplianceModel(),
+                                            PromptTemplateRegistry.COMPLIANCE.getVersionedId() + "/" + TRIAGE_KEY_VERSION,
+                                            creative);
+    }
+
+    private static String normalizeText(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}$%£€]+", " ").trim();
+    }
+
+    private static String normalizeUrl(String url) {
+        if (url == null || url.isBlank()) {
+            return "";
+        }
+        try {
+            URI uri = URI.create(url.trim());
+            String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : "";
+            if (host.startsWith("www.")) {
+                host = host.substring(4);
+            }
+            String path = uri.getPath() != null ? uri.getPath().replaceAll("/+$", "") : "";
+            return host + path;
+        } catch (IllegalArgumentException e) {
+            String withoutQuery = url.trim().split("[?#]", 2)[0];
+            return withoutQuery.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static double rate(long part, long total) {
+        return total > 0 ? Math.round((double) part / total * 10000.0) / 100.0 : 0.0;
+    }
+
+    /**
+     * Outcome of triaging one ad; the result is set unless the ad is escalated
+     */
+    public static class TriageDecision {
+        private final TriageOutcome outcome;
+        private final double confidence;
+        private final String similarityKey;
+        private final OpenAIAnalysisService.ComplianceAnalysisResult result;
+
+        public TriageDecision(TriageOutcome outcome, double confidence, String similarityKey,
+                              OpenAIAnalysisService.ComplianceAnalysisResult result) {
+            this.outcome = outcome;
+            this.confidence = confidence;
+            this.similarityKey = similarityKey;
+            this.result = result;
+        }
+
+        public TriageOutcome getOutcome() { return outcome; }
+        /** Confidence of the auto-resolved verdict, or of the stronger verdict an escalated ad fell short with */
+        public double getConfidence() { return confidence; }
+        public String getSimilarityKey() { return similarityKey; }
+        public OpenAIAnalysisService.ComplianceAnalysisResult getResult() { return result; }
+        public boolean isResolved() { return outcome != TriageOutcome.ESCALATED; }
+    }
+
+    /**
+     * Average cost and latency of one escalated compliance call
+     */
+    public static class EscalationCost {
+        private final BigDecimal averageCost;
+        private final long averageMs;
+
+        public EscalationCost(BigDecimal averageCost, long averageMs) {
+            this.averageCost = averageCost.setScale(6, RoundingMode.HALF_UP);
+            this.averageMs = averageMs;
+        }
+
+        public BigDecimal getAverageCost() { return averageCost; }
+        public long getAverageMs() { return averageMs; }
+        public BigDecimal savedCost(long resolvedAds) { return averageCost.multiply(BigDecimal.valueOf(resolvedAds)); }
+        public long savedMs(long resolvedAds) { return averageMs * resolvedAds; }
+    }
+}
@@ -0,0 +1,180 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.ComplianceVerdictCacheEntry;
+import com.arbmonitor.api.repository.ComplianceVerdictCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Persistent cache of OpenAI compliance verdicts so identical creatives are only sent to the API once
+ */
+@Service
+public class ComplianceVerdictCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComplianceVerdictCacheService.class);
+
+    @Autowired
+    private ComplianceVerdictCacheRepository cacheRepository;
+
+    @Value("${app.openai.verdict-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.openai.verdict-cache.ttl-days:30}")
+    private int ttlDays;
+
+    @Value("${app.openai.verdict-cache.max-entries:50000}")
+    private int maxEntries;
+
+    // Counters since application start
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicReference<BigDecimal> savedCost = new AtomicReference<>(BigDecimal.ZERO);
+
+    /**
+     * Build the cache key from the model, the prompt version and the whitespace-normalized prompt
+     */
+    public String buildKey(String modelName, String promptVersion, String prompt) {
+        String normalized = prompt == null ? "" : prompt.trim().replaceAll("\\s+", " ");
+        return sha256(modelName + "\n" + promptVersion + "\n" + normalized);
+    }
+
+    /**
+     * Cached response text for a key, if present and not expired
+     */
+    public Optional<String> lookup(String cacheKey) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        try {
+            Optional<ComplianceVerdictCacheEntry> entry = cacheRepository.findByCacheKey(cacheKey);
+            if (entry.isPresent() && !entry.get().isExpired()) {
+                cacheRepository.recordHit(entry.get().getId(), LocalDateTime.now());
+                hits.incrementAndGet();
+                BigDecimal cost = entry.get().getEstimatedCost();
+                if (cost != null) {
+                    savedCost.accumulateAndGet(cost, BigDecimal::add);
+                }
+                logger.debug("Compliance verdict cache hit: {}", cacheKey);
+                return Optional.of(entry.get().getResponseText());
+            }
+
+            if (entry.isPresent()) {
+                cacheRepository.deleteByCacheKey(cacheKey);
+            }
+        } catch (Exception e) {
+            logger.warn("Compliance verdict cache lookup failed: {}", e.getMessage());
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Store a verdict; a concurrent store of the same key is ignored
+     */
+    public void store(String cacheKey, String modelName, String promptVersion, String responseText, BigDecimal cost) {
+        if (!enabled || responseText == null) {
+            return;
+        }
+
+        try {
+            cacheRepository.save(new ComplianceVerdictCacheEntry(cacheKey, modelName, promptVersion, responseText,
+                                                                  cost, LocalDateTime.now().plusDays(ttlDays)));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Compliance verdict already cached: {}", cacheKey);
+        } catch (Exception e) {
+            logger.warn("Could not cache compliance verdict: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop an entry, e.g. when its stored response can no longer be parsed
+     */
+    public void evict(String cacheKey) {
+        try {
+            cacheRepository.deleteByCacheKey(cacheKey);
+        } catch (Exception e) {
+            logger.warn("Could not evict compliance verdict {}: {}", cacheKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove expired entries and trim the cache to its maximum size, least recently used first
+     */
+    @Scheduled(fixedDelayString = "${app.openai.verdict-cache.eviction-interval-ms:3600000}")
+    public void evictEntries() {
+        try {
+            int expired = cacheRepository.deleteExpired(LocalDateTime.now());
+
+            long overflow = cacheRepository.count() - maxEntries;
+            int trimmed = 0;
+            while (overflow > 0) {
+                List<Long> ids = cacheRepository.findLeastRecentlyUsedIds(
+                    PageRequest.of(0, (int) Math.min(overflow, 1000)));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                cacheRepository.deleteAllByIdInBatch(ids);
+                trimmed += ids.size();
+                overflow -= ids.size();
+            }
+
+            if (expired > 0 || trimmed > 0) {
+                logger.info("Compliance verdict cache eviction: {} expired, {} over size limit", expired, trimmed);
+            }
+        } catch (Exception e) {
+            logger.error("Error evicting compliance verdict cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Hit/miss/saved-cost counters, both since startup and over the lifetime of the stored entries
+     */
+    public Map<String, Object> getCacheStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups > 0 ? Math.round((double) hitCount / lookups * 10000.0) / 100.0 : 0.0);
+        stats.put("savedCost", savedCost.get());
+        stats.put("entries", cacheRepository.count());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlDays", ttlDays);
+        stats.put("lifetimeHits", cacheRepository.getTotalHits());
+        stats.put("lifetimeSavedCost", cacheRepository.getTotalSavedCost());
+        return stats;
+    }
+
+    private String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
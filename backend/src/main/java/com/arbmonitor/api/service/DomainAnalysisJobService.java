@@ -0,0 +1,341 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.AnalysisCheckpoint;
+import com.arbmonitor.api.model.Domain;
+import com.arbmonitor.api.model.DomainAnalysisJob;
+import com.arbmonitor.api.model.DomainAnalysisJob.JobStatus;
+import com.arbmonitor.api.model.ScrapedAd;
+import com.arbmonitor.api.model.WorkJob;
+import com.arbmonitor.api.repository.AdAnalysisRepository;
+import com.arbmonitor.api.repository.AnalysisCheckpointRepository;
+import com.arbmonitor.api.repository.DomainAnalysisJobRepository;
+import com.arbmonitor.api.repository.DomainRepository;
+import com.arbmonitor.api.repository.ScrapedAdRepository;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streams all ads of a domain through compliance analysis page by page, checkpointing every
+ * finished ad so an interrupted or paused run can continue where it stopped.
+ */
+@Service
+public class DomainAnalysisJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DomainAnalysisJobService.class);
+
+    private static final List<JobStatus> RESUMABLE_STATUSES = List.of(JobStatus.RUNNING, JobStatus.PAUSED);
+
+    @Autowired
+    private DomainAnalysisJobRepository jobRepository;
+
+    @Autowired
+    private AnalysisCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ScrapedAdRepository scrapedAdRepository;
+
+    @Autowired
+    private DomainRepository domainRepository;
+
+    @Autowired
+    private AdAnalysisRepository adAnalysisRepository;
+
+    @Autowired
+    private ParallelAdAnalysisService parallelAdAnalysisService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JobQueueService jobQueueService;
+
+    @Autowired
+    private ComplianceTriageService complianceTriageService;
+
+    @Autowired
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    @Value("${app.analysis.page-size:50}")
+    private int pageSize;
+
+    @Value("${app.analysis.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+
+    // Jobs currently executing in this JVM, so the same job is never run twice concurrently
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create a fresh job for a domain, cancelling any unfinished one
+     */
+    public DomainAnalysisJob startJob(String domainName) {
+        return startJob(domainName, false);
+    }
+
+    /**
+     * Create a fresh job, optionally restricted to ads that have no analysis yet
+     */
+    public DomainAnalysisJob startJob(String domainName, boolean onlyUnanalyzed) {
+        cancelJobs(domainName);
+        DomainAnalysisJob job = new DomainAnalysisJob(domainName);
+        job.setOnlyUnanalyzed(onlyUnanalyzed);
+        job.setTotalAds(onlyUnanalyzed
+            ? scrapedAdRepository.countUnanalyzedByDomainName(domainName)
+            : scrapedAdRepository.countByDomainName(domainName));
+        return jobRepository.save(job);
+    }
+
+    /**
+     * Latest running or paused job of a domain, if any
+     */
+    public Optional<DomainAnalysisJob> findResumableJob(String domainName) {
+        return jobRepository.findFirstByDomainNameAndStatusInOrderByStartedAtDesc(domainName, RESUMABLE_STATUSES);
+    }
+
+    /**
+     * Latest job of a domain started at or after the given time, in any state
+     */
+    public Optional<DomainAnalysisJob> findJobStartedSince(String domainName, LocalDateTime since) {
+        return jobRepository.findFirstByDomainNameAndStartedAtGreaterThanEqualOrderByStartedAtDesc(domainName, since);
+    }
+
+    public boolean hasPausedJob(String domainName) {
+        return findResumableJob(domainName)
+            .map(job -> job.getStatus() == JobStatus.PAUSED)
+            .orElse(false);
+    }
+
+    /**
+     * Ask the running job of a domain to stop after its current page
+     */
+    public boolean pauseJob(String domainName) {
+        boolean paused = false;
+        for (DomainAnalysisJob job : jobRepository.findByDomainNameAndStatusIn(domainName, List.of(JobStatus.RUNNING))) {
+            paused |= jobRepository.transitionStatus(job.getId(), List.of(JobStatus.RUNNING),
+                                                     JobStatus.PAUSED, LocalDateTime.now()) > 0;
+        }
+        if (paused) {
+            logger.info("Paused compliance analysis job for domain: {}", domainName);
+        }
+        return paused;
+    }
+
+    /**
+     * Cancel every unfinished job of a domain; cancelled jobs are never resumed
+     */
+    public void cancelJobs(String domainName) {
+        for (DomainAnalysisJob job : jobRepository.findByDomainNameAndStatusIn(domainName, RESUMABLE_STATUSES)) {
+            if (jobRepository.finishJob(job.getId(), RESUMABLE_STATUSES, JobStatus.CANCELLED,
+                                        null, LocalDateTime.now()) > 0) {
+                checkpointRepository.deleteByJobId(job.getId());
+                logger.info("Cancelled compliance analysis job {} for domain: {}", job.getId(), domainName);
+            }
+        }
+    }
+
+    /**
+     * Run (or continue) a job until every ad is visited or the job is paused/cancelled.
+     * Must be called outside of a transaction so each page and checkpoint commits on its own.
+     */
+    public DomainAnalysisJob runJob(DomainAnalysisJob job, Domain domain) {
+        Long jobId = job.getId();
+        if (!runningJobs.add(jobId)) {
+            logger.warn("Compliance analysis job {} for domain {} is already running", jobId, job.getDomainName());
+            return job;
+        }
+
+        try {
+            if (jobRepository.transitionStatus(jobId, RESUMABLE_STATUSES, JobStatus.RUNNING, LocalDateTime.now()) == 0) {
+                logger.info("Compliance analysis job {} is no longer resumable", jobId);
+                return reload(job);
+            }
+
+            TransactionTemplate pageTransaction = new TransactionTemplate(transactionManager);
+            pageTransaction.setReadOnly(true);
+
+            long processed = job.getProcessedAds();
+            long success = job.getSuccessCount();
+            long errors = job.getErrorCount();
+            long cursor = job.getLastAdId();
+
+            logger.info("Running compliance analysis job {} for domain: {} ({} of {} ads already processed)",
+                       jobId, domain.getDomainName(), processed, job.getTotalAds());
+
+            while (true) {
+                DomainAnalysisJob current = reload(job);
+                if (current.getStatus() != JobStatus.RUNNING) {
+                    logger.info("Compliance analysis job {} for domain {} stopped with status {}",
+                               jobId, domain.getDomainName(), current.getStatus());
+                    return current;
+                }
+
+                List<ScrapedAd> page = loadPage(pageTransaction, domain.getDomainName(), cursor,
+                                                Boolean.TRUE.equals(job.getOnlyUnanalyzed()));
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                Map<String, AnalysisCheckpoint> done = checkpointRepository
+                    .findByJobIdAndMetaAdIdIn(jobId, page.stream().map(ScrapedAd::getMetaAdId).toList())
+                    .stream()
+                    .collect(Collectors.toMap(AnalysisCheckpoint::getMetaAdId, Function.identity(), (a, b) -> a));
+
+                List<ScrapedAd> pending = page.stream()
+                    .filter(ad -> !done.containsKey(ad.getMetaAdId()))
+                    .toList();
+
+                if (!pending.isEmpty()) {
+                    ParallelAdAnalysisService.AnalysisBatchResult result = parallelAdAnalysisService.analyzeAds(
+                        domain, pending, (ad, ok) -> checkpoint(jobId, ad.getMetaAdId(), ok));
+                    success += result.getSuccessCount();
+                    errors += result.getErrorCount();
+                    recordTriage(jobId, result);
+                }
+
+                // Ads checkpointed before an interruption still count towards this page
+                for (AnalysisCheckpoint checkpoint : done.values()) {
+                    if (Boolean.TRUE.equals(checkpoint.getSuccess())) {
+                        success++;
+                    } else {
+                        errors++;
+                    }
+                }
+
+                processed += page.size();
+                cursor = page.get(page.size() - 1).getId();
+                jobRepository.updateProgress(jobId, processed, success, errors, cursor, LocalDateTime.now());
+
+                logger.info("Compliance analysis job {} for domain {}: {}/{} ads processed",
+                           jobId, domain.getDomainName(), processed, job.getTotalAds());
+            }
+
+            if (jobRepository.finishJob(jobId, List.of(JobStatus.RUNNING), JobStatus.COMPLETED,
+                                        null, LocalDateTime.now()) > 0) {
+                checkpointRepository.deleteByJobId(jobId);
+            }
+            return reload(job);
+
+        } catch (Exception e) {
+            logger.error("Compliance analysis job {} for domain {} failed: {}", jobId, domain.getDomainName(), e.getMessage(), e);
+            jobRepository.finishJob(jobId, RESUMABLE_STATUSES, JobStatus.FAILED, e.getMessage(), LocalDateTime.now());
+            return reload(job);
+        } finally {
+            runningJobs.remove(jobId);
+        }
+    }
+
+    /**
+     * Continue jobs that were still running when the application stopped, unless a queued analysis
+     * job owns them; the job queue resumes those once their lease expires
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        if (!resumeOnStartup) {
+            return;
+        }
+
+        for (DomainAnalysisJob job : jobRepository.findByStatus(JobStatus.RUNNING)) {
+            if (jobQueueService.hasActiveJob(WorkJob.JobType.ANALYSIS, job.getDomainName())) {
+                continue;
+            }
+            Domain domain = domainRepository.findByDomainName(job.getDomainName());
+            if (domain == null) {
+                jobRepository.finishJob(job.getId(), RESUMABLE_STATUSES, JobStatus.CANCELLED,
+                                        "Domain no longer exists", LocalDateTime.now());
+                continue;
+            }
+
+            logger.info("Resuming interrupted compliance analysis job {} for domain: {}", job.getId(), job.getDomainName());
+            // The job blocks until its ads are analyzed, so it runs on the task executor, not the common pool
+            CompletableFuture.runAsync(() -> {
+                DomainAnalysisJob finished = runJob(job, domain);
+                if (finished.getStatus() == JobStatus.COMPLETED) {
+                    markDomainCompleted(job.getDomainName(), finished);
+                }
+            }, taskExecutor);
+        }
+    }
+
+    private void markDomainCompleted(String domainName, DomainAnalysisJob job) {
+        try {
+            Domain domain = domainRepository.findByDomainName(domainName);
+            if (domain != null) {
+                Double avgScore = adAnalysisRepository.getAverageComplianceScoreByDomain(domain);
+                if (avgScore != null) {
+                    domain.setComplianceScore(avgScore);
+                }
+                domain.setProcessingStatus(Domain.ProcessingStatus.COMPLETED);
+                domain.setProcessingMessage(String.format("Compliance analysis completed for %d ads", job.getProcessedAds()));
+                domainRepository.save(domain);
+            }
+        } catch (Exception e) {
+            logger.error("Error updating domain {} after resumed analysis: {}", domainName, e.getMessage());
+        }
+    }
+
+    private List<ScrapedAd> loadPage(TransactionTemplate pageTransaction, String domainName, long cursor,
+                                     boolean onlyUnanalyzed) {
+        List<ScrapedAd> page = pageTransaction.execute(status -> {
+            List<ScrapedAd> ads = onlyUnanalyzed
+                ? scrapedAdRepository.findUnanalyzedByDomainNameAfterId(domainName, cursor, PageRequest.of(0, pageSize))
+                : scrapedAdRepository.findByDomainNameAndIdGreaterThanOrderByIdAsc(
+                    domainName, cursor, PageRequest.of(0, pageSize));
+            // Initialize lazy collections while the session is still open
+            for (ScrapedAd ad : ads) {
+                Hibernate.initialize(ad.getImageUrls());
+                Hibernate.initialize(ad.getLocalImagePaths());
+            }
+            return ads;
+        });
+        return page != null ? page : Collections.emptyList();
+    }
+
+    /**
+     * Add a page's triage outcomes, with the cost and latency the auto-resolved ads avoided, to the job
+     */
+    private void recordTriage(Long jobId, ParallelAdAnalysisService.AnalysisBatchResult result) {
+        long autoResolved = result.getAutoResolvedCount();
+        if (autoResolved == 0 && result.getEscalatedCount() == 0) {
+            return;
+        }
+        try {
+            ComplianceTriageService.EscalationCost cost = complianceTriageService.getEscalationCost();
+            jobRepository.addTriageTotals(jobId, autoResolved, result.getEscalatedCount(),
+                                          cost.savedCost(autoResolved), cost.savedMs(autoResolved));
+        } catch (Exception e) {
+            logger.warn("Could not record triage totals for job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private void checkpoint(Long jobId, String metaAdId, boolean success) {
+        try {
+            checkpointRepository.save(new AnalysisCheckpoint(jobId, metaAdId, success));
+        } catch (Exception e) {
+            logger.warn("Could not checkpoint ad {} for job {}: {}", metaAdId, jobId, e.getMessage());
+        }
+    }
+
+    private DomainAnalysisJob reload(DomainAnalysisJob job) {
+        return jobRepository.findById(job.getId()).orElse(job);
+    }
+}
@@ -1,5 +1,6 @@
 package com.arbmonitor.api.service;
 
+import com.arbmonitor.api.config.HttpClientRegistry;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.slf4j.Logger;
@@ -25,7 +26,11 @@ public class DomainSpecificRacExtractionService {
     // Cache for domain parameter mappings
     private final Map<String, String> domainParameterCache = new HashMap<>();
     
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+    
+    public DomainSpecificRacExtractionService(HttpClientRegistry httpClientRegistry) {
+        this.restTemplate = httpClientRegistry.restTemplate(HttpClientRegistry.LANDING);
+    }
     
     /**
      * Extract RAC from URL using domain-specific parameter detection
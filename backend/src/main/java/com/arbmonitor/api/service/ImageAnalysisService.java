@@ -2,12 +2,13 @@ package com.arbmonitor.api.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -18,6 +19,21 @@ public class ImageAnalysisService {
     
     private static final Logger logger = LoggerFactory.getLogger(ImageAnalysisService.class);
     
+    private static final String OCR_LANGUAGE = "eng";
+    private static final String OCR_PAGE_SEGMENTATION_MODE = "6"; // Assume uniform block of text
+    private static final String OCR_CHAR_WHITELIST =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789 .,!?@#$%^&*()_+-=[]{}|;':\"<>?/~`";
+    
+    // Everything that influences the OCR output; part of the text cache key
+    private static final String OCR_SETTINGS = "image-ocr|tesseract|lang=" + OCR_LANGUAGE
+        + "|psm=" + OCR_PAGE_SEGMENTATION_MODE + "|whitelist=" + OCR_CHAR_WHITELIST;
+    
+    @Autowired
+    private MediaTextCacheService textCacheService;
+    
+    @Autowired
+    private ProcessGovernor processGovernor;
+    
     /**
      * Extract text from an image using Tesseract OCR
      * @param imagePath Path to the image file
@@ -34,8 +50,20 @@ public class ImageAnalysisService {
                 return "";
             }
             
-            // Run Tesseract OCR
-            String extractedText = runTesseractOcr(imagePath);
+            // Identical image content with identical settings was already OCR'd
+            String cacheKey = textCacheService.buildKey(imagePath, OCR_SETTINGS);
+            Optional<String> cached = textCacheService.lookup(cacheKey, String.class);
+            if (cached.isPresent()) {
+                logger.info("Using cached OCR text ({} characters) for image: {}", cached.get().length(), imagePath);
+                return cached.get();
+            }
+            
+            // Run Tesseract OCR; text from a run that exited non-zero is returned but not cached
+            OcrOutput ocr = runTesseractOcr(imagePath);
+            String extractedText = ocr.text;
+            if (ocr.complete) {
+                textCacheService.store(cacheKey, extractedText);
+            }
             
             if (extractedText.trim().isEmpty()) {
                 logger.debug("No text found in image: {}", imagePath);
@@ -53,51 +81,40 @@ public class ImageAnalysisService {
     }
     
     /**
-     * Run Tesseract OCR on an image file
+     * Run Tesseract OCR on an image file, in a slot of the process governor's OCR lane
      */
-    private String runTesseractOcr(String imagePath) throws IOException, InterruptedException {
+    private OcrOutput runTesseractOcr(String imagePath) throws IOException, InterruptedException {
         logger.debug("Running Tesseract OCR on: {}", imagePath);
         
         String[] command = {
             "tesseract",
             imagePath,
             "stdout", // Output to stdout instead of file
-            "-l", "eng", // English language
-            "--psm", "6", // Assume uniform block of text
-            "-c", "tessedit_char_whitelist=ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789 .,!?@#$%^&*()_+-=[]{}|;':\"<>?/~`"
+            "-l", OCR_LANGUAGE, // English language
+            "--psm", OCR_PAGE_SEGMENTATION_MODE, // Assume uniform block of text
+            "-c", "tessedit_char_whitelist=" + OCR_CHAR_WHITELIST
         };
         
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
+        ProcessGovernor.ProcessResult result = processGovernor.run(ProcessGovernor.Lane.OCR, List.of(command), 30);
         
         StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Skip Tesseract warning/info lines
-                if (!line.startsWith("Tesseract Open Source OCR") && 
-                    !line.startsWith("Warning") && 
-                    !line.contains("OEM") &&
-                    !line.trim().isEmpty()) {
-                    output.append(line).append("\n");
-                }
+        for (String line : result.getOutput().split("\\r?\\n")) {
+            // Skip Tesseract warning/info lines
+            if (!line.startsWith("Tesseract Open Source OCR") && 
+                !line.startsWith("Warning") && 
+                !line.contains("OEM") &&
+                !line.trim().isEmpty()) {
+                output.append(line).append("\n");
             }
         }
         
-        boolean finished = process.waitFor(30, TimeUnit.SECONDS);
-        if (!finished) {
-            process.destroyForcibly();
-            throw new RuntimeException("Tesseract OCR timed out for image: " + imagePath);
-        }
-        
-        if (process.exitValue() != 0) {
+        if (!result.isSuccess()) {
             logger.warn("Tesseract OCR completed with exit code {} for image: {}", 
-                       process.exitValue(), imagePath);
+                       result.getExitCode(), imagePath);
             // Don't throw exception - Tesseract sometimes returns non-zero even when successful
         }
         
-        return output.toString().trim();
+        return new OcrOutput(output.toString().trim(), result.isSuccess());
     }
     
     /**
@@ -143,4 +160,17 @@ public class ImageAnalysisService {
             return false;
         }
     }
+    
+    /**
+     * OCR text of one image, and whether tesseract exited cleanly
+     */
+    private static class OcrOutput {
+        private final String text;
+        private final boolean complete;
+        
+        private OcrOutput(String text, boolean complete) {
+            this.text = text;
+            this.complete = complete;
+        }
+    }
 }
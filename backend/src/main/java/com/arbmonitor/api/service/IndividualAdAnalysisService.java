@@ -28,8 +28,10 @@ public class IndividualAdAnalysisService {
     private OpenAIAnalysisService openAIAnalysisService;
     
     @Autowired
-    private LandingPageScreenshotService landingPageScreenshotService;
+    private LandingPageCaptureService landingPageCaptureService;
     
+    @Autowired
+    private ComplianceTriageService complianceTriageService;
 
     
     /**
@@ -41,133 +43,22 @@ public class IndividualAdAnalysisService {
                    scrapedAd.getMetaAdId(), domain.getDomainName());
         
         try {
-            // Delete any existing analysis first in a separate operation
-            cleanupExistingAnalysis(scrapedAd.getMetaAdId(), domain);
-            
-            // Create completely new analysis
-            AdAnalysis analysis = new AdAnalysis();
-            analysis.setDomain(domain);
-            analysis.setMetaAdId(scrapedAd.getMetaAdId());
-
-            // Set analysis data from scraped ad (with DPA template handling)
-            String headline = scrapedAd.getHeadline();
-            if (headline == null || headline.trim().isEmpty()) {
-                headline = "No headline";
-            } else if (isDynamicProductAd(headline)) {
-                // Handle DPA templates - convert to readable format
-                headline = convertDpaTemplate(headline);
-            }
-            analysis.setHeadline(headline);
-            
-            String primaryText = scrapedAd.getPrimaryText();
-            if (primaryText != null && isDynamicProductAd(primaryText)) {
-                primaryText = convertDpaTemplate(primaryText);
-            }
-            analysis.setPrimaryText(primaryText);
-            
-            // Use locally stored image path instead of original URL
-            String imageUrl = null;
-            if (scrapedAd.getLocalImagePaths() != null && !scrapedAd.getLocalImagePaths().isEmpty()) {
-                imageUrl = scrapedAd.getLocalImagePaths().get(0);
-                logger.debug("Using local image path: {}", imageUrl);
-            } else if (scrapedAd.getImageUrls() != null && !scrapedAd.getImageUrls().isEmpty()) {
-                imageUrl = scrapedAd.getImageUrls().get(0);
-                logger.debug("Using original image URL (no local path available)");
-            }
-            analysis.setImageUrl(imageUrl);
-            analysis.setLandingPageUrl(scrapedAd.getLandingPageUrl());
-            
-            // Use pre-extracted text from media processing
-            String imageText = scrapedAd.getExtractedImageText();
-            analysis.setImageText(imageText);
-            
-            // Combine all text content for compliance analysis
-            StringBuilder combinedText = new StringBuilder();
-            if (analysis.getPrimaryText() != null && !analysis.getPrimaryText().trim().isEmpty()) {
-                combinedText.append(analysis.getPrimaryText());
-            }
-            
-            // Add pre-extracted image text
-            if (imageText != null && !imageText.trim().isEmpty()) {
-                if (combinedText.length() > 0) combinedText.append("\n\n");
-                combinedText.append("IMAGE TEXT:\n").append(imageText);
-            }
-            
-            // Add pre-extracted video text
-            String videoText = scrapedAd.getExtractedVideoText();
-            if (videoText != null && !videoText.trim().isEmpty()) {
-                if (combinedText.length() > 0) combinedText.append("\n\n");
-                combinedText.append("VIDEO CONTENT:\n").append(videoText);
-            }
-            
-            // Update primary text with combined content
-            if (combinedText.length() > 0) {
-                analysis.setPrimaryText(combinedText.toString());
-            }
-            
-            // Scrape landing page content
-            String landingPageContent = scrapeLandingPageContent(scrapedAd.getLandingPageUrl());
-            analysis.setLandingPageContent(landingPageContent);
-            
-            // Capture landing page screenshot
-            logger.info("Capturing landing page screenshot for ad: {}", scrapedAd.getMetaAdId());
-            String screenshotPath = landingPageScreenshotService.captureScreenshot(
-                scrapedAd.getLandingPageUrl(), 
-                scrapedAd.getMetaAdId()
-            );
-            if (screenshotPath != null) {
-                analysis.setLandingPageScreenshotPath(screenshotPath);
-                logger.info("Screenshot captured successfully: {}", screenshotPath);
-            } else {
-                logger.warn("Failed to capture screenshot for ad: {}", scrapedAd.getMetaAdId());
-            }
-            
-            // Check if RAC analysis is enabled for this domain
-            boolean racEnabled = domain.getRacParameter() != null && !domain.getRacParameter().trim().isEmpty();
-            
-            // Use OpenAI GPT-4 for intelligent compliance analysis
-            String adText = buildAdText(scrapedAd, combinedText.toString());
-            String racValue = racEnabled ? scrapedAd.getReferrerAdCreative() : null;
-            
-            try {
-                OpenAIAnalysisService.ComplianceAnalysisResult aiResult = openAIAnalysisService.analyzeAdCompliance(
-                        adText, landingPageContent, racValue, racEnabled
-                );
-                
-                // Set binary compliance results
-                analysis.setAdCreativeCompliant(aiResult.isAdCreativeCompliant());
-                analysis.setAdCreativeReason(aiResult.getAdCreativeReason());
-                analysis.setLandingPageRelevant(aiResult.isLandingPageRelevant());
-                analysis.setLandingPageReason(aiResult.getLandingPageReason());
-                analysis.setRacRelevant(aiResult.isRacRelevant());
-                analysis.setRacReason(aiResult.getRacReason());
-                analysis.setOverallCompliant(aiResult.isOverallCompliant());
-                
-                // Set legacy fields for backward compatibility
-                analysis.setComplianceScore(aiResult.isOverallCompliant() ? 100.0 : 0.0);
-                analysis.setComplianceStatus(aiResult.isOverallCompliant() ?
-                        AdAnalysis.ComplianceStatus.EXCELLENT : AdAnalysis.ComplianceStatus.CRITICAL);
-                
-                // Build detailed analysis notes
-                String analysisNotes = buildAnalysisNotes(aiResult);
-                analysis.setAnalysisNotes(analysisNotes);
-                
-            } catch (Exception e) {
-                logger.error("OpenAI analysis failed for ad {}: {}", scrapedAd.getMetaAdId(), e.getMessage());
-                
-                // Set fallback compliance results
-                analysis.setAdCreativeCompliant(false);
-                analysis.setAdCreativeReason("Analysis failed: " + e.getMessage());
-                analysis.setLandingPageRelevant(false);
-                analysis.setLandingPageReason("Analysis failed: " + e.getMessage());
-                analysis.setRacRelevant(racEnabled ? false : true);
-                analysis.setRacReason(racEnabled ? "Analysis failed: " + e.getMessage() : "RAC analysis turned off");
-                analysis.setOverallCompliant(false);
-                
-                // Set legacy fields
-                analysis.setComplianceScore(0.0);
-                analysis.setComplianceStatus(AdAnalysis.ComplianceStatus.CRITICAL);
-                analysis.setAnalysisNotes("Automated analysis failed. Manual review required.");
+            PreparedAnalysis prepared = prepareAnalysis(scrapedAd, domain);
+            AdAnalysis analysis = prepared.getAnalysis();
+            
+            // Only ads the triage stage cannot resolve go to the model
+            if (!prepared.getTriage().isResolved()) {
+                try {
+                    OpenAIAnalysisService.ComplianceAnalysisResult aiResult = openAIAnalysisService.analyzeAdCompliance(
+                            prepared.getAdText(), prepared.getLandingPageContent(), prepared.getRacValue(), prepared.isRacEnabled()
+                    );
+                    applyResult(analysis, aiResult);
+                    complianceTriageService.recordVerdict(prepared.getTriage().getSimilarityKey(), aiResult);
+                    
+                } catch (Exception e) {
+                    logger.error("OpenAI analysis failed for ad {}: {}", scrapedAd.getMetaAdId(), e.getMessage());
+                    applyFailure(analysis, "Analysis failed: " + e.getMessage(), prepared.isRacEnabled());
+                }
             }
             
             // Save the analysis
@@ -184,6 +75,187 @@ public class IndividualAdAnalysisService {
         }
     }
     
+    /**
+     * Prepare an ad for batch compliance analysis: the analysis is saved without a verdict (or with
+     * the verdict of the triage stage, if it resolved the ad) and the inputs of its compliance prompt
+     * are returned
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public PreparedAnalysis prepareAnalysisWithNewTransaction(ScrapedAd scrapedAd, Domain domain) {
+        try {
+            PreparedAnalysis prepared = prepareAnalysis(scrapedAd, domain);
+            if (!prepared.getTriage().isResolved()) {
+                prepared.getAnalysis().setAnalysisNotes("Awaiting batch compliance analysis");
+            }
+            adAnalysisRepository.save(prepared.getAnalysis());
+            return prepared;
+        } catch (Exception e) {
+            logger.error("Error preparing batch analysis for ad {}: {}", scrapedAd.getMetaAdId(), e.getMessage(), e);
+            throw new RuntimeException("Failed to prepare ad: " + scrapedAd.getMetaAdId(), e);
+        }
+    }
+    
+    /**
+     * Fill in the verdict of an analysis prepared for batch analysis
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void completeAnalysisWithNewTransaction(Long analysisId, OpenAIAnalysisService.ComplianceAnalysisResult aiResult) {
+        adAnalysisRepository.findById(analysisId).ifPresent(analysis -> {
+            applyResult(analysis, aiResult);
+            adAnalysisRepository.save(analysis);
+        });
+    }
+    
+    /**
+     * Record a failed verdict on an analysis prepared for batch analysis
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void failAnalysisWithNewTransaction(Long analysisId, String reason, boolean racEnabled) {
+        adAnalysisRepository.findById(analysisId).ifPresent(analysis -> {
+            applyFailure(analysis, reason, racEnabled);
+            adAnalysisRepository.save(analysis);
+        });
+    }
+    
+    private PreparedAnalysis prepareAnalysis(ScrapedAd scrapedAd, Domain domain) {
+        // Delete any existing analysis first in a separate operation
+        cleanupExistingAnalysis(scrapedAd.getMetaAdId(), domain);
+        
+        // Create completely new analysis
+        AdAnalysis analysis = new AdAnalysis();
+        analysis.setDomain(domain);
+        analysis.setMetaAdId(scrapedAd.getMetaAdId());
+
+        // Set analysis data from scraped ad (with DPA template handling)
+        String headline = scrapedAd.getHeadline();
+        if (headline == null || headline.trim().isEmpty()) {
+            headline = "No headline";
+        } else if (isDynamicProductAd(headline)) {
+            // Handle DPA templates - convert to readable format
+            headline = convertDpaTemplate(headline);
+        }
+        analysis.setHeadline(headline);
+        
+        String primaryText = scrapedAd.getPrimaryText();
+        if (primaryText != null && isDynamicProductAd(primaryText)) {
+            primaryText = convertDpaTemplate(primaryText);
+        }
+        analysis.setPrimaryText(primaryText);
+        
+        // Use locally stored image path instead of original URL
+        String imageUrl = null;
+        if (scrapedAd.getLocalImagePaths() != null && !scrapedAd.getLocalImagePaths().isEmpty()) {
+            imageUrl = scrapedAd.getLocalImagePaths().get(0);
+            logger.debug("Using local image path: {}", imageUrl);
+        } else if (scrapedAd.getImageUrls() != null && !scrapedAd.getImageUrls().isEmpty()) {
+            imageUrl = scrapedAd.getImageUrls().get(0);
+            logger.debug("Using original image URL (no local path available)");
+        }
+        analysis.setImageUrl(imageUrl);
+        analysis.setLandingPageUrl(scrapedAd.getLandingPageUrl());
+        
+        // Use pre-extracted text from media processing
+        String imageText = scrapedAd.getExtractedImageText();
+        analysis.setImageText(imageText);
+        
+        // Combine all text content for compliance analysis
+        StringBuilder combinedText = new StringBuilder();
+        if (analysis.getPrimaryText() != null && !analysis.getPrimaryText().trim().isEmpty()) {
+            combinedText.append(analysis.getPrimaryText());
+        }
+        
+        // Add pre-extracted image text
+        if (imageText != null && !imageText.trim().isEmpty()) {
+            if (combinedText.length() > 0) combinedText.append("\n\n");
+            combinedText.append("IMAGE TEXT:\n").append(imageText);
+        }
+        
+        // Add pre-extracted video text
+        String videoText = scrapedAd.getExtractedVideoText();
+        if (videoText != null && !videoText.trim().isEmpty()) {
+            if (combinedText.length() > 0) combinedText.append("\n\n");
+            combinedText.append("VIDEO CONTENT:\n").append(videoText);
+        }
+        
+        // Update primary text with combined content
+        if (combinedText.length() > 0) {
+            analysis.setPrimaryText(combinedText.toString());
+        }
+        
+        // Capture the landing page once: text content and screenshot come from the same navigation
+        LandingPageCaptureService.LandingPageCapture landingPage =
+            landingPageCaptureService.capture(scrapedAd.getLandingPageUrl(), scrapedAd.getMetaAdId());
+        String landingPageContent = landingPage.getTextContent();
+        analysis.setLandingPageContent(landingPageContent);
+        
+        String screenshotPath = landingPage.getScreenshotPath();
+        if (screenshotPath != null) {
+            analysis.setLandingPageScreenshotPath(screenshotPath);
+            logger.info("Screenshot captured successfully: {}", screenshotPath);
+        } else {
+            logger.warn("Failed to capture screenshot for ad: {}", scrapedAd.getMetaAdId());
+        }
+        
+        // Check if RAC analysis is enabled for this domain
+        boolean racEnabled = domain.getRacParameter() != null && !domain.getRacParameter().trim().isEmpty();
+        
+        // Use OpenAI GPT-4 for intelligent compliance analysis
+        String adText = buildAdText(scrapedAd, combinedText.toString());
+        String racValue = racEnabled ? scrapedAd.getReferrerAdCreative() : null;
+        if (racEnabled && (racValue == null || racValue.trim().isEmpty())) {
+            // Fall back to the RAC the AFS iframe carried on the captured page
+            racValue = landingPage.getRacKeyword();
+        }
+        
+        // Clear-cut ads get their verdict here and never reach the model
+        ComplianceTriageService.TriageDecision triage = complianceTriageService.triage(analysis, adText, racValue, racEnabled);
+        analysis.setTriageOutcome(triage.getOutcome());
+        analysis.setTriageConfidence(triage.getConfidence());
+        if (triage.isResolved()) {
+            applyResult(analysis, triage.getResult());
+            analysis.setAnalysisNotes(analysis.getAnalysisNotes() +
+                String.format("\nResolved by deterministic triage (confidence %.2f)", triage.getConfidence()));
+        }
+        
+        return new PreparedAnalysis(analysis, adText, landingPageContent, racValue, racEnabled, triage);
+    }
+    
+    private void applyResult(AdAnalysis analysis, OpenAIAnalysisService.ComplianceAnalysisResult aiResult) {
+        // Set binary compliance results
+        analysis.setAdCreativeCompliant(aiResult.isAdCreativeCompliant());
+        analysis.setAdCreativeReason(aiResult.getAdCreativeReason());
+        analysis.setLandingPageRelevant(aiResult.isLandingPageRelevant());
+        analysis.setLandingPageReason(aiResult.getLandingPageReason());
+        analysis.setRacRelevant(aiResult.isRacRelevant());
+        analysis.setRacReason(aiResult.getRacReason());
+        analysis.setOverallCompliant(aiResult.isOverallCompliant());
+        
+        // Set legacy fields for backward compatibility
+        analysis.setComplianceScore(aiResult.isOverallCompliant() ? 100.0 : 0.0);
+        analysis.setComplianceStatus(aiResult.isOverallCompliant() ?
+                AdAnalysis.ComplianceStatus.EXCELLENT : AdAnalysis.ComplianceStatus.CRITICAL);
+        
+        // Build detailed analysis notes
+        String analysisNotes = buildAnalysisNotes(aiResult);
+        analysis.setAnalysisNotes(analysisNotes);
+    }
+    
+    private void applyFailure(AdAnalysis analysis, String reason, boolean racEnabled) {
+        // Set fallback compliance results
+        analysis.setAdCreativeCompliant(false);
+        analysis.setAdCreativeReason(reason);
+        analysis.setLandingPageRelevant(false);
+        analysis.setLandingPageReason(reason);
+        analysis.setRacRelevant(racEnabled ? false : true);
+        analysis.setRacReason(racEnabled ? reason : "RAC analysis turned off");
+        analysis.setOverallCompliant(false);
+        
+        // Set legacy fields
+        analysis.setComplianceScore(0.0);
+        analysis.setComplianceStatus(AdAnalysis.ComplianceStatus.CRITICAL);
+        analysis.setAnalysisNotes("Automated analysis failed. Manual review required.");
+    }
+    
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     private void cleanupExistingAnalysis(String metaAdId, Domain domain) {
         try {
@@ -223,9 +295,9 @@ public class IndividualAdAnalysisService {
     }
     
     /**
-     * Build ad text for analysis
+     * Build ad text for analysis (also used to replay stored analyses in the cascade evaluation)
      */
-    private String buildAdText(ScrapedAd scrapedAd, String combinedText) {
+    static String buildAdText(ScrapedAd scrapedAd, String combinedText) {
         StringBuilder adTextBuilder = new StringBuilder();
         adTextBuilder.append("Headline: ").append(scrapedAd.getHeadline()).append("\n");
         adTextBuilder.append("Primary Text: ").append(combinedText).append("\n");
@@ -258,199 +330,32 @@ public class IndividualAdAnalysisService {
     }
     
     /**
-     * Scrape landing page content for analysis
+     * An analysis with its scraped data and landing page filled in, the inputs of its compliance prompt
+     * and its triage decision
      */
-    private String scrapeLandingPageContent(String landingPageUrl) {
-        if (landingPageUrl == null || landingPageUrl.trim().isEmpty()) {
-            return "No landing page URL provided";
-        }
+    public static class PreparedAnalysis {
+        private final AdAnalysis analysis;
+        private final String adText;
+        private final String landingPageContent;
+        private final String racValue;
+        private final boolean racEnabled;
+        private final ComplianceTriageService.TriageDecision triage;
         
-        try {
-            logger.info("Scraping landing page content: {}", landingPageUrl);
-            
-            // Clean URL by removing or replacing template variables
-            String cleanUrl = cleanUrlTemplateVariables(landingPageUrl);
-            logger.info("Cleaned URL for scraping: {}", cleanUrl);
-            
-            // Add comprehensive headers to avoid blocking and handle redirects
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.set("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
-            headers.set("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
-            headers.set("Accept-Language", "en-US,en;q=0.5");
-            // Remove Accept-Encoding to avoid compression issues
-            headers.set("DNT", "1");
-            headers.set("Connection", "keep-alive");
-            headers.set("Upgrade-Insecure-Requests", "1");
-            
-            org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>(headers);
-            
-            // Configure RestTemplate to follow redirects and handle compression
-            org.springframework.web.client.RestTemplate restTemplate = new org.springframework.web.client.RestTemplate();
-            
-            // Add message converters to handle different content types properly
-            restTemplate.getMessageConverters().add(0, new org.springframework.http.converter.StringHttpMessageConverter(java.nio.charset.StandardCharsets.UTF_8));
-            
-            // Create URI using the cleaned URL
-            java.net.URI uri = java.net.URI.create(cleanUrl);
-            
-            org.springframework.http.ResponseEntity<String> response = restTemplate.exchange(
-                uri, 
-                org.springframework.http.HttpMethod.GET, 
-                entity, 
-                String.class
-            );
-            
-            String htmlContent = response.getBody();
-            if (htmlContent == null || htmlContent.trim().isEmpty()) {
-                return "Landing page returned empty content";
-            }
-            
-            // Extract text content from HTML (basic implementation)
-            String textContent = extractTextFromHtml(htmlContent);
-            
-            if (textContent == null || textContent.trim().isEmpty()) {
-                return "No readable text content found on landing page";
-            }
-            
-            // Limit content length to avoid overwhelming the analysis
-            if (textContent.length() > 5000) {
-                textContent = textContent.substring(0, 5000) + "... [content truncated]";
-            }
-            
-            logger.info("Successfully scraped landing page content ({} characters): {}", 
-                       textContent.length(), landingPageUrl);
-            
-            return textContent;
-            
-        } catch (org.springframework.web.client.HttpClientErrorException e) {
-            logger.warn("HTTP error scraping landing page {}: {} - {}", landingPageUrl, e.getStatusCode(), e.getMessage());
-            return "Landing page not accessible: " + e.getStatusCode() + " " + e.getMessage();
-        } catch (Exception e) {
-            logger.error("Error scraping landing page {}: {}", landingPageUrl, e.getMessage());
-            return "Failed to scrape landing page: " + e.getMessage();
+        public PreparedAnalysis(AdAnalysis analysis, String adText, String landingPageContent,
+                                String racValue, boolean racEnabled, ComplianceTriageService.TriageDecision triage) {
+            this.analysis = analysis;
+            this.adText = adText;
+            this.landingPageContent = landingPageContent;
+            this.racValue = racValue;
+            this.racEnabled = racEnabled;
+            this.triage = triage;
         }
-    }
-    
-    /**
-     * Clean URL by removing or replacing template variables like {{campaign.id}}
-     */
-    private String cleanUrlTemplateVariables(String url) {
-        if (url == null) return null;
-        
-        try {
-            // Remove template variables like {{campaign.id}}, {{adset.id}}, {{ad.id}}
-            // We'll remove the entire parameter if it contains template variables
-            String cleanUrl = url;
-            
-            // Split URL into base and query parameters
-            String[] urlParts = url.split("\\?", 2);
-            if (urlParts.length == 2) {
-                String baseUrl = urlParts[0];
-                String queryString = urlParts[1];
-                
-                // Process query parameters
-                String[] params = queryString.split("&");
-                StringBuilder cleanParams = new StringBuilder();
-                
-                for (String param : params) {
-                    // Skip parameters that contain template variables
-                    if (!param.contains("{{") && !param.contains("}}")) {
-                        if (cleanParams.length() > 0) {
-                            cleanParams.append("&");
-                        }
-                        cleanParams.append(param);
-                    }
-                }
-                
-                // Reconstruct URL
-                cleanUrl = baseUrl;
-                if (cleanParams.length() > 0) {
-                    cleanUrl += "?" + cleanParams.toString();
-                }
-            }
-            
-            return cleanUrl;
-            
-        } catch (Exception e) {
-            logger.warn("Error cleaning URL template variables from {}: {}", url, e.getMessage());
-            // Fallback: just remove template variables in place
-            return url.replaceAll("\\{\\{[^}]+\\}\\}", "placeholder");
-        }
-    }
-    
-    /**
-     * Extract readable text content from HTML
-     */
-    private String extractTextFromHtml(String htmlContent) {
-        if (htmlContent == null) return null;
-        
-        try {
-            // Check if content appears to be binary/corrupted
-            if (containsBinaryData(htmlContent)) {
-                logger.warn("HTML content appears to be binary or corrupted, attempting to decode");
-                return "Content appears to be binary or corrupted - unable to extract readable text";
-            }
-            
-            // Enhanced HTML tag removal and text extraction
-            String text = htmlContent
-                // Remove script and style content (case insensitive, multiline)
-                .replaceAll("(?is)<script[^>]*>.*?</script>", "")
-                .replaceAll("(?is)<style[^>]*>.*?</style>", "")
-                // Remove HTML comments
-                .replaceAll("<!--.*?-->", "")
-                // Remove common non-content tags
-                .replaceAll("(?is)<head[^>]*>.*?</head>", "")
-                .replaceAll("(?is)<nav[^>]*>.*?</nav>", "")
-                .replaceAll("(?is)<footer[^>]*>.*?</footer>", "")
-                // Remove HTML tags but preserve line breaks
-                .replaceAll("<br[^>]*>", "\n")
-                .replaceAll("<p[^>]*>", "\n")
-                .replaceAll("</p>", "\n")
-                .replaceAll("<div[^>]*>", "\n")
-                .replaceAll("</div>", "\n")
-                .replaceAll("<[^>]+>", " ")
-                // Decode HTML entities
-                .replace("&nbsp;", " ")
-                .replace("&amp;", "&")
-                .replace("&lt;", "<")
-                .replace("&gt;", ">")
-                .replace("&quot;", "\"")
-                .replace("&#39;", "'")
-                .replace("&apos;", "'")
-                .replace("&copy;", "©")
-                .replace("&reg;", "®")
-                .replace("&trade;", "™")
-                // Clean up whitespace but preserve paragraph breaks
-                .replaceAll("[ \\t]+", " ")  // Multiple spaces/tabs to single space
-                .replaceAll("\\n\\s*\\n", "\n\n")  // Multiple newlines to double newline
-                .replaceAll("^\\s+|\\s+$", "")  // Trim start/end
-                .trim();
-            
-            // Filter out very short or suspicious content
-            if (text.length() < 10) {
-                return "Extracted text too short - may indicate parsing issues";
-            }
-            
-            return text;
-            
-        } catch (Exception e) {
-            logger.warn("Error extracting text from HTML: {}", e.getMessage());
-            return "Failed to extract text from HTML content: " + e.getMessage();
-        }
-    }
-    
-    /**
-     * Check if content contains binary data or is corrupted
-     */
-    private boolean containsBinaryData(String content) {
-        if (content == null || content.length() < 100) return false;
-        
-        // Count non-printable characters
-        long nonPrintableCount = content.chars()
-            .filter(c -> c < 32 && c != 9 && c != 10 && c != 13)  // Exclude tab, LF, CR
-            .count();
         
-        // If more than 10% of characters are non-printable, likely binary
-        return (nonPrintableCount * 100.0 / content.length()) > 10;
+        public AdAnalysis getAnalysis() { return analysis; }
+        public String getAdText() { return adText; }
+        public String getLandingPageContent() { return landingPageContent; }
+        public String getRacValue() { return racValue; }
+        public boolean isRacEnabled() { return racEnabled; }
+        public ComplianceTriageService.TriageDecision getTriage() { return triage; }
     }
 }
@@ -0,0 +1,120 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.ScrapedAd;
+import com.arbmonitor.api.repository.ScrapedAdRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compares the per-ad JPA save loop with the batched JDBC upsert on synthetic ads.
+ * Benchmark rows live under throwaway domains and are removed afterwards.
+ */
+@Service
+public class IngestionBenchmarkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionBenchmarkService.class);
+
+    @Autowired
+    private ScrapedAdRepository scrapedAdRepository;
+
+    @Autowired
+    private ScrapedAdIngestionService ingestionService;
+
+    /**
+     * Write the same number of ads through both paths, first as inserts and then as updates
+     */
+    public Map<String, Object> run(int rows) {
+        String runId = String.valueOf(System.currentTimeMillis());
+        String loopDomain = "benchmark-loop-" + runId + ".invalid";
+        String bulkDomain = "benchmark-bulk-" + runId + ".invalid";
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("rows", rows);
+        try {
+            result.put("saveLoopInsert", measure(rows, () -> saveLoop(syntheticAds(loopDomain, rows))));
+            result.put("saveLoopUpdate", measure(rows, () -> saveLoop(syntheticAds(loopDomain, rows))));
+
+            Map<String, Object> bulkInsert = measure(rows, () -> ingestionService.upsertAds(syntheticAds(bulkDomain, rows)));
+            Map<String, Object> bulkUpdate = measure(rows, () -> ingestionService.upsertAds(syntheticAds(bulkDomain, rows)));
+            result.put("bulkInsert", bulkInsert);
+            result.put("bulkUpdate", bulkUpdate);
+
+            result.put("insertSpeedup", speedup(result.get("saveLoopInsert"), bulkInsert));
+            result.put("updateSpeedup", speedup(result.get("saveLoopUpdate"), bulkUpdate));
+            logger.info("Ingestion benchmark with {} rows: {}", rows, result);
+        } finally {
+            scrapedAdRepository.deleteByDomainName(loopDomain);
+            scrapedAdRepository.deleteByDomainName(bulkDomain);
+        }
+        return result;
+    }
+
+    /**
+     * The pre-existing ingestion path: one lookup and one save per ad
+     */
+    private void saveLoop(List<ScrapedAd> ads) {
+        for (ScrapedAd ad : ads) {
+            Optional<ScrapedAd> existingAd = scrapedAdRepository.findByMetaAdId(ad.getMetaAdId());
+            if (existingAd.isPresent()) {
+                ScrapedAd existing = existingAd.get();
+                existing.setHeadline(ad.getHeadline());
+                existing.setPrimaryText(ad.getPrimaryText());
+                existing.setDescription(ad.getDescription());
+                existing.setLandingPageUrl(ad.getLandingPageUrl());
+                existing.setLastUpdated(ad.getLastUpdated());
+                existing.setIsActive(ad.getIsActive());
+                scrapedAdRepository.save(existing);
+            } else {
+                scrapedAdRepository.save(ad);
+            }
+        }
+    }
+
+    private Map<String, Object> measure(int rows, Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        double seconds = Math.max(1, System.nanoTime() - start) / 1_000_000_000.0;
+
+        Map<String, Object> timing = new HashMap<>();
+        timing.put("elapsedMs", Math.round(seconds * 1000));
+        timing.put("rowsPerSecond", Math.round(rows / seconds));
+        return timing;
+    }
+
+    @SuppressWarnings("unchecked")
+    private double speedup(Object baseline, Map<String, Object> candidate) {
+        long baselineRate = (Long) ((Map<String, Object>) baseline).get("rowsPerSecond");
+        long candidateRate = (Long) candidate.get("rowsPerSecond");
+        return baselineRate > 0 ? Math.round((double) candidateRate / baselineRate * 100.0) / 100.0 : 0.0;
+    }
+
+    private List<ScrapedAd> syntheticAds(String domainName, int rows) {
+        List<ScrapedAd> ads = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ScrapedAd ad = new ScrapedAd(domainName + "-" + i, domainName);
+            ad.setPageName("Benchmark Page");
+            ad.setHeadline("Benchmark headline " + i);
+            ad.setPrimaryText("Benchmark primary text for ad " + i);
+            ad.setDescription("Benchmark description");
+            ad.setCallToAction("LEARN_MORE");
+            ad.setLandingPageUrl("https://" + domainName + "/article?id=" + i);
+            ad.setAdFormat("SINGLE_IMAGE");
+            ad.setScrapeSource("BENCHMARK");
+            ad.setImageUrls(new ArrayList<>(List.of("https://cdn.invalid/" + i + "-a.jpg",
+                                                    "https://cdn.invalid/" + i + "-b.jpg")));
+            ad.setVideoUrls(new ArrayList<>(List.of("https://cdn.invalid/" + i + ".mp4")));
+            ad.setLocalImagePaths(new ArrayList<>(List.of("uploads/ads/images/" + i + ".jpg")));
+            ad.setLocalVideoPaths(new ArrayList<>());
+            ads.add(ad);
+        }
+        return ads;
+    }
+}
@@ -0,0 +1,412 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.WorkJob;
+import com.arbmonitor.api.model.WorkJob.JobStatus;
+import com.arbmonitor.api.model.WorkJob.JobType;
+import com.arbmonitor.api.repository.WorkJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable, DB-backed queue for scrape, media, OCR, RAC, analysis and screenshot work. A worker pool
+ * leases ready jobs by priority, keeps their leases alive with heartbeats, retries failures with
+ * exponential backoff and dead-letters jobs that fail on every attempt. Jobs leased by an instance
+ * that stopped (restart, deploy, crash) are picked up again once their lease expires.
+ */
+@Service
+public class JobQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobQueueService.class);
+
+    private static final List<JobStatus> ACTIVE_STATUSES = List.of(JobStatus.QUEUED, JobStatus.RUNNING, JobStatus.PAUSED);
+
+    @Autowired
+    private WorkJobRepository jobRepository;
+
+    @Value("${app.jobs.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.jobs.workers:4}")
+    private int workers;
+
+    // Scrapes mostly wait on their Apify run, so they get their own budget instead of holding a worker
+    @Value("${app.jobs.scrape-concurrency:32}")
+    private int scrapeConcurrency;
+
+    @Value("${app.jobs.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${app.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.jobs.retry-backoff-ms:30000}")
+    private long retryBackoffMs;
+
+    @Value("${app.jobs.max-backoff-ms:1800000}")
+    private long maxBackoffMs;
+
+    @Value("${app.jobs.retention-days:7}")
+    private int retentionDays;
+
+    // Identifies this instance's leases
+    private final String workerId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<JobType, JobHandler> handlers = new EnumMap<>(JobType.class);
+
+    // Jobs leased by this instance and still running, for heartbeats
+    private final Set<Long> leasedJobs = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService workerExecutor;
+    private Semaphore workerPermits;
+    private Semaphore scrapePermits;
+    private volatile boolean started = false;
+
+    // Counters since application start
+    private final AtomicLong jobsRun = new AtomicLong();
+    private final AtomicLong jobsSucceeded = new AtomicLong();
+    private final AtomicLong jobsRetried = new AtomicLong();
+    private final AtomicLong jobsDeadLettered = new AtomicLong();
+    private final AtomicLong leasesRecovered = new AtomicLong();
+
+    /**
+     * Work done for one job type. The returned future completes when the work is finished, so
+     * handlers that wait on external events do not hold a worker thread; failing the future (or
+     * throwing) schedules a retry.
+     */
+    @FunctionalInterface
+    public interface JobHandler {
+        CompletableFuture<?> handle(WorkJob job) throws Exception;
+    }
+
+    /**
+     * Failure that retrying cannot fix; the job is dead-lettered straight away
+     */
+    public static class PermanentJobFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public PermanentJobFailure(String message) {
+            super(message);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        if (!enabled) {
+            logger.info("Job queue workers disabled");
+            return;
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        workerExecutor = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "JobWorker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        workerPermits = new Semaphore(Math.max(1, workers));
+        scrapePermits = new Semaphore(Math.max(1, scrapeConcurrency));
+        started = true;
+        logger.info("Job queue started with {} workers and {} scrape slots (lease {} s, {} attempts) as {}",
+                   workers, scrapeConcurrency, leaseSeconds, maxAttempts, workerId);
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        started = false;
+        if (workerExecutor != null) {
+            workerExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Register the handler of a job type; owning services call this on startup
+     */
+    public void registerHandler(JobType jobType, JobHandler handler) {
+        handlers.put(jobType, handler);
+    }
+
+    /**
+     * Queue a job with the type's default priority, unless the same work is already queued or running
+     */
+    public WorkJob enqueue(JobType jobType, String domainName, String targetId, String payload) {
+        return enqueue(jobType, domainName, targetId, payload, jobType.getDefaultPriority());
+    }
+
+    public WorkJob enqueue(JobType jobType, String domainName, String targetId, String payload, int priority) {
+        Optional<WorkJob> existing = jobRepository.findFirstByJobTypeAndDomainNameAndTargetIdAndStatusIn(
+            jobType, domainName, targetId, ACTIVE_STATUSES);
+        if (existing.isPresent()) {
+            logger.debug("{} job for {} {} already queued as {}", jobType, domainName, targetId, existing.get().getId());
+            return existing.get();
+        }
+
+        WorkJob job = new WorkJob(jobType, domainName, targetId);
+        job.setPayload(payload);
+        job.setPriority(priority);
+        job.setMaxAttempts(Math.max(1, maxAttempts));
+        job = jobRepository.save(job);
+        logger.debug("Queued {} job {} for {}", jobType, job.getId(), domainName);
+        return job;
+    }
+
+    /**
+     * Record progress of a running job (e.g. an external run id) so a later attempt can pick it up
+     */
+    public void updatePayload(Long jobId, String payload) {
+        jobRepository.updatePayload(jobId, payload, LocalDateTime.now());
+    }
+
+    public boolean hasActiveJob(JobType jobType, String domainName) {
+        return jobRepository.countByJobTypeAndDomainNameAndStatusIn(jobType, domainName, ACTIVE_STATUSES) > 0;
+    }
+
+    /**
+     * Hold a domain's queued and running jobs; running handlers finish but their result is discarded
+     */
+    public int pauseDomain(String domainName) {
+        int paused = jobRepository.transitionDomainJobs(domainName, List.of(JobStatus.QUEUED, JobStatus.RUNNING),
+                                                        JobStatus.PAUSED, LocalDateTime.now());
+        if (paused > 0) {
+            logger.info("Paused {} queued jobs for domain: {}", paused, domainName);
+        }
+        return paused;
+    }
+
+    /**
+     * Put a domain's paused jobs back in the queue
+     */
+    public int resumeDomain(String domainName) {
+        int resumed = jobRepository.transitionDomainJobs(domainName, List.of(JobStatus.PAUSED),
+                                                         JobStatus.QUEUED, LocalDateTime.now());
+        if (resumed > 0) {
+            logger.info("Resumed {} queued jobs for domain: {}", resumed, domainName);
+        }
+        return resumed;
+    }
+
+    /**
+     * Cancel every unfinished job of a domain
+     */
+    public int cancelDomain(String domainName) {
+        int cancelled = jobRepository.cancelDomainJobs(domainName, ACTIVE_STATUSES, LocalDateTime.now());
+        if (cancelled > 0) {
+            logger.info("Cancelled {} queued jobs for domain: {}", cancelled, domainName);
+        }
+        return cancelled;
+    }
+
+    public boolean hasActiveJobs(String domainName) {
+        return jobRepository.countByDomainNameAndStatusIn(domainName, ACTIVE_STATUSES) > 0;
+    }
+
+    /**
+     * Give a dead-lettered job another full set of attempts
+     */
+    public boolean requeueDeadJob(Long jobId) {
+        return jobRepository.requeueDead(jobId, LocalDateTime.now()) > 0;
+    }
+
+    public List<WorkJob> getDeadJobs(int limit) {
+        return jobRepository.findByStatusOrderByUpdatedAtDesc(JobStatus.DEAD, PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    /**
+     * Lease ready jobs while their type has a free slot and hand them to the worker pool
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.poll-interval-ms:1000}")
+    public void dispatch() {
+        if (!started) {
+            return;
+        }
+        while (true) {
+            List<JobType> runnableTypes = handlers.keySet().stream()
+                .filter(type -> permitsFor(type).availablePermits() > 0)
+                .toList();
+            if (runnableTypes.isEmpty()) {
+                return;
+            }
+            WorkJob job = leaseNext(runnableTypes);
+            if (job == null) {
+                return;
+            }
+            leasedJobs.add(job.getId());
+            try {
+                workerExecutor.execute(() -> run(job));
+            } catch (Exception e) {
+                // Executor shut down; the lease expires and another instance takes the job
+                leasedJobs.remove(job.getId());
+                permitsFor(job.getJobType()).release();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Extend the leases of running jobs, and recover jobs whose worker went away
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-interval-ms:30000}")
+    public void heartbeatAndRecover() {
+        if (!started) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            if (!leasedJobs.isEmpty()) {
+                jobRepository.heartbeat(List.copyOf(leasedJobs), workerId, now.plusSeconds(leaseSeconds));
+            }
+            int requeued = jobRepository.requeueExpired(now);
+            int dead = jobRepository.deadLetterExpired(now);
+            if (requeued + dead > 0) {
+                leasesRecovered.addAndGet(requeued + dead);
+                jobsDeadLettered.addAndGet(dead);
+                logger.warn("Recovered {} jobs with expired leases ({} re-queued, {} dead-lettered)", requeued + dead, requeued, dead);
+            }
+        } catch (Exception e) {
+            logger.error("Error during job heartbeat: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Remove finished jobs past the retention period; dead-lettered jobs are kept for inspection
+     */
+    @Scheduled(cron = "0 15 3 * * *")
+    public void purgeFinishedJobs() {
+        try {
+            int removed = jobRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays));
+            if (removed > 0) {
+                logger.info("Removed {} finished jobs older than {} days", removed, retentionDays);
+            }
+        } catch (Exception e) {
+            logger.error("Error purging finished jobs: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Job counts by type and status, plus worker counters
+     */
+    public Map<String, Object> getQueueStats() {
+        Map<String, Map<String, Long>> byType = new LinkedHashMap<>();
+        for (Object[] row : jobRepository.countByTypeAndStatus()) {
+            byType.computeIfAbsent(String.valueOf(row[0]), type -> new LinkedHashMap<>())
+                  .put(String.valueOf(row[1]), (Long) row[2]);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("workerId", workerId);
+        stats.put("workers", workers);
+        stats.put("busyWorkers", started ? Math.max(1, workers) - workerPermits.availablePermits() : 0);
+        stats.put("scrapeConcurrency", scrapeConcurrency);
+        stats.put("runningScrapes", started ? Math.max(1, scrapeConcurrency) - scrapePermits.availablePermits() : 0);
+        stats.put("jobs", byType);
+        stats.put("jobsRun", jobsRun.get());
+        stats.put("jobsSucceeded", jobsSucceeded.get());
+        stats.put("jobsRetried", jobsRetried.get());
+        stats.put("jobsDeadLettered", jobsDeadLettered.get());
+        stats.put("leasesRecovered", leasesRecovered.get());
+        return stats;
+    }
+
+    /**
+     * Claim the first ready job of the given types whose slot can be taken; the slot is held until the job ends
+     */
+    private WorkJob leaseNext(List<JobType> runnableTypes) {
+        LocalDateTime now = LocalDateTime.now();
+        for (WorkJob candidate : jobRepository.findReady(now, runnableTypes, PageRequest.of(0, Math.max(1, workers) * 2))) {
+            Semaphore permits = permitsFor(candidate.getJobType());
+            if (!permits.tryAcquire()) {
+                continue;
+            }
+            if (jobRepository.claim(candidate.getId(), workerId, now.plusSeconds(leaseSeconds), now) > 0) {
+                candidate.setAttempts(candidate.getAttempts() + 1);
+                candidate.setStatus(JobStatus.RUNNING);
+                return candidate;
+            }
+            permits.release();
+        }
+        return null;
+    }
+
+    private Semaphore permitsFor(JobType jobType) {
+        return jobType == JobType.SCRAPE ? scrapePermits : workerPermits;
+    }
+
+    private void run(WorkJob job) {
+        jobsRun.incrementAndGet();
+        logger.debug("Running {} job {} for {} (attempt {})", job.getJobType(), job.getId(), job.getDomainName(), job.getAttempts());
+
+        CompletableFuture<?> work;
+        try {
+            work = handlers.get(job.getJobType()).handle(job);
+        } catch (Exception e) {
+            work = CompletableFuture.failedFuture(e);
+        }
+        if (work == null) {
+            work = CompletableFuture.completedFuture(null);
+        }
+
+        work.whenComplete((result, error) -> {
+            try {
+                if (error == null) {
+                    jobsSucceeded.incrementAndGet();
+                    jobRepository.finish(job.getId(), workerId, JobStatus.SUCCEEDED, null, LocalDateTime.now());
+                } else {
+                    fail(job, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                }
+            } catch (Exception e) {
+                logger.error("Could not record result of job {}: {}", job.getId(), e.getMessage());
+            } finally {
+                leasedJobs.remove(job.getId());
+                permitsFor(job.getJobType()).release();
+            }
+        });
+    }
+
+    private void fail(WorkJob job, Throwable error) {
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        LocalDateTime now = LocalDateTime.now();
+
+        if (error instanceof PermanentJobFailure || job.getAttempts() >= job.getMaxAttempts()) {
+            if (jobRepository.finish(job.getId(), workerId, JobStatus.DEAD, message, now) > 0) {
+                jobsDeadLettered.incrementAndGet();
+                logger.error("{} job {} for {} dead-lettered after {} attempt(s): {}",
+                           job.getJobType(), job.getId(), job.getDomainName(), job.getAttempts(), message);
+            }
+            return;
+        }
+
+        long delay = Math.min(maxBackoffMs, retryBackoffMs * (1L << Math.min(20, job.getAttempts() - 1)));
+        delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        if (jobRepository.retry(job.getId(), workerId, message, now.plusNanos(TimeUnit.MILLISECONDS.toNanos(delay)), now) > 0) {
+            jobsRetried.incrementAndGet();
+            logger.warn("{} job {} for {} failed (attempt {}), retrying in {} s: {}",
+                       job.getJobType(), job.getId(), job.getDomainName(), job.getAttempts(), delay / 1000, message);
+        }
+    }
+}
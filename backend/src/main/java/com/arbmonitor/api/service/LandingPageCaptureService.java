@@ -0,0 +1,698 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.config.HttpClientRegistry;
+import com.arbmonitor.api.model.LandingPageCacheEntry;
+import com.arbmonitor.api.repository.LandingPageCacheRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Single landing page capture stage: one navigation per URL produces the final URL, the readable
+ * text, the AFS iframe (#master-1) config with its RAC keyword, and a screenshot. Analysis, RAC
+ * extraction and screenshots all read from this artifact instead of fetching the page themselves.
+ * Captures are cached by normalized URL; a stale page is re-fetched, but its stored text is kept
+ * as long as the content fingerprint is unchanged so downstream verdicts stay cache hits.
+ */
+@Service
+public class LandingPageCaptureService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LandingPageCaptureService.class);
+
+    private static final String USER_AGENT =
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+
+    private static final int MAX_TEXT_LENGTH = 5000;
+
+    private static final Pattern SCRIPT_KW_PATTERN = Pattern.compile("\"kw\"\\s*:\\s*\"([^\"]+)\"");
+
+    // Click identifiers that never change the page served
+    private static final Set<String> TRACKING_PARAMETERS = Set.of("fbclid", "gclid", "msclkid", "ttclid", "_ga", "mc_cid", "mc_eid");
+
+    @Autowired
+    private BrowserSessionPool browserSessionPool;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.media.storage.path:./media}")
+    private String mediaStoragePath;
+
+    @Value("${app.landing.capture.browser-enabled:true}")
+    private boolean browserEnabled;
+
+    @Value("${app.landing.capture.afs-wait-ms:3000}")
+    private long afsWaitMs;
+
+    @Value("${app.landing.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${app.landing.cache.fresh-minutes:360}")
+    private long freshMinutes;
+
+    @Value("${app.landing.cache.retention-days:30}")
+    private int retentionDays;
+
+    @Autowired
+    private LandingPageCacheRepository cacheRepository;
+
+    @Autowired
+    private HttpClientRegistry httpClientRegistry;
+
+    // Plain GET fallback when no browser is available
+    private RestTemplate httpTemplate;
+
+    // In-flight captures by normalized URL, so concurrent consumers share one navigation
+    private final Map<String, CompletableFuture<LandingPageCapture>> inFlight = new ConcurrentHashMap<>();
+
+    // Counters since application start
+    private final AtomicLong browserCaptures = new AtomicLong();
+    private final AtomicLong httpCaptures = new AtomicLong();
+    private final AtomicLong failedCaptures = new AtomicLong();
+    private final AtomicLong reusedCaptures = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong unchangedRefetches = new AtomicLong();
+    private final AtomicLong changedRefetches = new AtomicLong();
+
+    /**
+     * Capture result for one landing page URL
+     */
+    public static class LandingPageCapture {
+        private final String requestedUrl;
+        private String finalUrl;
+        private String textContent;
+        private String afsConfig;
+        private String racKeyword;
+        private String screenshotPath;
+        private String captureMethod;
+        private boolean success;
+        private String fingerprint;
+        private boolean fromCache;
+        private boolean contentChanged = true;
+        private LocalDateTime capturedAt = LocalDateTime.now();
+
+        public LandingPageCapture(String requestedUrl) {
+            this.requestedUrl = requestedUrl;
+            this.finalUrl = requestedUrl;
+        }
+
+        public String getRequestedUrl() { return requestedUrl; }
+        public String getFinalUrl() { return finalUrl; }
+        public String getTextContent() { return textContent; }
+        public String getAfsConfig() { return afsConfig; }
+        public String getRacKeyword() { return racKeyword; }
+        public String getScreenshotPath() { return screenshotPath; }
+        public String getCaptureMethod() { return captureMethod; }
+        public boolean isSuccess() { return success; }
+        public LocalDateTime getCapturedAt() { return capturedAt; }
+        public String getFingerprint() { return fingerprint; }
+        /** Served from the landing page cache without a fetch */
+        public boolean isFromCache() { return fromCache; }
+        /** False when a re-fetch produced the same fingerprint as the stored capture */
+        public boolean isContentChanged() { return contentChanged; }
+    }
+
+    /**
+     * Capture a landing page, or return the stored capture of the same normalized URL while it is fresh.
+     * Concurrent consumers of one URL share a single navigation. The text content always holds a
+     * readable value, describing the failure if the page could not be loaded.
+     */
+    public LandingPageCapture capture(String landingPageUrl, String adId) {
+        if (landingPageUrl == null || landingPageUrl.trim().isEmpty()) {
+            LandingPageCapture empty = new LandingPageCapture(landingPageUrl);
+            empty.textContent = "No landing page URL provided";
+            return empty;
+        }
+
+        String cleanUrl = cleanUrlTemplateVariables(landingPageUrl);
+        String normalizedUrl = normalizeUrl(cleanUrl);
+        CompletableFuture<LandingPageCapture> mine = new CompletableFuture<>();
+        CompletableFuture<LandingPageCapture> existing = inFlight.putIfAbsent(normalizedUrl, mine);
+
+        if (existing != null) {
+            reusedCaptures.incrementAndGet();
+            logger.debug("Joining in-flight landing page capture for {}", normalizedUrl);
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                return capture(landingPageUrl, adId);
+            }
+        }
+
+        try {
+            LandingPageCapture capture = captureCached(cleanUrl, normalizedUrl, adId);
+            mine.complete(capture);
+            return capture;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(normalizedUrl, mine);
+        }
+    }
+
+    /**
+     * Capture counters by method, cache outcome, and consumers that joined an in-flight capture
+     */
+    public Map<String, Object> getCaptureStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("browserCaptures", browserCaptures.get());
+        stats.put("httpCaptures", httpCaptures.get());
+        stats.put("failedCaptures", failedCaptures.get());
+        stats.put("reusedCaptures", reusedCaptures.get());
+        stats.put("inFlightCaptures", inFlight.size());
+        stats.put("cacheEnabled", cacheEnabled);
+        stats.put("cacheHits", cacheHits.get());
+        stats.put("unchangedRefetches", unchangedRefetches.get());
+        stats.put("changedRefetches", changedRefetches.get());
+        stats.put("cachedPages", cacheRepository.count());
+        stats.put("lifetimeCacheHits", cacheRepository.getTotalHits());
+        stats.put("freshMinutes", freshMinutes);
+        return stats;
+    }
+
+    /**
+     * Drop pages that have not been requested for longer than the retention period
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    public void evictStalePages() {
+        try {
+            int removed = cacheRepository.deleteCheckedBefore(LocalDateTime.now().minusDays(retentionDays));
+            if (removed > 0) {
+                logger.info("Removed {} landing page cache entries older than {} days", removed, retentionDays);
+            }
+        } catch (Exception e) {
+            logger.error("Error evicting landing page cache: {}", e.getMessage());
+        }
+    }
+
+    private LandingPageCapture captureCached(String cleanUrl, String normalizedUrl, String adId) {
+        if (!cacheEnabled) {
+            return doCapture(cleanUrl, adId);
+        }
+
+        String urlHash = sha256(normalizedUrl);
+        Optional<LandingPageCacheEntry> cached = Optional.empty();
+        try {
+            cached = cacheRepository.findByUrlHash(urlHash);
+        } catch (Exception e) {
+            logger.warn("Landing page cache lookup failed for {}: {}", normalizedUrl, e.getMessage());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (cached.isPresent() && cached.get().getCheckedAt().isAfter(now.minusMinutes(freshMinutes))) {
+            cacheHits.incrementAndGet();
+            cacheRepository.recordHit(cached.get().getId());
+            logger.debug("Landing page cache hit for {}", normalizedUrl);
+            return fromEntry(cleanUrl, cached.get(), false);
+        }
+
+        LandingPageCapture capture = doCapture(cleanUrl, adId);
+        if (!capture.success) {
+            // Serve the last good capture rather than an error page when the site is briefly unavailable
+            return cached.map(entry -> fromEntry(cleanUrl, entry, false)).orElse(capture);
+        }
+
+        capture.fingerprint = fingerprint(capture.textContent);
+        LandingPageCacheEntry entry = cached.orElseGet(() -> new LandingPageCacheEntry(urlHash, normalizedUrl));
+        boolean unchanged = cached.isPresent() && capture.fingerprint.equals(entry.getFingerprint());
+
+        if (unchanged) {
+            unchangedRefetches.incrementAndGet();
+            logger.debug("Landing page {} unchanged since {}", normalizedUrl, entry.getChangedAt());
+            if (capture.screenshotPath != null) {
+                entry.setScreenshotPath(capture.screenshotPath);
+            }
+            entry.setCheckedAt(now);
+            saveEntry(entry);
+            // Stored text, not the re-fetched one, so prompts built from it are byte-identical
+            LandingPageCapture stored = fromEntry(cleanUrl, entry, false);
+            stored.fromCache = false;
+            return stored;
+        }
+
+        if (cached.isPresent()) {
+            changedRefetches.incrementAndGet();
+            entry.setChangeCount(entry.getChangeCount() + 1);
+            logger.info("Landing page {} changed, its analysis will run again", normalizedUrl);
+        }
+        entry.setFinalUrl(capture.finalUrl);
+        entry.setTextContent(capture.textContent);
+        entry.setAfsConfig(capture.afsConfig);
+        entry.setRacKeyword(capture.racKeyword);
+        entry.setScreenshotPath(capture.screenshotPath);
+        entry.setCaptureMethod(capture.captureMethod);
+        entry.setFingerprint(capture.fingerprint);
+        entry.setFetchedAt(now);
+        entry.setCheckedAt(now);
+        entry.setChangedAt(now);
+        saveEntry(entry);
+        return capture;
+    }
+
+    private LandingPageCapture fromEntry(String requestedUrl, LandingPageCacheEntry entry, boolean contentChanged) {
+        LandingPageCapture capture = new LandingPageCapture(requestedUrl);
+        capture.finalUrl = entry.getFinalUrl() != null ? entry.getFinalUrl() : requestedUrl;
+        capture.textContent = entry.getTextContent();
+        capture.afsConfig = entry.getAfsConfig();
+        capture.racKeyword = entry.getRacKeyword();
+        capture.screenshotPath = entry.getScreenshotPath();
+        capture.captureMethod = entry.getCaptureMethod();
+        capture.success = true;
+        capture.fingerprint = entry.getFingerprint();
+        capture.fromCache = true;
+        capture.contentChanged = contentChanged;
+        capture.capturedAt = entry.getFetchedAt();
+        return capture;
+    }
+
+    private void saveEntry(LandingPageCacheEntry entry) {
+        try {
+            cacheRepository.save(entry);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Landing page already cached by another instance: {}", entry.getNormalizedUrl());
+        } catch (Exception e) {
+            logger.warn("Could not cache landing page {}: {}", entry.getNormalizedUrl(), e.getMessage());
+        }
+    }
+
+    /**
+     * Cache key form of a URL: lower-case scheme and host, no fragment, no click/utm tracking
+     * parameters, remaining parameters sorted
+     */
+    private String normalizeUrl(String url) {
+        try {
+            URI uri = URI.create(url.trim());
+            String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "https";
+            String host = uri.getHost() != null ? uri.getHost().toLowerCase() : "";
+            String port = uri.getPort() > 0 ? ":" + uri.getPort() : "";
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+
+            String query = "";
+            if (uri.getRawQuery() != null) {
+                query = Arrays.stream(uri.getRawQuery().split("&"))
+                    .filter(param -> !param.isEmpty() && !isTrackingParameter(param))
+                    .sorted()
+                    .collect(Collectors.joining("&"));
+            }
+            return scheme + "://" + host + port + path + (query.isEmpty() ? "" : "?" + query);
+        } catch (Exception e) {
+            return url.trim();
+        }
+    }
+
+    private boolean isTrackingParameter(String param) {
+        String name = param.split("=", 2)[0].toLowerCase();
+        return name.startsWith("utm_") || TRACKING_PARAMETERS.contains(name);
+    }
+
+    /**
+     * SHA-256 of the text with case and whitespace normalized. Digits are kept: a changed price,
+     * dosage or date can change the compliance verdict, so it must count as a change.
+     */
+    private String fingerprint(String text) {
+        String normalized = text == null ? "" : text.toLowerCase()
+            .replaceAll("\\s+", " ")
+            .trim();
+        return sha256(normalized);
+    }
+
+    private String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private LandingPageCapture doCapture(String cleanUrl, String adId) {
+        LandingPageCapture capture = new LandingPageCapture(cleanUrl);
+
+        if (browserEnabled) {
+            try {
+                captureWithBrowser(capture, adId);
+                browserCaptures.incrementAndGet();
+                return capture;
+            } catch (Exception e) {
+                logger.warn("Browser capture failed for {}, falling back to HTTP: {}", cleanUrl, e.getMessage());
+            }
+        }
+
+        captureWithHttp(capture);
+        if (capture.success) {
+            httpCaptures.incrementAndGet();
+        } else {
+            failedCaptures.incrementAndGet();
+        }
+        return capture;
+    }
+
+    /**
+     * One navigation in a pooled browser: rendered DOM, AFS config and screenshot
+     */
+    private void captureWithBrowser(LandingPageCapture capture, String adId) throws Exception {
+        browserSessionPool.execute(driver -> {
+            driver.manage().window().setSize(new Dimension(1200, 800)); // Standard desktop size
+            driver.get(capture.requestedUrl);
+            browserSessionPool.waitForPageReady(driver, Duration.ofSeconds(10));
+            waitForAfsIframe(driver);
+
+            capture.finalUrl = driver.getCurrentUrl();
+            String html = (String) ((JavascriptExecutor) driver).executeScript(
+                "return document.documentElement.outerHTML;");
+            applyHtml(capture, html);
+            capture.captureMethod = "BROWSER";
+            capture.success = true;
+
+            try {
+                File screenshotFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
+                capture.screenshotPath = storeScreenshot(screenshotFile, capture.finalUrl, adId);
+            } catch (Exception e) {
+                logger.warn("Failed to capture screenshot for URL: {} - {}", capture.requestedUrl, e.getMessage());
+            }
+            return null;
+        });
+        logger.info("Captured landing page {} ({} characters, RAC: {})",
+                   capture.requestedUrl, capture.textContent.length(), capture.racKeyword);
+    }
+
+    /**
+     * Give AFS ad units a short time to write their config into the #master-1 iframe name
+     */
+    private void waitForAfsIframe(WebDriver driver) {
+        if (afsWaitMs <= 0) {
+            return;
+        }
+        try {
+            new WebDriverWait(driver, Duration.ofMillis(afsWaitMs)).until(d -> Boolean.TRUE.equals(
+                ((JavascriptExecutor) d).executeScript(
+                    "return Array.from(document.querySelectorAll('iframe'))" +
+                    ".some(function(f) { return f.name && f.name.indexOf('kw') >= 0; });")));
+        } catch (Exception e) {
+            logger.debug("No AFS iframe data on page, continuing");
+        }
+    }
+
+    /**
+     * Single plain GET when no browser is available; no screenshot and no JavaScript-populated iframes
+     */
+    private void captureWithHttp(LandingPageCapture capture) {
+        String url = capture.requestedUrl;
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("User-Agent", USER_AGENT);
+            headers.set("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
+            headers.set("Accept-Language", "en-US,en;q=0.5");
+            headers.set("DNT", "1");
+            headers.set("Connection", "keep-alive");
+            headers.set("Upgrade-Insecure-Requests", "1");
+
+            ResponseEntity<String> response = httpTemplate.exchange(
+                URI.create(url), HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+            String html = response.getBody();
+            if (html == null || html.trim().isEmpty()) {
+                capture.textContent = "Landing page returned empty content";
+                return;
+            }
+            applyHtml(capture, html);
+            capture.captureMethod = "HTTP";
+            capture.success = true;
+            logger.info("Fetched landing page {} over HTTP ({} characters)", url, capture.textContent.length());
+
+        } catch (HttpClientErrorException e) {
+            logger.warn("HTTP error scraping landing page {}: {} - {}", url, e.getStatusCode(), e.getMessage());
+            capture.textContent = "Landing page not accessible: " + e.getStatusCode() + " " + e.getMessage();
+        } catch (Exception e) {
+            logger.error("Error scraping landing page {}: {}", url, e.getMessage());
+            capture.textContent = "Failed to scrape landing page: " + e.getMessage();
+        }
+    }
+
+    private void applyHtml(LandingPageCapture capture, String html) {
+        String text = extractTextFromHtml(html);
+        if (text == null || text.trim().isEmpty()) {
+            text = "No readable text content found on landing page";
+        } else if (text.length() > MAX_TEXT_LENGTH) {
+            // Limit content length to avoid overwhelming the analysis
+            text = text.substring(0, MAX_TEXT_LENGTH) + "... [content truncated]";
+        }
+        capture.textContent = text;
+
+        try {
+            extractAfsConfig(capture, Jsoup.parse(html));
+        } catch (Exception e) {
+            logger.debug("Error extracting AFS config from {}: {}", capture.requestedUrl, e.getMessage());
+        }
+    }
+
+    /**
+     * Read the AFS config from the iframe name, based on:
+     * JSON.parse(document.querySelector("#master-1").name)["master-1"].kw
+     */
+    private void extractAfsConfig(LandingPageCapture capture, Document doc) {
+        Element master = doc.selectFirst("iframe#master-1");
+        if (master != null && applyAfsConfig(capture, master.attr("name"))) {
+            return;
+        }
+
+        for (Element iframe : doc.select("iframe[id*='master'], iframe[id*='google'], iframe[id*='ads'], iframe[name*='kw']")) {
+            if (applyAfsConfig(capture, iframe.attr("name"))) {
+                return;
+            }
+        }
+
+        // Config still embedded in a script tag (not rendered, or fetched without a browser)
+        for (Element script : doc.select("script")) {
+            String scriptContent = script.html();
+            if (scriptContent.contains("master-1") && scriptContent.contains("kw")) {
+                Matcher matcher = SCRIPT_KW_PATTERN.matcher(scriptContent);
+                if (matcher.find()) {
+                    capture.racKeyword = matcher.group(1);
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean applyAfsConfig(LandingPageCapture capture, String iframeName) {
+        if (iframeName == null || iframeName.trim().isEmpty()) {
+            return false;
+        }
+        try {
+            JsonNode config = objectMapper.readTree(iframeName);
+            JsonNode kw = config.has("master-1") ? config.path("master-1").path("kw") : config.path("kw");
+            if (kw.isMissingNode()) {
+                for (JsonNode child : config) {
+                    if (child.has("kw")) {
+                        kw = child.get("kw");
+                        break;
+                    }
+                }
+            }
+            if (kw.isMissingNode() || kw.asText().trim().isEmpty()) {
+                return false;
+            }
+            capture.afsConfig = iframeName;
+            capture.racKeyword = kw.asText();
+            return true;
+        } catch (Exception e) {
+            logger.debug("Could not parse iframe name as JSON: {}", iframeName);
+            return false;
+        }
+    }
+
+    /**
+     * Move a captured screenshot into the media storage directory
+     * @return The relative path of the stored screenshot or null if failed
+     */
+    private String storeScreenshot(File screenshotFile, String pageUrl, String adId) throws IOException {
+        String domainName = extractDomainFromUrl(pageUrl);
+        String dateStr = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        Path screenshotDir = Paths.get(mediaStoragePath, "screenshots", domainName, dateStr);
+        Files.createDirectories(screenshotDir);
+
+        String baseName = adId != null ? adId : Integer.toHexString(pageUrl.hashCode());
+        String filename = String.format("%s_landing_page.png", baseName);
+        Files.move(screenshotFile.toPath(), screenshotDir.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+
+        String relativePath = String.format("screenshots/%s/%s/%s", domainName, dateStr, filename);
+        logger.info("Screenshot captured successfully: {}", relativePath);
+        return relativePath;
+    }
+
+    /**
+     * Clean URL by removing template variables like {{campaign.id}}
+     */
+    private String cleanUrlTemplateVariables(String url) {
+        try {
+            // Split URL into base and query parameters
+            String[] urlParts = url.split("\\?", 2);
+            if (urlParts.length == 2) {
+                StringBuilder cleanParams = new StringBuilder();
+                for (String param : urlParts[1].split("&")) {
+                    // Skip parameters that contain template variables
+                    if (!param.contains("{{") && !param.contains("}}")) {
+                        if (cleanParams.length() > 0) {
+                            cleanParams.append("&");
+                        }
+                        cleanParams.append(param);
+                    }
+                }
+                return cleanParams.length() > 0 ? urlParts[0] + "?" + cleanParams : urlParts[0];
+            }
+            return url; // No query parameters
+        } catch (Exception e) {
+            logger.warn("Error cleaning URL template variables from {}: {}", url, e.getMessage());
+            return url.replaceAll("\\{\\{[^}]+\\}\\}", "placeholder");
+        }
+    }
+
+    /**
+     * Extract domain name from URL for directory organization
+     */
+    private String extractDomainFromUrl(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            // Remove 'www.' prefix if present
+            return host.startsWith("www.") ? host.substring(4) : host;
+        } catch (Exception e) {
+            logger.warn("Failed to extract domain from URL: {}", url);
+            return "unknown";
+        }
+    }
+
+    /**
+     * Extract readable text content from HTML
+     */
+    private String extractTextFromHtml(String htmlContent) {
+        if (htmlContent == null) return null;
+
+        try {
+            // Check if content appears to be binary/corrupted
+            if (containsBinaryData(htmlContent)) {
+                logger.warn("HTML content appears to be binary or corrupted, attempting to decode");
+                return "Content appears to be binary or corrupted - unable to extract readable text";
+            }
+
+            // Enhanced HTML tag removal and text extraction
+            String text = htmlContent
+                // Remove script and style content (case insensitive, multiline)
+                .replaceAll("(?is)<script[^>]*>.*?</script>", "")
+                .replaceAll("(?is)<style[^>]*>.*?</style>", "")
+                // Remove HTML comments
+                .replaceAll("<!--.*?-->", "")
+                // Remove common non-content tags
+                .replaceAll("(?is)<head[^>]*>.*?</head>", "")
+                .replaceAll("(?is)<nav[^>]*>.*?</nav>", "")
+                .replaceAll("(?is)<footer[^>]*>.*?</footer>", "")
+                // Remove HTML tags but preserve line breaks
+                .replaceAll("<br[^>]*>", "\n")
+                .replaceAll("<p[^>]*>", "\n")
+                .replaceAll("</p>", "\n")
+                .replaceAll("<div[^>]*>", "\n")
+                .replaceAll("</div>", "\n")
+                .replaceAll("<[^>]+>", " ")
+                // Decode HTML entities
+                .replace("&nbsp;", " ")
+                .replace("&amp;", "&")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&#39;", "'")
+                .replace("&apos;", "'")
+                .replace("&copy;", "©")
+                .replace("&reg;", "®")
+                .replace("&trade;", "™")
+                // Clean up whitespace but preserve paragraph breaks
+                .replaceAll("[ \\t]+", " ")  // Multiple spaces/tabs to single space
+                .replaceAll("\\n\\s*\\n", "\n\n")  // Multiple newlines to double newline
+                .replaceAll("^\\s+|\\s+$", "")  // Trim start/end
+                .trim();
+
+            // Filter out very short or suspicious content
+            if (text.length() < 10) {
+                return "Extracted text too short - may indicate parsing issues";
+            }
+
+            return text;
+
+        } catch (Exception e) {
+            logger.warn("Error extracting text from HTML: {}", e.getMessage());
+            return "Failed to extract text from HTML content: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Check if content contains binary data or is corrupted
+     */
+    private boolean containsBinaryData(String content) {
+        if (content == null || content.length() < 100) return false;
+
+        // Count non-printable characters
+        long nonPrintableCount = content.chars()
+            .filter(c -> c < 32 && c != 9 && c != 10 && c != 13)  // Exclude tab, LF, CR
+            .count();
+
+        // If more than 10% of characters are non-printable, likely binary
+        return (nonPrintableCount * 100.0 / content.length()) > 10;
+    }
+
+    @PostConstruct
+    public void initHttpTemplate() {
+        httpTemplate = httpClientRegistry.restTemplate(HttpClientRegistry.LANDING);
+        httpTemplate.getMessageConverters().add(0, new StringHttpMessageConverter(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,171 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.config.IoExecutorRegistry;
+import com.arbmonitor.api.model.ScrapedAd;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Download stage for ad media: the bounded "media" I/O executor with a per-host connection limit and
+ * retry with exponential backoff, so parsing and persisting ads never wait on CDN transfers.
+ */
+@Service
+public class MediaDownloadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaDownloadService.class);
+
+    @Autowired
+    private MediaStorageService mediaStorageService;
+
+    @Value("${app.media.download.max-per-host:4}")
+    private int maxPerHost;
+
+    @Value("${app.media.download.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.media.download.backoff-ms:500}")
+    private long backoffMs;
+
+    @Autowired
+    private IoExecutorRegistry ioExecutorRegistry;
+
+    private Executor downloadExecutor;
+
+    // One permit per running or queued download, so a full stage blocks the submitter instead of rejecting
+    private Semaphore submissionPermits;
+
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initExecutor() {
+        IoExecutorRegistry.IoExecutor executor = ioExecutorRegistry.executor(IoExecutorRegistry.MEDIA);
+        downloadExecutor = executor;
+        submissionPermits = new Semaphore(Math.max(1, executor.getMaxConcurrent() + executor.getQueueCapacity()));
+        logger.info("Media download stage started (concurrent downloads: {}, per-host limit: {}, attempts: {})",
+                   executor.getMaxConcurrent(), maxPerHost, maxAttempts);
+    }
+
+    /**
+     * Download all images and videos of an ad in the background. The returned future completes with the
+     * same ad once its local paths are set, in the order of the source URLs; failed downloads are left out.
+     * Blocks while the download stage is full, and fails if a download could not be submitted at all.
+     */
+    public CompletableFuture<ScrapedAd> downloadMediaForAd(ScrapedAd ad) {
+        List<CompletableFuture<String>> images = submitAll(ad.getImageUrls(), ad, false);
+        List<CompletableFuture<String>> videos = submitAll(ad.getVideoUrls(), ad, true);
+
+        List<CompletableFuture<String>> all = new ArrayList<>(images);
+        all.addAll(videos);
+
+        return CompletableFuture.allOf(all.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            if (!images.isEmpty()) {
+                ad.setLocalImagePaths(collectPaths(images));
+            }
+            if (!videos.isEmpty()) {
+                ad.setLocalVideoPaths(collectPaths(videos));
+            }
+            return ad;
+        });
+    }
+
+    private List<CompletableFuture<String>> submitAll(List<String> urls, ScrapedAd ad, boolean video) {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        if (urls == null) {
+            return futures;
+        }
+        for (String url : urls) {
+            if (url == null || url.isBlank()) {
+                continue;
+            }
+            try {
+                submissionPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.add(CompletableFuture.failedFuture(e));
+                break;
+            }
+            try {
+                futures.add(CompletableFuture.supplyAsync(
+                    () -> downloadWithRetry(url, ad.getDomainName(), ad.getMetaAdId(), video), downloadExecutor)
+                    .whenComplete((path, error) -> submissionPermits.release()));
+            } catch (RejectedExecutionException e) {
+                // Only when the executor is shutting down; fail the ad so its downloads are retried later
+                submissionPermits.release();
+                logger.warn("Media download rejected for ad {}: {}", ad.getMetaAdId(), e.getMessage());
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        return futures;
+    }
+
+    private List<String> collectPaths(List<CompletableFuture<String>> futures) {
+        return futures.stream()
+            .map(CompletableFuture::join)
+            .filter(Objects::nonNull)
+            .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+    }
+
+    private String downloadWithRetry(String url, String domainName, String adId, boolean video) {
+        Semaphore permits = hostPermits.computeIfAbsent(hostOf(url), host -> new Semaphore(Math.max(1, maxPerHost)));
+
+        for (int attempt = 1; attempt <= Math.max(1, maxAttempts); attempt++) {
+            try {
+                permits.acquire();
+                try {
+                    return video
+                        ? mediaStorageService.storeVideo(url, domainName, adId)
+                        : mediaStorageService.storeImage(url, domainName, adId);
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception e) {
+                boolean retryable = !(e instanceof MediaStorageService.HttpStatusException status) || status.isRetryable();
+                if (!retryable || attempt >= maxAttempts) {
+                    logger.error("Failed to download {} for ad {} after {} attempt(s): {}",
+                               video ? "video" : "image", adId, attempt, e.getMessage());
+                    return null;
+                }
+
+                long delay = backoffMs * (1L << (attempt - 1));
+                delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+                logger.debug("Retrying download of {} in {} ms (attempt {}): {}", url, delay, attempt, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase() : "";
+        } catch (Exception e) {
+            return "";
+        }
+    }
+}
@@ -1,19 +1,45 @@
 package com.arbmonitor.api.service;
 
+import com.arbmonitor.api.config.HttpClientRegistry;
+import com.arbmonitor.api.model.MediaBlob;
+import com.arbmonitor.api.model.MediaUrlMapping;
+import com.arbmonitor.api.repository.MediaBlobRepository;
+import com.arbmonitor.api.repository.MediaUrlMappingRepository;
+import com.arbmonitor.api.repository.ScrapedAdRepository;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpHead;
+import org.apache.hc.core5.http.Header;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 @Service
 public class MediaStorageService {
@@ -23,7 +49,32 @@ public class MediaStorageService {
     @Value("${app.media.storage.path:./media}")
     private String mediaStoragePath;
     
-    // RestTemplate removed - not currently used but may be needed for future media downloading features
+    @Value("${app.media.store.content-addressed:true}")
+    private boolean contentAddressed;
+    
+    @Value("${app.media.store.etag-lookup:false}")
+    private boolean etagLookup;
+    
+    @Autowired
+    private HttpClientRegistry httpClientRegistry;
+    
+    @Autowired
+    private MediaBlobRepository mediaBlobRepository;
+    
+    @Autowired
+    private MediaUrlMappingRepository urlMappingRepository;
+    
+    @Autowired
+    private ScrapedAdRepository scrapedAdRepository;
+    
+    // Content-addressed files live in media/{images|videos}/_cas/{first two hex chars}/{sha256}.{ext}
+    private static final String CAS_FOLDER = "_cas";
+    
+    // Counters since application start
+    private final AtomicLong urlIndexHits = new AtomicLong();
+    private final AtomicLong etagHits = new AtomicLong();
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong duplicateDownloads = new AtomicLong();
     
     /**
      * Download and store an image file locally
@@ -38,31 +89,39 @@ public class MediaStorageService {
         }
         
         try {
-            // Create directory structure: media/images/domain/YYYY-MM-DD/
-            String dateFolder = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            Path imageDir = Paths.get(mediaStoragePath, "images", sanitizeDomainName(domainName), dateFolder);
-            Files.createDirectories(imageDir);
-            
-            // Generate unique filename
-            String fileExtension = getFileExtension(imageUrl);
-            String fileName = String.format("%s_%s.%s", adId, UUID.randomUUID().toString().substring(0, 8), fileExtension);
-            Path filePath = imageDir.resolve(fileName);
-            
-            // Download the image
-            logger.info("Downloading image: {} -> {}", imageUrl, filePath);
-            
-            try (InputStream inputStream = new URL(imageUrl).openStream()) {
-                Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
-                logger.info("Successfully downloaded image: {}", filePath);
-                return filePath.toString();
-            }
-            
+            return storeImage(imageUrl, domainName, adId);
         } catch (Exception e) {
             logger.error("Failed to download image from {}: {}", imageUrl, e.getMessage());
             return null;
         }
     }
     
+    /**
+     * Same as {@link #downloadAndStoreImage}, but failures are thrown so callers can decide to retry
+     */
+    public String storeImage(String imageUrl, String domainName, String adId) throws IOException {
+        if (contentAddressed) {
+            return storeContentAddressed(imageUrl, MediaBlob.MediaKind.IMAGE, "images", getFileExtension(imageUrl));
+        }
+        
+        // Create directory structure: media/images/domain/YYYY-MM-DD/
+        String dateFolder = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        Path imageDir = Paths.get(mediaStoragePath, "images", sanitizeDomainName(domainName), dateFolder);
+        Files.createDirectories(imageDir);
+        
+        // Generate unique filename
+        String fileExtension = getFileExtension(imageUrl);
+        String fileName = String.format("%s_%s.%s", adId, UUID.randomUUID().toString().substring(0, 8), fileExtension);
+        Path filePath = imageDir.resolve(fileName);
+        
+        // Download the image
+        logger.info("Downloading image: {} -> {}", imageUrl, filePath);
+        
+        download(imageUrl, filePath);
+        logger.info("Successfully downloaded image: {}", filePath);
+        return filePath.toString();
+    }
+    
     /**
      * Download and store a video file locally
      * @param videoUrl The URL of the video to download
@@ -76,34 +135,261 @@ public class MediaStorageService {
         }
         
         try {
-            // Create directory structure: media/videos/domain/YYYY-MM-DD/
-            String dateFolder = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            Path videoDir = Paths.get(mediaStoragePath, "videos", sanitizeDomainName(domainName), dateFolder);
-            Files.createDirectories(videoDir);
-            
-            // Generate unique filename
-            String fileExtension = getFileExtension(videoUrl);
-            if (fileExtension.isEmpty()) {
-                fileExtension = "mp4"; // Default for videos
+            return storeVideo(videoUrl, domainName, adId);
+        } catch (Exception e) {
+            logger.error("Failed to download video from {}: {}", videoUrl, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Same as {@link #downloadAndStoreVideo}, but failures are thrown so callers can decide to retry
+     */
+    public String storeVideo(String videoUrl, String domainName, String adId) throws IOException {
+        String fileExtension = getFileExtension(videoUrl);
+        if (fileExtension.isEmpty()) {
+            fileExtension = "mp4"; // Default for videos
+        }
+        if (contentAddressed) {
+            return storeContentAddressed(videoUrl, MediaBlob.MediaKind.VIDEO, "videos", fileExtension);
+        }
+        
+        // Create directory structure: media/videos/domain/YYYY-MM-DD/
+        String dateFolder = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        Path videoDir = Paths.get(mediaStoragePath, "videos", sanitizeDomainName(domainName), dateFolder);
+        Files.createDirectories(videoDir);
+        
+        // Generate unique filename
+        String fileName = String.format("%s_%s.%s", adId, UUID.randomUUID().toString().substring(0, 8), fileExtension);
+        Path filePath = videoDir.resolve(fileName);
+        
+        // Download the video
+        logger.info("Downloading video: {} -> {}", videoUrl, filePath);
+        
+        download(videoUrl, filePath);
+        logger.info("Successfully downloaded video: {}", filePath);
+        return filePath.toString();
+    }
+    
+    /**
+     * Store a URL once per distinct content. Known URLs (and, if enabled, known ETags) are resolved
+     * without downloading; otherwise the bytes are hashed while downloading and an existing blob with
+     * the same hash is reused instead of keeping a second copy.
+     */
+    private String storeContentAddressed(String url, MediaBlob.MediaKind kind, String typeFolder,
+                                         String fileExtension) throws IOException {
+        String normalizedUrl = normalizeUrl(url);
+        String urlHash = sha256(normalizedUrl.getBytes(StandardCharsets.UTF_8));
+        
+        Optional<MediaUrlMapping> mapping = urlMappingRepository.findByUrlHash(urlHash);
+        if (mapping.isPresent()) {
+            Optional<MediaBlob> blob = findStoredBlob(mapping.get().getSha256());
+            if (blob.isPresent()) {
+                urlMappingRepository.touch(mapping.get().getId(), LocalDateTime.now());
+                urlIndexHits.incrementAndGet();
+                logger.debug("Media URL already stored as {}: {}", blob.get().getSha256(), url);
+                return blob.get().getLocalPath();
             }
-            String fileName = String.format("%s_%s.%s", adId, UUID.randomUUID().toString().substring(0, 8), fileExtension);
-            Path filePath = videoDir.resolve(fileName);
-            
-            // Download the video
-            logger.info("Downloading video: {} -> {}", videoUrl, filePath);
-            
-            try (InputStream inputStream = new URL(videoUrl).openStream()) {
-                Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
-                logger.info("Successfully downloaded video: {}", filePath);
-                return filePath.toString();
+        }
+        
+        if (etagLookup) {
+            String etag = fetchEtag(url);
+            Optional<MediaBlob> blob = etag != null ? mediaBlobRepository.findFirstByEtag(etag) : Optional.empty();
+            if (blob.isPresent() && Files.exists(Paths.get(blob.get().getLocalPath()))) {
+                mediaBlobRepository.touch(blob.get().getId(), LocalDateTime.now());
+                rememberUrl(urlHash, normalizedUrl, blob.get().getSha256());
+                etagHits.incrementAndGet();
+                return blob.get().getLocalPath();
+            }
+        }
+        
+        Path casDir = Paths.get(mediaStoragePath, typeFolder, CAS_FOLDER);
+        Path tempDir = casDir.resolve("tmp");
+        Files.createDirectories(tempDir);
+        Path tempFile = Files.createTempFile(tempDir, "download-", ".part");
+        
+        logger.info("Downloading {}: {}", typeFolder, url);
+        DownloadResult result = download(url, tempFile);
+        downloads.incrementAndGet();
+        
+        Optional<MediaBlob> existing = findStoredBlob(result.sha256);
+        if (existing.isPresent()) {
+            Files.deleteIfExists(tempFile);
+            duplicateDownloads.incrementAndGet();
+            rememberUrl(urlHash, normalizedUrl, result.sha256);
+            logger.info("Downloaded {} is identical to stored blob {}", typeFolder, result.sha256);
+            return existing.get().getLocalPath();
+        }
+        
+        Path target = casDir.resolve(result.sha256.substring(0, 2)).resolve(result.sha256 + "." + fileExtension);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        
+        String localPath = saveBlob(result, kind, target.toString());
+        rememberUrl(urlHash, normalizedUrl, result.sha256);
+        logger.info("Successfully stored {} as {}", typeFolder, localPath);
+        return localPath;
+    }
+    
+    /**
+     * Blob with the given hash whose file is still on disk; a row whose file vanished is dropped
+     */
+    private Optional<MediaBlob> findStoredBlob(String sha256) {
+        Optional<MediaBlob> blob = mediaBlobRepository.findBySha256(sha256);
+        if (blob.isEmpty()) {
+            return blob;
+        }
+        if (!Files.exists(Paths.get(blob.get().getLocalPath()))) {
+            logger.warn("Media blob {} is missing on disk, it will be downloaded again", sha256);
+            urlMappingRepository.deleteBySha256(sha256);
+            mediaBlobRepository.delete(blob.get());
+            return Optional.empty();
+        }
+        mediaBlobRepository.touch(blob.get().getId(), LocalDateTime.now());
+        return blob;
+    }
+    
+    private String saveBlob(DownloadResult result, MediaBlob.MediaKind kind, String localPath) {
+        try {
+            mediaBlobRepository.save(new MediaBlob(result.sha256, kind, localPath, result.sizeBytes, result.etag));
+            return localPath;
+        } catch (DataIntegrityViolationException e) {
+            // Another download of the same content won the race; both files hold identical bytes
+            return mediaBlobRepository.findBySha256(result.sha256).map(MediaBlob::getLocalPath).orElse(localPath);
+        }
+    }
+    
+    private void rememberUrl(String urlHash, String normalizedUrl, String sha256) {
+        try {
+            Optional<MediaUrlMapping> mapping = urlMappingRepository.findByUrlHash(urlHash);
+            if (mapping.isPresent()) {
+                MediaUrlMapping existing = mapping.get();
+                existing.setSha256(sha256);
+                existing.setLastSeenAt(LocalDateTime.now());
+                urlMappingRepository.save(existing);
+            } else {
+                urlMappingRepository.save(new MediaUrlMapping(urlHash, normalizedUrl, sha256));
+            }
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Media URL already indexed: {}", normalizedUrl);
+        }
+    }
+    
+    /**
+     * Facebook/Instagram CDN URLs carry a per-request signature in the query string, so it is dropped
+     * for them; other URLs are kept intact because their query may select the content
+     */
+    private String normalizeUrl(String url) {
+        try {
+            URL parsed = new URL(url);
+            String host = parsed.getHost() != null ? parsed.getHost().toLowerCase() : "";
+            if (host.contains("fbcdn") || host.contains("cdninstagram")) {
+                return parsed.getProtocol() + "://" + host + parsed.getPath();
             }
-            
         } catch (Exception e) {
-            logger.error("Failed to download video from {}: {}", videoUrl, e.getMessage());
+            logger.debug("Could not normalize media URL: {}", url);
+        }
+        return url;
+    }
+    
+    private String fetchEtag(String url) {
+        try {
+            return httpClientRegistry.httpClient(HttpClientRegistry.MEDIA).execute(new HttpHead(url), response -> {
+                Header etag = response.getFirstHeader("ETag");
+                return response.getCode() < 400 && etag != null ? etag.getValue() : null;
+            });
+        } catch (Exception e) {
+            logger.debug("HEAD request failed for {}: {}", url, e.getMessage());
             return null;
         }
     }
     
+    /**
+     * Copy a URL to a file over the pooled media client, hashing the bytes on the way; a partial file is removed on failure
+     */
+    private DownloadResult download(String url, Path filePath) throws IOException {
+        HttpGet request = new HttpGet(url);
+        HttpClientRegistry.ClientProfile profile = httpClientRegistry.getProfile(HttpClientRegistry.MEDIA);
+        ScheduledFuture<?> deadline = httpClientRegistry.scheduleDeadline(request, profile);
+        
+        try {
+            return profile.getHttpClient().execute(request, response -> {
+                int status = response.getCode();
+                if (status >= 400) {
+                    throw new HttpStatusException(status, url);
+                }
+                if (response.getEntity() == null) {
+                    throw new IOException("Empty response body for " + url);
+                }
+                MessageDigest digest = newSha256Digest();
+                long size;
+                try (InputStream inputStream = new DigestInputStream(response.getEntity().getContent(), digest)) {
+                    size = Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Header etag = response.getFirstHeader("ETag");
+                return new DownloadResult(HexFormat.of().formatHex(digest.digest()), size, etag != null ? etag.getValue() : null);
+            });
+        } catch (IOException e) {
+            Files.deleteIfExists(filePath);
+            throw e;
+        } finally {
+            deadline.cancel(false);
+        }
+    }
+    
+    private String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(newSha256Digest().digest(bytes));
+    }
+    
+    private MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static class DownloadResult {
+        private final String sha256;
+        private final long sizeBytes;
+        private final String etag;
+        
+        private DownloadResult(String sha256, long sizeBytes, String etag) {
+            this.sha256 = sha256;
+            this.sizeBytes = sizeBytes;
+            this.etag = etag;
+        }
+    }
+    
+    /**
+     * A media URL answered with an HTTP error status
+     */
+    public static class HttpStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        private final int status;
+        
+        public HttpStatusException(int status, String url) {
+            super("HTTP " + status + " for " + url);
+            this.status = status;
+        }
+        
+        public int getStatus() {
+            return status;
+        }
+        
+        /**
+         * Server errors and rate limiting are worth retrying, other client errors are not
+         */
+        public boolean isRetryable() {
+            return status >= 500 || status == 429 || status == 408;
+        }
+    }
+    
     /**
      * Get file extension from URL
      */
@@ -158,7 +444,26 @@ public class MediaStorageService {
     }
     
     /**
-     * Clean up old media files (older than specified days)
+     * Deduplication counters and disk usage of the content-addressed store
+     */
+    public Map<String, Object> getStoreStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("contentAddressed", contentAddressed);
+        stats.put("blobs", mediaBlobRepository.count());
+        stats.put("totalBytes", mediaBlobRepository.getTotalSizeBytes());
+        stats.put("references", mediaBlobRepository.getTotalReferences());
+        stats.put("indexedUrls", urlMappingRepository.count());
+        stats.put("urlIndexHits", urlIndexHits.get());
+        stats.put("etagHits", etagHits.get());
+        stats.put("downloads", downloads.get());
+        stats.put("duplicateDownloads", duplicateDownloads.get());
+        return stats;
+    }
+    
+    /**
+     * Clean up media no ad references any more. Content-addressed blobs get their reference count
+     * recomputed from the ads' local paths and are removed once unreferenced for the given number of
+     * days; files in the older dated folders are removed when past the cutoff and unreferenced.
      */
     public void cleanupOldMedia(int daysToKeep) {
         try {
@@ -168,39 +473,94 @@ public class MediaStorageService {
             }
             
             LocalDate cutoffDate = LocalDate.now().minusDays(daysToKeep);
-            logger.info("Cleaning up media files older than {}", cutoffDate);
+            logger.info("Cleaning up unreferenced media files older than {}", cutoffDate);
             
-            // This is a simplified cleanup - in production you'd want more sophisticated logic
-            Files.walk(mediaPath)
-                .filter(Files::isDirectory)
-                .filter(path -> {
-                    String folderName = path.getFileName().toString();
-                    try {
-                        LocalDate folderDate = LocalDate.parse(folderName, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                        return folderDate.isBefore(cutoffDate);
-                    } catch (Exception e) {
-                        return false;
-                    }
-                })
-                .forEach(path -> {
-                    try {
-                        Files.walk(path)
-                            .sorted((a, b) -> b.compareTo(a)) // Delete files before directories
-                            .forEach(file -> {
-                                try {
-                                    Files.deleteIfExists(file);
-                                } catch (Exception e) {
-                                    logger.warn("Failed to delete file: {}", file);
-                                }
-                            });
-                    } catch (Exception e) {
-                        logger.warn("Failed to cleanup directory: {}", path);
-                    }
-                });
+            Map<Path, Long> references = loadReferenceCounts();
+            int deletedBlobs = cleanupBlobs(references, cutoffDate.atStartOfDay());
+            
+            int[] deletedFiles = {0};
+            try (Stream<Path> folders = Files.walk(mediaPath)) {
+                folders.filter(Files::isDirectory)
+                    .filter(path -> {
+                        String folderName = path.getFileName().toString();
+                        try {
+                            LocalDate folderDate = LocalDate.parse(folderName, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+                            return folderDate.isBefore(cutoffDate);
+                        } catch (Exception e) {
+                            return false;
+                        }
+                    })
+                    .toList()
+                    .forEach(path -> deletedFiles[0] += deleteUnreferencedFiles(path, references));
+            }
+            
+            logger.info("Media cleanup removed {} unreferenced blobs and {} dated files", deletedBlobs, deletedFiles[0]);
                 
         } catch (Exception e) {
             logger.error("Failed to cleanup old media files: {}", e.getMessage());
         }
     }
+    
+    private Map<Path, Long> loadReferenceCounts() {
+        Map<Path, Long> references = new HashMap<>();
+        List<Object[]> rows = new ArrayList<>(scrapedAdRepository.countLocalImagePathReferences());
+        rows.addAll(scrapedAdRepository.countLocalVideoPathReferences());
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                references.merge(normalizePath((String) row[0]), (Long) row[1], Long::sum);
+            }
+        }
+        return references;
+    }
+    
+    private int cleanupBlobs(Map<Path, Long> references, LocalDateTime cutoff) {
+        for (MediaBlob blob : mediaBlobRepository.findAll()) {
+            long refCount = references.getOrDefault(normalizePath(blob.getLocalPath()), 0L);
+            if (blob.getRefCount() == null || blob.getRefCount() != refCount) {
+                mediaBlobRepository.updateRefCount(blob.getId(), refCount);
+            }
+        }
+        
+        int deleted = 0;
+        for (MediaBlob blob : mediaBlobRepository.findUnreferencedBefore(cutoff)) {
+            try {
+                Files.deleteIfExists(Paths.get(blob.getLocalPath()));
+                urlMappingRepository.deleteBySha256(blob.getSha256());
+                mediaBlobRepository.delete(blob);
+                deleted++;
+            } catch (Exception e) {
+                logger.warn("Failed to delete media blob {}: {}", blob.getSha256(), e.getMessage());
+            }
+        }
+        return deleted;
+    }
+    
+    private int deleteUnreferencedFiles(Path folder, Map<Path, Long> references) {
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(folder)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) { // Delete files before directories
+                try {
+                    if (Files.isDirectory(file)) {
+                        try (Stream<Path> children = Files.list(file)) {
+                            if (children.findAny().isEmpty()) {
+                                Files.deleteIfExists(file);
+                            }
+                        }
+                    } else if (!references.containsKey(normalizePath(file.toString()))) {
+                        Files.deleteIfExists(file);
+                        deleted++;
+                    }
+                } catch (Exception e) {
+                    logger.warn("Failed to delete file: {}", file);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to cleanup directory: {}", folder);
+        }
+        return deleted;
+    }
+    
+    private Path normalizePath(String path) {
+        return Paths.get(path).toAbsolutePath().normalize();
+    }
 }
-
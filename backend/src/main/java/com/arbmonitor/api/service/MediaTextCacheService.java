@@ -0,0 +1,273 @@
+package com.arbmonitor.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of OCR text and video transcripts, keyed by the SHA-256 of the media file plus the
+ * extraction settings, so a creative shared by many ads is only run through tesseract/ffmpeg once.
+ * The store is bounded in size and evicts least recently used entries first.
+ */
+@Service
+public class MediaTextCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaTextCacheService.class);
+
+    // Content-addressed media files are already named by their hash: .../_cas/xx/{sha256}.{ext}
+    private static final Pattern CAS_FILE_NAME = Pattern.compile("^([0-9a-f]{64})\\.[A-Za-z0-9]+$");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.media.text-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.media.text-cache.path:${app.media.storage.path:./media}/text-cache}")
+    private String cachePath;
+
+    @Value("${app.media.text-cache.max-size-mb:256}")
+    private long maxSizeMb;
+
+    // Counters since application start
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong sizeBytes = new AtomicLong();
+
+    private final Object evictionLock = new Object();
+
+    @PostConstruct
+    public void loadStoreSize() {
+        Path root = Paths.get(cachePath);
+        if (!enabled || !Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            sizeBytes.set(files.filter(Files::isRegularFile).mapToLong(this::fileSize).sum());
+            logger.info("Media text cache at {} holds {} KB", root, sizeBytes.get() / 1024);
+        } catch (IOException e) {
+            logger.warn("Could not measure media text cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Cache key for a media file and the settings used to extract its text, or null when the
+     * cache is disabled or the file cannot be read
+     */
+    public String buildKey(String mediaPath, String settings) {
+        if (!enabled || mediaPath == null) {
+            return null;
+        }
+        try {
+            String contentHash = contentHash(Paths.get(mediaPath));
+            return sha256((contentHash + "\n" + settings).getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            logger.debug("Could not hash media file {}: {}", mediaPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Cached value for a key, if present
+     */
+    public <T> Optional<T> lookup(String cacheKey, Class<T> type) {
+        if (cacheKey == null) {
+            return Optional.empty();
+        }
+
+        Path entry = entryPath(cacheKey);
+        try {
+            if (Files.exists(entry)) {
+                T value = objectMapper.readValue(entry.toFile(), type);
+                // Last-modified time doubles as last-access time for LRU eviction
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+                hits.incrementAndGet();
+                return Optional.ofNullable(value);
+            }
+        } catch (Exception e) {
+            logger.warn("Dropping unreadable media text cache entry {}: {}", cacheKey, e.getMessage());
+            deleteEntry(entry);
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Store a value for a key, evicting old entries if the store grows past its size limit
+     */
+    public void store(String cacheKey, Object value) {
+        if (cacheKey == null || value == null) {
+            return;
+        }
+
+        Path entry = entryPath(cacheKey);
+        try {
+            Files.createDirectories(entry.getParent());
+            Path temp = Files.createTempFile(entry.getParent(), cacheKey, ".tmp");
+            Files.write(temp, objectMapper.writeValueAsBytes(value));
+
+            long previousSize = Files.exists(entry) ? fileSize(entry) : 0;
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            sizeBytes.addAndGet(fileSize(entry) - previousSize);
+            stores.incrementAndGet();
+        } catch (Exception e) {
+            logger.warn("Could not store media text cache entry {}: {}", cacheKey, e.getMessage());
+            return;
+        }
+
+        if (sizeBytes.get() > maxSizeBytes()) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Hit/miss counters and current size of the store
+     */
+    public Map<String, Object> getCacheStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups > 0 ? Math.round((double) hitCount / lookups * 10000.0) / 100.0 : 0.0);
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        stats.put("sizeBytes", sizeBytes.get());
+        stats.put("maxSizeBytes", maxSizeBytes());
+        return stats;
+    }
+
+    /**
+     * Trim the store to 90% of its limit, oldest access first
+     */
+    private void evictLeastRecentlyUsed() {
+        synchronized (evictionLock) {
+            long target = (long) (maxSizeBytes() * 0.9);
+            if (sizeBytes.get() <= target) {
+                return;
+            }
+
+            try (Stream<Path> files = Files.walk(Paths.get(cachePath))) {
+                List<Path> entries = files
+                    .filter(path -> Files.isRegularFile(path) && path.toString().endsWith(".json"))
+                    .sorted(Comparator.comparingLong(this::lastModified))
+                    .toList();
+
+                int evicted = 0;
+                for (Path entry : entries) {
+                    if (sizeBytes.get() <= target) {
+                        break;
+                    }
+                    if (deleteEntry(entry)) {
+                        evicted++;
+                    }
+                }
+                evictions.addAndGet(evicted);
+                logger.info("Evicted {} media text cache entries, store now {} KB", evicted, sizeBytes.get() / 1024);
+            } catch (IOException e) {
+                logger.warn("Media text cache eviction failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private boolean deleteEntry(Path entry) {
+        try {
+            long size = fileSize(entry);
+            if (Files.deleteIfExists(entry)) {
+                sizeBytes.addAndGet(-size);
+                return true;
+            }
+        } catch (IOException e) {
+            logger.debug("Could not delete media text cache entry {}: {}", entry, e.getMessage());
+        }
+        return false;
+    }
+
+    private Path entryPath(String cacheKey) {
+        return Paths.get(cachePath, cacheKey.substring(0, 2), cacheKey + ".json");
+    }
+
+    private String contentHash(Path file) throws IOException {
+        Matcher casName = CAS_FILE_NAME.matcher(file.getFileName().toString());
+        if (casName.matches()) {
+            return casName.group(1);
+        }
+
+        MessageDigest digest = newSha256Digest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private long maxSizeBytes() {
+        return Math.max(1, maxSizeMb) * 1024 * 1024;
+    }
+
+    private long fileSize(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(newSha256Digest().digest(bytes));
+    }
+
+    private MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,17 +1,25 @@
 package com.arbmonitor.api.service;
 
+import com.arbmonitor.api.config.HttpClientRegistry;
+import com.arbmonitor.api.model.OpenAIUsage;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class OpenAIAnalysisService {
@@ -21,11 +29,51 @@ public class OpenAIAnalysisService {
     @Value("${app.openai.api-key}")
     private String openaiApiKey;
     
+    @Value("${app.openai.base-url:https://api.openai.com/v1}")
+    private String openaiBaseUrl;
+    
+    // The large model answers every prompt the cascade does not cover
+    @Value("${app.openai.cascade.large-model:gpt-4}")
+    private String largeModel;
+    
+    @Value("${app.openai.cascade.large-max-tokens:500}")
+    private int largeMaxTokens;
+    
+    // Compliance cascade: the small model answers first and only uncertain or non-compliant verdicts escalate
+    @Value("${app.openai.cascade.enabled:false}")
+    private boolean cascadeEnabled;
+    
+    @Value("${app.openai.cascade.small-model:gpt-4o-mini}")
+    private String smallModel;
+    
+    @Value("${app.openai.cascade.small-max-tokens:400}")
+    private int smallMaxTokens;
+    
+    @Value("${app.openai.cascade.min-confidence:0.85}")
+    private double minConfidence;
+    
+    @Value("${app.openai.cascade.recheck-non-compliant:true}")
+    private boolean recheckNonCompliant;
+    
+    private final AtomicLong smallAccepted = new AtomicLong();
+    private final AtomicLong escalatedLowConfidence = new AtomicLong();
+    private final AtomicLong escalatedNonCompliant = new AtomicLong();
+    private final AtomicLong smallFailures = new AtomicLong();
+    
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
     
-    public OpenAIAnalysisService() {
-        this.restTemplate = new RestTemplate();
+    @Autowired
+    private ComplianceVerdictCacheService verdictCacheService;
+    
+    @Autowired
+    private OpenAICostTrackingService costTrackingService;
+    
+    @Autowired
+    private OpenAIRateLimiter rateLimiter;
+    
+    public OpenAIAnalysisService(HttpClientRegistry httpClientRegistry) {
+        this.restTemplate = httpClientRegistry.restTemplate(HttpClientRegistry.OPENAI);
         this.objectMapper = new ObjectMapper();
     }
     
@@ -34,7 +82,7 @@ public class OpenAIAnalysisService {
      */
     public LandingPageAnalysisResult analyzeLandingPage(String landingPageContent, String landingPageUrl) {
         try {
-            String prompt = buildLandingPagePrompt(landingPageContent, landingPageUrl);
+            PromptTemplateRegistry.RenderedPrompt prompt = buildLandingPagePrompt(landingPageContent, landingPageUrl);
             String gptResponse = callOpenAI(prompt);
             return parseLandingPageResponse(gptResponse);
             
@@ -49,7 +97,7 @@ public class OpenAIAnalysisService {
      */
     public DomainRacPatternResult identifyDomainRacPattern(String domainName, List<String> sampleUrls) {
         try {
-            String prompt = buildDomainPatternPrompt(domainName, sampleUrls);
+            PromptTemplateRegistry.RenderedPrompt prompt = buildDomainPatternPrompt(domainName, sampleUrls);
             String gptResponse = callOpenAI(prompt);
             return parseDomainPatternResponse(gptResponse);
             
@@ -60,20 +108,199 @@ public class OpenAIAnalysisService {
     }
     
     /**
-     * Analyze ad compliance using GPT-4
+     * Analyze ad compliance. With the cascade on, the small model answers first and its verdict is kept
+     * only when it is compliant with enough self-reported confidence; everything else is re-checked by
+     * the large model.
      */
     public ComplianceAnalysisResult analyzeAdCompliance(String adText, String landingPageContent, String referrerAdCreative, boolean racEnabled) {
+        PromptTemplateRegistry.RenderedPrompt prompt = buildCompliancePrompt(adText, landingPageContent, referrerAdCreative, racEnabled);
+        
+        if (cascadeEnabled) {
+            try {
+                ComplianceAnalysisResult draft = analyzeWithModel(prompt, smallModel, smallMaxTokens, racEnabled, "compliance_analysis");
+                if (acceptDraft(draft)) {
+                    smallAccepted.incrementAndGet();
+                    return draft;
+                }
+                if (!draft.isOverallCompliant()) {
+                    escalatedNonCompliant.incrementAndGet();
+                } else {
+                    escalatedLowConfidence.incrementAndGet();
+                }
+                logger.debug("Escalating {} verdict of {} (confidence {}) to {}",
+                    draft.isOverallCompliant() ? "compliant" : "non-compliant", smallModel, draft.getConfidence(), largeModel);
+            } catch (Exception e) {
+                smallFailures.incrementAndGet();
+                logger.warn("Small model {} failed, escalating to {}: {}", smallModel, largeModel, e.getMessage());
+            }
+        }
+        
         try {
-            String prompt = buildCompliancePrompt(adText, landingPageContent, referrerAdCreative, racEnabled);
-            String gptResponse = callOpenAI(prompt);
-            return parseComplianceResponse(gptResponse, racEnabled);
-            
+            return analyzeWithModel(prompt, largeModel, largeMaxTokens, racEnabled, "compliance_analysis");
+        } catch (ComplianceParseException e) {
+            logger.error("Error parsing GPT response: {}", e.getMessage());
+            return createFallbackResult("Failed to parse analysis result", racEnabled);
         } catch (Exception e) {
             logger.error("Error analyzing ad compliance with OpenAI: {}", e.getMessage());
             return createFallbackResult("Analysis failed: " + e.getMessage(), racEnabled);
         }
     }
     
+    /**
+     * Answer the compliance prompt with one model, reusing its cached verdict of the same prompt.
+     * Only verdicts that parse cleanly are cached.
+     */
+    private ComplianceAnalysisResult analyzeWithModel(PromptTemplateRegistry.RenderedPrompt prompt, String model, int maxTokens, boolean racEnabled,
+                                                      String requestType) throws Exception {
+        String cacheKey = verdictCacheService.buildKey(model, prompt.getVersionedId(), prompt.getFullText());
+        
+        Optional<String> cachedResponse = verdictCacheService.lookup(cacheKey);
+        if (cachedResponse.isPresent()) {
+            try {
+                return parseComplianceJson(cachedResponse.get(), racEnabled, false, model);
+            } catch (Exception e) {
+                logger.warn("Discarding unparseable cached compliance verdict: {}", e.getMessage());
+                verdictCacheService.evict(cacheKey);
+            }
+        }
+        
+        TierResponse answer = callTier(prompt, model, maxTokens, requestType);
+        ComplianceAnalysisResult result;
+        try {
+            result = parseComplianceJson(answer.content, racEnabled, true, model);
+        } catch (Exception e) {
+            throw new ComplianceParseException(model + ": " + e.getMessage());
+        }
+        verdictCacheService.store(cacheKey, model, prompt.getVersionedId(), answer.content, answer.cost);
+        return result;
+    }
+    
+    private boolean acceptDraft(ComplianceAnalysisResult draft) {
+        if (draft.getConfidence() == null || draft.getConfidence() < minConfidence) {
+            return false;
+        }
+        return draft.isOverallCompliant() || !recheckNonCompliant;
+    }
+    
+    /**
+     * One tracked, uncached chat completion
+     */
+    private TierResponse callTier(PromptTemplateRegistry.RenderedPrompt prompt, String model, int maxTokens, String requestType) throws Exception {
+        long startTime = System.currentTimeMillis();
+        OpenAIUsage usage = costTrackingService.trackRequest(model, requestType, null, null, null, startTime);
+        JsonNode response;
+        try {
+            response = callOpenAIForResponse(prompt, model, maxTokens);
+        } catch (Exception e) {
+            usage.setRequestDurationMs(System.currentTimeMillis() - startTime);
+            costTrackingService.updateAndSaveUsage(usage, null, null, false, e.getMessage());
+            throw e;
+        }
+        
+        String content = extractContent(response);
+        usage.setRequestDurationMs(System.currentTimeMillis() - startTime);
+        costTrackingService.updateAndSaveUsage(usage, response, content, true, null);
+        return new TierResponse(content, usage.getEstimatedCost(), usage.getRequestDurationMs());
+    }
+    
+    /**
+     * Evaluate one cascade tier on a compliance prompt, bypassing the verdict cache so latency and cost
+     * are real. Usage is tracked as "compliance_evaluation" to keep it out of production averages.
+     */
+    public TierEvaluation evaluateComplianceTier(boolean small, String adText, String landingPageContent,
+                                                 String referrerAdCreative, boolean racEnabled) {
+        String model = small ? smallModel : largeModel;
+        PromptTemplateRegistry.RenderedPrompt prompt = buildCompliancePrompt(adText, landingPageContent, referrerAdCreative, racEnabled);
+        long startTime = System.currentTimeMillis();
+        try {
+            TierResponse answer = callTier(prompt, model, small ? smallMaxTokens : largeMaxTokens, "compliance_evaluation");
+            ComplianceAnalysisResult result = parseComplianceJson(answer.content, racEnabled, true, model);
+            return new TierEvaluation(model, result, answer.durationMs, answer.cost, null);
+        } catch (Exception e) {
+            return new TierEvaluation(model, null, System.currentTimeMillis() - startTime, BigDecimal.ZERO, e.getMessage());
+        }
+    }
+    
+    /**
+     * Cascade settings and how the small model's verdicts were used since startup
+     */
+    public Map<String, Object> getCascadeStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", cascadeEnabled);
+        stats.put("smallModel", smallModel);
+        stats.put("largeModel", largeModel);
+        stats.put("minConfidence", minConfidence);
+        stats.put("recheckNonCompliant", recheckNonCompliant);
+        long accepted = smallAccepted.get();
+        long lowConfidence = escalatedLowConfidence.get();
+        long nonCompliant = escalatedNonCompliant.get();
+        long failures = smallFailures.get();
+        long total = accepted + lowConfidence + nonCompliant + failures;
+        stats.put("smallAccepted", accepted);
+        stats.put("escalatedLowConfidence", lowConfidence);
+        stats.put("escalatedNonCompliant", nonCompliant);
+        stats.put("smallFailures", failures);
+        stats.put("escalationRate", total > 0 ? (double) (total - accepted) / total : 0.0);
+        return stats;
+    }
+    
+    public boolean isCascadeRecheckNonCompliant() {
+        return recheckNonCompliant;
+    }
+    
+    /**
+     * Prepare the compliance request of one ad for the Batch API: either the cached verdict of an
+     * identical prompt, or the chat completion body to submit
+     */
+    public BatchComplianceRequest prepareBatchComplianceRequest(String adText, String landingPageContent,
+                                                                String referrerAdCreative, boolean racEnabled) {
+        PromptTemplateRegistry.RenderedPrompt prompt = buildCompliancePrompt(adText, landingPageContent, referrerAdCreative, racEnabled);
+        String cacheKey = verdictCacheService.buildKey(largeModel, prompt.getVersionedId(), prompt.getFullText());
+        
+        Optional<String> cachedResponse = verdictCacheService.lookup(cacheKey);
+        if (cachedResponse.isPresent()) {
+            try {
+                return new BatchComplianceRequest(cacheKey, null, parseComplianceJson(cachedResponse.get(), racEnabled, false, largeModel));
+            } catch (Exception e) {
+                logger.warn("Discarding unparseable cached compliance verdict: {}", e.getMessage());
+                verdictCacheService.evict(cacheKey);
+            }
+        }
+        return new BatchComplianceRequest(cacheKey, buildChatRequestBody(prompt, largeModel, largeMaxTokens), null);
+    }
+    
+    /**
+     * Turn one chat completion from a batch output file into a verdict, recording its (discounted) cost
+     * and caching it like a synchronous answer
+     */
+    public ComplianceAnalysisResult completeBatchComplianceRequest(JsonNode response, String cacheKey, boolean racEnabled,
+                                                                   String domainName, String metaAdId) {
+        OpenAIUsage usage = costTrackingService.trackRequest(largeModel, "compliance_analysis_batch", null,
+                                                             domainName, metaAdId, System.currentTimeMillis());
+        String gptResponse;
+        try {
+            gptResponse = extractContent(response);
+        } catch (Exception e) {
+            costTrackingService.updateAndSaveBatchUsage(usage, null, null, false, e.getMessage());
+            return createFallbackResult("Analysis failed: malformed batch response", racEnabled);
+        }
+        costTrackingService.updateAndSaveBatchUsage(usage, response, gptResponse, true, null);
+        
+        ComplianceAnalysisResult result;
+        try {
+            result = parseComplianceJson(gptResponse, racEnabled, true, largeModel);
+        } catch (Exception e) {
+            logger.error("Error parsing batch GPT response for ad {}: {}", metaAdId, e.getMessage());
+            return createFallbackResult("Failed to parse analysis result", racEnabled);
+        }
+        verdictCacheService.store(cacheKey, largeModel, PromptTemplateRegistry.COMPLIANCE.getVersionedId(), gptResponse, usage.getEstimatedCost());
+        return result;
+    }
+    
+    public String getComplianceModel() {
+        return largeModel;
+    }
+    
     /**
      * Analyze ad compliance using GPT-4 (backward compatibility)
      */
@@ -81,78 +308,33 @@ public class OpenAIAnalysisService {
         return analyzeAdCompliance(adText, landingPageContent, referrerAdCreative, false);
     }
     
-    private String buildDomainPatternPrompt(String domainName, List<String> sampleUrls) {
+    private PromptTemplateRegistry.RenderedPrompt buildDomainPatternPrompt(String domainName, List<String> sampleUrls) {
         StringBuilder urlList = new StringBuilder();
         for (int i = 0; i < sampleUrls.size(); i++) {
             urlList.append((i + 1) + ". URL: " + sampleUrls.get(i) + "\n");
         }
         
-        return "You are an expert web analyst. Analyze these sample URLs from domain " + domainName + " to identify the consistent pattern for extracting the referrer ad creative (RAC) parameter.\n\n" +
+        return PromptTemplateRegistry.DOMAIN_RAC_PATTERN.render(
+            "DOMAIN: " + domainName + "\n\n" +
             "SAMPLE URLS FROM " + domainName.toUpperCase() + ":\n" +
-            urlList.toString() + "\n\n" +
-            "NOTE: Focus on URL parameters first, as landing page content analysis will be done separately if needed.\n\n" +
-            "Please analyze these URLs and their landing page content, then respond in this EXACT JSON format:\n" +
-            "{\n" +
-            "  \"racParameter\": \"the parameter/element name that contains the RAC\",\n" +
-            "  \"extractionType\": \"URL_PARAMETER|JS_VARIABLE|META_TAG|DATA_ATTRIBUTE|FORM_INPUT|JSON_LD\",\n" +
-            "  \"extractionPattern\": \"specific pattern to extract the value\",\n" +
-            "  \"confidence\": \"HIGH/MEDIUM/LOW based on consistency across samples\",\n" +
-            "  \"explanation\": \"Brief explanation of where and how the RAC is stored in this domain\"\n" +
-            "}\n\n" +
-            "INSTRUCTIONS:\n" +
-            "1. FIRST: Check URL parameters for RAC (adtitle, kw, q, query, search, keyword, term, title, headline)\n" +
-            "2. IF NO URL PARAMETERS: Analyze the landing page HTML content for RAC patterns\n" +
-            "3. Look for these patterns in page content:\n" +
-            "   - JavaScript variables: window.searchTerm, var keyword, let query, etc.\n" +
-            "   - Meta tags: <meta name=\"keyword\" content=\"...\">, <meta property=\"search\" content=\"...\">\n" +
-            "   - Data attributes: data-search, data-keyword, data-query\n" +
-            "   - Hidden form inputs: <input type=\"hidden\" name=\"search\" value=\"...\">\n" +
-            "   - JSON-LD structured data: searchAction, query properties\n" +
-            "4. The RAC should contain descriptive text that represents what users searched for\n" +
-            "5. Choose the pattern that appears most consistently across all samples\n" +
-            "6. Return confidence HIGH only if the pattern is consistent across 80%+ of samples\n\n" +
-            "EXAMPLES:\n" +
-            "- If URLs contain \"adtitle=Product+Name\", return racParameter: \"adtitle\"\n" +
-            "- If URLs contain \"q=search+term\", return racParameter: \"q\"\n" +
-            "- If URLs contain \"kw=keyword+phrase\", return racParameter: \"kw\"";
-    }
-    
-    private String buildLandingPagePrompt(String landingPageContent, String landingPageUrl) {
-        return String.format("""
-            You are an expert web content analyst. Analyze this landing page to understand its content and extract the referrer ad creative value.
-            
+            urlList.toString());
+    }
+    
+    private PromptTemplateRegistry.RenderedPrompt buildLandingPagePrompt(String landingPageContent, String landingPageUrl) {
+        return PromptTemplateRegistry.LANDING_PAGE.render(String.format("""
             LANDING PAGE URL:
             %s
             
             LANDING PAGE HTML CONTENT:
             %s
-            
-            Please analyze the page and respond in this EXACT JSON format:
-            {
-              "referrerAdCreative": "The main search term, keyword, or ad creative that brought users to this page",
-              "pageContent": "Brief summary of what this page is about (1-2 sentences)"
-            }
-            
-            INSTRUCTIONS:
-            1. Look for URL parameters like 'q', 'query', 'search', 'kw', 'keyword', 'term' that contain the search term
-            2. If no URL parameters, examine the page content, title, headings, and meta tags
-            3. The referrerAdCreative should be the main topic/keyword that someone would search for to find this page
-            4. If you can't find a specific search term, extract the main topic from the page title or primary heading
-            5. Keep the referrerAdCreative concise but descriptive (3-15 words)
-            6. Return null for referrerAdCreative only if the page content is completely unrelated to any searchable topic
-            
-            Examples of good referrerAdCreative values:
-            - "Best supportive bikini tops for big busts"
-            - "Kitchen gadgets under $25"
-            - "Alzheimer's treatment injection at home"
-            - "Daily vitamins for energy over 60"
             """, 
             landingPageUrl != null ? landingPageUrl : "No URL provided",
             landingPageContent != null ? landingPageContent.substring(0, Math.min(landingPageContent.length(), 3000)) : "No content provided"
-        );
+        ));
     }
     
-    private String buildCompliancePrompt(String adText, String landingPageContent, String referrerAdCreative, boolean racEnabled) {
+    private PromptTemplateRegistry.RenderedPrompt buildCompliancePrompt(String adText, String landingPageContent,
+                                                                String referrerAdCreative, boolean racEnabled) {
         String racSection = racEnabled ? 
             String.format("""
                 
@@ -165,101 +347,95 @@ public class OpenAIAnalysisService {
             RAC analysis is turned off for this domain.
             """;
             
-        String racRule = racEnabled ?
-            "3. RAC RELEVANCE: The referrerAdCreative (kw parameter) should match the ad content for proper tracking" :
-            "3. RAC RELEVANCE: RAC analysis is disabled for this domain";
-            
-        return String.format("""
-            You are an expert ad compliance analyst. Analyze this Facebook ad for Google AdSense for Search (AFS) compliance.
-            
-            AD CREATIVE TEXT:
-            %s
-            
+        // Landing page first: ads of a domain often share it, which extends the cacheable prefix past the instructions
+        return PromptTemplateRegistry.COMPLIANCE.render(String.format("""
             LANDING PAGE CONTENT:
-            %s%s
-            
-            Please analyze these 3 specific compliance areas and respond in this EXACT JSON format:
-            {
-              "adCreativeCompliant": true/false,
-              "adCreativeReason": "Brief reason if not compliant, or 'Compliant' if ok",
-              "landingPageRelevant": true/false,
-              "landingPageReason": "Brief reason if not relevant, or 'Relevant' if ok",
-              "racRelevant": true/false,
-              "racReason": "Brief reason if RAC doesn't match ad, or 'Matches ad content' if ok, or 'RAC analysis turned off' if disabled",
-              "overallCompliant": true/false
-            }
-            
-            COMPLIANCE RULES:
-            1. AD CREATIVE: No misleading claims, no "click here" language, no false promises, no medical/financial guarantees
-            2. LANDING PAGE RELEVANCE: Content must match the ad promise and be relevant to the ad text
             %s
-            
-            Be strict but fair. Only mark as non-compliant if there are clear violations.
+            %s
+            AD CREATIVE TEXT:
+            %s
             """, 
-            adText != null ? adText : "No ad text provided",
             landingPageContent != null ? landingPageContent.substring(0, Math.min(landingPageContent.length(), 2000)) : "No landing page content",
             racSection,
-            racRule
-        );
+            adText != null ? adText : "No ad text provided"
+        ));
     }
     
-    private String callOpenAI(String prompt) throws Exception {
-        String url = "https://api.openai.com/v1/chat/completions";
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(openaiApiKey);
-        
+    private String callOpenAI(PromptTemplateRegistry.RenderedPrompt prompt) throws Exception {
+        return extractContent(callOpenAIForResponse(prompt, largeModel, largeMaxTokens));
+    }
+    
+    private String extractContent(JsonNode jsonResponse) {
+        return jsonResponse.path("choices").get(0).path("message").path("content").asText();
+    }
+    
+    /**
+     * Static template instructions first and the request content last, so every request of a template
+     * shares the same prefix for the provider's prompt cache
+     */
+    private Map<String, Object> buildChatRequestBody(PromptTemplateRegistry.RenderedPrompt prompt, String model, int maxTokens) {
         Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", "gpt-4");
+        requestBody.put("model", model);
         requestBody.put("messages", List.of(
-            Map.of("role", "user", "content", prompt)
+            Map.of("role", "system", "content", prompt.getInstructions()),
+            Map.of("role", "user", "content", prompt.getContent())
         ));
-        requestBody.put("max_tokens", 500);
+        requestBody.put("prompt_cache_key", prompt.getVersionedId());
+        requestBody.put("max_tokens", maxTokens);
         requestBody.put("temperature", 0.1);
+        return requestBody;
+    }
+    
+    private JsonNode callOpenAIForResponse(PromptTemplateRegistry.RenderedPrompt prompt, String model, int maxTokens) throws Exception {
+        String url = openaiBaseUrl + "/chat/completions";
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(openaiApiKey);
         
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(buildChatRequestBody(prompt, model, maxTokens), headers);
         
-        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, request, String.class);
+        // Throttled and 5xx responses are retried inside the limiter, so they do not become failed verdicts
+        ResponseEntity<String> response = rateLimiter.execute(model,
+            OpenAIRateLimiter.estimateTokens(prompt.getFullText(), maxTokens),
+            () -> restTemplate.exchange(url, HttpMethod.POST, request, String.class));
         
         if (response.getStatusCode() == HttpStatus.OK) {
-            JsonNode jsonResponse = objectMapper.readTree(response.getBody());
-            return jsonResponse.path("choices").get(0).path("message").path("content").asText();
+            return objectMapper.readTree(response.getBody());
         } else {
             throw new RuntimeException("OpenAI API call failed with status: " + response.getStatusCode());
         }
     }
     
-    private ComplianceAnalysisResult parseComplianceResponse(String gptResponse, boolean racEnabled) {
-        try {
-            // Extract JSON from the response (GPT sometimes adds extra text)
-            String jsonPart = gptResponse;
-            if (gptResponse.contains("{")) {
-                int start = gptResponse.indexOf("{");
-                int end = gptResponse.lastIndexOf("}") + 1;
-                jsonPart = gptResponse.substring(start, end);
-            }
-            
-            JsonNode json = objectMapper.readTree(jsonPart);
-            
-            // Handle RAC relevance based on whether it's enabled
-            boolean racRelevant = racEnabled ? json.path("racRelevant").asBoolean(true) : true;
-            String racReason = racEnabled ? json.path("racReason").asText("Matches ad content") : "RAC analysis turned off";
-            
-            return new ComplianceAnalysisResult(
-                json.path("adCreativeCompliant").asBoolean(true),
-                json.path("adCreativeReason").asText("Compliant"),
-                json.path("landingPageRelevant").asBoolean(true),
-                json.path("landingPageReason").asText("Relevant"),
-                racRelevant,
-                racReason,
-                json.path("overallCompliant").asBoolean(true)
-            );
-            
-        } catch (Exception e) {
-            logger.error("Error parsing GPT response: {}", e.getMessage());
-            return createFallbackResult("Failed to parse analysis result", racEnabled);
+    private ComplianceAnalysisResult parseComplianceJson(String gptResponse, boolean racEnabled, boolean freshVerdict,
+                                                         String model) throws Exception {
+        // Extract JSON from the response (GPT sometimes adds extra text)
+        String jsonPart = gptResponse;
+        if (gptResponse.contains("{")) {
+            int start = gptResponse.indexOf("{");
+            int end = gptResponse.lastIndexOf("}") + 1;
+            jsonPart = gptResponse.substring(start, end);
         }
+        
+        JsonNode json = objectMapper.readTree(jsonPart);
+        
+        // Handle RAC relevance based on whether it's enabled
+        boolean racRelevant = racEnabled ? json.path("racRelevant").asBoolean(true) : true;
+        String racReason = racEnabled ? json.path("racReason").asText("Matches ad content") : "RAC analysis turned off";
+        
+        return new ComplianceAnalysisResult(
+            json.path("adCreativeCompliant").asBoolean(true),
+            json.path("adCreativeReason").asText("Compliant"),
+            json.path("landingPageRelevant").asBoolean(true),
+            json.path("landingPageReason").asText("Relevant"),
+            racRelevant,
+            racReason,
+            json.path("overallCompliant").asBoolean(true),
+            freshVerdict,
+            model,
+            // A verdict without a usable confidence counts as uncertain
+            json.path("confidence").isNumber() ? Math.max(0.0, Math.min(1.0, json.path("confidence").asDouble())) : null
+        );
     }
     
     private DomainRacPatternResult parseDomainPatternResponse(String gptResponse) {
@@ -335,11 +511,31 @@ public class OpenAIAnalysisService {
         private final boolean racRelevant;
         private final String racReason;
         private final boolean overallCompliant;
+        private final boolean freshVerdict;
+        private final String model;
+        private final Double confidence;
         
         public ComplianceAnalysisResult(boolean adCreativeCompliant, String adCreativeReason,
                                       boolean landingPageRelevant, String landingPageReason,
                                       boolean racRelevant, String racReason,
                                       boolean overallCompliant) {
+            this(adCreativeCompliant, adCreativeReason, landingPageRelevant, landingPageReason,
+                 racRelevant, racReason, overallCompliant, false);
+        }
+        
+        public ComplianceAnalysisResult(boolean adCreativeCompliant, String adCreativeReason,
+                                      boolean landingPageRelevant, String landingPageReason,
+                                      boolean racRelevant, String racReason,
+                                      boolean overallCompliant, boolean freshVerdict) {
+            this(adCreativeCompliant, adCreativeReason, landingPageRelevant, landingPageReason,
+                 racRelevant, racReason, overallCompliant, freshVerdict, null, null);
+        }
+        
+        public ComplianceAnalysisResult(boolean adCreativeCompliant, String adCreativeReason,
+                                      boolean landingPageRelevant, String landingPageReason,
+                                      boolean racRelevant, String racReason,
+                                      boolean overallCompliant, boolean freshVerdict,
+                                      String model, Double confidence) {
             this.adCreativeCompliant = adCreativeCompliant;
             this.adCreativeReason = adCreativeReason;
             this.landingPageRelevant = landingPageRelevant;
@@ -347,6 +543,9 @@ public class OpenAIAnalysisService {
             this.racRelevant = racRelevant;
             this.racReason = racReason;
             this.overallCompliant = overallCompliant;
+            this.freshVerdict = freshVerdict;
+            this.model = model;
+            this.confidence = confidence;
         }
         
         // Getters
@@ -357,6 +556,84 @@ public class OpenAIAnalysisService {
         public boolean isRacRelevant() { return racRelevant; }
         public String getRacReason() { return racReason; }
         public boolean isOverallCompliant() { return overallCompliant; }
+        /** Answered by the model for this request; false for cached verdicts and analysis errors */
+        @JsonIgnore
+        public boolean isFreshVerdict() { return freshVerdict; }
+        /** Model that produced the verdict; null for analysis errors and rule-based verdicts */
+        public String getModel() { return model; }
+        /** Self-reported confidence of the model, null when it gave none */
+        public Double getConfidence() { return confidence; }
+    }
+    
+    /**
+     * Answer of one tracked chat completion
+     */
+    private static class TierResponse {
+        private final String content;
+        private final BigDecimal cost;
+        private final long durationMs;
+        
+        TierResponse(String content, BigDecimal cost, Long durationMs) {
+            this.content = content;
+            this.cost = cost != null ? cost : BigDecimal.ZERO;
+            this.durationMs = durationMs != null ? durationMs : 0L;
+        }
+    }
+    
+    /**
+     * Response that could not be read as a compliance verdict
+     */
+    private static class ComplianceParseException extends Exception {
+        private static final long serialVersionUID = 1L;
+        
+        ComplianceParseException(String message) {
+            super(message);
+        }
+    }
+    
+    /**
+     * Outcome of one cascade tier on one evaluation sample
+     */
+    public static class TierEvaluation {
+        private final String model;
+        private final ComplianceAnalysisResult result;
+        private final long latencyMs;
+        private final BigDecimal cost;
+        private final String error;
+        
+        public TierEvaluation(String model, ComplianceAnalysisResult result, long latencyMs, BigDecimal cost, String error) {
+            this.model = model;
+            this.result = result;
+            this.latencyMs = latencyMs;
+            this.cost = cost;
+            this.error = error;
+        }
+        
+        public String getModel() { return model; }
+        public ComplianceAnalysisResult getResult() { return result; }
+        public long getLatencyMs() { return latencyMs; }
+        public BigDecimal getCost() { return cost; }
+        public String getError() { return error; }
+        public boolean isSuccess() { return result != null; }
+    }
+    
+    /**
+     * Compliance request of one ad for the Batch API; exactly one of body and cachedResult is set
+     */
+    public static class BatchComplianceRequest {
+        private final String cacheKey;
+        private final Map<String, Object> body;
+        private final ComplianceAnalysisResult cachedResult;
+        
+        public BatchComplianceRequest(String cacheKey, Map<String, Object> body, ComplianceAnalysisResult cachedResult) {
+            this.cacheKey = cacheKey;
+            this.body = body;
+            this.cachedResult = cachedResult;
+        }
+        
+        public String getCacheKey() { return cacheKey; }
+        public Map<String, Object> getBody() { return body; }
+        public ComplianceAnalysisResult getCachedResult() { return cachedResult; }
     }
     
     /**
@@ -416,7 +693,7 @@ public class OpenAIAnalysisService {
             JsonNode requestNode = objectMapper.readTree(jsonRequest);
             JsonNode contentNode = requestNode.get("content");
             
-            String prompt = buildStructuredAdCreativePrompt(contentNode);
+            PromptTemplateRegistry.RenderedPrompt prompt = buildStructuredAdCreativePrompt(contentNode);
             return callOpenAI(prompt);
             
         } catch (Exception e) {
@@ -435,7 +712,7 @@ public class OpenAIAnalysisService {
             // Parse the JSON request to extract content
             JsonNode requestNode = objectMapper.readTree(jsonRequest);
             
-            String prompt = buildStructuredLandingPagePrompt(requestNode);
+            PromptTemplateRegistry.RenderedPrompt prompt = buildStructuredLandingPagePrompt(requestNode);
             return callOpenAI(prompt);
             
         } catch (Exception e) {
@@ -447,15 +724,9 @@ public class OpenAIAnalysisService {
     /**
      * Build structured prompt for ad creative compliance analysis
      */
-    private String buildStructuredAdCreativePrompt(JsonNode contentNode) {
+    private PromptTemplateRegistry.RenderedPrompt buildStructuredAdCreativePrompt(JsonNode contentNode) {
         StringBuilder prompt = new StringBuilder();
         
-        prompt.append("You are an expert compliance analyst for digital advertising. ");
-        prompt.append("Analyze the following ad creative content for compliance violations.\n\n");
-        
-        prompt.append("IMPORTANT: This ad may be in any language (English, Spanish, French, German, Italian, Portuguese, etc.). ");
-        prompt.append("Analyze the content in its original language and provide your analysis in English.\n\n");
-        
         prompt.append("AD CONTENT TO ANALYZE:\n");
         if (contentNode.has("text_content")) {
             prompt.append("Text Content:\n").append(contentNode.get("text_content").asText()).append("\n\n");
@@ -470,44 +741,20 @@ public class OpenAIAnalysisService {
             prompt.append("Audio Transcription:\n").append(contentNode.get("audio_transcription").asText()).append("\n\n");
         }
         
-        prompt.append("COMPLIANCE RULES TO CHECK:\n");
-        prompt.append("1. Misleading Claims: False or exaggerated promises\n");
-        prompt.append("2. Medical Claims: Unsubstantiated health benefits\n");
-        prompt.append("3. Financial Guarantees: Unrealistic income promises\n");
-        prompt.append("4. Before/After Claims: Unverifiable transformation claims\n");
-        prompt.append("5. Clickbait Language: Sensational or deceptive headlines\n");
-        prompt.append("6. False Urgency: Fake scarcity or time pressure\n\n");
-        
-        prompt.append("REQUIRED JSON RESPONSE FORMAT:\n");
-        prompt.append("{\n");
-        prompt.append("  \"compliant\": boolean,\n");
-        prompt.append("  \"confidence_score\": number (0.0-1.0),\n");
-        prompt.append("  \"violations\": [\n");
-        prompt.append("    {\n");
-        prompt.append("      \"rule_type\": \"string\",\n");
-        prompt.append("      \"severity\": \"LOW|MEDIUM|HIGH|CRITICAL\",\n");
-        prompt.append("      \"description\": \"string\",\n");
-        prompt.append("      \"violated_text\": \"string\"\n");
-        prompt.append("    }\n");
-        prompt.append("  ],\n");
-        prompt.append("  \"reasoning\": \"string explaining the analysis\"\n");
-        prompt.append("}\n\n");
-        
-        prompt.append("Respond ONLY with valid JSON. No additional text or explanation outside the JSON structure.");
-        
-        return prompt.toString();
+        return PromptTemplateRegistry.AD_CREATIVE_STRUCTURED.render(prompt.toString());
     }
     
     /**
      * Build structured prompt for landing page compliance analysis
      */
-    private String buildStructuredLandingPagePrompt(JsonNode requestNode) {
+    private PromptTemplateRegistry.RenderedPrompt buildStructuredLandingPagePrompt(JsonNode requestNode) {
         StringBuilder prompt = new StringBuilder();
         
-        prompt.append("You are an expert compliance analyst for digital advertising. ");
-        prompt.append("Analyze the following landing page for compliance and relevance to the ad.\n\n");
-        
-        prompt.append("IMPORTANT: Content may be in any language. Analyze in original language, respond in English.\n\n");
+        // Landing page first: ads pointing at the same page then share a prefix the provider can cache
+        if (requestNode.has("landing_page_content")) {
+            prompt.append("LANDING PAGE CONTENT:\n");
+            prompt.append(requestNode.get("landing_page_content").asText()).append("\n\n");
+        }
         
         if (requestNode.has("ad_content")) {
             JsonNode adContent = requestNode.get("ad_content");
@@ -524,36 +771,7 @@ public class OpenAIAnalysisService {
             prompt.append("\n");
         }
         
-        if (requestNode.has("landing_page_content")) {
-            prompt.append("LANDING PAGE CONTENT:\n");
-            prompt.append(requestNode.get("landing_page_content").asText()).append("\n\n");
-        }
-        
-        prompt.append("COMPLIANCE CHECKS:\n");
-        prompt.append("1. Relevance: Does the landing page match the ad promise?\n");
-        prompt.append("2. Accessibility: Is the page functional and user-friendly?\n");
-        prompt.append("3. Content Quality: Is the content valuable and not misleading?\n");
-        prompt.append("4. User Experience: Does the page provide what users expect?\n\n");
-        
-        prompt.append("REQUIRED JSON RESPONSE FORMAT:\n");
-        prompt.append("{\n");
-        prompt.append("  \"compliant\": boolean,\n");
-        prompt.append("  \"relevance_score\": number (0.0-1.0),\n");
-        prompt.append("  \"violations\": [\n");
-        prompt.append("    {\n");
-        prompt.append("      \"rule_type\": \"string\",\n");
-        prompt.append("      \"severity\": \"LOW|MEDIUM|HIGH|CRITICAL\",\n");
-        prompt.append("      \"description\": \"string\",\n");
-        prompt.append("      \"violated_text\": \"string\"\n");
-        prompt.append("    }\n");
-        prompt.append("  ],\n");
-        prompt.append("  \"reasoning\": \"string explaining the analysis\",\n");
-        prompt.append("  \"page_summary\": \"brief summary of landing page content\"\n");
-        prompt.append("}\n\n");
-        
-        prompt.append("Respond ONLY with valid JSON. No additional text or explanation outside the JSON structure.");
-        
-        return prompt.toString();
+        return PromptTemplateRegistry.LANDING_PAGE_STRUCTURED.render(prompt.toString());
     }
     
     /**
@@ -11,7 +11,9 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +31,12 @@ public class OpenAICostTrackingService {
     // OpenAI pricing per 1K tokens (as of September 2024)
     private static final Map<String, ModelPricing> MODEL_PRICING = new HashMap<>();
     
+    // Batch API requests cost half of the synchronous price
+    private static final BigDecimal BATCH_PRICE_FACTOR = new BigDecimal("0.5");
+    
+    // Prompt tokens served from the provider's prompt cache are billed at half the input price
+    private static final BigDecimal CACHED_INPUT_FACTOR = new BigDecimal("0.5");
+    
     static {
         // GPT-4o pricing
         MODEL_PRICING.put("gpt-4o", new ModelPricing(
@@ -36,6 +44,12 @@ public class OpenAICostTrackingService {
             new BigDecimal("0.01")    // $10.00 per 1K output tokens
         ));
         
+        // GPT-4o mini pricing
+        MODEL_PRICING.put("gpt-4o-mini", new ModelPricing(
+            new BigDecimal("0.00015"), // $0.15 per 1M input tokens
+            new BigDecimal("0.0006")   // $0.60 per 1M output tokens
+        ));
+        
         // GPT-4 pricing
         MODEL_PRICING.put("gpt-4", new ModelPricing(
             new BigDecimal("0.03"),   // $30.00 per 1K input tokens
@@ -72,6 +86,18 @@ public class OpenAICostTrackingService {
      * Update usage record with response data and save to database
      */
     public void updateAndSaveUsage(OpenAIUsage usage, JsonNode response, String responseText, boolean success, String errorMessage) {
+        saveUsage(usage, response, responseText, success, errorMessage, BigDecimal.ONE);
+    }
+    
+    /**
+     * Same as updateAndSaveUsage for a request answered through the Batch API, which is billed at a discount
+     */
+    public void updateAndSaveBatchUsage(OpenAIUsage usage, JsonNode response, String responseText, boolean success, String errorMessage) {
+        saveUsage(usage, response, responseText, success, errorMessage, BATCH_PRICE_FACTOR);
+    }
+    
+    private void saveUsage(OpenAIUsage usage, JsonNode response, String responseText, boolean success,
+                           String errorMessage, BigDecimal priceFactor) {
         try {
             usage.setSuccess(success);
             usage.setErrorMessage(errorMessage);
@@ -83,6 +109,7 @@ public class OpenAICostTrackingService {
                     usage.setPromptTokens(usageNode.get("prompt_tokens").asInt());
                     usage.setCompletionTokens(usageNode.get("completion_tokens").asInt());
                     usage.setTotalTokens(usageNode.get("total_tokens").asInt());
+                    usage.setCachedTokens(usageNode.path("prompt_tokens_details").path("cached_tokens").asInt(0));
                 }
                 
                 if (responseText != null) {
@@ -90,11 +117,13 @@ public class OpenAICostTrackingService {
                 }
                 
                 // Calculate estimated cost
-                BigDecimal cost = calculateCost(usage.getModelName(), usage.getPromptTokens(), usage.getCompletionTokens());
+                BigDecimal cost = calculateCost(usage.getModelName(), usage.getPromptTokens(), usage.getCompletionTokens(),
+                                                usage.getCachedTokens())
+                    .multiply(priceFactor).setScale(6, RoundingMode.HALF_UP);
                 usage.setEstimatedCost(cost);
                 
-                logger.debug("OpenAI request tracked: {} tokens, estimated cost: ${}", 
-                    usage.getTotalTokens(), cost);
+                logger.debug("OpenAI request tracked: {} tokens ({} cached), estimated cost: ${}", 
+                    usage.getTotalTokens(), usage.getCachedTokens(), cost);
             } else {
                 // For failed requests, we can't get token usage, so estimate based on request size
                 usage.setEstimatedCost(BigDecimal.ZERO);
@@ -112,6 +141,13 @@ public class OpenAICostTrackingService {
      * Calculate cost based on model and token usage
      */
     public BigDecimal calculateCost(String modelName, Integer promptTokens, Integer completionTokens) {
+        return calculateCost(modelName, promptTokens, completionTokens, 0);
+    }
+    
+    /**
+     * Calculate cost with part of the prompt served from the provider's prompt cache
+     */
+    public BigDecimal calculateCost(String modelName, Integer promptTokens, Integer completionTokens, Integer cachedTokens) {
         ModelPricing pricing = MODEL_PRICING.get(modelName);
         if (pricing == null) {
             logger.warn("No pricing information for model: {}, using GPT-4o pricing as fallback", modelName);
@@ -120,11 +156,18 @@ public class OpenAICostTrackingService {
         
         if (promptTokens == null) promptTokens = 0;
         if (completionTokens == null) completionTokens = 0;
+        if (cachedTokens == null) cachedTokens = 0;
+        cachedTokens = Math.min(cachedTokens, promptTokens);
         
-        // Calculate cost: (prompt_tokens / 1000) * input_price + (completion_tokens / 1000) * output_price
-        BigDecimal inputCost = BigDecimal.valueOf(promptTokens)
+        // Calculate cost: (prompt_tokens / 1000) * input_price + (completion_tokens / 1000) * output_price,
+        // with cached prompt tokens at the discounted input price
+        BigDecimal inputCost = BigDecimal.valueOf(promptTokens - cachedTokens)
             .divide(BigDecimal.valueOf(1000), 6, RoundingMode.HALF_UP)
-            .multiply(pricing.inputPrice);
+            .multiply(pricing.inputPrice)
+            .add(BigDecimal.valueOf(cachedTokens)
+                .divide(BigDecimal.valueOf(1000), 6, RoundingMode.HALF_UP)
+                .multiply(pricing.inputPrice)
+                .multiply(CACHED_INPUT_FACTOR));
             
         BigDecimal outputCost = BigDecimal.valueOf(completionTokens)
             .divide(BigDecimal.valueOf(1000), 6, RoundingMode.HALF_UP)
@@ -183,6 +226,37 @@ public class OpenAICostTrackingService {
         return summary;
     }
     
+    /**
+     * Share of prompt tokens served from the provider's prompt cache per request type and model
+     */
+    public Map<String, Object> getPromptCacheStats(LocalDateTime since) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long totalPromptTokens = 0;
+        long totalCachedTokens = 0;
+        List<Map<String, Object>> breakdown = new ArrayList<>();
+        for (Object[] row : openAIUsageRepository.getPromptCacheUsage(since)) {
+            long promptTokens = ((Number) row[3]).longValue();
+            long cachedTokens = ((Number) row[4]).longValue();
+            totalPromptTokens += promptTokens;
+            totalCachedTokens += cachedTokens;
+            
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("requestType", row[0]);
+            entry.put("model", row[1]);
+            entry.put("requests", ((Number) row[2]).longValue());
+            entry.put("promptTokens", promptTokens);
+            entry.put("cachedTokens", cachedTokens);
+            entry.put("cachedRatio", promptTokens > 0 ? (double) cachedTokens / promptTokens : 0.0);
+            breakdown.add(entry);
+        }
+        stats.put("since", since);
+        stats.put("promptTokens", totalPromptTokens);
+        stats.put("cachedTokens", totalCachedTokens);
+        stats.put("cachedRatio", totalPromptTokens > 0 ? (double) totalCachedTokens / totalPromptTokens : 0.0);
+        stats.put("byRequestType", breakdown);
+        return stats;
+    }
+    
     /**
      * Get recent usage records for a user
      */
@@ -0,0 +1,362 @@
+package com.arbmonitor.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Client-side rate limiting for OpenAI calls. Each model has a request bucket (RPM) and a token bucket
+ * (TPM) that are kept in step with the x-ratelimit-* response headers, plus an AIMD concurrency limit:
+ * every successful window of calls adds one slot, a 429 halves it. 429, 5xx and connection failures are
+ * retried with jittered exponential backoff, honouring Retry-After and the reset headers.
+ */
+@Service
+public class OpenAIRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenAIRateLimiter.class);
+
+    // "1s", "6m0s", "20ms", "1h2m3.5s"
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|s|m|h)");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${app.openai.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.openai.rate-limit.requests-per-minute:500}")
+    private long defaultRequestsPerMinute;
+
+    @Value("${app.openai.rate-limit.tokens-per-minute:30000}")
+    private long defaultTokensPerMinute;
+
+    @Value("${app.openai.rate-limit.initial-concurrency:4}")
+    private int initialConcurrency;
+
+    @Value("${app.openai.rate-limit.max-concurrency:16}")
+    private int maxConcurrency;
+
+    @Value("${app.openai.rate-limit.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.openai.rate-limit.backoff-ms:1000}")
+    private long backoffMs;
+
+    @Value("${app.openai.rate-limit.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    private final Map<String, ModelLimits> models = new ConcurrentHashMap<>();
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    /**
+     * Buckets and concurrency limit of one model. Bucket levels are fractional so slow refill rates work.
+     */
+    private class ModelLimits {
+        private final String model;
+        private double requestCapacity;
+        private double tokenCapacity;
+        private double requests;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        // No call starts before this (set by 429s and exhausted reset headers)
+        private long blockedUntil = 0;
+
+        private double concurrencyLimit;
+        private int inFlight = 0;
+        private long waitNanos = 0;
+
+        ModelLimits(String model) {
+            this.model = model;
+            this.requestCapacity = defaultRequestsPerMinute;
+            this.tokenCapacity = defaultTokensPerMinute;
+            this.requests = requestCapacity;
+            this.tokens = tokenCapacity;
+            this.concurrencyLimit = Math.max(1, Math.min(initialConcurrency, maxConcurrency));
+        }
+
+        private void refill(long now) {
+            double minutes = (now - refilledAt) / 60e9;
+            requests = Math.min(requestCapacity, requests + minutes * requestCapacity);
+            tokens = Math.min(tokenCapacity, tokens + minutes * tokenCapacity);
+            refilledAt = now;
+        }
+
+        /**
+         * Take a request and the estimated tokens, or return how long to wait before trying again
+         */
+        synchronized long tryAcquire(long estimatedTokens) {
+            long now = System.nanoTime();
+            refill(now);
+
+            double needed = Math.min(estimatedTokens, tokenCapacity);
+            long waitNanos = Math.max(0, blockedUntil - now);
+            if (inFlight >= (int) concurrencyLimit) {
+                waitNanos = Math.max(waitNanos, 50_000_000L);
+            }
+            if (requests < 1) {
+                waitNanos = Math.max(waitNanos, (long) ((1 - requests) / requestCapacity * 60e9));
+            }
+            if (tokens < needed) {
+                waitNanos = Math.max(waitNanos, (long) ((needed - tokens) / tokenCapacity * 60e9));
+            }
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+
+            requests -= 1;
+            tokens -= needed;
+            inFlight++;
+            return 0;
+        }
+
+        synchronized void release(long estimatedTokens, long actualTokens, HttpHeaders headers, boolean throttled) {
+            inFlight--;
+            if (actualTokens >= 0) {
+                // Give back (or charge) the difference between the estimate and what the call used;
+                // failed calls are assumed to have used nothing
+                tokens = Math.min(tokenCapacity, tokens + Math.min(estimatedTokens, tokenCapacity) - actualTokens);
+            }
+            applyHeaders(headers);
+
+            if (throttled) {
+                concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+            } else {
+                concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1.0 / concurrencyLimit);
+            }
+        }
+
+        synchronized void blockFor(long delayMs) {
+            blockedUntil = Math.max(blockedUntil, System.nanoTime() + delayMs * 1_000_000L);
+        }
+
+        /**
+         * Adopt the server's limits and remaining budget so several instances sharing a key stay within it
+         */
+        private void applyHeaders(HttpHeaders headers) {
+            if (headers == null) {
+                return;
+            }
+            Long limitRequests = headerLong(headers, "x-ratelimit-limit-requests");
+            Long limitTokens = headerLong(headers, "x-ratelimit-limit-tokens");
+            Long remainingRequests = headerLong(headers, "x-ratelimit-remaining-requests");
+            Long remainingTokens = headerLong(headers, "x-ratelimit-remaining-tokens");
+
+            if (limitRequests != null && limitRequests > 0) {
+                requestCapacity = limitRequests;
+            }
+            if (limitTokens != null && limitTokens > 0) {
+                tokenCapacity = limitTokens;
+            }
+            if (remainingRequests != null) {
+                requests = Math.min(requests, remainingRequests);
+            }
+            if (remainingTokens != null) {
+                tokens = Math.min(tokens, remainingTokens);
+            }
+            // An exhausted budget is only refilled when the server says so
+            if (remainingRequests != null && remainingRequests == 0) {
+                blockedUntilReset(headers.getFirst("x-ratelimit-reset-requests"));
+            }
+            if (remainingTokens != null && remainingTokens == 0) {
+                blockedUntilReset(headers.getFirst("x-ratelimit-reset-tokens"));
+            }
+        }
+
+        private void blockedUntilReset(String reset) {
+            long resetMs = parseDurationMs(reset);
+            if (resetMs > 0) {
+                blockedUntil = Math.max(blockedUntil, System.nanoTime() + resetMs * 1_000_000L);
+            }
+        }
+
+        synchronized Map<String, Object> getStats() {
+            refill(System.nanoTime());
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requestsPerMinute", (long) requestCapacity);
+            stats.put("tokensPerMinute", (long) tokenCapacity);
+            stats.put("availableRequests", (long) requests);
+            stats.put("availableTokens", (long) tokens);
+            stats.put("concurrencyLimit", (int) concurrencyLimit);
+            stats.put("inFlight", inFlight);
+            stats.put("totalWaitMs", waitNanos / 1_000_000L);
+            stats.put("blockedForMs", Math.max(0, (blockedUntil - System.nanoTime()) / 1_000_000L));
+            return stats;
+        }
+    }
+
+    /**
+     * Run an OpenAI call for a model within its rate limits, retrying throttled and failed attempts.
+     * The estimate (prompt plus max completion tokens) is reserved up front and reconciled with the
+     * usage reported in the response.
+     */
+    public ResponseEntity<String> execute(String model, long estimatedTokens, Supplier<ResponseEntity<String>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        ModelLimits limits = models.computeIfAbsent(model, ModelLimits::new);
+        int attempts = Math.max(1, maxAttempts);
+        for (int attempt = 1; ; attempt++) {
+            acquire(limits, estimatedTokens);
+
+            ResponseEntity<String> response;
+            try {
+                response = call.get();
+            } catch (HttpStatusCodeException e) {
+                boolean throttled = e.getStatusCode().value() == 429;
+                limits.release(estimatedTokens, 0, e.getResponseHeaders(), throttled);
+                if (throttled) {
+                    rateLimited.incrementAndGet();
+                }
+                if (!(throttled || e.getStatusCode().is5xxServerError()) || attempt >= attempts) {
+                    if (attempt >= attempts) {
+                        exhausted.incrementAndGet();
+                    }
+                    throw e;
+                }
+                backOff(limits, attempt, e.getResponseHeaders(), throttled, e.getStatusCode().value());
+                continue;
+            } catch (ResourceAccessException e) {
+                limits.release(estimatedTokens, 0, null, false);
+                if (attempt >= attempts) {
+                    exhausted.incrementAndGet();
+                    throw e;
+                }
+                backOff(limits, attempt, null, false, -1);
+                continue;
+            } catch (RuntimeException e) {
+                limits.release(estimatedTokens, 0, null, false);
+                throw e;
+            }
+
+            limits.release(estimatedTokens, usedTokens(response.getBody()), response.getHeaders(), false);
+            return response;
+        }
+    }
+
+    /**
+     * Rough token estimate of a prompt plus its completion budget (about four characters per token)
+     */
+    public static long estimateTokens(String prompt, int maxCompletionTokens) {
+        return (prompt != null ? prompt.length() / 4 : 0) + Math.max(0, maxCompletionTokens);
+    }
+
+    /**
+     * Limits, budgets and concurrency per model
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("retries", retries.get());
+        stats.put("rateLimited", rateLimited.get());
+        stats.put("retriesExhausted", exhausted.get());
+        Map<String, Object> perModel = new LinkedHashMap<>();
+        models.forEach((model, limits) -> perModel.put(model, limits.getStats()));
+        stats.put("models", perModel);
+        return stats;
+    }
+
+    private void acquire(ModelLimits limits, long estimatedTokens) {
+        while (true) {
+            long waitNanos = limits.tryAcquire(estimatedTokens);
+            if (waitNanos == 0) {
+                return;
+            }
+            synchronized (limits) {
+                limits.waitNanos += waitNanos;
+            }
+            sleep(Math.max(1, waitNanos / 1_000_000L));
+        }
+    }
+
+    private void backOff(ModelLimits limits, int attempt, HttpHeaders headers, boolean throttled, int status) {
+        long delay = Math.min(maxBackoffMs, backoffMs * (1L << Math.min(20, attempt - 1)));
+        delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+
+        if (headers != null) {
+            Long retryAfterSeconds = headerLong(headers, HttpHeaders.RETRY_AFTER);
+            if (retryAfterSeconds != null) {
+                delay = Math.max(delay, retryAfterSeconds * 1000);
+            }
+            if (throttled) {
+                delay = Math.max(delay, Math.max(parseDurationMs(headers.getFirst("x-ratelimit-reset-requests")),
+                                                 parseDurationMs(headers.getFirst("x-ratelimit-reset-tokens"))));
+            }
+        }
+
+        if (throttled) {
+            // Hold every caller of the model, not only this one, until the window resets
+            limits.blockFor(delay);
+        }
+        retries.incrementAndGet();
+        logger.warn("OpenAI call for {} failed with {} (attempt {}), retrying in {} ms",
+                   limits.model, status > 0 ? status : "connection error", attempt, delay);
+        sleep(delay);
+    }
+
+    private long usedTokens(String body) {
+        try {
+            JsonNode usage = objectMapper.readTree(body).path("usage");
+            return usage.has("total_tokens") ? usage.path("total_tokens").asLong() : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for OpenAI rate limit", e);
+        }
+    }
+
+    private static Long headerLong(HttpHeaders headers, String name) {
+        String value = headers.getFirst(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return (long) Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static long parseDurationMs(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        double millis = 0;
+        while (matcher.find()) {
+            double amount = Double.parseDouble(matcher.group(1));
+            millis += switch (matcher.group(2)) {
+                case "ms" -> amount;
+                case "s" -> amount * 1000;
+                case "m" -> amount * 60_000;
+                default -> amount * 3_600_000;
+            };
+        }
+        return (long) Math.ceil(millis);
+    }
+}
@@ -0,0 +1,176 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.config.IoExecutorRegistry;
+import com.arbmonitor.api.model.AdAnalysis;
+import com.arbmonitor.api.model.Domain;
+import com.arbmonitor.api.model.ScrapedAd;
+import jakarta.annotation.PostConstruct;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs per-ad compliance analysis in parallel with a global and a per-domain concurrency limit.
+ * Each ad still goes through IndividualAdAnalysisService so it keeps its own REQUIRES_NEW transaction.
+ */
+@Service
+public class ParallelAdAnalysisService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelAdAnalysisService.class);
+
+    @Autowired
+    private IndividualAdAnalysisService individualAdAnalysisService;
+
+    @Autowired
+    private IoExecutorRegistry ioExecutorRegistry;
+
+    @Value("${app.analysis.max-concurrent-per-domain:4}")
+    private int maxConcurrentPerDomain;
+
+    private Executor analysisExecutor;
+
+    private final Map<String, Semaphore> domainPermits = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void initExecutor() {
+        // The global limit is the one of the "openai" I/O executor
+        IoExecutorRegistry.IoExecutor executor = ioExecutorRegistry.executor(IoExecutorRegistry.OPENAI);
+        analysisExecutor = executor;
+        logger.info("Ad analysis engine started (global limit: {}, per-domain limit: {})",
+                   executor.getMaxConcurrent(), maxConcurrentPerDomain);
+    }
+
+    /**
+     * Analyze the given ads of a domain in parallel and block until all of them have finished
+     */
+    public AnalysisBatchResult analyzeAds(Domain domain, List<ScrapedAd> ads) {
+        return analyzeAds(domain, ads, null);
+    }
+
+    /**
+     * Same as {@link #analyzeAds(Domain, List)}, notifying the listener from the worker thread after each ad
+     */
+    public AnalysisBatchResult analyzeAds(Domain domain, List<ScrapedAd> ads, BiConsumer<ScrapedAd, Boolean> onAdCompleted) {
+        Semaphore permits = domainPermits.computeIfAbsent(domain.getDomainName(),
+                name -> new Semaphore(Math.max(1, maxConcurrentPerDomain)));
+
+        int total = ads.size();
+        AtomicInteger successCount = new AtomicInteger();
+        AtomicInteger errorCount = new AtomicInteger();
+        AtomicInteger autoResolvedCount = new AtomicInteger();
+        AtomicInteger escalatedCount = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(total);
+
+        for (ScrapedAd ad : ads) {
+            // Element collections are lazy and the worker thread has no access to the caller's session
+            initializeCollections(ad);
+
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while scheduling analysis for domain: {}", domain.getDomainName());
+                break;
+            }
+
+            try {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    boolean success = false;
+                    try {
+                        AdAnalysis analysis = individualAdAnalysisService.analyzeAdWithNewTransaction(ad, domain);
+                        success = true;
+                        if (analysis.getTriageOutcome() == AdAnalysis.TriageOutcome.ESCALATED) {
+                            escalatedCount.incrementAndGet();
+                        } else if (analysis.getTriageOutcome() != null) {
+                            autoResolvedCount.incrementAndGet();
+                        }
+                        int done = successCount.incrementAndGet() + errorCount.get();
+                        logger.info("Successfully analyzed ad {}/{}: {}", done, total, ad.getMetaAdId());
+                    } catch (Exception e) {
+                        int done = successCount.get() + errorCount.incrementAndGet();
+                        logger.error("Error analyzing ad {}/{} ({}): {}", done, total, ad.getMetaAdId(), e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                    notifyCompleted(onAdCompleted, ad, success);
+                }, analysisExecutor));
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                errorCount.incrementAndGet();
+                logger.error("Analysis rejected for ad {}: {}", ad.getMetaAdId(), e.getMessage());
+            }
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                logger.error("Unexpected analysis task failure: {}", e.getMessage());
+            }
+        }
+
+        return new AnalysisBatchResult(successCount.get(), errorCount.get(), autoResolvedCount.get(), escalatedCount.get());
+    }
+
+    private void notifyCompleted(BiConsumer<ScrapedAd, Boolean> onAdCompleted, ScrapedAd ad, boolean success) {
+        if (onAdCompleted == null) {
+            return;
+        }
+        try {
+            onAdCompleted.accept(ad, success);
+        } catch (Exception e) {
+            logger.warn("Completion callback failed for ad {}: {}", ad.getMetaAdId(), e.getMessage());
+        }
+    }
+
+    private void initializeCollections(ScrapedAd ad) {
+        try {
+            Hibernate.initialize(ad.getImageUrls());
+            Hibernate.initialize(ad.getLocalImagePaths());
+        } catch (Exception e) {
+            logger.debug("Could not initialize media collections for ad {}: {}", ad.getMetaAdId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Outcome counts for a batch of analyzed ads
+     */
+    public static class AnalysisBatchResult {
+        private final int successCount;
+        private final int errorCount;
+        private final int autoResolvedCount;
+        private final int escalatedCount;
+
+        public AnalysisBatchResult(int successCount, int errorCount, int autoResolvedCount, int escalatedCount) {
+            this.successCount = successCount;
+            this.errorCount = errorCount;
+            this.autoResolvedCount = autoResolvedCount;
+            this.escalatedCount = escalatedCount;
+        }
+
+        public int getSuccessCount() { return successCount; }
+        public int getErrorCount() { return errorCount; }
+        /** Successful ads resolved by triage without a model call */
+        public int getAutoResolvedCount() { return autoResolvedCount; }
+        public int getEscalatedCount() { return escalatedCount; }
+    }
+}
@@ -0,0 +1,384 @@
+package com.arbmonitor.api.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Central gate for the external processes of media analysis (tesseract, ffmpeg). Every process needs
+ * a slot of its lane (OCR or transcoding) and one of the shared CPU slots, sized to the cores this
+ * container may use, so parallel pipelines fill the box without oversubscribing it. Callers wait for
+ * slots up to a queue timeout; processes that exceed their run timeout, or whose caller is interrupted,
+ * are killed together with their child processes.
+ */
+@Service
+public class ProcessGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessGovernor.class);
+
+    // Upper bounds (seconds) of the run-time histogram buckets; the last bucket is open-ended
+    private static final long[] RUN_TIME_BUCKETS = {1, 5, 15, 60};
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.processes.cpu-slots:0}")
+    private int cpuSlots; // 0 = cores available to this container
+
+    @Value("${app.processes.ocr-slots:0}")
+    private int ocrSlots; // 0 = all CPU slots
+
+    @Value("${app.processes.transcode-slots:0}")
+    private int transcodeSlots; // 0 = half of the CPU slots
+
+    @Value("${app.processes.queue-timeout-ms:300000}")
+    private long queueTimeoutMs;
+
+    private int totalCpuSlots;
+    private Semaphore cpuPermits;
+    private final Map<Lane, LaneState> lanes = new EnumMap<>(Lane.class);
+
+    // Processes currently running, killed on shutdown
+    private final Set<Process> runningProcesses = ConcurrentHashMap.newKeySet();
+
+    // Drains process output while the caller waits (interruptibly) for the process to exit
+    private final ExecutorService outputReaders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ProcessOutput");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Kind of work a process does; each lane has its own slot limit within the shared CPU slots
+     */
+    public enum Lane {
+        OCR,        // tesseract
+        TRANSCODE   // ffmpeg frame and audio extraction
+    }
+
+    /**
+     * Exit code and combined stdout/stderr of a finished process
+     */
+    public static class ProcessResult {
+        private final int exitCode;
+        private final String output;
+
+        public ProcessResult(int exitCode, String output) {
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+
+        public int getExitCode() { return exitCode; }
+        public String getOutput() { return output; }
+        public boolean isSuccess() { return exitCode == 0; }
+    }
+
+    /**
+     * No slot became free within the queue timeout
+     */
+    public static class SlotTimeoutException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public SlotTimeoutException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The process ran longer than its timeout and was killed
+     */
+    public static class ProcessTimeoutException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public ProcessTimeoutException(String message) {
+            super(message);
+        }
+    }
+
+    private static class LaneState {
+        private final Lane lane;
+        private final int slots;
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong timedOut = new AtomicLong();
+        private final AtomicLong killed = new AtomicLong();
+        private final AtomicLong queueTimeouts = new AtomicLong();
+        private final AtomicLong totalRunMs = new AtomicLong();
+        private final AtomicLong totalWaitMs = new AtomicLong();
+        private final AtomicLongArray runTimeBuckets = new AtomicLongArray(RUN_TIME_BUCKETS.length + 1);
+        private Timer runTimer;
+        private Timer waitTimer;
+
+        LaneState(Lane lane, int slots) {
+            this.lane = lane;
+            this.slots = slots;
+            this.permits = new Semaphore(slots, true);
+        }
+
+        void recordRun(long runMs) {
+            totalRunMs.addAndGet(runMs);
+            int bucket = 0;
+            while (bucket < RUN_TIME_BUCKETS.length && runMs > RUN_TIME_BUCKETS[bucket] * 1000) {
+                bucket++;
+            }
+            runTimeBuckets.incrementAndGet(bucket);
+            if (runTimer != null) {
+                runTimer.record(runMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void recordWait(long waitMs) {
+            totalWaitMs.addAndGet(waitMs);
+            if (waitTimer != null) {
+                waitTimer.record(waitMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void initSlots() {
+        int cores = cpuSlots > 0 ? cpuSlots : availableCores();
+        totalCpuSlots = cores;
+        cpuPermits = new Semaphore(cores, true);
+        lanes.put(Lane.OCR, new LaneState(Lane.OCR, Math.min(cores, ocrSlots > 0 ? ocrSlots : cores)));
+        lanes.put(Lane.TRANSCODE, new LaneState(Lane.TRANSCODE,
+            Math.min(cores, transcodeSlots > 0 ? transcodeSlots : Math.max(1, cores / 2))));
+
+        if (meterRegistry != null) {
+            for (LaneState state : lanes.values()) {
+                String lane = state.lane.name().toLowerCase();
+                state.runTimer = Timer.builder("app.process.run").tag("lane", lane)
+                    .publishPercentileHistogram().register(meterRegistry);
+                state.waitTimer = Timer.builder("app.process.wait").tag("lane", lane)
+                    .publishPercentileHistogram().register(meterRegistry);
+                Gauge.builder("app.process.waiting", state.waiting, AtomicInteger::get)
+                    .tag("lane", lane).register(meterRegistry);
+                Gauge.builder("app.process.running", state.running, AtomicInteger::get)
+                    .tag("lane", lane).register(meterRegistry);
+            }
+        }
+
+        logger.info("Process governor ready ({} CPU slots, OCR lane {}, transcode lane {}, queue timeout {} ms)",
+                   cores, lanes.get(Lane.OCR).slots, lanes.get(Lane.TRANSCODE).slots, queueTimeoutMs);
+    }
+
+    @PreDestroy
+    public void killRunningProcesses() {
+        for (Process process : runningProcesses) {
+            kill(process);
+        }
+        outputReaders.shutdownNow();
+    }
+
+    /**
+     * Run a command once a slot of its lane is free and return its exit code and output. Throws
+     * {@link SlotTimeoutException} when no slot frees up in time and {@link ProcessTimeoutException}
+     * when the process outlives its timeout; an interrupted caller gets the process killed.
+     */
+    public ProcessResult run(Lane lane, List<String> command, long timeoutSeconds)
+            throws IOException, InterruptedException {
+        LaneState state = lanes.get(lane);
+        long queuedAt = System.nanoTime();
+
+        state.waiting.incrementAndGet();
+        try {
+            acquireSlots(state, command.get(0));
+        } finally {
+            state.waiting.decrementAndGet();
+        }
+        state.recordWait(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt));
+
+        state.running.incrementAndGet();
+        long startedAt = System.nanoTime();
+        try {
+            ProcessResult result = execute(state, command, timeoutSeconds);
+            if (result.isSuccess()) {
+                state.completed.incrementAndGet();
+            } else {
+                state.failed.incrementAndGet();
+            }
+            return result;
+        } catch (IOException | RuntimeException e) {
+            state.failed.incrementAndGet();
+            throw e;
+        } finally {
+            state.recordRun(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            state.running.decrementAndGet();
+            cpuPermits.release();
+            state.permits.release();
+        }
+    }
+
+    /**
+     * Slot usage, queue depth and run-time distribution per lane
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cpuSlots", totalCpuSlots);
+        stats.put("cpuSlotsFree", cpuPermits.availablePermits());
+        for (LaneState state : lanes.values()) {
+            long finished = state.completed.get() + state.failed.get();
+            Map<String, Object> laneStats = new LinkedHashMap<>();
+            laneStats.put("slots", state.slots);
+            laneStats.put("running", state.running.get());
+            laneStats.put("waiting", state.waiting.get());
+            laneStats.put("completed", state.completed.get());
+            laneStats.put("failed", state.failed.get());
+            laneStats.put("timedOut", state.timedOut.get());
+            laneStats.put("killed", state.killed.get());
+            laneStats.put("queueTimeouts", state.queueTimeouts.get());
+            laneStats.put("avgRunMs", finished > 0 ? state.totalRunMs.get() / finished : 0);
+            laneStats.put("avgWaitMs", finished > 0 ? state.totalWaitMs.get() / finished : 0);
+
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < RUN_TIME_BUCKETS.length; i++) {
+                histogram.put("le" + RUN_TIME_BUCKETS[i] + "s", state.runTimeBuckets.get(i));
+            }
+            histogram.put("gt" + RUN_TIME_BUCKETS[RUN_TIME_BUCKETS.length - 1] + "s",
+                          state.runTimeBuckets.get(RUN_TIME_BUCKETS.length));
+            laneStats.put("runTimeHistogram", histogram);
+            stats.put(state.lane.name().toLowerCase(), laneStats);
+        }
+        return stats;
+    }
+
+    private void acquireSlots(LaneState state, String program) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+        if (!state.permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+            state.queueTimeouts.incrementAndGet();
+            throw new SlotTimeoutException(String.format("No %s slot for %s within %d ms",
+                                                         state.lane, program, queueTimeoutMs));
+        }
+        try {
+            if (!cpuPermits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                state.queueTimeouts.incrementAndGet();
+                throw new SlotTimeoutException(String.format("No CPU slot for %s within %d ms", program, queueTimeoutMs));
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            state.permits.release();
+            throw e;
+        }
+    }
+
+    private ProcessResult execute(LaneState state, List<String> command, long timeoutSeconds)
+            throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectErrorStream(true);
+        Process process = pb.start();
+        runningProcesses.add(process);
+
+        try {
+            CompletableFuture<String> output = CompletableFuture.supplyAsync(() -> readFully(process.getInputStream()), outputReaders);
+
+            boolean finished;
+            try {
+                finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // Caller was cancelled: the process must not keep the slot's CPU busy
+                state.killed.incrementAndGet();
+                kill(process);
+                throw e;
+            }
+            if (!finished) {
+                state.timedOut.incrementAndGet();
+                kill(process);
+                throw new ProcessTimeoutException(String.format("%s timed out after %d s", command.get(0), timeoutSeconds));
+            }
+
+            try {
+                return new ProcessResult(process.exitValue(), output.get(5, TimeUnit.SECONDS));
+            } catch (ExecutionException | TimeoutException e) {
+                // Exited, but a child kept the output pipe open
+                kill(process);
+                return new ProcessResult(process.exitValue(), "");
+            }
+        } finally {
+            runningProcesses.remove(process);
+        }
+    }
+
+    private static String readFully(InputStream stream) {
+        try (InputStream in = stream) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static void kill(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * Cores this process may use: the JVM's view, capped by a cgroup CPU quota when one is set
+     */
+    static int availableCores() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        Integer quota = readCgroupV2Quota(Paths.get("/sys/fs/cgroup/cpu.max"));
+        if (quota == null) {
+            quota = readCgroupV1Quota(Paths.get("/sys/fs/cgroup/cpu/cpu.cfs_quota_us"),
+                                      Paths.get("/sys/fs/cgroup/cpu/cpu.cfs_period_us"));
+        }
+        return Math.max(1, quota != null ? Math.min(cores, quota) : cores);
+    }
+
+    // cpu.max holds "<quota> <period>", or "max <period>" without a limit
+    private static Integer readCgroupV2Quota(Path cpuMax) {
+        try {
+            String[] parts = Files.readString(cpuMax).trim().split("\\s+");
+            if (parts.length == 2 && !"max".equals(parts[0])) {
+                return (int) Math.ceil(Double.parseDouble(parts[0]) / Double.parseDouble(parts[1]));
+            }
+        } catch (IOException | RuntimeException e) {
+            // No cgroup v2 CPU controller
+        }
+        return null;
+    }
+
+    private static Integer readCgroupV1Quota(Path quotaFile, Path periodFile) {
+        try {
+            long quota = Long.parseLong(Files.readString(quotaFile).trim());
+            long period = Long.parseLong(Files.readString(periodFile).trim());
+            if (quota > 0 && period > 0) {
+                return (int) Math.ceil((double) quota / period);
+            }
+        } catch (IOException | RuntimeException e) {
+            // No cgroup v1 CPU controller
+        }
+        return null;
+    }
+}
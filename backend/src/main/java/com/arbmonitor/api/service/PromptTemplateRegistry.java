@@ -0,0 +1,243 @@
+package com.arbmonitor.api.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned OpenAI prompt templates. Each template is a static instruction block sent as the leading
+ * system message, identical for every request of that template, followed by the per-request content.
+ * Keeping the variable content last lets the provider reuse the cached prefix (once it reaches
+ * {@link #PROVIDER_CACHE_MIN_TOKENS} tokens) and bill it at the cached-input rate.
+ *
+ * No static prefix reaches that size on its own, so a call is only served from the provider cache when
+ * the same long page content or URL list follows the instructions, e.g. ads sharing a landing page;
+ * getStats() reports the templates as not prefix-cacheable. Padding the instructions past the minimum
+ * does not pay off: models without prompt caching, such as the default large tier, would be billed for
+ * the extra tokens on every call.
+ *
+ * Bump a template's version whenever its instructions or content layout change, so verdicts cached
+ * under the old prompt are not reused.
+ */
+@Component
+public class PromptTemplateRegistry {
+
+    // Prompts shorter than this are never served from the provider's prompt cache
+    public static final int PROVIDER_CACHE_MIN_TOKENS = 1024;
+
+    public static final PromptTemplate COMPLIANCE = new PromptTemplate("compliance", 3, """
+        You are an expert ad compliance analyst. Analyze a Facebook ad for Google AdSense for Search (AFS) compliance.
+        The landing page content, the referrer ad creative (RAC) and the ad creative text of the ad follow these instructions.
+
+        Please analyze these 3 specific compliance areas and respond in this EXACT JSON format:
+        {
+          "adCreativeCompliant": true/false,
+          "adCreativeReason": "Brief reason if not compliant, or 'Compliant' if ok",
+          "landingPageRelevant": true/false,
+          "landingPageReason": "Brief reason if not relevant, or 'Relevant' if ok",
+          "racRelevant": true/false,
+          "racReason": "Brief reason if RAC doesn't match ad, or 'Matches ad content' if ok, or 'RAC analysis turned off' if disabled",
+          "overallCompliant": true/false,
+          "confidence": 0.0-1.0
+        }
+
+        COMPLIANCE RULES:
+        1. AD CREATIVE: No misleading claims, no "click here" language, no false promises, no medical/financial guarantees
+        2. LANDING PAGE RELEVANCE: Content must match the ad promise and be relevant to the ad text
+        3. RAC RELEVANCE: When a referrer ad creative (kw parameter) is given, it should match the ad content for proper tracking.
+           When RAC analysis is turned off for the domain, set racRelevant to true and racReason to 'RAC analysis turned off'.
+
+        Be strict but fair. Only mark as non-compliant if there are clear violations.
+        Set "confidence" to how certain you are of the overall verdict; use a low value when the ad is borderline or content is missing.
+        """);
+
+    public static final PromptTemplate LANDING_PAGE = new PromptTemplate("landing-page", 2, """
+        You are an expert web content analyst. Analyze a landing page to understand its content and extract the referrer ad creative value.
+        The landing page URL and HTML content follow these instructions.
+
+        Please analyze the page and respond in this EXACT JSON format:
+        {
+          "referrerAdCreative": "The main search term, keyword, or ad creative that brought users to this page",
+          "pageContent": "Brief summary of what this page is about (1-2 sentences)"
+        }
+
+        INSTRUCTIONS:
+        1. Look for URL parameters like 'q', 'query', 'search', 'kw', 'keyword', 'term' that contain the search term
+        2. If no URL parameters, examine the page content, title, headings, and meta tags
+        3. The referrerAdCreative should be the main topic/keyword that someone would search for to find this page
+        4. If you can't find a specific search term, extract the main topic from the page title or primary heading
+        5. Keep the referrerAdCreative concise but descriptive (3-15 words)
+        6. Return null for referrerAdCreative only if the page content is completely unrelated to any searchable topic
+
+        Examples of good referrerAdCreative values:
+        - "Best supportive bikini tops for big busts"
+        - "Kitchen gadgets under $25"
+        - "Alzheimer's treatment injection at home"
+        - "Daily vitamins for energy over 60"
+        """);
+
+    public static final PromptTemplate DOMAIN_RAC_PATTERN = new PromptTemplate("domain-rac-pattern", 2, """
+        You are an expert web analyst. Analyze sample URLs from one domain to identify the consistent pattern for extracting the referrer ad creative (RAC) parameter.
+        The domain and its sample URLs follow these instructions.
+
+        NOTE: Focus on URL parameters first, as landing page content analysis will be done separately if needed.
+
+        Please analyze these URLs and their landing page content, then respond in this EXACT JSON format:
+        {
+          "racParameter": "the parameter/element name that contains the RAC",
+          "extractionType": "URL_PARAMETER|JS_VARIABLE|META_TAG|DATA_ATTRIBUTE|FORM_INPUT|JSON_LD",
+          "extractionPattern": "specific pattern to extract the value",
+          "confidence": "HIGH/MEDIUM/LOW based on consistency across samples",
+          "explanation": "Brief explanation of where and how the RAC is stored in this domain"
+        }
+
+        INSTRUCTIONS:
+        1. FIRST: Check URL parameters for RAC (adtitle, kw, q, query, search, keyword, term, title, headline)
+        2. IF NO URL PARAMETERS: Analyze the landing page HTML content for RAC patterns
+        3. Look for these patterns in page content:
+           - JavaScript variables: window.searchTerm, var keyword, let query, etc.
+           - Meta tags: <meta name="keyword" content="...">, <meta property="search" content="...">
+           - Data attributes: data-search, data-keyword, data-query
+           - Hidden form inputs: <input type="hidden" name="search" value="...">
+           - JSON-LD structured data: searchAction, query properties
+        4. The RAC should contain descriptive text that represents what users searched for
+        5. Choose the pattern that appears most consistently across all samples
+        6. Return confidence HIGH only if the pattern is consistent across 80%+ of samples
+
+        EXAMPLES:
+        - If URLs contain "adtitle=Product+Name", return racParameter: "adtitle"
+        - If URLs contain "q=search+term", return racParameter: "q"
+        - If URLs contain "kw=keyword+phrase", return racParameter: "kw"
+        """);
+
+    public static final PromptTemplate AD_CREATIVE_STRUCTURED = new PromptTemplate("ad-creative-structured", 2, """
+        You are an expert compliance analyst for digital advertising. Analyze the ad creative content that follows these instructions for compliance violations.
+
+        IMPORTANT: This ad may be in any language (English, Spanish, French, German, Italian, Portuguese, etc.). Analyze the content in its original language and provide your analysis in English.
+
+        COMPLIANCE RULES TO CHECK:
+        1. Misleading Claims: False or exaggerated promises
+        2. Medical Claims: Unsubstantiated health benefits
+        3. Financial Guarantees: Unrealistic income promises
+        4. Before/After Claims: Unverifiable transformation claims
+        5. Clickbait Language: Sensational or deceptive headlines
+        6. False Urgency: Fake scarcity or time pressure
+
+        REQUIRED JSON RESPONSE FORMAT:
+        {
+          "compliant": boolean,
+          "confidence_score": number (0.0-1.0),
+          "violations": [
+            {
+              "rule_type": "string",
+              "severity": "LOW|MEDIUM|HIGH|CRITICAL",
+              "description": "string",
+              "violated_text": "string"
+            }
+          ],
+          "reasoning": "string explaining the analysis"
+        }
+
+        Respond ONLY with valid JSON. No additional text or explanation outside the JSON structure.
+        """);
+
+    public static final PromptTemplate LANDING_PAGE_STRUCTURED = new PromptTemplate("landing-page-structured", 2, """
+        You are an expert compliance analyst for digital advertising. Analyze the landing page that follows these instructions for compliance and relevance to the ad.
+
+        IMPORTANT: Content may be in any language. Analyze in original language, respond in English.
+
+        COMPLIANCE CHECKS:
+        1. Relevance: Does the landing page match the ad promise?
+        2. Accessibility: Is the page functional and user-friendly?
+        3. Content Quality: Is the content valuable and not misleading?
+        4. User Experience: Does the page provide what users expect?
+
+        REQUIRED JSON RESPONSE FORMAT:
+        {
+          "compliant": boolean,
+          "relevance_score": number (0.0-1.0),
+          "violations": [
+            {
+              "rule_type": "string",
+              "severity": "LOW|MEDIUM|HIGH|CRITICAL",
+              "description": "string",
+              "violated_text": "string"
+            }
+          ],
+          "reasoning": "string explaining the analysis",
+          "page_summary": "brief summary of landing page content"
+        }
+
+        Respond ONLY with valid JSON. No additional text or explanation outside the JSON structure.
+        """);
+
+    private static final List<PromptTemplate> TEMPLATES = List.of(
+        COMPLIANCE, LANDING_PAGE, DOMAIN_RAC_PATTERN, AD_CREATIVE_STRUCTURED, LANDING_PAGE_STRUCTURED);
+
+    /**
+     * Version and static prefix size of every template
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (PromptTemplate template : TEMPLATES) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("version", template.getVersionedId());
+            entry.put("prefixChars", template.getInstructions().length());
+            entry.put("estimatedPrefixTokens", template.getEstimatedPrefixTokens());
+            entry.put("prefixCacheable", template.getEstimatedPrefixTokens() >= PROVIDER_CACHE_MIN_TOKENS);
+            stats.put(template.getId(), entry);
+        }
+        return stats;
+    }
+
+    /**
+     * Static instructions of one prompt type
+     */
+    public static class PromptTemplate {
+        private final String id;
+        private final int version;
+        private final String instructions;
+
+        public PromptTemplate(String id, int version, String instructions) {
+            this.id = id;
+            this.version = version;
+            this.instructions = instructions.strip();
+        }
+
+        /**
+         * Pair the static instructions with the content of one request
+         */
+        public RenderedPrompt render(String content) {
+            return new RenderedPrompt(this, content);
+        }
+
+        public String getId() { return id; }
+        public int getVersion() { return version; }
+        public String getInstructions() { return instructions; }
+        /** Id and version, e.g. "compliance-v3"; part of every cache key built from this template */
+        public String getVersionedId() { return id + "-v" + version; }
+        public long getEstimatedPrefixTokens() { return OpenAIRateLimiter.estimateTokens(instructions, 0); }
+    }
+
+    /**
+     * Template instructions followed by the variable content of one request
+     */
+    public static class RenderedPrompt {
+        private final PromptTemplate template;
+        private final String content;
+
+        public RenderedPrompt(PromptTemplate template, String content) {
+            this.template = template;
+            this.content = content;
+        }
+
+        public PromptTemplate getTemplate() { return template; }
+        public String getInstructions() { return template.getInstructions(); }
+        public String getContent() { return content; }
+        public String getVersionedId() { return template.getVersionedId(); }
+        /** Everything the model reads, for cache keys and token estimates */
+        public String getFullText() { return template.getInstructions() + "\n\n" + content; }
+    }
+}
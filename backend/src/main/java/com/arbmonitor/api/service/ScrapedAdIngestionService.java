@@ -0,0 +1,325 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.ScrapedAd;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes scraped ads and their media collections with batched JDBC statements instead of
+ * a find + save round trip per ad. Existing rows are matched on the unique meta_ad_id.
+ */
+@Service
+public class ScrapedAdIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScrapedAdIngestionService.class);
+
+    private static final String INSERT_SQL =
+        "INSERT INTO scraped_ads (meta_ad_id, domain_name, page_name, page_id, primary_text, headline, description, " +
+        "call_to_action, landing_page_url, display_url, ad_format, extracted_image_text, extracted_video_text, " +
+        "referrer_ad_creative, funding_entity, ad_creation_date, ad_delivery_start_date, ad_delivery_stop_date, " +
+        "is_active, spend_range_lower, spend_range_upper, impressions_range_lower, impressions_range_upper, " +
+        "target_locations, target_demographics, scrape_source, raw_data, content_fingerprint, last_updated, " +
+        "scraped_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // The owning domain, first-scrape time and previously extracted text are kept on update
+    private static final String UPDATE_SQL =
+        "UPDATE scraped_ads SET page_name = ?, page_id = ?, primary_text = ?, headline = ?, description = ?, " +
+        "call_to_action = ?, landing_page_url = ?, display_url = ?, ad_format = ?, " +
+        "extracted_image_text = COALESCE(?, extracted_image_text), " +
+        "extracted_video_text = COALESCE(?, extracted_video_text), " +
+        "referrer_ad_creative = COALESCE(?, referrer_ad_creative), funding_entity = ?, ad_creation_date = ?, " +
+        "ad_delivery_start_date = ?, ad_delivery_stop_date = ?, is_active = ?, spend_range_lower = ?, " +
+        "spend_range_upper = ?, impressions_range_lower = ?, impressions_range_upper = ?, target_locations = ?, " +
+        "target_demographics = ?, scrape_source = ?, raw_data = ?, content_fingerprint = ?, last_updated = ? " +
+        "WHERE meta_ad_id = ?";
+
+    private static final String[][] COLLECTION_TABLES = {
+        {"scraped_ad_images", "image_url"},
+        {"scraped_ad_videos", "video_url"},
+        {"scraped_ad_local_images", "local_image_path"},
+        {"scraped_ad_local_videos", "local_video_path"}
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.ingestion.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * Insert or update the given ads. Each batch is written in its own transaction; if a batch fails
+     * its ads are retried one by one so a single bad row only fails itself. Generated ids are set
+     * back on the ad objects.
+     */
+    public BulkWriteResult upsertAds(List<ScrapedAd> ads) {
+        long start = System.currentTimeMillis();
+
+        // Later duplicates of the same meta ad id win, as they would with a save loop
+        Map<String, ScrapedAd> unique = new LinkedHashMap<>();
+        List<RowOutcome> outcomes = new ArrayList<>();
+        for (ScrapedAd ad : ads) {
+            if (ad.getMetaAdId() == null || ad.getDomainName() == null) {
+                outcomes.add(new RowOutcome(ad.getMetaAdId(), Outcome.FAILED, "Missing meta ad id or domain"));
+            } else {
+                unique.put(ad.getMetaAdId(), ad);
+            }
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<ScrapedAd> rows = new ArrayList<>(unique.values());
+        int size = Math.max(1, batchSize);
+
+        for (int from = 0; from < rows.size(); from += size) {
+            List<ScrapedAd> batch = rows.subList(from, Math.min(from + size, rows.size()));
+            try {
+                outcomes.addAll(transaction.execute(status -> writeBatch(batch)));
+            } catch (Exception e) {
+                logger.warn("Batch upsert of {} ads failed, retrying row by row: {}", batch.size(), e.getMessage());
+                for (ScrapedAd ad : batch) {
+                    try {
+                        outcomes.addAll(transaction.execute(status -> writeBatch(List.of(ad))));
+                    } catch (Exception rowError) {
+                        logger.warn("Failed to save ad {}: {}", ad.getMetaAdId(), rowError.getMessage());
+                        outcomes.add(new RowOutcome(ad.getMetaAdId(), Outcome.FAILED, rowError.getMessage()));
+                    }
+                }
+            }
+        }
+
+        BulkWriteResult result = new BulkWriteResult(outcomes, System.currentTimeMillis() - start);
+        logger.info("Bulk upsert of {} ads: {}", ads.size(), result);
+        return result;
+    }
+
+    /**
+     * Replace the stored local image/video paths of an already persisted ad, e.g. once its downloads finished
+     */
+    public void updateLocalMediaPaths(ScrapedAd ad) {
+        if (ad.getId() == null) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            replaceCollection("scraped_ad_local_images", "local_image_path", ad.getId(), ad.getLocalImagePaths());
+            replaceCollection("scraped_ad_local_videos", "local_video_path", ad.getId(), ad.getLocalVideoPaths());
+            jdbcTemplate.update("UPDATE scraped_ads SET last_updated = ? WHERE id = ?",
+                                timestamp(LocalDateTime.now()), ad.getId());
+        });
+    }
+
+    /**
+     * Clear the extracted image/video text of already persisted ads, e.g. after their creative changed;
+     * an upsert keeps the stored text when the new row has none
+     */
+    public void clearExtractedText(Collection<Long> adIds) {
+        if (adIds.isEmpty()) {
+            return;
+        }
+        namedJdbcTemplate.update(
+            "UPDATE scraped_ads SET extracted_image_text = NULL, extracted_video_text = NULL WHERE id IN (:ids)",
+            new MapSqlParameterSource("ids", adIds));
+    }
+
+    private void replaceCollection(String table, String column, Long adId, List<String> items) {
+        jdbcTemplate.update("DELETE FROM " + table + " WHERE ad_id = ?", adId);
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        List<Object[]> values = new ArrayList<>(items.size());
+        for (String item : items) {
+            values.add(new Object[]{adId, item});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (ad_id, " + column + ") VALUES (?, ?)", values);
+    }
+
+    private List<RowOutcome> writeBatch(List<ScrapedAd> batch) {
+        List<String> metaAdIds = batch.stream().map(ScrapedAd::getMetaAdId).toList();
+        Map<String, Long> existing = findIds(metaAdIds);
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (ScrapedAd ad : batch) {
+            if (existing.containsKey(ad.getMetaAdId())) {
+                updates.add(updateArgs(ad, now));
+            } else {
+                inserts.add(insertArgs(ad, now));
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+
+        Map<String, Long> ids = inserts.isEmpty() ? existing : findIds(metaAdIds);
+        writeCollections(batch, ids);
+
+        List<RowOutcome> outcomes = new ArrayList<>(batch.size());
+        for (ScrapedAd ad : batch) {
+            ad.setId(ids.get(ad.getMetaAdId()));
+            ad.setLastUpdated(now);
+            outcomes.add(new RowOutcome(ad.getMetaAdId(),
+                existing.containsKey(ad.getMetaAdId()) ? Outcome.UPDATED : Outcome.INSERTED, null));
+        }
+        return outcomes;
+    }
+
+    /**
+     * Replace the four media collections of every ad in the batch
+     */
+    private void writeCollections(List<ScrapedAd> batch, Map<String, Long> ids) {
+        List<Object[]> adIds = new ArrayList<>(batch.size());
+        for (ScrapedAd ad : batch) {
+            adIds.add(new Object[]{ids.get(ad.getMetaAdId())});
+        }
+
+        for (String[] table : COLLECTION_TABLES) {
+            jdbcTemplate.batchUpdate("DELETE FROM " + table[0] + " WHERE ad_id = ?", adIds);
+
+            List<Object[]> values = new ArrayList<>();
+            for (ScrapedAd ad : batch) {
+                List<String> items = collectionOf(ad, table[0]);
+                if (items == null) {
+                    continue;
+                }
+                Long adId = ids.get(ad.getMetaAdId());
+                for (String item : items) {
+                    values.add(new Object[]{adId, item});
+                }
+            }
+            if (!values.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO " + table[0] + " (ad_id, " + table[1] + ") VALUES (?, ?)", values);
+            }
+        }
+    }
+
+    private List<String> collectionOf(ScrapedAd ad, String table) {
+        switch (table) {
+            case "scraped_ad_images": return ad.getImageUrls();
+            case "scraped_ad_videos": return ad.getVideoUrls();
+            case "scraped_ad_local_images": return ad.getLocalImagePaths();
+            default: return ad.getLocalVideoPaths();
+        }
+    }
+
+    private Map<String, Long> findIds(Collection<String> metaAdIds) {
+        Map<String, Long> ids = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, meta_ad_id FROM scraped_ads WHERE meta_ad_id IN (:ids)",
+            new MapSqlParameterSource("ids", metaAdIds),
+            rs -> {
+                ids.put(rs.getString("meta_ad_id"), rs.getLong("id"));
+            });
+        return ids;
+    }
+
+    private Object[] insertArgs(ScrapedAd ad, LocalDateTime now) {
+        return new Object[]{
+            ad.getMetaAdId(), ad.getDomainName(), ad.getPageName(), ad.getPageId(), ad.getPrimaryText(),
+            ad.getHeadline(), ad.getDescription(), ad.getCallToAction(), ad.getLandingPageUrl(), ad.getDisplayUrl(),
+            ad.getAdFormat(), ad.getExtractedImageText(), ad.getExtractedVideoText(), ad.getReferrerAdCreative(),
+            ad.getFundingEntity(), timestamp(ad.getAdCreationDate()), timestamp(ad.getAdDeliveryStartDate()),
+            timestamp(ad.getAdDeliveryStopDate()), ad.getIsActive(), ad.getSpendRangeLower(), ad.getSpendRangeUpper(),
+            ad.getImpressionsRangeLower(), ad.getImpressionsRangeUpper(), ad.getTargetLocations(),
+            ad.getTargetDemographics(), ad.getScrapeSource(), ad.getRawData(), ad.getContentFingerprint(),
+            timestamp(now), timestamp(ad.getScrapedAt() != null ? ad.getScrapedAt() : now)
+        };
+    }
+
+    private Object[] updateArgs(ScrapedAd ad, LocalDateTime now) {
+        return new Object[]{
+            ad.getPageName(), ad.getPageId(), ad.getPrimaryText(), ad.getHeadline(), ad.getDescription(),
+            ad.getCallToAction(), ad.getLandingPageUrl(), ad.getDisplayUrl(), ad.getAdFormat(),
+            ad.getExtractedImageText(), ad.getExtractedVideoText(), ad.getReferrerAdCreative(),
+            ad.getFundingEntity(), timestamp(ad.getAdCreationDate()), timestamp(ad.getAdDeliveryStartDate()),
+            timestamp(ad.getAdDeliveryStopDate()), ad.getIsActive(), ad.getSpendRangeLower(), ad.getSpendRangeUpper(),
+            ad.getImpressionsRangeLower(), ad.getImpressionsRangeUpper(), ad.getTargetLocations(),
+            ad.getTargetDemographics(), ad.getScrapeSource(), ad.getRawData(), ad.getContentFingerprint(),
+            timestamp(now), ad.getMetaAdId()
+        };
+    }
+
+    private Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    public enum Outcome {
+        INSERTED,
+        UPDATED,
+        FAILED
+    }
+
+    /**
+     * What happened to a single ad
+     */
+    public static class RowOutcome {
+        private final String metaAdId;
+        private final Outcome outcome;
+        private final String error;
+
+        public RowOutcome(String metaAdId, Outcome outcome, String error) {
+            this.metaAdId = metaAdId;
+            this.outcome = outcome;
+            this.error = error;
+        }
+
+        public String getMetaAdId() { return metaAdId; }
+        public Outcome getOutcome() { return outcome; }
+        public String getError() { return error; }
+    }
+
+    /**
+     * Per-row outcomes of a bulk upsert
+     */
+    public static class BulkWriteResult {
+        private final List<RowOutcome> outcomes;
+        private final long elapsedMs;
+
+        public BulkWriteResult(List<RowOutcome> outcomes, long elapsedMs) {
+            this.outcomes = outcomes;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public List<RowOutcome> getOutcomes() { return outcomes; }
+        public long getElapsedMs() { return elapsedMs; }
+
+        public long getInsertedCount() { return count(Outcome.INSERTED); }
+        public long getUpdatedCount() { return count(Outcome.UPDATED); }
+        public long getFailedCount() { return count(Outcome.FAILED); }
+        public long getSavedCount() { return getInsertedCount() + getUpdatedCount(); }
+
+        private long count(Outcome outcome) {
+            return outcomes.stream().filter(row -> row.getOutcome() == outcome).count();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d inserted, %d updated, %d failed in %d ms",
+                               getInsertedCount(), getUpdatedCount(), getFailedCount(), elapsedMs);
+        }
+    }
+}
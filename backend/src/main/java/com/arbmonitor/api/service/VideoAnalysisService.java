@@ -1,19 +1,24 @@
 package com.arbmonitor.api.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for analyzing video content including:
@@ -39,6 +44,38 @@ public class VideoAnalysisService {
     @Value("${app.video.cleanup-frames:true}")
     private boolean cleanupFrames;
     
+    @Value("${app.video.ocr-threads:0}")
+    private int ocrThreads; // 0 = one per available core (tesseract processes are further limited by ProcessGovernor)
+    
+    @Value("${app.video.ocr-batch-size:1}")
+    private int ocrBatchSize; // Frames per tesseract process; 1 = one process per frame
+    
+    @Autowired
+    private MediaTextCacheService textCacheService;
+    
+    @Autowired
+    private ProcessGovernor processGovernor;
+    
+    private ExecutorService ocrExecutor;
+    
+    @PostConstruct
+    public void initOcrExecutor() {
+        if (ocrThreads <= 0) {
+            ocrThreads = ProcessGovernor.availableCores();
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        ocrExecutor = Executors.newFixedThreadPool(ocrThreads, runnable -> {
+            Thread thread = new Thread(runnable, "FrameOcr-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdownOcrExecutor() {
+        ocrExecutor.shutdownNow();
+    }
+    
     /**
      * Analyze a video file and extract all text content
      * @param videoPath Path to the local video file
@@ -57,6 +94,17 @@ public class VideoAnalysisService {
                 throw new IllegalArgumentException("Video file not found: " + videoPath);
             }
             
+            // Identical video content with identical settings was already analyzed
+            String cacheKey = textCacheService.buildKey(videoPath, analysisSettings());
+            Optional<VideoAnalysisResult> cached = textCacheService.lookup(cacheKey, VideoAnalysisResult.class);
+            if (cached.isPresent()) {
+                VideoAnalysisResult cachedResult = cached.get();
+                cachedResult.setVideoPath(videoPath);
+                logger.info("Using cached video analysis ({} characters) for: {}",
+                           cachedResult.getCombinedText() != null ? cachedResult.getCombinedText().length() : 0, videoPath);
+                return cachedResult;
+            }
+            
             // Create temporary directory for processing
             String tempDir = createTempDirectory(videoPath);
             
@@ -64,8 +112,16 @@ public class VideoAnalysisService {
             List<String> framePaths = extractFrames(videoPath, tempDir);
             logger.info("Extracted {} frames from video", framePaths.size());
             
-            // Step 2: Run OCR on each frame
-            List<String> frameTexts = extractTextFromFrames(framePaths);
+            // Step 2: Run OCR on each frame; frames whose OCR failed are empty
+            List<Optional<String>> frameResults = extractTextFromFrames(framePaths);
+            List<String> frameTexts = new ArrayList<>(frameResults.size());
+            int failedFrames = 0;
+            for (Optional<String> frameResult : frameResults) {
+                frameTexts.add(frameResult.orElse(""));
+                if (frameResult.isEmpty()) {
+                    failedFrames++;
+                }
+            }
             result.setFrameTexts(frameTexts);
             
             // Step 3: Extract and transcribe audio
@@ -79,6 +135,14 @@ public class VideoAnalysisService {
             // Cleanup temporary files
             cleanupTempDirectory(tempDir);
             
+            // A partial result is returned but not cached, so the next analysis retries the failed frames
+            if (failedFrames == 0) {
+                textCacheService.store(cacheKey, result);
+            } else {
+                logger.warn("OCR failed on {} of {} frames; not caching the analysis of {}",
+                           failedFrames, frameResults.size(), videoPath);
+            }
+            
             logger.info("Video analysis completed. Combined text length: {} characters", 
                        combinedText.length());
             
@@ -90,6 +154,15 @@ public class VideoAnalysisService {
         return result;
     }
     
+    /**
+     * Everything that influences the extracted text; part of the text cache key
+     */
+    private String analysisSettings() {
+        // OCR thread count and batch size do not change the output, so they are not part of the key
+        return String.format("video|ffmpeg|fps=%.2f|max-frames=%d|tesseract|lang=eng|psm=6|transcript=none",
+                           1.0 / frameIntervalSeconds, maxFramesToExtract);
+    }
+    
     /**
      * Extract frames from video at regular intervals using FFmpeg
      */
@@ -108,26 +181,13 @@ public class VideoAnalysisService {
             tempDir + "/frame_%04d.jpg"
         };
         
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
+        ProcessGovernor.ProcessResult result = processGovernor.run(ProcessGovernor.Lane.TRANSCODE, List.of(command), 60);
         
         // Log FFmpeg output
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                logger.debug("FFmpeg: {}", line);
-            }
-        }
-        
-        boolean finished = process.waitFor(60, TimeUnit.SECONDS);
-        if (!finished) {
-            process.destroyForcibly();
-            throw new RuntimeException("FFmpeg frame extraction timed out");
-        }
+        logger.debug("FFmpeg: {}", result.getOutput());
         
-        if (process.exitValue() != 0) {
-            throw new RuntimeException("FFmpeg frame extraction failed with exit code: " + process.exitValue());
+        if (!result.isSuccess()) {
+            throw new RuntimeException("FFmpeg frame extraction failed with exit code: " + result.getExitCode());
         }
         
         // Collect extracted frame paths
@@ -146,78 +206,145 @@ public class VideoAnalysisService {
     }
     
     /**
-     * Extract text from video frames using Tesseract OCR
+     * Extract text from video frames using Tesseract OCR. Frames (or batches of frames, when
+     * app.video.ocr-batch-size is above 1) are spread over the OCR pool; the result keeps frame order
+     * and is empty for every frame whose OCR failed.
      */
-    private List<String> extractTextFromFrames(List<String> framePaths) {
-        logger.info("Running OCR on {} frames", framePaths.size());
-        
-        List<String> frameTexts = new ArrayList<>();
+    private List<Optional<String>> extractTextFromFrames(List<String> framePaths) {
+        logger.info("Running OCR on {} frames ({} worker threads, batch size {})",
+                   framePaths.size(), ocrThreads, Math.max(1, ocrBatchSize));
+        
+        int batchSize = Math.max(1, ocrBatchSize);
+        List<Future<List<Optional<String>>>> batches = new ArrayList<>();
+        for (int start = 0; start < framePaths.size(); start += batchSize) {
+            List<String> batch = framePaths.subList(start, Math.min(start + batchSize, framePaths.size()));
+            batches.add(ocrExecutor.submit(() -> batch.size() == 1
+                ? List.of(ocrFrame(batch.get(0)))
+                : ocrFrameBatch(batch)));
+        }
         
-        for (int i = 0; i < framePaths.size(); i++) {
-            String framePath = framePaths.get(i);
+        List<Optional<String>> frameTexts = new ArrayList<>(framePaths.size());
+        for (int i = 0; i < batches.size(); i++) {
+            int expected = Math.min(batchSize, framePaths.size() - i * batchSize);
             try {
-                String extractedText = runOcrOnImage(framePath);
-                frameTexts.add(extractedText);
-                
-                if (!extractedText.trim().isEmpty()) {
-                    logger.debug("Frame {}: extracted {} characters of text", i + 1, extractedText.length());
-                }
-                
-            } catch (Exception e) {
-                logger.warn("Failed to extract text from frame {}: {}", framePath, e.getMessage());
-                frameTexts.add(""); // Add empty string to maintain index alignment
-            } finally {
-                // Clean up frame file after processing if cleanup is enabled
-                if (cleanupFrames) {
-                    try {
-                        Files.deleteIfExists(Paths.get(framePath));
-                        logger.debug("Cleaned up frame: {}", framePath);
-                    } catch (Exception e) {
-                        logger.warn("Failed to cleanup frame {}: {}", framePath, e.getMessage());
-                    }
-                }
+                frameTexts.addAll(batches.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batches.forEach(batch -> batch.cancel(true));
+                throw new IllegalStateException("Interrupted while running frame OCR", e);
+            } catch (ExecutionException e) {
+                logger.warn("Frame OCR batch {} failed: {}", i + 1, e.getMessage());
+                frameTexts.addAll(Collections.nCopies(expected, Optional.empty())); // Maintain index alignment
             }
         }
         
+        for (String framePath : framePaths) {
+            cleanupFrame(framePath);
+        }
+        
         logger.info("OCR completed on {} frames", frameTexts.size());
         return frameTexts;
     }
     
+    /**
+     * OCR one frame; empty when tesseract failed or its governor slot timed out, as opposed to a frame without text
+     */
+    private Optional<String> ocrFrame(String framePath) {
+        try {
+            String extractedText = runOcrOnImage(framePath);
+            if (!extractedText.trim().isEmpty()) {
+                logger.debug("Frame {}: extracted {} characters of text", framePath, extractedText.length());
+            }
+            return Optional.of(extractedText);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while extracting text from frame {}", framePath);
+            return Optional.empty();
+        } catch (Exception e) {
+            logger.warn("Failed to extract text from frame {}: {}", framePath, e.getMessage());
+            return Optional.empty(); // Keeps index alignment
+        }
+    }
+    
+    /**
+     * OCR several frames with a single tesseract process using its file-list input. Tesseract
+     * separates pages with a form feed; if the page count does not match, fall back to one call per frame.
+     */
+    private List<Optional<String>> ocrFrameBatch(List<String> framePaths) {
+        Path listFile = null;
+        try {
+            listFile = Files.createTempFile(Paths.get(framePaths.get(0)).getParent(), "frames_", ".txt");
+            Files.write(listFile, framePaths);
+            
+            String output = runTesseract(listFile.toString(), 30L * framePaths.size());
+            String[] pages = output.split("\f", -1);
+            
+            // Every page is followed by a form feed, so N frames give N + 1 parts with a blank tail
+            if (pages.length == framePaths.size() + 1 && pages[pages.length - 1].isBlank()) {
+                List<Optional<String>> texts = new ArrayList<>(framePaths.size());
+                for (int i = 0; i < framePaths.size(); i++) {
+                    texts.add(Optional.of(pages[i].trim()));
+                }
+                return texts;
+            }
+            logger.warn("Tesseract returned {} pages for {} frames, falling back to per-frame OCR",
+                       pages.length, framePaths.size());
+        } catch (Exception e) {
+            logger.warn("Batched frame OCR failed, falling back to per-frame OCR: {}", e.getMessage());
+        } finally {
+            if (listFile != null) {
+                try {
+                    Files.deleteIfExists(listFile);
+                } catch (IOException e) {
+                    logger.debug("Failed to delete frame list {}", listFile);
+                }
+            }
+        }
+        
+        List<Optional<String>> texts = new ArrayList<>(framePaths.size());
+        for (String framePath : framePaths) {
+            texts.add(ocrFrame(framePath));
+        }
+        return texts;
+    }
+    
+    private void cleanupFrame(String framePath) {
+        // Clean up frame file after processing if cleanup is enabled
+        if (cleanupFrames) {
+            try {
+                Files.deleteIfExists(Paths.get(framePath));
+                logger.debug("Cleaned up frame: {}", framePath);
+            } catch (Exception e) {
+                logger.warn("Failed to cleanup frame {}: {}", framePath, e.getMessage());
+            }
+        }
+    }
+    
     /**
      * Run Tesseract OCR on a single image
      */
     private String runOcrOnImage(String imagePath) throws IOException, InterruptedException {
+        return runTesseract(imagePath, 30).trim();
+    }
+    
+    /**
+     * Run Tesseract on an image or an image list file and return its raw output
+     */
+    private String runTesseract(String input, long timeoutSeconds) throws IOException, InterruptedException {
         String[] command = {
             "tesseract",
-            imagePath,
+            input,
             "stdout", // Output to stdout instead of file
             "-l", "eng", // English language
             "--psm", "6" // Assume uniform block of text
         };
         
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
-        
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-        }
-        
-        boolean finished = process.waitFor(30, TimeUnit.SECONDS);
-        if (!finished) {
-            process.destroyForcibly();
-            throw new RuntimeException("Tesseract OCR timed out");
-        }
-        
-        if (process.exitValue() != 0) {
-            throw new RuntimeException("Tesseract OCR failed with exit code: " + process.exitValue());
+        ProcessGovernor.ProcessResult result = processGovernor.run(ProcessGovernor.Lane.OCR, List.of(command), timeoutSeconds);
+        if (!result.isSuccess()) {
+            throw new RuntimeException("Tesseract OCR failed with exit code: " + result.getExitCode());
         }
         
-        return output.toString().trim();
+        return result.getOutput();
     }
     
     /**
@@ -239,25 +366,12 @@ public class VideoAnalysisService {
             audioPath
         };
         
-        ProcessBuilder pb = new ProcessBuilder(extractCommand);
-        pb.redirectErrorStream(true);
-        Process process = pb.start();
+        ProcessGovernor.ProcessResult result = processGovernor.run(ProcessGovernor.Lane.TRANSCODE, List.of(extractCommand), 60);
         
         // Log FFmpeg output
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                logger.debug("FFmpeg audio: {}", line);
-            }
-        }
-        
-        boolean finished = process.waitFor(60, TimeUnit.SECONDS);
-        if (!finished) {
-            process.destroyForcibly();
-            throw new RuntimeException("Audio extraction timed out");
-        }
+        logger.debug("FFmpeg audio: {}", result.getOutput());
         
-        if (process.exitValue() != 0) {
+        if (!result.isSuccess()) {
             logger.warn("Audio extraction failed or no audio track found");
             return ""; // Return empty string if no audio
         }
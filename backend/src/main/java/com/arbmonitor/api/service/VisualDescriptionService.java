@@ -1,5 +1,6 @@
 package com.arbmonitor.api.service;
 
+import com.arbmonitor.api.config.HttpClientRegistry;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -26,17 +27,26 @@ public class VisualDescriptionService {
     
     private static final Logger logger = LoggerFactory.getLogger(VisualDescriptionService.class);
     
+    // Rough token cost of one image at the default detail level, for rate limiting
+    private static final int VISION_IMAGE_TOKENS = 765;
+    
     @Value("${app.openai.api-key}")
     private String openaiApiKey;
     
+    @Value("${app.openai.base-url:https://api.openai.com/v1}")
+    private String openaiBaseUrl;
+    
     @Autowired
     private OpenAICostTrackingService costTrackingService;
     
+    @Autowired
+    private OpenAIRateLimiter rateLimiter;
+    
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
     
-    public VisualDescriptionService() {
-        this.restTemplate = new RestTemplate();
+    public VisualDescriptionService(HttpClientRegistry httpClientRegistry) {
+        this.restTemplate = httpClientRegistry.restTemplate(HttpClientRegistry.OPENAI);
         this.objectMapper = new ObjectMapper();
     }
     
@@ -160,11 +170,13 @@ public class VisualDescriptionService {
             
             // Make API call
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                "https://api.openai.com/v1/chat/completions", 
-                request, 
-                String.class
-            );
+            ResponseEntity<String> response = rateLimiter.execute(modelName,
+                OpenAIRateLimiter.estimateTokens(buildVisualAnalysisPrompt(), VISION_IMAGE_TOKENS + 500),
+                () -> restTemplate.postForEntity(
+                    openaiBaseUrl + "/chat/completions", 
+                    request, 
+                    String.class
+                ));
             
             // Parse response
             JsonNode responseJson = objectMapper.readTree(response.getBody());
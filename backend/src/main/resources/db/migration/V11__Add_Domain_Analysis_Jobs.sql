@@ -0,0 +1,28 @@
+-- Resumable compliance analysis jobs and their per-ad checkpoints
+CREATE TABLE IF NOT EXISTS domain_analysis_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    domain_name VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    total_ads BIGINT DEFAULT 0,
+    processed_ads BIGINT DEFAULT 0,
+    success_count BIGINT DEFAULT 0,
+    error_count BIGINT DEFAULT 0,
+    last_ad_id BIGINT DEFAULT 0,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    error_message TEXT,
+    INDEX idx_analysis_job_domain_status (domain_name, status)
+);
+
+CREATE TABLE IF NOT EXISTS analysis_checkpoints (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    job_id BIGINT NOT NULL,
+    meta_ad_id VARCHAR(255) NOT NULL,
+    success BOOLEAN NOT NULL,
+    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_checkpoint_job_ad UNIQUE (job_id, meta_ad_id)
+);
+
+-- Keyset paging of a domain's ads
+CREATE INDEX idx_scraped_ads_domain_id ON scraped_ads (domain_name, id);
@@ -0,0 +1,15 @@
+-- Cache of OpenAI compliance verdicts keyed by prompt hash
+CREATE TABLE IF NOT EXISTS compliance_verdict_cache (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    cache_key VARCHAR(64) NOT NULL UNIQUE,
+    model_name VARCHAR(255) NOT NULL,
+    prompt_version VARCHAR(255) NOT NULL,
+    response_text TEXT NOT NULL,
+    estimated_cost DECIMAL(10, 6),
+    hit_count BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_accessed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    INDEX idx_verdict_cache_expires_at (expires_at),
+    INDEX idx_verdict_cache_last_accessed (last_accessed_at)
+);
@@ -0,0 +1,5 @@
+-- Content fingerprint for incremental re-scrapes
+ALTER TABLE scraped_ads ADD COLUMN IF NOT EXISTS content_fingerprint VARCHAR(64);
+
+-- Analysis jobs restricted to ads without an analysis
+ALTER TABLE domain_analysis_jobs ADD COLUMN IF NOT EXISTS only_unanalyzed BOOLEAN DEFAULT FALSE;
@@ -0,0 +1,25 @@
+-- Content-addressed media store: one file per distinct SHA-256, shared by all ads
+CREATE TABLE IF NOT EXISTS media_blobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    sha256 VARCHAR(64) NOT NULL UNIQUE,
+    media_kind VARCHAR(20) NOT NULL,
+    local_path VARCHAR(512) NOT NULL,
+    size_bytes BIGINT,
+    etag VARCHAR(255),
+    ref_count BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_referenced_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_media_blobs_etag (etag),
+    INDEX idx_media_blobs_local_path (local_path)
+);
+
+-- Source URL (query-stripped for signed CDN URLs) -> blob hash, to skip repeat downloads
+CREATE TABLE IF NOT EXISTS media_url_index (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    url_hash VARCHAR(64) NOT NULL UNIQUE,
+    url TEXT NOT NULL,
+    sha256 VARCHAR(64) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_seen_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_media_url_index_sha256 (sha256)
+);
@@ -0,0 +1,19 @@
+-- Last capture per normalized landing page URL with a fingerprint of its text
+CREATE TABLE IF NOT EXISTS landing_page_cache (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    url_hash VARCHAR(64) NOT NULL UNIQUE,
+    normalized_url TEXT NOT NULL,
+    final_url TEXT,
+    text_content TEXT,
+    afs_config TEXT,
+    rac_keyword VARCHAR(1000),
+    screenshot_path VARCHAR(512),
+    capture_method VARCHAR(20),
+    fingerprint VARCHAR(64) NOT NULL,
+    hit_count BIGINT NOT NULL DEFAULT 0,
+    change_count BIGINT NOT NULL DEFAULT 0,
+    fetched_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    checked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_landing_page_cache_checked_at (checked_at)
+);
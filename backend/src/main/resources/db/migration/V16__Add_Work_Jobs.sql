@@ -0,0 +1,21 @@
+-- Durable queue of background work with leases, retries and dead-lettering
+CREATE TABLE IF NOT EXISTS work_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    job_type VARCHAR(20) NOT NULL,
+    domain_name VARCHAR(255),
+    target_id VARCHAR(100),
+    payload TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    priority INT NOT NULL DEFAULT 0,
+    attempts INT NOT NULL DEFAULT 0,
+    max_attempts INT NOT NULL DEFAULT 3,
+    available_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    lease_owner VARCHAR(100),
+    lease_expires_at TIMESTAMP NULL,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NULL,
+    finished_at TIMESTAMP NULL,
+    INDEX idx_work_jobs_ready (status, available_at),
+    INDEX idx_work_jobs_domain_status (domain_name, status)
+);
@@ -0,0 +1,35 @@
+-- Bulk compliance analysis submitted through the OpenAI Batch API
+CREATE TABLE IF NOT EXISTS compliance_batches (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    domain_name VARCHAR(255) NOT NULL,
+    model_name VARCHAR(50) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PREPARING',
+    provider_batch_id VARCHAR(100),
+    provider_status VARCHAR(30),
+    input_file_id VARCHAR(100),
+    output_file_id VARCHAR(100),
+    error_file_id VARCHAR(100),
+    request_count INT NOT NULL DEFAULT 0,
+    cached_count INT NOT NULL DEFAULT 0,
+    succeeded_count INT NOT NULL DEFAULT 0,
+    failed_count INT NOT NULL DEFAULT 0,
+    error_message TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    submitted_at TIMESTAMP NULL,
+    updated_at TIMESTAMP NULL,
+    finished_at TIMESTAMP NULL,
+    INDEX idx_compliance_batches_status (status),
+    INDEX idx_compliance_batches_domain (domain_name, status)
+);
+
+-- One ad compliance request within a batch; its id is the request's custom_id
+CREATE TABLE IF NOT EXISTS compliance_batch_items (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    batch_id BIGINT NOT NULL,
+    ad_analysis_id BIGINT NOT NULL,
+    meta_ad_id VARCHAR(255) NOT NULL,
+    cache_key VARCHAR(64) NOT NULL,
+    rac_enabled BOOLEAN NOT NULL DEFAULT FALSE,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    INDEX idx_compliance_batch_items_batch (batch_id, status)
+);
@@ -0,0 +1,26 @@
+-- Verdicts of earlier model analyses per normalized creative, used by the triage stage
+CREATE TABLE IF NOT EXISTS compliance_triage_verdicts (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    similarity_key VARCHAR(64) NOT NULL UNIQUE,
+    compliant_count INT NOT NULL DEFAULT 0,
+    non_compliant_count INT NOT NULL DEFAULT 0,
+    compliant_response TEXT,
+    non_compliant_response TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_triage_verdicts_updated_at (updated_at)
+);
+
+-- Triage outcome of each analysis
+ALTER TABLE ad_analyses ADD COLUMN IF NOT EXISTS triage_outcome VARCHAR(20);
+ALTER TABLE ad_analyses ADD COLUMN IF NOT EXISTS triage_confidence DOUBLE;
+
+-- Triage totals per domain analysis run
+ALTER TABLE domain_analysis_jobs ADD COLUMN IF NOT EXISTS triage_auto_resolved BIGINT DEFAULT 0;
+ALTER TABLE domain_analysis_jobs ADD COLUMN IF NOT EXISTS triage_escalated BIGINT DEFAULT 0;
+ALTER TABLE domain_analysis_jobs ADD COLUMN IF NOT EXISTS triage_saved_cost DECIMAL(10, 6) DEFAULT 0;
+ALTER TABLE domain_analysis_jobs ADD COLUMN IF NOT EXISTS triage_saved_ms BIGINT DEFAULT 0;
+
+-- Ads of a batch resolved by triage, and the key their model verdict is recorded under
+ALTER TABLE compliance_batches ADD COLUMN IF NOT EXISTS triaged_count INT NOT NULL DEFAULT 0;
+ALTER TABLE compliance_batch_items ADD COLUMN IF NOT EXISTS triage_key VARCHAR(64);
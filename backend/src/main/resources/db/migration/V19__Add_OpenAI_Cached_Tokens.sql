@@ -0,0 +1,2 @@
+-- Prompt tokens the provider served from its prompt cache (billed at the cached-input rate)
+ALTER TABLE openai_usage ADD COLUMN IF NOT EXISTS cached_tokens INTEGER;
@@ -0,0 +1,95 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.ComplianceRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-pass Aho-Corasick scan of an ad's text against per-phrase matching, as the rule checks
+ * worked before, for growing phrase counts. Not run by the test suite; run main() from the test
+ * classpath after mvn test-compile.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ComplianceRuleEngineBenchmark {
+
+    private static final String[] WORDS = {
+        "click", "here", "now", "free", "phone", "limited", "time", "offer", "best", "rated",
+        "get", "quotes", "cheap", "truck", "deals", "near", "you", "miracle", "cure", "today"
+    };
+
+    @Param({"10", "100", "1000"})
+    private int phraseCount;
+
+    private List<String> phrases;
+    private ComplianceRuleEngine.AhoCorasick automaton;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        ComplianceRule rule = new ComplianceRule("Benchmark", "Benchmark",
+            ComplianceRule.RuleCategory.CREATIVE_CONTENT, ComplianceRule.RuleSeverity.MINOR);
+        rule.setId(1L);
+
+        phrases = new ArrayList<>();
+        ComplianceRuleEngine.AhoCorasick.Builder builder = new ComplianceRuleEngine.AhoCorasick.Builder();
+        for (int i = 0; i < phraseCount; i++) {
+            String phrase = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            phrases.add(phrase);
+            builder.add(phrase, rule, false);
+        }
+        automaton = builder.build();
+
+        // About the size of a headline, primary text and OCR'd image text combined
+        StringBuilder ad = new StringBuilder();
+        while (ad.length() < 1500) {
+            ad.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(8) == 0 ? ". " : " ");
+        }
+        text = ad.toString();
+    }
+
+    @Benchmark
+    public List<ComplianceRuleEngine.RuleHit> automaton() {
+        List<ComplianceRuleEngine.RuleHit> hits = new ArrayList<>();
+        automaton.scan(text, hits);
+        return hits;
+    }
+
+    @Benchmark
+    public List<Integer> perPhrase() {
+        String lowered = text.toLowerCase();
+        List<Integer> hits = new ArrayList<>();
+        for (String phrase : phrases) {
+            for (int index = lowered.indexOf(phrase); index >= 0; index = lowered.indexOf(phrase, index + 1)) {
+                hits.add(index);
+            }
+        }
+        return hits;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ComplianceRuleEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
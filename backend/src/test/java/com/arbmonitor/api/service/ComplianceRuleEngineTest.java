@@ -0,0 +1,177 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.ComplianceRule;
+import com.arbmonitor.api.repository.ComplianceRuleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ComplianceRuleEngineTest {
+
+    private static final String ALPHABET = "abAB c$1";
+
+    @Mock
+    private ComplianceRuleRepository complianceRuleRepository;
+
+    @InjectMocks
+    private ComplianceRuleEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(engine, "maxPatternSteps", 1_000_000L);
+        ReflectionTestUtils.setField(engine, "maxPatternMillis", 1_000L);
+        ReflectionTestUtils.setField(engine, "ruleSetRefreshMillis", 60_000L);
+    }
+
+    @Test
+    void automatonReportsTheSameHitsAsNaiveMatching() {
+        Random random = new Random(42);
+        ComplianceRule rule = rule(1L, "Random", ComplianceRule.RuleSeverity.MINOR, null);
+
+        for (int round = 0; round < 500; round++) {
+            List<String> phrases = new ArrayList<>();
+            List<Boolean> context = new ArrayList<>();
+            ComplianceRuleEngine.AhoCorasick.Builder builder = new ComplianceRuleEngine.AhoCorasick.Builder();
+            int phraseCount = 1 + random.nextInt(12);
+            for (int i = 0; i < phraseCount; i++) {
+                // Short phrases over a small alphabet, so prefixes, suffixes and duplicates are common
+                String phrase = randomText(random, 1 + random.nextInt(4));
+                boolean isContext = random.nextInt(4) == 0;
+                phrases.add(phrase);
+                context.add(isContext);
+                builder.add(phrase, rule, isContext);
+            }
+            ComplianceRuleEngine.AhoCorasick automaton = builder.build();
+
+            String text = randomText(random, random.nextInt(200));
+            List<ComplianceRuleEngine.RuleHit> hits = new ArrayList<>();
+            automaton.scan(text, hits);
+
+            assertThat(describe(hits))
+                .as("phrases %s in '%s'", phrases, text)
+                .containsExactlyInAnyOrderElementsOf(naiveHits(phrases, context, text));
+            for (ComplianceRuleEngine.RuleHit hit : hits) {
+                assertThat(hit.getMatchedText()).isEqualTo(text.substring(hit.getStart(), hit.getEnd()));
+            }
+        }
+    }
+
+    @Test
+    void scanFindsBuiltInPhrasesCaseInsensitivelyWithOriginalOffsets() {
+        ComplianceRule inducement = rule(1L, "No Inducement to Click", ComplianceRule.RuleSeverity.CRITICAL, null);
+        ComplianceRule scarcity = rule(2L, "No Fake Scarcity", ComplianceRule.RuleSeverity.MAJOR, null);
+        activeRules(inducement, scarcity);
+
+        String text = "Deals inside! CLICK Here - only 3 left";
+        ComplianceRuleEngine.RuleScan scan = engine.scan(text);
+
+        ComplianceRuleEngine.RuleHit click = scan.firstHit(inducement);
+        assertThat(click.getMatchedText()).isEqualTo("CLICK Here");
+        assertThat(click.getStart()).isEqualTo(text.indexOf("CLICK"));
+        assertThat(scan.firstHit(scarcity).getMatchedText()).isEqualTo("only 3 left");
+        assertThat(scan.getHits()).extracting(ComplianceRuleEngine.RuleHit::getStart).isSorted();
+    }
+
+    @Test
+    void contextPhrasesAreNoViolationOnTheirOwn() {
+        ComplianceRule automotive = rule(1L, "Automotive AI Image Compliance", ComplianceRule.RuleSeverity.MAJOR, null);
+        activeRules(automotive);
+
+        ComplianceRuleEngine.RuleScan scan = engine.scan("New truck deals near you");
+
+        assertThat(scan.hasContextHit(automotive)).isTrue();
+        assertThat(scan.firstHit(automotive)).isNull();
+    }
+
+    @Test
+    void customRulesMatchTheirPattern() {
+        ComplianceRule custom = rule(1L, "Custom", ComplianceRule.RuleSeverity.MINOR, "guaranteed\\s+\\d+%");
+        activeRules(custom);
+
+        assertThat(engine.scan("Returns GUARANTEED  12% a year").firstHit(custom).getMatchedText())
+            .isEqualTo("GUARANTEED  12%");
+        assertThat(engine.matchesRulePattern(custom, "no promises here")).isFalse();
+    }
+
+    @Test
+    void patternOverItsStepBudgetIsSkippedAndReported() {
+        ReflectionTestUtils.setField(engine, "maxPatternSteps", 50L);
+        ComplianceRule custom = rule(1L, "Custom", ComplianceRule.RuleSeverity.MINOR, "x+y");
+
+        assertThat(engine.matchesRulePattern(custom, "x".repeat(1_000) + "y")).isFalse();
+        assertThat(engine.getStats()).containsEntry("budgetExceeded", 1L);
+    }
+
+    @Test
+    void ruleSetVersionIsCheckedOncePerRefreshIntervalUnlessInvalidated() {
+        activeRules(rule(1L, "No Inducement to Click", ComplianceRule.RuleSeverity.CRITICAL, null));
+
+        engine.scan("click here");
+        engine.scan("click now");
+        verify(complianceRuleRepository, times(1)).getActiveRuleSetFingerprint();
+
+        engine.invalidate();
+        engine.scan("tap here");
+        verify(complianceRuleRepository, times(2)).getActiveRuleSetFingerprint();
+        // The fingerprint did not change, so the compiled rule set is kept
+        verify(complianceRuleRepository, times(1)).findByActiveTrue();
+    }
+
+    private void activeRules(ComplianceRule... rules) {
+        List<Object[]> fingerprint = new ArrayList<>();
+        fingerprint.add(new Object[] {(long) rules.length, rules[rules.length - 1].getId(), null});
+        when(complianceRuleRepository.getActiveRuleSetFingerprint()).thenReturn(fingerprint);
+        when(complianceRuleRepository.findByActiveTrue()).thenReturn(List.of(rules));
+    }
+
+    private static ComplianceRule rule(Long id, String name, ComplianceRule.RuleSeverity severity, String pattern) {
+        ComplianceRule rule = new ComplianceRule(name, name, ComplianceRule.RuleCategory.CREATIVE_CONTENT, severity);
+        rule.setId(id);
+        rule.setRulePattern(pattern);
+        return rule;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Every occurrence of every phrase, found by comparing the phrase at each offset
+     */
+    private static List<String> naiveHits(List<String> phrases, List<Boolean> context, String text) {
+        List<String> hits = new ArrayList<>();
+        for (int p = 0; p < phrases.size(); p++) {
+            String phrase = phrases.get(p).toLowerCase();
+            for (int start = 0; start + phrase.length() <= text.length(); start++) {
+                if (text.regionMatches(true, start, phrase, 0, phrase.length())) {
+                    hits.add(start + ":" + (start + phrase.length()) + ":" + phrase + ":" + context.get(p));
+                }
+            }
+        }
+        return hits;
+    }
+
+    private static List<String> describe(List<ComplianceRuleEngine.RuleHit> hits) {
+        return hits.stream()
+            .map(hit -> hit.getStart() + ":" + hit.getEnd() + ":" + hit.getTerm() + ":" + hit.isContext())
+            .toList();
+    }
+}
@@ -0,0 +1,239 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.AdAnalysis;
+import com.arbmonitor.api.model.AdAnalysis.TriageOutcome;
+import com.arbmonitor.api.model.ComplianceRule;
+import com.arbmonitor.api.model.ComplianceTriageVerdict;
+import com.arbmonitor.api.repository.ComplianceTriageVerdictRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ComplianceTriageServiceTest {
+
+    private static final String KEY = "similarity-key";
+
+    private static final String COMPLIANT_RESPONSE = "{\"adCreativeCompliant\":true,\"adCreativeReason\":\"Compliant\"," +
+        "\"landingPageRelevant\":true,\"landingPageReason\":\"Relevant\",\"racRelevant\":true," +
+        "\"racReason\":\"Matches ad content\",\"overallCompliant\":true}";
+
+    private static final String NON_COMPLIANT_RESPONSE = "{\"adCreativeCompliant\":false,\"adCreativeReason\":\"Clickbait\"," +
+        "\"landingPageRelevant\":true,\"landingPageReason\":\"Relevant\",\"racRelevant\":true," +
+        "\"racReason\":\"Matches ad content\",\"overallCompliant\":false}";
+
+    @Mock
+    private ComplianceRuleEngine complianceRuleEngine;
+
+    @Mock
+    private ComplianceTriageVerdictRepository verdictRepository;
+
+    @Mock
+    private ComplianceVerdictCacheService verdictCacheService;
+
+    @Mock
+    private OpenAIAnalysisService openAIAnalysisService;
+
+    @InjectMocks
+    private ComplianceTriageService triageService;
+
+    private final List<ComplianceRule> rules = new ArrayList<>();
+    private final List<ComplianceRuleEngine.RuleHit> hits = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(triageService, "enabled", true);
+        ReflectionTestUtils.setField(triageService, "autoResolveConfidence", 0.9);
+        ReflectionTestUtils.setField(triageService, "ttlDays", 30);
+    }
+
+    @Test
+    void adWithoutEvidenceIsEscalated() {
+        givenSimilarVerdicts(null);
+
+        ComplianceTriageService.TriageDecision decision = triage();
+
+        assertThat(decision.getOutcome()).isEqualTo(TriageOutcome.ESCALATED);
+        assertThat(decision.getConfidence()).isZero();
+        assertThat(decision.getResult()).isNull();
+    }
+
+    @Test
+    void singleCriticalHitStaysBelowTheThreshold() {
+        hit(ComplianceRule.RuleSeverity.CRITICAL, "click here", false);
+        givenSimilarVerdicts(null);
+
+        ComplianceTriageService.TriageDecision decision = triage();
+
+        assertThat(decision.getOutcome()).isEqualTo(TriageOutcome.ESCALATED);
+        assertThat(decision.getConfidence()).isCloseTo(0.7, within(1e-9));
+    }
+
+    @Test
+    void hitsOfIndependentCriticalRulesResolveNonCompliant() {
+        hit(ComplianceRule.RuleSeverity.CRITICAL, "click here", false);
+        hit(ComplianceRule.RuleSeverity.CRITICAL, "free phone", false);
+        givenSimilarVerdicts(null);
+
+        ComplianceTriageService.TriageDecision decision = triage();
+
+        // 1 - 0.3 * 0.3
+        assertThat(decision.getOutcome()).isEqualTo(TriageOutcome.AUTO_NON_COMPLIANT);
+        assertThat(decision.getConfidence()).isCloseTo(0.91, within(1e-9));
+        assertThat(decision.getResult().isOverallCompliant()).isFalse();
+        assertThat(decision.getResult().getAdCreativeReason()).contains("'click here'", "'free phone'");
+    }
+
+    @Test
+    void repeatedHitsOfOneRuleCountOnce() {
+        ComplianceRule rule = hit(ComplianceRule.RuleSeverity.CRITICAL, "click here", false);
+        hits.add(new ComplianceRuleEngine.RuleHit(rule, "click now", "click now", 20, 29, false));
+        givenSimilarVerdicts(null);
+
+        assertThat(triage().getConfidence()).isCloseTo(0.7, within(1e-9));
+    }
+
+    @Test
+    void contextHitsAreNoEvidence() {
+        hit(ComplianceRule.RuleSeverity.CRITICAL, "truck", true);
+        givenSimilarVerdicts(null);
+
+        assertThat(triage().getConfidence()).isZero();
+    }
+
+    @Test
+    void autoResolveThresholdIsConfigurable() {
+        ReflectionTestUtils.setField(triageService, "autoResolveConfidence", 0.6);
+        hit(ComplianceRule.RuleSeverity.CRITICAL, "click here", false);
+        givenSimilarVerdicts(null);
+
+        assertThat(triage().getOutcome()).isEqualTo(TriageOutcome.AUTO_NON_COMPLIANT);
+    }
+
+    @Test
+    void creativeRepeatedlyFoundCompliantResolvesCompliant() {
+        givenSimilarVerdicts(verdict(9, 0, LocalDateTime.now()));
+
+        ComplianceTriageService.TriageDecision decision = triage();
+
+        // (9 + 0.5) / (9 + 0 + 1)
+        assertThat(decision.getOutcome()).isEqualTo(TriageOutcome.AUTO_COMPLIANT);
+        assertThat(decision.getConfidence()).isCloseTo(0.95, within(1e-9));
+        assertThat(decision.getResult().isOverallCompliant()).isTrue();
+    }
+
+    @Test
+    void fewCompliantVerdictsAreNotConclusive() {
+        givenSimilarVerdicts(verdict(3, 0, LocalDateTime.now()));
+
+        ComplianceTriageService.TriageDecision decision = triage();
+
+        assertThat(decision.getOutcome()).isEqualTo(TriageOutcome.ESCALATED);
+        assertThat(decision.getConfidence()).isCloseTo(0.875, within(1e-9));
+    }
+
+    @Test
+    void ruleHitOutweighsCompliantHistory() {
+        hit(ComplianceRule.RuleSeverity.MINOR, "hurry", false);
+        givenSimilarVerdicts(verdict(9, 0, LocalDateTime.now()));
+
+        ComplianceTriageService.TriageDecision decision = triage();
+
+        // 0.95 * (1 - 0.15)
+        assertThat(decision.getOutcome()).isEqualTo(TriageOutcome.ESCALATED);
+        assertThat(decision.getConfidence()).isCloseTo(0.8075, within(1e-9));
+    }
+
+    @Test
+    void ruleHitAndNonCompliantHistoryCombine() {
+        hit(ComplianceRule.RuleSeverity.MAJOR, "get quotes", false);
+        givenSimilarVerdicts(verdict(0, 3, LocalDateTime.now()));
+
+        ComplianceTriageService.TriageDecision decision = triage();
+
+        // 1 - (1 - 0.4) * (1 - 3.5 / 4)
+        assertThat(decision.getOutcome()).isEqualTo(TriageOutcome.AUTO_NON_COMPLIANT);
+        assertThat(decision.getConfidence()).isCloseTo(0.925, within(1e-9));
+        assertThat(decision.getResult().getAdCreativeReason()).isEqualTo("Clickbait");
+    }
+
+    @Test
+    void tiedHistoryIsNoEvidence() {
+        givenSimilarVerdicts(verdict(5, 5, LocalDateTime.now()));
+
+        assertThat(triage().getConfidence()).isZero();
+    }
+
+    @Test
+    void verdictsOlderThanTheTtlAreIgnored() {
+        givenSimilarVerdicts(verdict(9, 0, LocalDateTime.now().minusDays(31)));
+
+        assertThat(triage().getOutcome()).isEqualTo(TriageOutcome.ESCALATED);
+    }
+
+    @Test
+    void disabledTriageEscalatesWithoutScanning() {
+        ReflectionTestUtils.setField(triageService, "enabled", false);
+        when(verdictCacheService.buildKey(any(), anyString(), anyString())).thenReturn(KEY);
+
+        assertThat(triage().getOutcome()).isEqualTo(TriageOutcome.ESCALATED);
+        verifyNoInteractions(complianceRuleEngine);
+    }
+
+    @Test
+    void triageFailureEscalates() {
+        when(verdictCacheService.buildKey(any(), anyString(), anyString())).thenReturn(KEY);
+        when(complianceRuleEngine.scan(anyString())).thenThrow(new IllegalStateException("rules unavailable"));
+
+        assertThat(triage().getOutcome()).isEqualTo(TriageOutcome.ESCALATED);
+    }
+
+    private ComplianceTriageService.TriageDecision triage() {
+        AdAnalysis analysis = new AdAnalysis();
+        analysis.setMetaAdId("ad-1");
+        analysis.setHeadline("Headline");
+        analysis.setPrimaryText("Primary text");
+        analysis.setLandingPageUrl("https://example.com/page?utm_source=fb");
+        return triageService.triage(analysis, "Headline Primary text", null, false);
+    }
+
+    private ComplianceRule hit(ComplianceRule.RuleSeverity severity, String matchedText, boolean context) {
+        ComplianceRule rule = new ComplianceRule("Rule " + (rules.size() + 1), "", ComplianceRule.RuleCategory.CREATIVE_CONTENT, severity);
+        rule.setId((long) rules.size() + 1);
+        rules.add(rule);
+        hits.add(new ComplianceRuleEngine.RuleHit(rule, matchedText, matchedText, 0, matchedText.length(), context));
+        return rule;
+    }
+
+    private void givenSimilarVerdicts(ComplianceTriageVerdict verdict) {
+        when(verdictCacheService.buildKey(any(), anyString(), anyString())).thenReturn(KEY);
+        when(complianceRuleEngine.scan(anyString())).thenReturn(new ComplianceRuleEngine.RuleScan(rules, hits));
+        when(verdictRepository.findBySimilarityKey(KEY)).thenReturn(Optional.ofNullable(verdict));
+    }
+
+    private static ComplianceTriageVerdict verdict(int compliant, int nonCompliant, LocalDateTime updatedAt) {
+        ComplianceTriageVerdict verdict = new ComplianceTriageVerdict(KEY);
+        verdict.setCompliantCount(compliant);
+        verdict.setNonCompliantCount(nonCompliant);
+        verdict.setCompliantResponse(compliant > 0 ? COMPLIANT_RESPONSE : null);
+        verdict.setNonCompliantResponse(nonCompliant > 0 ? NON_COMPLIANT_RESPONSE : null);
+        verdict.setUpdatedAt(updatedAt);
+        return verdict;
+    }
+}
@@ -0,0 +1,218 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.model.WorkJob;
+import com.arbmonitor.api.model.WorkJob.JobStatus;
+import com.arbmonitor.api.model.WorkJob.JobType;
+import com.arbmonitor.api.repository.WorkJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JobQueueServiceTest {
+
+    private static final List<JobStatus> ACTIVE = List.of(JobStatus.QUEUED, JobStatus.RUNNING, JobStatus.PAUSED);
+
+    @Mock
+    private WorkJobRepository jobRepository;
+
+    @InjectMocks
+    private JobQueueService jobQueueService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jobQueueService, "enabled", true);
+        ReflectionTestUtils.setField(jobQueueService, "workers", 1);
+        ReflectionTestUtils.setField(jobQueueService, "scrapeConcurrency", 2);
+        ReflectionTestUtils.setField(jobQueueService, "leaseSeconds", 120L);
+        ReflectionTestUtils.setField(jobQueueService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(jobQueueService, "retryBackoffMs", 30_000L);
+        ReflectionTestUtils.setField(jobQueueService, "maxBackoffMs", 1_800_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobQueueService.stopWorkers();
+    }
+
+    @Test
+    void enqueueReturnsTheActiveJobOfTheSameWork() {
+        WorkJob existing = job(7L, JobType.MEDIA, 0);
+        when(jobRepository.findFirstByJobTypeAndDomainNameAndTargetIdAndStatusIn(JobType.MEDIA, "example.com", "ad-1", ACTIVE))
+            .thenReturn(Optional.of(existing));
+
+        assertThat(jobQueueService.enqueue(JobType.MEDIA, "example.com", "ad-1", null)).isSameAs(existing);
+        verify(jobRepository, never()).save(any());
+    }
+
+    @Test
+    void enqueueQueuesNewWorkWithItsTypePriority() {
+        when(jobRepository.findFirstByJobTypeAndDomainNameAndTargetIdAndStatusIn(any(), anyString(), anyString(), any()))
+            .thenReturn(Optional.empty());
+        when(jobRepository.save(any(WorkJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        WorkJob job = jobQueueService.enqueue(JobType.SCRAPE, "example.com", "run", "{}");
+
+        assertThat(job.getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(job.getPriority()).isEqualTo(JobType.SCRAPE.getDefaultPriority());
+        assertThat(job.getMaxAttempts()).isEqualTo(3);
+        assertThat(job.getPayload()).isEqualTo("{}");
+    }
+
+    @Test
+    void nothingIsLeasedBeforeWorkersStart() {
+        jobQueueService.registerHandler(JobType.MEDIA, job -> CompletableFuture.completedFuture(null));
+
+        jobQueueService.dispatch();
+
+        verifyNoInteractions(jobRepository);
+    }
+
+    @Test
+    void successfulJobIsFinished() {
+        WorkJob job = leasable(job(1L, JobType.MEDIA, 0));
+        jobQueueService.registerHandler(JobType.MEDIA, leased -> CompletableFuture.completedFuture(null));
+
+        start();
+
+        verify(jobRepository, timeout(2000)).finish(eq(1L), anyString(), eq(JobStatus.SUCCEEDED), isNull(), any());
+        assertThat(job.getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void failedJobIsRetriedWithBackoff() {
+        leasable(job(1L, JobType.MEDIA, 0));
+        jobQueueService.registerHandler(JobType.MEDIA, leased -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+        LocalDateTime before = LocalDateTime.now();
+
+        start();
+
+        ArgumentCaptor<LocalDateTime> availableAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(jobRepository, timeout(2000)).retry(eq(1L), anyString(), eq("IllegalStateException: boom"), availableAt.capture(), any());
+        assertThat(availableAt.getValue()).isAfterOrEqualTo(before.plusSeconds(30));
+        verify(jobRepository, never()).finish(eq(1L), anyString(), any(), any(), any());
+    }
+
+    @Test
+    void handlerThrowingIsRetriedLikeAFailedFuture() {
+        leasable(job(1L, JobType.MEDIA, 0));
+        jobQueueService.registerHandler(JobType.MEDIA, leased -> {
+            throw new IllegalStateException("boom");
+        });
+
+        start();
+
+        verify(jobRepository, timeout(2000)).retry(eq(1L), anyString(), eq("IllegalStateException: boom"), any(), any());
+    }
+
+    @Test
+    void jobFailingItsLastAttemptIsDeadLettered() {
+        leasable(job(1L, JobType.MEDIA, 2));
+        jobQueueService.registerHandler(JobType.MEDIA, leased -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+        start();
+
+        verify(jobRepository, timeout(2000)).finish(eq(1L), anyString(), eq(JobStatus.DEAD), eq("IllegalStateException: boom"), any());
+        verify(jobRepository, never()).retry(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void permanentFailureIsDeadLetteredOnItsFirstAttempt() {
+        leasable(job(1L, JobType.MEDIA, 0));
+        jobQueueService.registerHandler(JobType.MEDIA,
+            leased -> CompletableFuture.failedFuture(new JobQueueService.PermanentJobFailure("bad payload")));
+
+        start();
+
+        verify(jobRepository, timeout(2000)).finish(eq(1L), anyString(), eq(JobStatus.DEAD), eq("PermanentJobFailure: bad payload"), any());
+    }
+
+    @Test
+    void jobClaimedElsewhereIsNotRun() {
+        when(jobRepository.findReady(any(), any(), any())).thenReturn(List.of(job(1L, JobType.MEDIA, 0)));
+        when(jobRepository.claim(eq(1L), anyString(), any(), any())).thenReturn(0);
+        AtomicInteger runs = new AtomicInteger();
+        jobQueueService.registerHandler(JobType.MEDIA, leased -> {
+            runs.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        start();
+
+        assertThat(runs.get()).isZero();
+        assertThat(jobQueueService.getQueueStats()).containsEntry("busyWorkers", 0);
+    }
+
+    @Test
+    void runningScrapeDoesNotHoldAWorkerSlot() {
+        WorkJob scrape = job(1L, JobType.SCRAPE, 0);
+        WorkJob media = job(2L, JobType.MEDIA, 0);
+        when(jobRepository.findReady(any(), any(), any())).thenReturn(List.of(scrape), List.of(media), List.of());
+        when(jobRepository.claim(any(), anyString(), any(), any())).thenReturn(1);
+        // The scrape waits on its external run for the whole test
+        jobQueueService.registerHandler(JobType.SCRAPE, leased -> new CompletableFuture<>());
+        jobQueueService.registerHandler(JobType.MEDIA, leased -> CompletableFuture.completedFuture(null));
+
+        start();
+
+        verify(jobRepository, timeout(2000)).finish(eq(2L), anyString(), eq(JobStatus.SUCCEEDED), isNull(), any());
+        assertThat(jobQueueService.getQueueStats()).containsEntry("runningScrapes", 1);
+    }
+
+    @Test
+    void pauseResumeAndCancelTransitionTheDomainsJobs() {
+        jobQueueService.pauseDomain("example.com");
+        jobQueueService.resumeDomain("example.com");
+        jobQueueService.cancelDomain("example.com");
+
+        verify(jobRepository).transitionDomainJobs(eq("example.com"), eq(List.of(JobStatus.QUEUED, JobStatus.RUNNING)),
+                                                   eq(JobStatus.PAUSED), any());
+        verify(jobRepository).transitionDomainJobs(eq("example.com"), eq(List.of(JobStatus.PAUSED)),
+                                                   eq(JobStatus.QUEUED), any());
+        verify(jobRepository).cancelDomainJobs(eq("example.com"), eq(ACTIVE), any());
+    }
+
+    private void start() {
+        jobQueueService.startWorkers();
+        jobQueueService.dispatch();
+    }
+
+    /**
+     * Offer the job once and let this instance claim it
+     */
+    private WorkJob leasable(WorkJob job) {
+        when(jobRepository.findReady(any(), any(), any())).thenReturn(List.of(job), List.of());
+        when(jobRepository.claim(eq(job.getId()), anyString(), any(), any())).thenReturn(1);
+        return job;
+    }
+
+    private static WorkJob job(Long id, JobType type, int attempts) {
+        WorkJob job = new WorkJob(type, "example.com", "target-" + id);
+        job.setId(id);
+        job.setAttempts(attempts);
+        return job;
+    }
+}
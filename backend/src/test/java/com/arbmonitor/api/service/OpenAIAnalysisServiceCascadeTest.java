@@ -0,0 +1,146 @@
+package com.arbmonitor.api.service;
+
+import com.arbmonitor.api.config.HttpClientRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Acceptance rule of the small-to-large compliance cascade. Both tiers answer from the verdict cache
+ * (keyed here by model name), so no request leaves the test.
+ */
+@ExtendWith(MockitoExtension.class)
+class OpenAIAnalysisServiceCascadeTest {
+
+    private static final String SMALL = "small-model";
+    private static final String LARGE = "large-model";
+
+    @Mock
+    private HttpClientRegistry httpClientRegistry;
+
+    @Mock
+    private ComplianceVerdictCacheService verdictCacheService;
+
+    private OpenAIAnalysisService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new OpenAIAnalysisService(httpClientRegistry);
+        ReflectionTestUtils.setField(service, "verdictCacheService", verdictCacheService);
+        ReflectionTestUtils.setField(service, "cascadeEnabled", true);
+        ReflectionTestUtils.setField(service, "smallModel", SMALL);
+        ReflectionTestUtils.setField(service, "largeModel", LARGE);
+        ReflectionTestUtils.setField(service, "smallMaxTokens", 400);
+        ReflectionTestUtils.setField(service, "largeMaxTokens", 500);
+        ReflectionTestUtils.setField(service, "minConfidence", 0.85);
+        ReflectionTestUtils.setField(service, "recheckNonCompliant", true);
+
+        when(verdictCacheService.buildKey(anyString(), anyString(), anyString()))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void confidentCompliantDraftIsKept() {
+        answers(SMALL, verdict(true, 0.95));
+
+        OpenAIAnalysisService.ComplianceAnalysisResult result = analyze();
+
+        assertThat(result.getModel()).isEqualTo(SMALL);
+        assertThat(result.isOverallCompliant()).isTrue();
+        verify(verdictCacheService, never()).lookup(LARGE);
+        assertThat(service.getCascadeStats()).containsEntry("smallAccepted", 1L);
+    }
+
+    @Test
+    void draftAtTheThresholdIsKept() {
+        answers(SMALL, verdict(true, 0.85));
+
+        assertThat(analyze().getModel()).isEqualTo(SMALL);
+    }
+
+    @Test
+    void lowConfidenceDraftIsEscalated() {
+        answers(SMALL, verdict(true, 0.6));
+        answers(LARGE, verdict(false, 0.9));
+
+        OpenAIAnalysisService.ComplianceAnalysisResult result = analyze();
+
+        assertThat(result.getModel()).isEqualTo(LARGE);
+        assertThat(result.isOverallCompliant()).isFalse();
+        assertThat(service.getCascadeStats()).containsEntry("escalatedLowConfidence", 1L);
+    }
+
+    @Test
+    void draftWithoutConfidenceIsEscalated() {
+        answers(SMALL, verdict(true, null));
+        answers(LARGE, verdict(true, 0.7));
+
+        assertThat(analyze().getModel()).isEqualTo(LARGE);
+    }
+
+    @Test
+    void confidentNonCompliantDraftIsRechecked() {
+        answers(SMALL, verdict(false, 0.99));
+        answers(LARGE, verdict(true, 0.9));
+
+        OpenAIAnalysisService.ComplianceAnalysisResult result = analyze();
+
+        assertThat(result.getModel()).isEqualTo(LARGE);
+        assertThat(result.isOverallCompliant()).isTrue();
+        assertThat(service.getCascadeStats()).containsEntry("escalatedNonCompliant", 1L);
+    }
+
+    @Test
+    void confidentNonCompliantDraftIsKeptWithoutRecheck() {
+        ReflectionTestUtils.setField(service, "recheckNonCompliant", false);
+        answers(SMALL, verdict(false, 0.99));
+
+        OpenAIAnalysisService.ComplianceAnalysisResult result = analyze();
+
+        assertThat(result.getModel()).isEqualTo(SMALL);
+        assertThat(result.isOverallCompliant()).isFalse();
+    }
+
+    @Test
+    void smallModelFailureIsEscalated() {
+        when(verdictCacheService.lookup(SMALL)).thenThrow(new IllegalStateException("cache unavailable"));
+        answers(LARGE, verdict(true, 0.9));
+
+        assertThat(analyze().getModel()).isEqualTo(LARGE);
+        assertThat(service.getCascadeStats()).containsEntry("smallFailures", 1L);
+    }
+
+    @Test
+    void disabledCascadeAsksOnlyTheLargeModel() {
+        ReflectionTestUtils.setField(service, "cascadeEnabled", false);
+        answers(LARGE, verdict(true, 0.5));
+
+        assertThat(analyze().getModel()).isEqualTo(LARGE);
+        verify(verdictCacheService, never()).lookup(SMALL);
+    }
+
+    private OpenAIAnalysisService.ComplianceAnalysisResult analyze() {
+        return service.analyzeAdCompliance("Affordable dental implants for seniors", "Implant prices explained", null, false);
+    }
+
+    private void answers(String model, String response) {
+        when(verdictCacheService.lookup(model)).thenReturn(Optional.of(response));
+    }
+
+    private static String verdict(boolean compliant, Double confidence) {
+        return "{\"adCreativeCompliant\":" + compliant + ",\"adCreativeReason\":\"-\",\"landingPageRelevant\":true," +
+               "\"landingPageReason\":\"Relevant\",\"racRelevant\":true,\"racReason\":\"RAC analysis turned off\"," +
+               "\"overallCompliant\":" + compliant + (confidence != null ? ",\"confidence\":" + confidence : "") + "}";
+    }
+}